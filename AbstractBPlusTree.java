@@ -0,0 +1,682 @@
+import java.util.Arrays;
+
+/**
+ * B+ tree engine shared by the B+ trees of other key and value types than {@link bplustree}.
+ * <p>
+ * The engine holds the node structure and all of the split, borrow and merge logic, while subclasses own the key
+ * and value storage: every node keeps its keys, and every Leaf Node its values, in an array created by the subclass
+ * (for example a long[] for long keys), so keys and values of primitive types are never boxed. The engine moves
+ * entries with {@link System#arraycopy(Object, int, Object, int, int)}, which works on any array type, and compares
+ * keys only through a {@link SearchKey}, which the subclass creates for the key of an operation.
+ * <p>
+ * Subclasses with their own Leaf Node encoding, such as the prefix compressed leaves of {@link BytesBPlusTree},
+ * override the Leaf Node hooks: {@link #createLeafNode()}, {@link #compareKeyInLeafNode(LeafNode, int, SearchKey)},
+ * {@link #findLowerBoundIndex(LeafNode, SearchKey)}, {@link #removePairAt(LeafNode, int)}, the moves of pairs
+ * between sibling Leaf Nodes, and {@link #storeSeparator(LeafNode, LeafNode, Object, int)} choosing the key which
+ * separates two Leaf Nodes in their parent.
+ * <p>
+ * Searches only read the tree: they find their key with a search key of their own, so several threads may search a
+ * tree which no thread changes. To avoid boxing the value of an insert, a subclass stores the key and value of an
+ * insert or delete in fields of its own, the staged pair, and then calls the engine method, for example
+ * {@link #insertStagedPair(SearchKey)}. The engine calls back to {@link #insertStagedPairAt(LeafNode, int)}, which
+ * every subclass implements, to store the staged pair.
+ * <p>
+ * Nodes have the same capacity and rebalancing rules as in {@link bplustree}: a degree m tree has at most m children
+ * per Internal Node and m - 1 key value pairs per Leaf Node, and a node is rebalanced by borrowing from or merging
+ * with a sibling sharing its parent when it falls below half full. Like {@link ConcurrentBPlusTree}, keys are unique
+ * and inserting an existing key replaces its value. Trees are not thread-safe while they are changed.
+ * <p>
+ * {@link bplustree}, {@link ConcurrentBPlusTree}, {@link CowBPlusTree} and {@link PagedBPlusTree} keep their own
+ * node code: they allow duplicate keys, latch nodes, copy paths or store nodes in pages, which this engine does
+ * not do.
+ */
+public abstract class AbstractBPlusTree {
+    public final int degree;
+    public final int internalNodeMinimumDegree;
+    public final int internalNodeMaximumDegree;
+    public final int minimumDataInLeafNode;
+    public final int maximumDataInLeafNode;
+    public final int midPointIndex;
+    protected InternalNode root;
+    protected LeafNode firstLeafNode;
+    protected long size;
+    // One slot key array receiving the separator of a Leaf Node split
+    private Object separator;
+
+    /**
+     * Constructs an empty B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    protected AbstractBPlusTree(int degree) {
+        if (degree < 3) {
+            throw new IllegalArgumentException("Degree must be at least 3: " + degree);
+        }
+        this.degree = degree;
+        this.internalNodeMaximumDegree = degree;
+        this.internalNodeMinimumDegree = (int) Math.ceil((double) degree / (double) 2);
+        this.maximumDataInLeafNode = degree - 1;
+        this.minimumDataInLeafNode = (int) Math.ceil((double) degree / (double) 2) - 1;
+        this.midPointIndex = (int) Math.ceil((double) (degree + 1) / (double) 2) - 1;
+    }
+
+    /**
+     * Key of a search, insert or delete, compared with the keys of nodes. Subclasses implement it for their key
+     * type, holding the key in a field so that primitive keys are not boxed.
+     */
+    protected interface SearchKey {
+
+        /**
+         * This method compares the key with a key of a node.
+         *
+         * @param keys  array of keys of a node
+         * @param index index of the key to be compared
+         * @return a negative number, zero or a positive number if the key is less than, equal to or greater
+         * than the key at the index
+         */
+        int compareTo(Object keys, int index);
+    }
+
+    /**
+     * Base class of tree nodes holding count keys in an array created by the subclass.
+     */
+    protected abstract static class Node {
+        Object keys;
+        int count;
+        InternalNode parent;
+    }
+
+    /**
+     * Leaf Node holding count key value pairs in increasing order of keys. The arrays have room for one pair more
+     * than the maximum number of pairs so that an overfull leaf can be split.
+     */
+    protected static class LeafNode extends Node {
+        Object values;
+        LeafNode leftSibling;
+        LeafNode rightSibling;
+
+        /**
+         * Getter Method to get the array of keys of Leaf Node. Only the first count entries are valid.
+         *
+         * @return array of keys of Leaf Node
+         */
+        public Object getKeys() {
+            return keys;
+        }
+
+        /**
+         * Getter Method to get the array of values of Leaf Node. Only the first count entries are valid.
+         *
+         * @return array of values of Leaf Node
+         */
+        public Object getValues() {
+            return values;
+        }
+
+        /**
+         * Getter Method to get number of Key Value pairs in Leaf Node.
+         *
+         * @return number of Key Value pairs in Leaf Node
+         */
+        public int getNumberOfPairs() {
+            return count;
+        }
+
+        /**
+         * Getter Method to get right sibling in DLL of Leaf Node.
+         *
+         * @return right sibling in DLL of Leaf Node
+         */
+        public LeafNode getRightSibling() {
+            return rightSibling;
+        }
+    }
+
+    /**
+     * Internal Node holding count keys and count + 1 child pointers. The arrays have room for one child more than
+     * the maximum degree so that an overfull node can be split.
+     */
+    protected static final class InternalNode extends Node {
+        Node[] children;
+    }
+
+    /**
+     * This method creates an array for the keys of a node.
+     *
+     * @param length length of the array
+     * @return array of the key type, for example a long[]
+     */
+    protected abstract Object newKeyArray(int length);
+
+    /**
+     * This method creates an array for the values of a Leaf Node.
+     *
+     * @param length length of the array
+     * @return array of the value type, for example a double[]
+     */
+    protected abstract Object newValueArray(int length);
+
+    /**
+     * This method stores the staged value at an index of the array of values of a Leaf Node,
+     * replacing the value of an existing key.
+     *
+     * @param values array of values of a Leaf Node
+     * @param index  index to store the value at
+     */
+    protected abstract void storeStagedValue(Object values, int index);
+
+    /**
+     * This method creates an empty Leaf Node. The engine creates its key and value arrays unless the
+     * Leaf Node has them already.
+     *
+     * @return new Leaf Node
+     */
+    protected LeafNode createLeafNode() {
+        return new LeafNode();
+    }
+
+    /**
+     * This method compares a key with a key of a Leaf Node.
+     *
+     * @param leafNode Leaf Node holding the key
+     * @param index    index of the key to be compared
+     * @param key      key to be compared
+     * @return a negative number, zero or a positive number if the key is less than, equal to or greater
+     * than the key at the index
+     */
+    protected int compareKeyInLeafNode(LeafNode leafNode, int index, SearchKey key) {
+        return key.compareTo(leafNode.keys, index);
+    }
+
+    /**
+     * This method inserts the staged key and value at an index of a Leaf Node having room for one more pair,
+     * shifting the pairs from the index one position to the right.
+     *
+     * @param leafNode Leaf Node to insert into
+     * @param index    index of the new pair
+     */
+    protected abstract void insertStagedPairAt(LeafNode leafNode, int index);
+
+    /**
+     * This method makes room for one pair at an index of a Leaf Node having room for one more pair, shifting the
+     * pairs from the index one position to the right and counting the new pair. The caller stores the pair at the
+     * index.
+     *
+     * @param leafNode Leaf Node to make room in
+     * @param index    index of the new pair
+     */
+    protected void shiftPairsRight(LeafNode leafNode, int index) {
+        System.arraycopy(leafNode.keys, index, leafNode.keys, index + 1, leafNode.count - index);
+        System.arraycopy(leafNode.values, index, leafNode.values, index + 1, leafNode.count - index);
+        leafNode.count++;
+    }
+
+    /**
+     * This method removes the pair at an index of a Leaf Node, shifting the pairs after it one position to the left.
+     *
+     * @param leafNode Leaf Node to remove from
+     * @param index    index of the pair to be removed
+     */
+    protected void removePairAt(LeafNode leafNode, int index) {
+        removeEntry(leafNode.keys, index, leafNode.count);
+        removeEntry(leafNode.values, index, leafNode.count);
+        leafNode.count--;
+    }
+
+    /**
+     * This method moves the last pairs of a Leaf Node to the front of its right sibling.
+     *
+     * @param left   Leaf Node giving its last pairs
+     * @param right  right sibling of left receiving the pairs, it has room for them
+     * @param length number of pairs to be moved
+     */
+    protected void moveLastPairsToRight(LeafNode left, LeafNode right, int length) {
+        System.arraycopy(right.keys, 0, right.keys, length, right.count);
+        System.arraycopy(right.values, 0, right.values, length, right.count);
+        moveEntries(left.keys, left.count - length, right.keys, 0, length);
+        moveEntries(left.values, left.count - length, right.values, 0, length);
+        left.count -= length;
+        right.count += length;
+    }
+
+    /**
+     * This method moves the first pairs of a Leaf Node to the end of its left sibling.
+     *
+     * @param left   Leaf Node receiving the pairs, it has room for them
+     * @param right  right sibling of left giving its first pairs
+     * @param length number of pairs to be moved
+     */
+    protected void moveFirstPairsToLeft(LeafNode left, LeafNode right, int length) {
+        moveEntries(right.keys, 0, left.keys, left.count, length);
+        moveEntries(right.values, 0, left.values, left.count, length);
+        System.arraycopy(right.keys, length, right.keys, 0, right.count - length);
+        System.arraycopy(right.values, length, right.values, 0, right.count - length);
+        clearEntries(right.keys, right.count - length, length);
+        clearEntries(right.values, right.count - length, length);
+        left.count += length;
+        right.count -= length;
+    }
+
+    /**
+     * This method stores the key separating two sibling Leaf Nodes into the keys of an Internal Node.
+     * The separator must be greater than the last key of left and less than or equal to the first key of right;
+     * by default it is the first key of right.
+     *
+     * @param left  left Leaf Node
+     * @param right right sibling of left
+     * @param keys  array of keys of an Internal Node
+     * @param index index to store the separator at
+     */
+    protected void storeSeparator(LeafNode left, LeafNode right, Object keys, int index) {
+        System.arraycopy(right.keys, 0, keys, index, 1);
+    }
+
+    /**
+     * Getter Method to get the number of key value pairs in the tree.
+     *
+     * @return number of key value pairs
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Getter Method to get the first Leaf Node, the start of the linked list of Leaf Nodes.
+     *
+     * @return first Leaf Node, null if the tree is empty
+     */
+    protected LeafNode getFirstLeafNode() {
+        return firstLeafNode;
+    }
+
+    /**
+     * This method is used to get the leaf node which would hold a key.
+     *
+     * @param key key to be found
+     * @return Leaf Node for the key, null if the tree is empty
+     */
+    protected final LeafNode findLeafNode(SearchKey key) {
+        if (root == null) {
+            return firstLeafNode;
+        }
+        Node node = root;
+        while (node instanceof InternalNode) {
+            // Number of keys less than or equal to the key is the index of the child to follow
+            int low = 0;
+            int high = node.count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key.compareTo(node.keys, mid) >= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            node = ((InternalNode) node).children[low];
+        }
+        return (LeafNode) node;
+    }
+
+    /**
+     * This method returns the index of the first pair of a Leaf Node whose key is greater than or equal to a key.
+     *
+     * @param leafNode Leaf Node to be searched
+     * @param key      key to be found
+     * @return index of the first pair whose key is not less than the key, count if there is none
+     */
+    protected int findLowerBoundIndex(LeafNode leafNode, SearchKey key) {
+        int low = 0;
+        int high = leafNode.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeyInLeafNode(leafNode, mid, key) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns the index of a key in its Leaf Node.
+     *
+     * @param leafNode Leaf Node for the key, as returned by {@link #findLeafNode(SearchKey)}
+     * @param key      key to be found
+     * @return index of the key, -1 if the key is not present
+     */
+    protected final int findIndex(LeafNode leafNode, SearchKey key) {
+        if (leafNode == null) {
+            return -1;
+        }
+        int index = findLowerBoundIndex(leafNode, key);
+        return index < leafNode.count && compareKeyInLeafNode(leafNode, index, key) == 0 ? index : -1;
+    }
+
+    /**
+     * This Method is used to insert the staged key value pair in the B+ Tree, replacing the value if the key
+     * is present. An overfull Leaf Node is split and the splits propagate up to the root.
+     *
+     * @param stagedKey search key of the staged key
+     * @return true if the key was inserted, false if the value of an existing key was replaced
+     */
+    protected final boolean insertStagedPair(SearchKey stagedKey) {
+        // Empty Tree. Create a new Leaf node
+        if (firstLeafNode == null) {
+            firstLeafNode = newLeafNode();
+        }
+        LeafNode leafNode = findLeafNode(stagedKey);
+        int index = findLowerBoundIndex(leafNode, stagedKey);
+        if (index < leafNode.count && compareKeyInLeafNode(leafNode, index, stagedKey) == 0) {
+            storeStagedValue(leafNode.values, index);
+            return false;
+        }
+        insertStagedPairAt(leafNode, index);
+        size++;
+
+        // Leaf arrays have room for one extra pair. Split the overfull node
+        if (leafNode.count > maximumDataInLeafNode) {
+            splitLeafNode(leafNode);
+        }
+        return true;
+    }
+
+    /**
+     * This method splits an overfull Leaf Node on the midpoint index, links the new Leaf Node after it
+     * and adds the new Leaf Node to the parent.
+     */
+    private void splitLeafNode(LeafNode leafNode) {
+        LeafNode secondHalf = newLeafNode();
+        moveLastPairsToRight(leafNode, secondHalf, leafNode.count - midPointIndex);
+
+        // adjust the left and right siblings
+        secondHalf.rightSibling = leafNode.rightSibling;
+        if (secondHalf.rightSibling != null) {
+            secondHalf.rightSibling.leftSibling = secondHalf;
+        }
+        leafNode.rightSibling = secondHalf;
+        secondHalf.leftSibling = leafNode;
+
+        if (separator == null) {
+            separator = newKeyArray(1);
+        }
+        storeSeparator(leafNode, secondHalf, separator, 0);
+        insertIntoParent(leafNode, separator, 0, secondHalf);
+    }
+
+    /**
+     * This method splits an overfull Internal Node on the midpoint index. The key at the midpoint index
+     * moves up to the parent, keys and child pointers after it move to a new Internal Node.
+     */
+    private void splitInternalNode(InternalNode internalNode) {
+        InternalNode sibling = newInternalNode();
+        int secondHalfKeys = internalNode.count - midPointIndex - 1;
+        System.arraycopy(internalNode.keys, midPointIndex + 1, sibling.keys, 0, secondHalfKeys);
+        System.arraycopy(internalNode.children, midPointIndex + 1, sibling.children, 0, secondHalfKeys + 1);
+        sibling.count = secondHalfKeys;
+        for (int i = 0; i <= secondHalfKeys; i++) {
+            sibling.children[i].parent = sibling;
+        }
+        internalNode.count = midPointIndex;
+
+        insertIntoParent(internalNode, internalNode.keys, midPointIndex, sibling);
+        clearEntries(internalNode.keys, midPointIndex, secondHalfKeys + 1);
+        clearEntries(internalNode.children, midPointIndex + 1, secondHalfKeys + 1);
+    }
+
+    /**
+     * This method adds a new right sibling of a node to the parent of the node, after the node, creating a new root
+     * if the node has no parent. The parent is split if it becomes overfull.
+     *
+     * @param node           node which was split
+     * @param separatorKeys  array holding the key separating the node from its new sibling
+     * @param separatorIndex index of the separating key in the array
+     * @param sibling        new right sibling of the node
+     */
+    private void insertIntoParent(Node node, Object separatorKeys, int separatorIndex, Node sibling) {
+        InternalNode parent = node.parent;
+        // Node has no parent (root node). Create a new parent and set it as new root node
+        if (parent == null) {
+            parent = newInternalNode();
+            parent.children[0] = node;
+            node.parent = parent;
+            root = parent;
+        }
+        int childIndex = findChildIndex(parent, node);
+        System.arraycopy(parent.keys, childIndex, parent.keys, childIndex + 1, parent.count - childIndex);
+        System.arraycopy(parent.children, childIndex + 1, parent.children, childIndex + 2,
+                parent.count - childIndex);
+        System.arraycopy(separatorKeys, separatorIndex, parent.keys, childIndex, 1);
+        parent.children[childIndex + 1] = sibling;
+        sibling.parent = parent;
+        parent.count++;
+
+        //If the Node is overfull. Split the Node
+        if (parent.count + 1 > internalNodeMaximumDegree) {
+            splitInternalNode(parent);
+        }
+    }
+
+    /**
+     * This method is used to delete the staged key from the B+ Tree.
+     * If the Leaf Node becomes deficient it borrows a pair from a sibling or merges with a sibling,
+     * and deficient Internal Nodes are adjusted the same way up to the root.
+     *
+     * @param stagedKey search key of the staged key
+     * @return true if the key was deleted, false if it is not present
+     */
+    protected final boolean deleteStagedKey(SearchKey stagedKey) {
+        LeafNode leafNode = findLeafNode(stagedKey);
+        int index = findIndex(leafNode, stagedKey);
+        if (index < 0) {
+            return false;
+        }
+        removePairAt(leafNode, index);
+        size--;
+
+        // Empty Tree
+        if (root == null) {
+            if (leafNode.count == 0) {
+                firstLeafNode = null;
+            }
+        }
+        // Node is deficient
+        else if (leafNode.count < minimumDataInLeafNode) {
+            adjustLeafNode(leafNode);
+        }
+        return true;
+    }
+
+    /**
+     * This method rebalances a deficient Leaf Node by borrowing a pair from a sibling with the same parent,
+     * or else by merging with such a sibling.
+     */
+    private void adjustLeafNode(LeafNode leafNode) {
+        InternalNode parent = leafNode.parent;
+        int childIndex = findChildIndex(parent, leafNode);
+        LeafNode left = childIndex > 0 ? (LeafNode) parent.children[childIndex - 1] : null;
+        LeafNode right = childIndex < parent.count ? (LeafNode) parent.children[childIndex + 1] : null;
+
+        // It can borrow from Left sibling. Its last pair becomes the first pair and the separator changes
+        if (left != null && left.count > minimumDataInLeafNode) {
+            moveLastPairsToRight(left, leafNode, 1);
+            storeSeparator(left, leafNode, parent.keys, childIndex - 1);
+        }
+        // It can borrow from Right sibling. Its first pair becomes the last pair and the separator changes
+        else if (right != null && right.count > minimumDataInLeafNode) {
+            moveFirstPairsToLeft(leafNode, right, 1);
+            storeSeparator(leafNode, right, parent.keys, childIndex);
+        }
+        // It can merge with Left sibling
+        else if (left != null) {
+            mergeLeafNodes(left, leafNode);
+            removeFromInternalNode(parent, childIndex - 1);
+        }
+        // It can merge with Right sibling
+        else if (right != null) {
+            mergeLeafNodes(leafNode, right);
+            removeFromInternalNode(parent, childIndex);
+        }
+
+        // Adjust parent Internal Node if it is deficient
+        if (parent == root ? parent.count == 0 : parent.count + 1 < internalNodeMinimumDegree) {
+            adjustInternalNode(parent);
+        }
+    }
+
+    /**
+     * This method moves all pairs of a Leaf Node into its left sibling and unlinks it.
+     */
+    private void mergeLeafNodes(LeafNode left, LeafNode right) {
+        moveFirstPairsToLeft(left, right, right.count);
+
+        // Adjust left and right siblings
+        left.rightSibling = right.rightSibling;
+        if (left.rightSibling != null) {
+            left.rightSibling.leftSibling = left;
+        }
+    }
+
+    /**
+     * This method is used to adjust an Internal Node when it becomes deficient.
+     * 1. If it is the root and is left with one child, the child becomes the root,
+     * or the tree is left with a single Leaf Node and has no root
+     * 2. If it can borrow a child from a sibling with the same parent, it borrows it through the parent
+     * 3. Else it merges with a sibling and the separating key of the parent moves down into the merged node
+     * <p>
+     * It adjusts from the node up to the root.
+     *
+     * @param node node to be adjusted
+     */
+    private void adjustInternalNode(InternalNode node) {
+        if (node == root) {
+            Node child = node.children[0];
+            root = child instanceof InternalNode ? (InternalNode) child : null;
+            child.parent = null;
+            return;
+        }
+        InternalNode parent = node.parent;
+        int childIndex = findChildIndex(parent, node);
+        InternalNode left = childIndex > 0 ? (InternalNode) parent.children[childIndex - 1] : null;
+        InternalNode right = childIndex < parent.count ? (InternalNode) parent.children[childIndex + 1] : null;
+
+        // It can borrow from Left sibling. The parent key moves down, the last key of sibling moves up
+        if (left != null && left.count + 1 > internalNodeMinimumDegree) {
+            System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+            System.arraycopy(node.children, 0, node.children, 1, node.count + 1);
+            System.arraycopy(parent.keys, childIndex - 1, node.keys, 0, 1);
+            node.children[0] = left.children[left.count];
+            node.children[0].parent = node;
+            node.count++;
+            moveEntries(left.keys, left.count - 1, parent.keys, childIndex - 1, 1);
+            left.children[left.count] = null;
+            left.count--;
+        }
+        // It can borrow from Right sibling. The parent key moves down, the first key of sibling moves up
+        else if (right != null && right.count + 1 > internalNodeMinimumDegree) {
+            System.arraycopy(parent.keys, childIndex, node.keys, node.count, 1);
+            node.children[node.count + 1] = right.children[0];
+            node.children[node.count + 1].parent = node;
+            node.count++;
+            System.arraycopy(right.keys, 0, parent.keys, childIndex, 1);
+            removeEntry(right.keys, 0, right.count);
+            removeEntry(right.children, 0, right.count + 1);
+            right.count--;
+        }
+        // It can merge with Left sibling
+        else if (left != null) {
+            mergeInternalNodes(left, node, childIndex - 1);
+        }
+        // It can merge with Right sibling
+        else if (right != null) {
+            mergeInternalNodes(node, right, childIndex);
+        }
+
+        // Recursively adjust parent Internal Node if it is deficient
+        if (parent == root ? parent.count == 0 : parent.count + 1 < internalNodeMinimumDegree) {
+            adjustInternalNode(parent);
+        }
+    }
+
+    /**
+     * This method moves the separating key of the parent and all keys and children of an Internal Node
+     * into its left sibling and removes the node from the parent.
+     */
+    private void mergeInternalNodes(InternalNode left, InternalNode right, int separatorIndex) {
+        InternalNode parent = left.parent;
+        System.arraycopy(parent.keys, separatorIndex, left.keys, left.count, 1);
+        System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+        System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+        for (int i = 0; i <= right.count; i++) {
+            right.children[i].parent = left;
+        }
+        left.count += right.count + 1;
+        removeFromInternalNode(parent, separatorIndex);
+    }
+
+    /**
+     * This method removes a key and the child pointer after it from an Internal Node.
+     */
+    private void removeFromInternalNode(InternalNode node, int keyIndex) {
+        removeEntry(node.keys, keyIndex, node.count);
+        removeEntry(node.children, keyIndex + 1, node.count + 1);
+        node.count--;
+    }
+
+    /**
+     * This method is used to search for a child in the child pointers of an Internal Node.
+     */
+    private static int findChildIndex(InternalNode parent, Node node) {
+        int index = 0;
+        while (parent.children[index] != node) {
+            index++;
+        }
+        return index;
+    }
+
+    private LeafNode newLeafNode() {
+        LeafNode leafNode = createLeafNode();
+        if (leafNode.keys == null) {
+            leafNode.keys = newKeyArray(maximumDataInLeafNode + 1);
+        }
+        if (leafNode.values == null) {
+            leafNode.values = newValueArray(maximumDataInLeafNode + 1);
+        }
+        return leafNode;
+    }
+
+    private InternalNode newInternalNode() {
+        InternalNode internalNode = new InternalNode();
+        internalNode.keys = newKeyArray(internalNodeMaximumDegree);
+        internalNode.children = new Node[internalNodeMaximumDegree + 1];
+        return internalNode;
+    }
+
+    /**
+     * This method copies entries between arrays and clears the source entries of reference arrays.
+     */
+    private static void moveEntries(Object source, int sourceIndex, Object target, int targetIndex, int length) {
+        System.arraycopy(source, sourceIndex, target, targetIndex, length);
+        if (source != target) {
+            clearEntries(source, sourceIndex, length);
+        }
+    }
+
+    /**
+     * This method removes the entry at an index of an array having count entries,
+     * shifting the entries after it one position to the left.
+     */
+    private static void removeEntry(Object array, int index, int count) {
+        System.arraycopy(array, index + 1, array, index, count - index - 1);
+        clearEntries(array, count - 1, 1);
+    }
+
+    /**
+     * This method clears entries of reference arrays, so that removed keys, values and nodes can be collected.
+     */
+    private static void clearEntries(Object array, int index, int length) {
+        if (array instanceof Object[]) {
+            Arrays.fill((Object[]) array, index, index + length, null);
+        }
+    }
+}
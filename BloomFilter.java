@@ -0,0 +1,175 @@
+import java.util.Arrays;
+
+/**
+ * Blocked Bloom filter of int keys: a set membership test which never rejects a key that was added and accepts a key
+ * that was not added with a small probability, about 1% when it holds as many keys as it was sized for.
+ * <p>
+ * The bits are split into blocks of 512 bits, one 64 byte cache line. A key picks one block from the high half of
+ * its hash and sets 7 bits in that block from the hash multiplied once more, so a test reads a single cache line.
+ * Keys cannot be removed. A filter which has had more keys added than it was sized for, removed keys included,
+ * should be built again from the keys it holds.
+ * <p>
+ * The static methods work on bare word arrays, which is what a {@link bplustree.LeafNode} keeps so that every
+ * Leaf Node carries no more than the array. An instance wraps a word array with the number of keys it was sized for
+ * and the number of keys added, for a filter over a whole tree.
+ */
+public class BloomFilter {
+    public static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = 64 * BLOCK_WORDS;
+
+    public final long[] words;
+    public final long capacity;
+    public long keys;
+
+    /**
+     * Constructs an empty filter sized for a number of keys.
+     *
+     * @param capacity number of keys the filter is sized for
+     */
+    public BloomFilter(long capacity) {
+        this.words = newWords(capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Getter Method to get the number of keys the filter is sized for.
+     *
+     * @return capacity of the filter
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter Method to get the number of keys added since the filter was built, removed keys included.
+     *
+     * @return number of keys added
+     */
+    public long getKeys() {
+        return keys;
+    }
+
+    /**
+     * Getter Method to check whether more keys were added than the filter is sized for, so that it rejects fewer
+     * missing keys than it should and is worth building again.
+     *
+     * @return true if the filter holds more keys than its capacity
+     */
+    public boolean isOverloaded() {
+        return keys > capacity;
+    }
+
+    /**
+     * This method adds a key to the filter.
+     *
+     * @param key key to be added
+     */
+    public void add(int key) {
+        add(words, key);
+        keys++;
+    }
+
+    /**
+     * This method tests a key.
+     *
+     * @param key key to be tested
+     * @return false if the key was never added, true if it may have been added
+     */
+    public boolean mightContain(int key) {
+        return mightContain(words, key);
+    }
+
+    /**
+     * This method allocates the words of an empty filter sized for a number of keys, at least one block.
+     *
+     * @param capacity number of keys the filter is sized for
+     * @return words of the filter
+     */
+    public static long[] newWords(long capacity) {
+        long blocks = Math.max(1, (capacity * BITS_PER_KEY + BLOCK_BITS - 1) / BLOCK_BITS);
+        if (blocks > Integer.MAX_VALUE / BLOCK_WORDS) {
+            throw new IllegalArgumentException("capacity is too large for a filter: " + capacity);
+        }
+        return new long[(int) blocks * BLOCK_WORDS];
+    }
+
+    /**
+     * This method removes all keys from the words of a filter.
+     *
+     * @param words words of the filter
+     */
+    public static void clear(long[] words) {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * This method adds a key to the words of a filter.
+     *
+     * @param words words of the filter
+     * @param key   key to be added
+     */
+    public static void add(long[] words, int key) {
+        long hash = hash(key);
+        int block = block(words, hash);
+        long bits = hash * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (bits >>> (55 - 9 * i)) & (BLOCK_BITS - 1);
+            words[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * This method tests a key against the words of a filter.
+     *
+     * @param words words of the filter
+     * @param key   key to be tested
+     * @return false if the key was never added, true if it may have been added
+     */
+    public static boolean mightContain(long[] words, int key) {
+        long hash = hash(key);
+        int block = block(words, hash);
+        long bits = hash * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (bits >>> (55 - 9 * i)) & (BLOCK_BITS - 1);
+            if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method adds all keys of a filter to another filter of the same size.
+     *
+     * @param words words of the filter receiving the keys
+     * @param other words of the filter whose keys are added
+     */
+    public static void addAll(long[] words, long[] other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other[i];
+        }
+    }
+
+    /**
+     * This method returns the index of the first word of the block of a key. The high 32 bits of the hash are
+     * mapped onto the blocks with a multiply and shift instead of a division.
+     */
+    private static int block(long[] words, long hash) {
+        return (int) (((hash >>> 32) * (words.length / BLOCK_WORDS)) >>> 32) * BLOCK_WORDS;
+    }
+
+    /**
+     * This method mixes the bits of a key into a 64 bit hash, with the finalizer of MurmurHash3.
+     */
+    private static long hash(int key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
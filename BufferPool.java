@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Buffer pool caching fixed-size pages of a file in a bounded number of frames.
+ * <p>
+ * Pages are read and written through a {@link FileChannel}. A page is pinned while it is used and unpinned with a
+ * flag telling whether it was modified. When all frames are in use, an unpinned frame is chosen with the CLOCK
+ * algorithm (a frame used since the last sweep of the clock hand gets a second chance) and, if its page is dirty,
+ * the page is written back before the frame is reused. {@link #flush()} writes back all dirty pages.
+ * <p>
+ * Note that this implementation is not synchronized.
+ */
+public class BufferPool {
+    private static final int NO_PAGE = -1;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Frame[] frames;
+    private int clockHand;
+    private int pageCount;
+
+    // Open addressing table from page id to frame index, linear probing with backward shift deletion
+    private final int[] tablePages;
+    private final int[] tableFrames;
+    private final int tableMask;
+
+    public long hits;
+    public long misses;
+    public long evictions;
+    public long pageWrites;
+
+    /**
+     * Frame of the buffer pool holding one page.
+     */
+    public static final class Frame {
+        public final ByteBuffer buffer;
+        public int pageId = NO_PAGE;
+        public int pinCount;
+        public boolean dirty;
+        public boolean referenced;
+
+        Frame(int pageSize) {
+            this.buffer = ByteBuffer.allocate(pageSize);
+        }
+    }
+
+    /**
+     * Constructs a Buffer Pool over a file of fixed-size pages.
+     *
+     * @param channel    channel of the file holding the pages
+     * @param pageSize   size of a page in bytes
+     * @param pageBudget maximum number of pages kept in memory
+     * @throws IOException if the size of the file cannot be read
+     */
+    public BufferPool(FileChannel channel, int pageSize, int pageBudget) throws IOException {
+        if (pageBudget < 4) {
+            throw new IllegalArgumentException("Page budget must be at least 4 pages: " + pageBudget);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.pageCount = (int) (channel.size() / pageSize);
+        this.frames = new Frame[pageBudget];
+        for (int i = 0; i < pageBudget; i++) {
+            frames[i] = new Frame(pageSize);
+        }
+        int tableSize = Integer.highestOneBit(pageBudget * 2 - 1) << 1;
+        this.tablePages = new int[tableSize];
+        this.tableFrames = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        Arrays.fill(tablePages, NO_PAGE);
+    }
+
+    /**
+     * Getter Method to get the size of a page.
+     *
+     * @return size of a page in bytes
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Getter Method to get the number of pages of the file, including pages not yet written back.
+     *
+     * @return number of pages
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * This method pins a page in a frame, reading it from the file if it is not in the pool.
+     *
+     * @param pageId id of the page
+     * @return frame holding the page
+     * @throws IOException if the page cannot be read or an evicted page cannot be written back
+     */
+    public Frame pin(int pageId) throws IOException {
+        int frameIndex = lookup(pageId);
+        Frame frame;
+        if (frameIndex >= 0) {
+            hits++;
+            frame = frames[frameIndex];
+        } else {
+            misses++;
+            frameIndex = victim();
+            frame = frames[frameIndex];
+            frame.buffer.clear();
+            long position = (long) pageId * pageSize;
+            while (frame.buffer.hasRemaining()) {
+                if (channel.read(frame.buffer, position + frame.buffer.position()) < 0) {
+                    // Page beyond the end of the file reads as zeros
+                    Arrays.fill(frame.buffer.array(), frame.buffer.position(), pageSize, (byte) 0);
+                    break;
+                }
+            }
+            assign(frame, frameIndex, pageId);
+        }
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame;
+    }
+
+    /**
+     * This method appends a new zeroed page to the file and pins it. The page is written back on eviction or flush.
+     *
+     * @return frame holding the new page
+     * @throws IOException if an evicted page cannot be written back
+     */
+    public Frame allocate() throws IOException {
+        int frameIndex = victim();
+        Frame frame = frames[frameIndex];
+        Arrays.fill(frame.buffer.array(), (byte) 0);
+        assign(frame, frameIndex, pageCount++);
+        frame.dirty = true;
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame;
+    }
+
+    /**
+     * This method unpins a page.
+     *
+     * @param frame frame returned by pin or allocate
+     * @param dirty true if the page was modified while pinned
+     */
+    public void unpin(Frame frame, boolean dirty) {
+        frame.pinCount--;
+        frame.dirty |= dirty;
+    }
+
+    /**
+     * This method writes back all dirty pages and forces them to the storage device.
+     *
+     * @throws IOException if a page cannot be written
+     */
+    public void flush() throws IOException {
+        for (Frame frame : frames) {
+            if (frame.pageId != NO_PAGE && frame.dirty) {
+                writeBack(frame);
+            }
+        }
+        channel.force(false);
+    }
+
+    /**
+     * This method chooses a frame to be reused with the CLOCK algorithm and writes back its page if it is dirty.
+     */
+    private int victim() throws IOException {
+        for (int sweep = 0; sweep < 2 * frames.length + 1; sweep++) {
+            int frameIndex = clockHand;
+            clockHand = (clockHand + 1) % frames.length;
+            Frame frame = frames[frameIndex];
+            if (frame.pageId == NO_PAGE) {
+                return frameIndex;
+            }
+            if (frame.pinCount > 0) {
+                continue;
+            }
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+            if (frame.dirty) {
+                writeBack(frame);
+            }
+            remove(frame.pageId);
+            frame.pageId = NO_PAGE;
+            evictions++;
+            return frameIndex;
+        }
+        throw new IllegalStateException("All " + frames.length + " buffer pool frames are pinned");
+    }
+
+    private void writeBack(Frame frame) throws IOException {
+        ByteBuffer buffer = frame.buffer.duplicate();
+        buffer.clear();
+        long position = (long) frame.pageId * pageSize;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        frame.dirty = false;
+        pageWrites++;
+    }
+
+    private void assign(Frame frame, int frameIndex, int pageId) {
+        frame.pageId = pageId;
+        frame.dirty = false;
+        int slot = slot(pageId);
+        while (tablePages[slot] != NO_PAGE) {
+            slot = (slot + 1) & tableMask;
+        }
+        tablePages[slot] = pageId;
+        tableFrames[slot] = frameIndex;
+    }
+
+    private int lookup(int pageId) {
+        int slot = slot(pageId);
+        while (tablePages[slot] != NO_PAGE) {
+            if (tablePages[slot] == pageId) {
+                return tableFrames[slot];
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private void remove(int pageId) {
+        int slot = slot(pageId);
+        while (tablePages[slot] != pageId) {
+            slot = (slot + 1) & tableMask;
+        }
+        // Backward shift deletion keeps probe sequences unbroken without tombstones
+        int hole = slot;
+        int next = (hole + 1) & tableMask;
+        while (tablePages[next] != NO_PAGE) {
+            int home = slot(tablePages[next]);
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                tablePages[hole] = tablePages[next];
+                tableFrames[hole] = tableFrames[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        tablePages[hole] = NO_PAGE;
+    }
+
+    private int slot(int pageId) {
+        int hash = pageId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & tableMask;
+    }
+}
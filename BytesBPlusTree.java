@@ -0,0 +1,441 @@
+import java.util.Arrays;
+
+/**
+ * B+ tree of byte string keys, such as callsigns and routes, and long values.
+ * <p>
+ * Keys are ordered as unsigned bytes, lexicographically, so a key is less than the keys it is a prefix of.
+ * Keys are copied when they are inserted. Inserting an existing key replaces its value.
+ * See {@link AbstractBPlusTree} for the node structure.
+ * <p>
+ * With key compression, which is the default:
+ * <ul>
+ * <li>Every Leaf Node stores the prefix common to all of its keys once, and of each key only the suffix after
+ * the prefix. A lookup compares the key with the prefix once and then compares only the suffixes.</li>
+ * <li>Internal Nodes store for two Leaf Nodes the shortest separator which is greater than the last key of the
+ * left Leaf Node and not greater than the first key of the right Leaf Node, the first key of the right Leaf
+ * Node truncated after the first byte in which they differ. Short separators give a high fanout with long
+ * keys.</li>
+ * </ul>
+ * Without key compression every Leaf Node stores the full keys and separators are full keys.
+ */
+public class BytesBPlusTree extends AbstractBPlusTree {
+    private static final byte[] EMPTY = new byte[0];
+
+    public final boolean keyCompression;
+    // Key and value of the insert or delete running, searches use a search key of their own
+    private final BytesKey stagedKey = new BytesKey();
+    private long stagedValue;
+
+    /**
+     * Search key of a byte string key.
+     */
+    private static final class BytesKey implements SearchKey {
+        byte[] key;
+
+        BytesKey() {
+        }
+
+        BytesKey(byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Object keys, int index) {
+            return Arrays.compareUnsigned(key, ((byte[][]) keys)[index]);
+        }
+    }
+
+    /**
+     * Callback receiving the key value pairs of a range scan in increasing order of keys.
+     */
+    public interface PairConsumer {
+
+        /**
+         * This method is called once for every key value pair.
+         *
+         * @param key   The key of the key value pair. It is a new array for every pair.
+         * @param value The value of the key value pair.
+         */
+        void accept(byte[] key, long value);
+    }
+
+    /**
+     * Leaf Node storing the keys as a prefix common to all of its keys and the suffixes of the keys after it.
+     * The suffixes are packed one after another into one byte array; the keys array of the Leaf Node is an int
+     * array holding for every key the end offset of its suffix in that byte array.
+     */
+    static final class PrefixLeafNode extends LeafNode {
+        byte[] prefix = EMPTY;
+        byte[] suffixes;
+
+        PrefixLeafNode(int capacity) {
+            keys = new int[capacity];
+            suffixes = new byte[16];
+        }
+
+        /**
+         * Getter Method to get the offset of the suffix of the key at an index in the suffixes array.
+         *
+         * @param index index of the key
+         * @return offset of the suffix
+         */
+        int getSuffixStart(int index) {
+            return index == 0 ? 0 : ((int[]) keys)[index - 1];
+        }
+
+        /**
+         * Getter Method to get the end offset of the suffix of the key at an index in the suffixes array.
+         *
+         * @param index index of the key
+         * @return end offset of the suffix, exclusive
+         */
+        int getSuffixEnd(int index) {
+            return ((int[]) keys)[index];
+        }
+
+        /**
+         * This method builds the full key at an index of Leaf Node.
+         *
+         * @param index index of the key
+         * @return a new array holding the prefix followed by the suffix of the key
+         */
+        byte[] getFullKey(int index) {
+            int start = getSuffixStart(index);
+            int length = getSuffixEnd(index) - start;
+            byte[] key = Arrays.copyOf(prefix, prefix.length + length);
+            System.arraycopy(suffixes, start, key, prefix.length, length);
+            return key;
+        }
+
+        /**
+         * This method builds all full keys of Leaf Node.
+         *
+         * @return a new array holding the full keys in increasing order
+         */
+        byte[][] getFullKeys() {
+            byte[][] fullKeys = new byte[count][];
+            for (int i = 0; i < count; i++) {
+                fullKeys[i] = getFullKey(i);
+            }
+            return fullKeys;
+        }
+
+        /**
+         * This method stores keys into Leaf Node, replacing its keys, as suffixes after a prefix they all start with.
+         *
+         * @param fullKeys keys in increasing order
+         * @param from     index of the first key to be stored
+         * @param length   number of keys to be stored
+         * @param prefix   prefix common to the keys
+         */
+        void setKeys(byte[][] fullKeys, int from, int length, byte[] prefix) {
+            int bytes = 0;
+            for (int i = from; i < from + length; i++) {
+                bytes += fullKeys[i].length - prefix.length;
+            }
+            byte[] packed = new byte[Math.max(16, bytes)];
+            int[] ends = (int[]) keys;
+            int end = 0;
+            for (int i = 0; i < length; i++) {
+                byte[] key = fullKeys[from + i];
+                System.arraycopy(key, prefix.length, packed, end, key.length - prefix.length);
+                end += key.length - prefix.length;
+                ends[i] = end;
+            }
+            this.prefix = prefix;
+            this.suffixes = packed;
+            this.count = length;
+        }
+    }
+
+    /**
+     * Constructs an empty B+ tree with key compression and the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public BytesBPlusTree(int degree) {
+        this(degree, true);
+    }
+
+    /**
+     * Constructs an empty B+ tree with the degree provided.
+     *
+     * @param degree         The degree of B+ Tree. Normally an integer greater than 2.
+     * @param keyCompression true to store leaf keys prefix compressed and truncate separators
+     */
+    public BytesBPlusTree(int degree, boolean keyCompression) {
+        super(degree);
+        this.keyCompression = keyCompression;
+    }
+
+    @Override
+    protected Object newKeyArray(int length) {
+        return new byte[length][];
+    }
+
+    @Override
+    protected Object newValueArray(int length) {
+        return new long[length];
+    }
+
+    @Override
+    protected LeafNode createLeafNode() {
+        return new PrefixLeafNode(maximumDataInLeafNode + 1);
+    }
+
+    @Override
+    protected int compareKeyInLeafNode(LeafNode leafNode, int index, SearchKey searchKey) {
+        byte[] key = ((BytesKey) searchKey).key;
+        byte[] prefix = ((PrefixLeafNode) leafNode).prefix;
+        int result = comparePrefix(key, prefix);
+        if (result != 0) {
+            return result;
+        }
+        PrefixLeafNode prefixLeafNode = (PrefixLeafNode) leafNode;
+        return Arrays.compareUnsigned(key, prefix.length, key.length, prefixLeafNode.suffixes,
+                prefixLeafNode.getSuffixStart(index), prefixLeafNode.getSuffixEnd(index));
+    }
+
+    /**
+     * This method finds the lower bound of a key comparing it with the prefix of the Leaf Node once.
+     * A key before or after all keys with the prefix belongs before the first or after the last pair, else only
+     * the suffixes are compared.
+     */
+    @Override
+    protected int findLowerBoundIndex(LeafNode leafNode, SearchKey searchKey) {
+        byte[] key = ((BytesKey) searchKey).key;
+        byte[] prefix = ((PrefixLeafNode) leafNode).prefix;
+        int result = comparePrefix(key, prefix);
+        if (result != 0) {
+            return result < 0 ? 0 : leafNode.count;
+        }
+        byte[] suffixes = ((PrefixLeafNode) leafNode).suffixes;
+        int[] ends = (int[]) leafNode.keys;
+        int low = 0;
+        int high = leafNode.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(key, prefix.length, key.length,
+                    suffixes, mid == 0 ? 0 : ends[mid - 1], ends[mid]) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method compares the start of a key with a prefix.
+     *
+     * @return zero if the key starts with the prefix, else the order of the key and the prefix
+     */
+    private static int comparePrefix(byte[] key, byte[] prefix) {
+        return Arrays.compareUnsigned(key, 0, Math.min(prefix.length, key.length), prefix, 0, prefix.length);
+    }
+
+    @Override
+    protected void storeStagedValue(Object values, int index) {
+        ((long[]) values)[index] = stagedValue;
+    }
+
+    /**
+     * This method inserts the staged pair. If the staged key does not start with the prefix of the Leaf Node,
+     * the prefix is first shortened to the part they have in common. The first key of an empty Leaf Node is its
+     * prefix.
+     */
+    @Override
+    protected void insertStagedPairAt(LeafNode leafNode, int index) {
+        byte[] key = stagedKey.key;
+        PrefixLeafNode prefixLeafNode = (PrefixLeafNode) leafNode;
+        if (keyCompression && prefixLeafNode.count == 0) {
+            prefixLeafNode.prefix = key.clone();
+        } else {
+            int prefixLength = commonPrefixLength(prefixLeafNode.prefix, key);
+            if (prefixLength < prefixLeafNode.prefix.length) {
+                prefixLeafNode.setKeys(prefixLeafNode.getFullKeys(), 0, prefixLeafNode.count,
+                        Arrays.copyOf(prefixLeafNode.prefix, prefixLength));
+            }
+        }
+
+        // Make room for the suffix and its end offset, and shift the suffixes after it
+        int[] ends = (int[]) prefixLeafNode.keys;
+        int length = key.length - prefixLeafNode.prefix.length;
+        int start = prefixLeafNode.getSuffixStart(index);
+        int used = prefixLeafNode.count == 0 ? 0 : ends[prefixLeafNode.count - 1];
+        if (used + length > prefixLeafNode.suffixes.length) {
+            prefixLeafNode.suffixes = Arrays.copyOf(prefixLeafNode.suffixes,
+                    Math.max(used + length, prefixLeafNode.suffixes.length * 3 / 2));
+        }
+        System.arraycopy(prefixLeafNode.suffixes, start, prefixLeafNode.suffixes, start + length, used - start);
+        System.arraycopy(key, prefixLeafNode.prefix.length, prefixLeafNode.suffixes, start, length);
+        for (int i = prefixLeafNode.count; i > index; i--) {
+            ends[i] = ends[i - 1] + length;
+        }
+        ends[index] = start + length;
+
+        long[] values = (long[]) prefixLeafNode.values;
+        System.arraycopy(values, index, values, index + 1, prefixLeafNode.count - index);
+        values[index] = stagedValue;
+        prefixLeafNode.count++;
+    }
+
+    @Override
+    protected void removePairAt(LeafNode leafNode, int index) {
+        PrefixLeafNode prefixLeafNode = (PrefixLeafNode) leafNode;
+        int[] ends = (int[]) prefixLeafNode.keys;
+        int start = prefixLeafNode.getSuffixStart(index);
+        int length = ends[index] - start;
+        System.arraycopy(prefixLeafNode.suffixes, ends[index], prefixLeafNode.suffixes, start,
+                ends[prefixLeafNode.count - 1] - ends[index]);
+        for (int i = index; i < prefixLeafNode.count - 1; i++) {
+            ends[i] = ends[i + 1] - length;
+        }
+
+        long[] values = (long[]) prefixLeafNode.values;
+        System.arraycopy(values, index + 1, values, index, prefixLeafNode.count - index - 1);
+        prefixLeafNode.count--;
+    }
+
+    @Override
+    protected void moveLastPairsToRight(LeafNode left, LeafNode right, int length) {
+        redistributePairs((PrefixLeafNode) left, (PrefixLeafNode) right, left.count - length);
+    }
+
+    @Override
+    protected void moveFirstPairsToLeft(LeafNode left, LeafNode right, int length) {
+        redistributePairs((PrefixLeafNode) left, (PrefixLeafNode) right, left.count + length);
+    }
+
+    /**
+     * This method redistributes the pairs of two sibling Leaf Nodes, re-encoding the keys of each Leaf Node
+     * with the prefix common to its new keys.
+     *
+     * @param left      left Leaf Node
+     * @param right     right sibling of left
+     * @param leftCount number of pairs left keeps, the rest go to right
+     */
+    private void redistributePairs(PrefixLeafNode left, PrefixLeafNode right, int leftCount) {
+        int total = left.count + right.count;
+        byte[][] fullKeys = Arrays.copyOf(left.getFullKeys(), total);
+        System.arraycopy(right.getFullKeys(), 0, fullKeys, left.count, right.count);
+        long[] values = Arrays.copyOf((long[]) left.values, total);
+        System.arraycopy(right.values, 0, values, left.count, right.count);
+
+        left.setKeys(fullKeys, 0, leftCount, commonPrefix(fullKeys, 0, leftCount));
+        System.arraycopy(values, 0, left.values, 0, leftCount);
+        right.setKeys(fullKeys, leftCount, total - leftCount, commonPrefix(fullKeys, leftCount, total - leftCount));
+        System.arraycopy(values, leftCount, right.values, 0, total - leftCount);
+    }
+
+    /**
+     * This method stores the shortest separator of two Leaf Nodes, or with key compression off
+     * the first key of right.
+     */
+    @Override
+    protected void storeSeparator(LeafNode left, LeafNode right, Object keys, int index) {
+        byte[] firstKey = ((PrefixLeafNode) right).getFullKey(0);
+        if (keyCompression) {
+            byte[] lastKey = ((PrefixLeafNode) left).getFullKey(left.count - 1);
+            // One byte more than the common prefix is greater than the last key of left
+            firstKey = Arrays.copyOf(firstKey, commonPrefixLength(lastKey, firstKey) + 1);
+        }
+        ((byte[][]) keys)[index] = firstKey;
+    }
+
+    /**
+     * This method returns the prefix common to sorted keys, which is the common prefix of the first and the last
+     * key, or an empty prefix with key compression off.
+     */
+    private byte[] commonPrefix(byte[][] sortedKeys, int from, int length) {
+        if (!keyCompression || length == 0) {
+            return EMPTY;
+        }
+        byte[] first = sortedKeys[from];
+        return Arrays.copyOf(first, commonPrefixLength(first, sortedKeys[from + length - 1]));
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b) {
+        int mismatch = Arrays.mismatch(a, b);
+        return mismatch < 0 ? a.length : mismatch;
+    }
+
+    /**
+     * This Method is used to insert a key value pair in the B+ Tree. The value of an existing key is replaced.
+     *
+     * @param key   Key to inserted, not null
+     * @param value value to inserted
+     * @return true if the key was inserted, false if the value of an existing key was replaced
+     */
+    public boolean insert(byte[] key, long value) {
+        stagedKey.key = checkKey(key);
+        stagedValue = value;
+        boolean isInserted = insertStagedPair(stagedKey);
+        stagedKey.key = null;
+        return isInserted;
+    }
+
+    /**
+     * This method is used to delete key value pair from B+ Tree whose key is provided in the arguments.
+     *
+     * @param key key of the key value pair to be deleted, not null
+     * @return true if the key was deleted, false if it is not present
+     */
+    public boolean delete(byte[] key) {
+        stagedKey.key = checkKey(key);
+        boolean isDeleted = deleteStagedKey(stagedKey);
+        stagedKey.key = null;
+        return isDeleted;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched, not null
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public long searchValue(byte[] key, long defaultValue) {
+        BytesKey searchKey = new BytesKey(checkKey(key));
+        LeafNode leafNode = findLeafNode(searchKey);
+        int index = findIndex(leafNode, searchKey);
+        return index < 0 ? defaultValue : ((long[]) leafNode.values)[index];
+    }
+
+    /**
+     * This method hands all key value pairs whose keys are in a range to a consumer, in increasing order of keys.
+     *
+     * @param lowerBound lower bound of the range, inclusive, not null
+     * @param upperBound upper bound of the range, inclusive, not null
+     * @param consumer   receives the key value pairs
+     * @return number of key value pairs in the range
+     */
+    public long searchRange(byte[] lowerBound, byte[] upperBound, PairConsumer consumer) {
+        if (upperBound == null) {
+            throw new NullPointerException("upperBound");
+        }
+        BytesKey searchKey = new BytesKey(checkKey(lowerBound));
+        PrefixLeafNode leafNode = (PrefixLeafNode) findLeafNode(searchKey);
+        int index = leafNode == null ? 0 : findLowerBoundIndex(leafNode, searchKey);
+        long count = 0;
+        for (; leafNode != null; leafNode = (PrefixLeafNode) leafNode.rightSibling, index = 0) {
+            long[] values = (long[]) leafNode.values;
+            for (; index < leafNode.count; index++) {
+                byte[] key = leafNode.getFullKey(index);
+                if (Arrays.compareUnsigned(key, upperBound) > 0) {
+                    return count;
+                }
+                consumer.accept(key, values[index]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] checkKey(byte[] key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        return key;
+    }
+}
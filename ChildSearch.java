@@ -0,0 +1,38 @@
+/**
+ * Search of the child pointer to follow for a key among the sorted keys of an Internal Node.
+ * <p>
+ * The implementation in the vector directory compares the keys with the Vector API, which is still an incubating
+ * module. It is compiled separately with --add-modules jdk.incubator.vector and is used only when the JVM is started
+ * with the module and the class is on the class path; {@link bplustree} keeps its scalar search otherwise.
+ */
+public interface ChildSearch {
+
+    /**
+     * This method returns the number of keys among the first numberOfKeys keys which are less than or equal to
+     * the key, which is the index of the child whose subtree holds the key.
+     *
+     * @param keys         The sorted keys of the node.
+     * @param numberOfKeys The number of keys of the node to be searched.
+     * @param key          The key to be found.
+     * @return index of the child pointer to follow
+     */
+    int findChildIndex(int[] keys, int numberOfKeys, int key);
+
+    /**
+     * This method returns the vectorized search if the jdk.incubator.vector module is in the boot layer and the
+     * vector classes are on the class path.
+     *
+     * @return the vectorized search, or null if it is not available
+     */
+    static ChildSearch vectorized() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (ChildSearch) Class.forName("VectorChildSearch").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Built without the vector source set
+            return null;
+        }
+    }
+}
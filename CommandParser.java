@@ -0,0 +1,358 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of input scripts of tree operations.
+ * <p>
+ * Each line holds one command: {@code Initialize(degree)}, {@code Insert(key, value)}, {@code Delete(key)},
+ * {@code Search(key)} or {@code Search(lowerBound, upperBound)}. Command names are case-insensitive, whitespace
+ * anywhere in a line is ignored and blank lines are skipped. The file is memory-mapped in windows of
+ * {@link #WINDOW_SIZE} bytes, so files of any size can be parsed. Each line is copied without whitespace into
+ * one reusable byte array and parsed from there, without creating strings.
+ * <p>
+ * Values are parsed as {@link Double#parseDouble(String)} does. Decimals with at most 18 significant digits
+ * whose power of ten is at most 22 are converted exactly with one multiplication or division; other values fall
+ * back to {@link Double#parseDouble(String)}.
+ * <p>
+ * A malformed command throws {@link IllegalArgumentException} with its line number.
+ */
+public class CommandParser implements Closeable {
+    public static final int INITIALIZE = 1;
+    public static final int INSERT = 2;
+    public static final int DELETE = 3;
+    public static final int SEARCH = 4;
+    public static final int RANGE_SEARCH = 5;
+
+    public static final int WINDOW_SIZE = 64 << 20;
+
+    private static final byte[] INITIALIZE_NAME = lowerCaseName(bplustree.INITIALIZE);
+    private static final byte[] INSERT_NAME = lowerCaseName(bplustree.INSERT);
+    private static final byte[] DELETE_NAME = lowerCaseName(bplustree.DELETE);
+    private static final byte[] SEARCH_NAME = lowerCaseName(bplustree.SEARCH);
+
+    // Powers of ten which are exact doubles
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private int cursor;
+    private long lineNumber;
+
+    private int command;
+    private int firstArgument;
+    private int secondArgument;
+    private double value;
+
+    /**
+     * Constructs a Command Parser reading a file.
+     *
+     * @param file input script
+     * @throws IOException if the file cannot be opened
+     */
+    public CommandParser(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        mapWindow(0);
+    }
+
+    /**
+     * Getter Method to get the command of the current line.
+     *
+     * @return {@link #INITIALIZE}, {@link #INSERT}, {@link #DELETE}, {@link #SEARCH} or {@link #RANGE_SEARCH}
+     */
+    public int getCommand() {
+        return command;
+    }
+
+    /**
+     * Getter Method to get the line number of the current command, starting at 1.
+     *
+     * @return line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Getter Method to get the degree of an Initialize command.
+     *
+     * @return degree
+     */
+    public int getDegree() {
+        return firstArgument;
+    }
+
+    /**
+     * Getter Method to get the key of an Insert, Delete or Search command.
+     *
+     * @return key
+     */
+    public int getKey() {
+        return firstArgument;
+    }
+
+    /**
+     * Getter Method to get the value of an Insert command.
+     *
+     * @return value
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Getter Method to get the lowerBound of a range Search command.
+     *
+     * @return lowerBound
+     */
+    public int getLowerBound() {
+        return firstArgument;
+    }
+
+    /**
+     * Getter Method to get the upperBound of a range Search command.
+     *
+     * @return upperBound
+     */
+    public int getUpperBound() {
+        return secondArgument;
+    }
+
+    /**
+     * This method parses the next command, skipping blank lines.
+     *
+     * @return false if there are no more commands
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the command is malformed
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (lineLength > 0) {
+                parseCommand();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method copies the next line without whitespace into the line array.
+     *
+     * @return false at the end of the file
+     */
+    private boolean readLine() throws IOException {
+        if (windowStart + window.position() >= fileSize) {
+            return false;
+        }
+        lineLength = 0;
+        lineNumber++;
+        while (true) {
+            if (!window.hasRemaining()) {
+                long position = windowStart + window.position();
+                if (position >= fileSize) {
+                    return true;
+                }
+                mapWindow(position);
+            }
+            byte b = window.get();
+            if (b == '\n') {
+                return true;
+            }
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B) {
+                continue;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, lineLength * 2);
+            }
+            line[lineLength++] = b;
+        }
+    }
+
+    private void mapWindow(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+    }
+
+    private void parseCommand() {
+        cursor = 0;
+        if (matchName(INSERT_NAME)) {
+            command = INSERT;
+            firstArgument = parseInt();
+            expect(',');
+            value = parseDouble();
+        } else if (matchName(SEARCH_NAME)) {
+            firstArgument = parseInt();
+            if (cursor < lineLength && line[cursor] == ',') {
+                cursor++;
+                command = RANGE_SEARCH;
+                secondArgument = parseInt();
+            } else {
+                command = SEARCH;
+            }
+        } else if (matchName(DELETE_NAME)) {
+            command = DELETE;
+            firstArgument = parseInt();
+        } else if (matchName(INITIALIZE_NAME)) {
+            command = INITIALIZE;
+            firstArgument = parseInt();
+        } else {
+            throw malformed("unknown command");
+        }
+        expect(')');
+        if (cursor != lineLength) {
+            throw malformed("unexpected text after ')'");
+        }
+    }
+
+    /**
+     * This method matches a lower case command name followed by '(' at the start of the line, ignoring case.
+     */
+    private boolean matchName(byte[] name) {
+        if (lineLength <= name.length || line[name.length] != '(') {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if ((line[i] | 0x20) != name[i]) {
+                return false;
+            }
+        }
+        cursor = name.length + 1;
+        return true;
+    }
+
+    private void expect(char c) {
+        if (cursor == lineLength || line[cursor] != c) {
+            throw malformed("expected '" + c + "'");
+        }
+        cursor++;
+    }
+
+    private int parseInt() {
+        boolean negative = false;
+        if (cursor < lineLength && (line[cursor] == '-' || line[cursor] == '+')) {
+            negative = line[cursor++] == '-';
+        }
+        int start = cursor;
+        long result = 0;
+        while (cursor < lineLength && line[cursor] >= '0' && line[cursor] <= '9') {
+            result = result * 10 + (line[cursor++] - '0');
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                throw malformed("integer out of range");
+            }
+        }
+        if (cursor == start) {
+            throw malformed("expected an integer");
+        }
+        if (negative) {
+            result = -result;
+        }
+        if (result > Integer.MAX_VALUE) {
+            throw malformed("integer out of range");
+        }
+        return (int) result;
+    }
+
+    private double parseDouble() {
+        int start = cursor;
+        while (cursor < lineLength && line[cursor] != ',' && line[cursor] != ')') {
+            cursor++;
+        }
+        if (cursor == start) {
+            throw malformed("expected a number");
+        }
+        double result = parseDecimal(start, cursor);
+        if (Double.isNaN(result) && !(cursor - start == 3 && line[start] == 'N')) {
+            // Not a plain decimal, so let the library parse it
+            try {
+                result = Double.parseDouble(new String(line, start, cursor - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed("expected a number");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method converts a decimal such as -12.5 or 1.25e3 when the conversion is exact.
+     *
+     * @return the value, or NaN if the text is not such a decimal
+     */
+    private double parseDecimal(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (line[i] == '-' || line[i] == '+') {
+            negative = line[i++] == '-';
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        for (; i < end && line[i] >= '0' && line[i] <= '9'; i++, digits++) {
+            mantissa = mantissa * 10 + (line[i] - '0');
+            significantDigits += significantDigits > 0 || mantissa > 0 ? 1 : 0;
+        }
+        if (i < end && line[i] == '.') {
+            for (i++; i < end && line[i] >= '0' && line[i] <= '9'; i++, digits++) {
+                mantissa = mantissa * 10 + (line[i] - '0');
+                significantDigits += significantDigits > 0 || mantissa > 0 ? 1 : 0;
+                exponent--;
+            }
+        }
+        if (digits == 0 || significantDigits > 18) {
+            return Double.NaN;
+        }
+        if (i < end && (line[i] == 'e' || line[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (line[i] == '-' || line[i] == '+')) {
+                negativeExponent = line[i++] == '-';
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for (; i < end && line[i] >= '0' && line[i] <= '9' && explicitExponent < 1000; i++) {
+                explicitExponent = explicitExponent * 10 + (line[i] - '0');
+            }
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        // A mantissa of up to 2^53 and a power of ten of up to 10^22 are exact, so one operation rounds correctly
+        if (i != end || mantissa > (1L << 53) || exponent < -22 || exponent > 22) {
+            return Double.NaN;
+        }
+        double result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -result : result;
+    }
+
+    private static byte[] lowerCaseName(String name) {
+        return name.toLowerCase().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed command at line " + lineNumber + ", " + reason + ": "
+                + new String(line, 0, lineLength, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.function.BiConsumer;
+
+/**
+ * B+ tree of keys of any {@link Comparable} type and values of any type, for key and value types
+ * without a primitive specialization such as {@link LongLongBPlusTree}.
+ * <p>
+ * Keys are ordered by their natural ordering and must not be null. Inserting an existing key, a key which compares
+ * equal to it, replaces its value. See {@link AbstractBPlusTree} for the node structure.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class ComparableBPlusTree<K extends Comparable<? super K>, V> extends AbstractBPlusTree {
+    // Key and value of the insert or delete running, searches use a search key of their own
+    private final ComparableKey<K> stagedKey = new ComparableKey<>();
+    private V stagedValue;
+
+    /**
+     * Search key of a Comparable key.
+     *
+     * @param <K> type of keys
+     */
+    private static final class ComparableKey<K extends Comparable<? super K>> implements SearchKey {
+        K key;
+
+        ComparableKey() {
+        }
+
+        ComparableKey(K key) {
+            this.key = key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(Object keys, int index) {
+            return key.compareTo((K) ((Object[]) keys)[index]);
+        }
+    }
+
+    /**
+     * Constructs an empty B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public ComparableBPlusTree(int degree) {
+        super(degree);
+    }
+
+    @Override
+    protected Object newKeyArray(int length) {
+        return new Comparable<?>[length];
+    }
+
+    @Override
+    protected Object newValueArray(int length) {
+        return new Object[length];
+    }
+
+    @Override
+    protected void insertStagedPairAt(LeafNode leafNode, int index) {
+        shiftPairsRight(leafNode, index);
+        ((Object[]) leafNode.keys)[index] = stagedKey.key;
+        ((Object[]) leafNode.values)[index] = stagedValue;
+    }
+
+    @Override
+    protected void storeStagedValue(Object values, int index) {
+        ((Object[]) values)[index] = stagedValue;
+    }
+
+    /**
+     * This Method is used to insert a key value pair in the B+ Tree. The value of an existing key is replaced.
+     *
+     * @param key   Key to inserted, not null
+     * @param value value to inserted
+     * @return true if the key was inserted, false if the value of an existing key was replaced
+     */
+    public boolean insert(K key, V value) {
+        stagedKey.key = checkKey(key);
+        stagedValue = value;
+        boolean isInserted = insertStagedPair(stagedKey);
+        stagedKey.key = null;
+        stagedValue = null;
+        return isInserted;
+    }
+
+    /**
+     * This method is used to delete key value pair from B+ Tree whose key is provided in the arguments.
+     *
+     * @param key key of the key value pair to be deleted, not null
+     * @return true if the key was deleted, false if it is not present
+     */
+    public boolean delete(K key) {
+        stagedKey.key = checkKey(key);
+        boolean isDeleted = deleteStagedKey(stagedKey);
+        stagedKey.key = null;
+        return isDeleted;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key key to be searched, not null
+     * @return value of the key if key is found else null
+     */
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        ComparableKey<K> searchKey = new ComparableKey<>(checkKey(key));
+        LeafNode leafNode = findLeafNode(searchKey);
+        int index = findIndex(leafNode, searchKey);
+        return index < 0 ? null : (V) ((Object[]) leafNode.values)[index];
+    }
+
+    /**
+     * This method hands all key value pairs whose keys are in a range to a consumer, in increasing order of keys.
+     *
+     * @param lowerBound lower bound of the range, inclusive, not null
+     * @param upperBound upper bound of the range, inclusive, not null
+     * @param consumer   receives the key value pairs
+     * @return number of key value pairs in the range
+     */
+    @SuppressWarnings("unchecked")
+    public long searchRange(K lowerBound, K upperBound, BiConsumer<? super K, ? super V> consumer) {
+        if (upperBound == null) {
+            throw new NullPointerException("upperBound");
+        }
+        ComparableKey<K> searchKey = new ComparableKey<>(checkKey(lowerBound));
+        LeafNode leafNode = findLeafNode(searchKey);
+        int index = leafNode == null ? 0 : findLowerBoundIndex(leafNode, searchKey);
+        long count = 0;
+        for (; leafNode != null; leafNode = leafNode.rightSibling, index = 0) {
+            Object[] keys = (Object[]) leafNode.keys;
+            Object[] values = (Object[]) leafNode.values;
+            for (; index < leafNode.count; index++) {
+                K key = (K) keys[index];
+                if (key.compareTo(upperBound) > 0) {
+                    return count;
+                }
+                consumer.accept(key, (V) values[index]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <K> K checkKey(K key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        return key;
+    }
+}
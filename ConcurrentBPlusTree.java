@@ -0,0 +1,706 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe B+ tree of int keys and double values using optimistic lock coupling.
+ * <p>
+ * Every node carries a version counter which doubles as its write latch. Readers never write to shared memory:
+ * they read the version of a node, read the node, and validate that the version did not change, restarting
+ * from the root if it did. Readers therefore traverse the tree without blocking each other or writers.
+ * Writers descend the same way and latch only the nodes they change: the leaf they modify, and for a split
+ * the node being split and its parent. Full nodes are split eagerly on the way down, so a split never
+ * has to propagate further up the tree.
+ * <p>
+ * Nodes have the same capacity as in {@link bplustree}: a degree m tree has at most m children per Internal Node
+ * and m - 1 key value pairs per Leaf Node. A delete which leaves a leaf with fewer than ceil(m / 2) - 1 pairs
+ * write latches the parent, a sibling under the same parent and the leaf, from the top down, and merges the leaf
+ * with the sibling or moves pairs from the sibling to the leaf. Internal Nodes are not rebalanced.
+ * A delete which empties a leaf removes the leaf from its parent, together with the ancestors left without children,
+ * latching the removed nodes and the ancestor they are removed from. A root left with a single child is replaced by
+ * the child. Removed nodes change their version when they are unlatched, so threads still holding them restart.
+ * Unlike {@link bplustree}, inserting an existing key replaces its value.
+ */
+public class ConcurrentBPlusTree {
+    private static final VarHandle VERSION;
+    private static final long LOCKED = 2;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(Node.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public final int degree;
+    // Fewest pairs a Leaf Node keeps after a delete, as in bplustree
+    private final int minimumPairs;
+    private volatile Node root;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Constructs an empty concurrent B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public ConcurrentBPlusTree(int degree) {
+        if (degree < 3) {
+            throw new IllegalArgumentException("Degree must be at least 3: " + degree);
+        }
+        this.degree = degree;
+        this.minimumPairs = (int) Math.ceil(degree / 2.0) - 1;
+        this.root = new LeafNode(degree - 1);
+    }
+
+    /**
+     * Base class of tree nodes holding the version latch.
+     * Bit 1 of the version is set while the node is write latched, every write latch and unlatch adds 2.
+     */
+    abstract static class Node {
+        volatile long version;
+        int count;
+
+        /**
+         * Reads the version of the node for an optimistic read.
+         *
+         * @return version of the node, -1 if the node is write latched
+         */
+        long readLock() {
+            long v = (long) VERSION.getAcquire(this);
+            return (v & LOCKED) != 0 ? -1 : v;
+        }
+
+        /**
+         * Checks that the node did not change since its version was read.
+         *
+         * @param v version returned by readLock
+         * @return true if the reads done since readLock are consistent
+         */
+        boolean validate(long v) {
+            VarHandle.acquireFence();
+            return (long) VERSION.getOpaque(this) == v;
+        }
+
+        /**
+         * Upgrades an optimistic read to a write latch if the node did not change since its version was read.
+         *
+         * @param v version returned by readLock
+         * @return true if the node is now write latched
+         */
+        boolean upgradeToWriteLock(long v) {
+            if (VERSION.compareAndSet(this, v, v + LOCKED)) {
+                VarHandle.releaseFence();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Releases the write latch and publishes the changes made under it.
+         */
+        void writeUnlock() {
+            VERSION.setRelease(this, version + LOCKED);
+        }
+    }
+
+    /**
+     * Leaf Node holding up to capacity key value pairs in increasing order of keys.
+     */
+    static final class LeafNode extends Node {
+        final int[] keys;
+        final double[] values;
+
+        LeafNode(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new double[capacity];
+        }
+    }
+
+    /**
+     * Internal Node holding count keys and count + 1 child pointers.
+     */
+    static final class InternalNode extends Node {
+        final int[] keys;
+        final Node[] children;
+
+        InternalNode(int degree) {
+            this.keys = new int[degree - 1];
+            this.children = new Node[degree];
+        }
+    }
+
+    /**
+     * This method returns the number of keys of a node read optimistically, clamped to the capacity of the node
+     * so that an inconsistent read cannot index outside the arrays. The read is validated by the caller.
+     */
+    private static int count(Node node, int capacity) {
+        int count = node.count;
+        return count < 0 ? 0 : Math.min(count, capacity);
+    }
+
+    /**
+     * This method returns the index of the child of an Internal Node to follow for a key.
+     */
+    private static int childIndex(InternalNode node, int key) {
+        int low = 0;
+        int high = count(node, node.keys.length);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (node.keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns the index of the first pair of a Leaf Node whose key is greater than or equal to the key.
+     */
+    private static int lowerBound(LeafNode node, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (node.keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public double searchValue(int key, double defaultValue) {
+        restart:
+        while (true) {
+            Node node = root;
+            long version = node.readLock();
+            if (version < 0 || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            InternalNode parent = null;
+            long parentVersion = 0;
+
+            while (node instanceof InternalNode) {
+                InternalNode internalNode = (InternalNode) node;
+                // Lock coupling: the parent is validated after the version of its child is read
+                if (parent != null && !parent.validate(parentVersion)) {
+                    continue restart;
+                }
+                Node child = internalNode.children[childIndex(internalNode, key)];
+                if (child == null || !internalNode.validate(version)) {
+                    continue restart;
+                }
+                parent = internalNode;
+                parentVersion = version;
+                node = child;
+                version = node.readLock();
+                if (version < 0) {
+                    continue restart;
+                }
+            }
+
+            LeafNode leafNode = (LeafNode) node;
+            int count = count(leafNode, leafNode.keys.length);
+            int index = lowerBound(leafNode, count, key);
+            boolean found = index < count && leafNode.keys[index] == key;
+            double value = found ? leafNode.values[index] : defaultValue;
+            if ((parent != null && !parent.validate(parentVersion)) || !leafNode.validate(version)) {
+                continue;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * This method inserts a key value pair, replacing the value if the key is already present.
+     * Full nodes met on the way down are split first, latching only the node and its parent.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted
+     */
+    public void insert(int key, double value) {
+        restart:
+        while (true) {
+            Node node = root;
+            long version = node.readLock();
+            if (version < 0 || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            InternalNode parent = null;
+            long parentVersion = 0;
+
+            while (node instanceof InternalNode) {
+                InternalNode internalNode = (InternalNode) node;
+                if (internalNode.count == internalNode.keys.length) {
+                    // Full Internal Node. Split it eagerly so that a split below never needs to go further up
+                    splitNode(parent, parentVersion, internalNode, version);
+                    Thread.onSpinWait();
+                    continue restart;
+                }
+                if (parent != null && !parent.validate(parentVersion)) {
+                    continue restart;
+                }
+                Node child = internalNode.children[childIndex(internalNode, key)];
+                if (child == null || !internalNode.validate(version)) {
+                    continue restart;
+                }
+                parent = internalNode;
+                parentVersion = version;
+                node = child;
+                version = node.readLock();
+                if (version < 0) {
+                    continue restart;
+                }
+            }
+
+            LeafNode leafNode = (LeafNode) node;
+            if (leafNode.count == leafNode.keys.length) {
+                splitNode(parent, parentVersion, leafNode, version);
+                Thread.onSpinWait();
+                continue;
+            }
+            if (!leafNode.upgradeToWriteLock(version)) {
+                continue;
+            }
+            if (parent != null && !parent.validate(parentVersion)) {
+                leafNode.writeUnlock();
+                continue;
+            }
+
+            int index = lowerBound(leafNode, leafNode.count, key);
+            if (index < leafNode.count && leafNode.keys[index] == key) {
+                leafNode.values[index] = value;
+            } else {
+                System.arraycopy(leafNode.keys, index, leafNode.keys, index + 1, leafNode.count - index);
+                System.arraycopy(leafNode.values, index, leafNode.values, index + 1, leafNode.count - index);
+                leafNode.keys[index] = key;
+                leafNode.values[index] = value;
+                leafNode.count++;
+                size.increment();
+            }
+            leafNode.writeUnlock();
+            return;
+        }
+    }
+
+    /**
+     * This method splits a full node into two halves and adds the second half to the parent,
+     * or to a new root if the node is the root. The parent and the node are write latched during the split.
+     *
+     * @return true if the node was split, false if a latch could not be taken and the caller must restart
+     */
+    private boolean splitNode(InternalNode parent, long parentVersion, Node node, long version) {
+        if (parent != null && !parent.upgradeToWriteLock(parentVersion)) {
+            return false;
+        }
+        if (!node.upgradeToWriteLock(version)) {
+            if (parent != null) {
+                parent.writeUnlock();
+            }
+            return false;
+        }
+        if (parent == null && node != root) {
+            // A new root was installed above the node since it was read
+            node.writeUnlock();
+            return false;
+        }
+
+        int separator;
+        Node sibling;
+        if (node instanceof LeafNode) {
+            LeafNode leafNode = (LeafNode) node;
+            LeafNode rightNode = new LeafNode(leafNode.keys.length);
+            int mid = leafNode.count / 2;
+            int moved = leafNode.count - mid;
+            System.arraycopy(leafNode.keys, mid, rightNode.keys, 0, moved);
+            System.arraycopy(leafNode.values, mid, rightNode.values, 0, moved);
+            rightNode.count = moved;
+            leafNode.count = mid;
+            separator = rightNode.keys[0];
+            sibling = rightNode;
+        } else {
+            InternalNode internalNode = (InternalNode) node;
+            InternalNode rightNode = new InternalNode(degree);
+            int mid = internalNode.count / 2;
+            int moved = internalNode.count - mid - 1;
+            separator = internalNode.keys[mid];
+            System.arraycopy(internalNode.keys, mid + 1, rightNode.keys, 0, moved);
+            System.arraycopy(internalNode.children, mid + 1, rightNode.children, 0, moved + 1);
+            for (int i = mid + 1; i <= internalNode.count; i++) {
+                internalNode.children[i] = null;
+            }
+            rightNode.count = moved;
+            internalNode.count = mid;
+            sibling = rightNode;
+        }
+
+        if (parent != null) {
+            int index = childIndex(parent, separator);
+            System.arraycopy(parent.keys, index, parent.keys, index + 1, parent.count - index);
+            System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.count - index);
+            parent.keys[index] = separator;
+            parent.children[index + 1] = sibling;
+            parent.count++;
+        } else {
+            InternalNode newRoot = new InternalNode(degree);
+            newRoot.keys[0] = separator;
+            newRoot.children[0] = node;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+
+        node.writeUnlock();
+        if (parent != null) {
+            parent.writeUnlock();
+        }
+        return true;
+    }
+
+    /**
+     * This method deletes the key value pair of a key. Only the leaf holding the key is write latched, unless the
+     * delete leaves the leaf underfull: the leaf is then merged with or refilled from a sibling under the latch of
+     * their parent, or removed from the tree if the delete empties it.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was present, false otherwise
+     */
+    public boolean delete(int key) {
+        restart:
+        while (true) {
+            Node node = root;
+            long version = node.readLock();
+            if (version < 0 || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            InternalNode parent = null;
+            long parentVersion = 0;
+
+            while (node instanceof InternalNode) {
+                InternalNode internalNode = (InternalNode) node;
+                if (parent != null && !parent.validate(parentVersion)) {
+                    continue restart;
+                }
+                Node child = internalNode.children[childIndex(internalNode, key)];
+                if (child == null || !internalNode.validate(version)) {
+                    continue restart;
+                }
+                parent = internalNode;
+                parentVersion = version;
+                node = child;
+                version = node.readLock();
+                if (version < 0) {
+                    continue restart;
+                }
+            }
+
+            LeafNode leafNode = (LeafNode) node;
+            // The last pair of a leaf. The leaf is removed after a second descent recording the path, so that
+            // other deletes do not pay for the path
+            if (parent != null && leafNode.count == 1 && leafNode.keys[0] == key && deleteAndRemoveLeaf(key)) {
+                return true;
+            }
+            // A leaf left underfull is rebalanced with a sibling under the same parent. The parent, the sibling
+            // and the leaf are latched from the top down; the parent latch validates the reads of the leaf
+            boolean rebalance = parent != null && parent.count > 0 && leafNode.count <= minimumPairs;
+            int childIndex = 0;
+            LeafNode sibling = null;
+            if (rebalance) {
+                if (!parent.upgradeToWriteLock(parentVersion)) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                childIndex = childIndex(parent, key);
+                sibling = (LeafNode) parent.children[childIndex > 0 ? childIndex - 1 : 1];
+                long siblingVersion = sibling.readLock();
+                if (siblingVersion < 0 || !sibling.upgradeToWriteLock(siblingVersion)) {
+                    parent.writeUnlock();
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+            if (!leafNode.upgradeToWriteLock(version)) {
+                if (rebalance) {
+                    sibling.writeUnlock();
+                    parent.writeUnlock();
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            if (!rebalance && parent != null && !parent.validate(parentVersion)) {
+                leafNode.writeUnlock();
+                continue;
+            }
+            int index = lowerBound(leafNode, leafNode.count, key);
+            boolean found = index < leafNode.count && leafNode.keys[index] == key;
+            if (found) {
+                System.arraycopy(leafNode.keys, index + 1, leafNode.keys, index, leafNode.count - index - 1);
+                System.arraycopy(leafNode.values, index + 1, leafNode.values, index, leafNode.count - index - 1);
+                leafNode.count--;
+                size.decrement();
+            }
+            if (rebalance) {
+                if (found) {
+                    rebalanceLeaves(parent, childIndex, leafNode, sibling);
+                }
+                leafNode.writeUnlock();
+                sibling.writeUnlock();
+                parent.writeUnlock();
+            } else {
+                leafNode.writeUnlock();
+            }
+            return found;
+        }
+    }
+
+    /**
+     * This method merges an underfull leaf with its sibling under the same parent, or moves pairs from the sibling
+     * to the leaf if both do not fit in one leaf. A merge keeps the left leaf and removes the right leaf with the
+     * separator before it; a root left with a single child is replaced by the child. The parent, the leaf and the
+     * sibling are write latched by the caller.
+     *
+     * @param parent     parent of the leaf and the sibling
+     * @param childIndex index of the leaf in the parent
+     * @param leafNode   underfull leaf
+     * @param sibling    left sibling of the leaf, or right sibling if the leaf is the first child
+     */
+    private void rebalanceLeaves(InternalNode parent, int childIndex, LeafNode leafNode, LeafNode sibling) {
+        int leftIndex = childIndex > 0 ? childIndex - 1 : 0;
+        LeafNode left = (LeafNode) parent.children[leftIndex];
+        LeafNode right = (LeafNode) parent.children[leftIndex + 1];
+        if (left.count + right.count <= left.keys.length) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            System.arraycopy(right.values, 0, left.values, left.count, right.count);
+            left.count += right.count;
+            right.count = 0;
+            System.arraycopy(parent.keys, leftIndex + 1, parent.keys, leftIndex, parent.count - leftIndex - 1);
+            System.arraycopy(parent.children, leftIndex + 2, parent.children, leftIndex + 1,
+                    parent.count - leftIndex - 1);
+            parent.children[parent.count] = null;
+            parent.count--;
+            if (parent.count == 0 && parent == root) {
+                // The root is latched, so it is still the root
+                root = left;
+            }
+            return;
+        }
+        // Share the pairs evenly between the two leaves and move the separator to the first key of the right leaf
+        int leftCount = (left.count + right.count) / 2;
+        if (left.count > leftCount) {
+            int moved = left.count - leftCount;
+            System.arraycopy(right.keys, 0, right.keys, moved, right.count);
+            System.arraycopy(right.values, 0, right.values, moved, right.count);
+            System.arraycopy(left.keys, leftCount, right.keys, 0, moved);
+            System.arraycopy(left.values, leftCount, right.values, 0, moved);
+            right.count += moved;
+        } else {
+            int moved = leftCount - left.count;
+            System.arraycopy(right.keys, 0, left.keys, left.count, moved);
+            System.arraycopy(right.values, 0, left.values, left.count, moved);
+            System.arraycopy(right.keys, moved, right.keys, 0, right.count - moved);
+            System.arraycopy(right.values, moved, right.values, 0, right.count - moved);
+            right.count -= moved;
+        }
+        left.count = leftCount;
+        parent.keys[leftIndex] = right.keys[0];
+    }
+
+    /**
+     * This method deletes a key which is the last pair of its leaf and removes the leaf from the tree. It finds the
+     * lowest ancestor keeping a child once the leaf and the ancestors with no other child are removed, write latches
+     * that ancestor, the ancestors below it and the leaf from the top down, and removes the child of the kept
+     * ancestor leading to the leaf with the separator next to it. Ancestors above the kept one are not latched:
+     * removing a node latches it, so the kept ancestor is still in the tree while it is latched.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was deleted, false if it is not the last pair of its leaf or no ancestor would keep
+     * a child, and the caller must delete it from the leaf
+     */
+    private boolean deleteAndRemoveLeaf(int key) {
+        Node[] path = new Node[8];
+        long[] pathVersions = new long[8];
+        int[] childIndexes = new int[8];
+
+        restart:
+        while (true) {
+            Node node = root;
+            long version = node.readLock();
+            if (version < 0 || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int depth = 0;
+
+            while (node instanceof InternalNode) {
+                InternalNode internalNode = (InternalNode) node;
+                if (depth > 0 && !path[depth - 1].validate(pathVersions[depth - 1])) {
+                    continue restart;
+                }
+                int index = childIndex(internalNode, key);
+                Node child = internalNode.children[index];
+                if (child == null || !internalNode.validate(version)) {
+                    continue restart;
+                }
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    pathVersions = Arrays.copyOf(pathVersions, depth * 2);
+                    childIndexes = Arrays.copyOf(childIndexes, depth * 2);
+                }
+                path[depth] = internalNode;
+                pathVersions[depth] = version;
+                childIndexes[depth] = index;
+                depth++;
+                node = child;
+                version = node.readLock();
+                if (version < 0) {
+                    continue restart;
+                }
+            }
+
+            // The optimistic reads are validated by the latches taken below
+            LeafNode leafNode = (LeafNode) node;
+            int keep = depth - 1;
+            while (keep >= 0 && path[keep].count == 0) {
+                keep--;
+            }
+            if (leafNode.count != 1 || leafNode.keys[0] != key || keep < 0) {
+                return false;
+            }
+            int latched = keep;
+            while (latched < depth && path[latched].upgradeToWriteLock(pathVersions[latched])) {
+                latched++;
+            }
+            if (latched < depth || !leafNode.upgradeToWriteLock(version)) {
+                for (int i = keep; i < latched; i++) {
+                    path[i].writeUnlock();
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+
+            leafNode.count = 0;
+            size.decrement();
+            InternalNode parent = (InternalNode) path[keep];
+            int index = childIndexes[keep];
+            int keyIndex = Math.max(index - 1, 0);
+            System.arraycopy(parent.keys, keyIndex + 1, parent.keys, keyIndex, parent.count - keyIndex - 1);
+            System.arraycopy(parent.children, index + 1, parent.children, index, parent.count - index);
+            parent.children[parent.count] = null;
+            parent.count--;
+            if (keep == 0 && parent.count == 0) {
+                // The root is latched, so it is still the root
+                root = parent.children[0];
+            }
+
+            leafNode.writeUnlock();
+            for (int i = depth - 1; i >= keep; i--) {
+                path[i].writeUnlock();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * This method passes the key value pairs whose keys are in between lowerBound and upperBound included
+     * to the consumer, in increasing order of keys. Each leaf is read optimistically and its pairs are passed on
+     * only after the read is validated, so every leaf is seen in a consistent state. The scan continues with the
+     * leaf holding the separator key after the current leaf, found by a new descent from the root.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param consumer   consumer of the key value pairs
+     * @return number of pairs passed to the consumer
+     */
+    public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) {
+        int[] keys = new int[degree - 1];
+        double[] values = new double[degree - 1];
+        Node[] path = new Node[8];
+        long[] pathVersions = new long[8];
+        long total = 0;
+        long from = lowerBound;
+
+        restart:
+        while (from <= upperBound) {
+            Node node = root;
+            long version = node.readLock();
+            if (version < 0 || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // Smallest separator key to the right of the path, the lower bound of the next leaf
+            long fence = Long.MAX_VALUE;
+            int key = (int) from;
+            int depth = 0;
+
+            while (node instanceof InternalNode) {
+                InternalNode internalNode = (InternalNode) node;
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    pathVersions = Arrays.copyOf(pathVersions, depth * 2);
+                }
+                path[depth] = internalNode;
+                pathVersions[depth] = version;
+                depth++;
+                int index = childIndex(internalNode, key);
+                long childFence = index < count(internalNode, internalNode.keys.length) ? internalNode.keys[index] : fence;
+                Node child = internalNode.children[index];
+                if (child == null || !internalNode.validate(version)) {
+                    continue restart;
+                }
+                fence = Math.min(fence, childFence);
+                node = child;
+                version = node.readLock();
+                if (version < 0) {
+                    continue restart;
+                }
+            }
+
+            LeafNode leafNode = (LeafNode) node;
+            int count = count(leafNode, leafNode.keys.length);
+            System.arraycopy(leafNode.keys, 0, keys, 0, count);
+            System.arraycopy(leafNode.values, 0, values, 0, count);
+            if (!leafNode.validate(version)) {
+                continue;
+            }
+            // The fence comes from the whole path, so the whole path must be unchanged
+            for (int i = depth - 1; i >= 0; i--) {
+                if (!path[i].validate(pathVersions[i])) {
+                    continue restart;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                if (keys[i] >= from && keys[i] <= upperBound) {
+                    consumer.accept(keys[i], values[i]);
+                    total++;
+                }
+            }
+            from = fence;
+        }
+        return total;
+    }
+
+    /**
+     * This method returns the number of key value pairs in the tree.
+     *
+     * @return number of key value pairs
+     */
+    public long size() {
+        return size.sum();
+    }
+}
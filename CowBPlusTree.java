@@ -0,0 +1,458 @@
+import java.util.Arrays;
+
+/**
+ * B+ tree of int keys and double values with copy-on-write nodes, giving readers consistent snapshots
+ * while writers keep changing the tree.
+ * <p>
+ * Nodes are never changed once they are reachable from a root. A write copies the nodes on the path from the root
+ * to the leaf it changes, along with the siblings it borrows from or merges with, and then publishes the
+ * new root. All other nodes are shared by the old and the new version. {@link #snapshot()} captures the current
+ * root, so a reader of the snapshot sees the tree as it was at that moment, however long it takes and whatever
+ * writers do meanwhile. Readers take no locks and never wait. Writers are serialized with each other.
+ * <p>
+ * Unlike {@link bplustree} there are no parent pointers and no sibling links between leaves, as they would force a
+ * write to copy every node pointing at a changed node. Range scans descend from the root into every child
+ * overlapping the range instead.
+ * <p>
+ * Nothing is freed explicitly. The nodes only a previous version references become garbage once no
+ * {@link Snapshot} of that version is reachable, and the garbage collector reclaims them.
+ * <p>
+ * Nodes have the same capacity as in {@link bplustree}: a degree m tree has at most m children per Internal Node
+ * and m - 1 key value pairs per Leaf Node. Arrays of nodes are sized to their contents. Inserting an existing key
+ * replaces its value.
+ */
+public class CowBPlusTree {
+    private static final LeafNode EMPTY_LEAF_NODE = new LeafNode(new int[0], new double[0]);
+
+    public final int degree;
+    private final int maximumPairs;
+    private final int minimumPairs;
+    private final int minimumChildren;
+    private volatile Snapshot current = new Snapshot(EMPTY_LEAF_NODE, 0);
+
+    // Results of the last recursive insert or delete, only used by the writer holding the lock
+    private Node splitSibling;
+    private int splitSeparator;
+    private boolean changedSize;
+
+    /**
+     * Constructs an empty copy-on-write B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public CowBPlusTree(int degree) {
+        if (degree < 3) {
+            throw new IllegalArgumentException("Degree must be at least 3: " + degree);
+        }
+        this.degree = degree;
+        this.maximumPairs = degree - 1;
+        this.minimumPairs = (degree - 1) / 2;
+        this.minimumChildren = (degree + 1) / 2;
+    }
+
+    /**
+     * Base class of tree nodes. Nodes are immutable.
+     */
+    abstract static class Node {
+        final int[] keys;
+
+        Node(int[] keys) {
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Leaf Node holding keys.length key value pairs in increasing order of keys.
+     */
+    static final class LeafNode extends Node {
+        final double[] values;
+
+        LeafNode(int[] keys, double[] values) {
+            super(keys);
+            this.values = values;
+        }
+    }
+
+    /**
+     * Internal Node holding keys.length keys and keys.length + 1 child pointers.
+     */
+    static final class InternalNode extends Node {
+        final Node[] children;
+
+        InternalNode(int[] keys, Node[] children) {
+            super(keys);
+            this.children = children;
+        }
+    }
+
+    /**
+     * Nested class to hold one version of the tree. Reads of a snapshot always see that version, it is not affected
+     * by later writes to the tree.
+     */
+    public static final class Snapshot {
+        private final Node root;
+        private final long size;
+
+        Snapshot(Node root, long size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * This method searches for a given key and returns its value.
+         *
+         * @param key          key to be searched
+         * @param defaultValue value to be returned if the key is not found
+         * @return value of the key if key is found else defaultValue
+         */
+        public double searchValue(int key, double defaultValue) {
+            Node node = root;
+            while (node instanceof InternalNode) {
+                node = ((InternalNode) node).children[childIndex(node.keys, key)];
+            }
+            LeafNode leafNode = (LeafNode) node;
+            int index = lowerBound(leafNode.keys, key);
+            return index < leafNode.keys.length && leafNode.keys[index] == key ? leafNode.values[index] : defaultValue;
+        }
+
+        /**
+         * This method passes the key value pairs whose keys are in between lowerBound and upperBound included
+         * to the consumer, in increasing order of keys.
+         *
+         * @param lowerBound lowerBound of the range of keys to be searched
+         * @param upperBound upperBound of the range of keys to be searched
+         * @param consumer   consumer of the key value pairs
+         * @return number of pairs passed to the consumer
+         */
+        public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) {
+            return lowerBound > upperBound ? 0 : scan(root, lowerBound, upperBound, consumer);
+        }
+
+        /**
+         * This method returns the number of key value pairs in this version.
+         *
+         * @return number of key value pairs
+         */
+        public long size() {
+            return size;
+        }
+
+        private static long scan(Node node, int lowerBound, int upperBound, PairConsumer consumer) {
+            if (node instanceof LeafNode) {
+                LeafNode leafNode = (LeafNode) node;
+                long count = 0;
+                for (int i = lowerBound(leafNode.keys, lowerBound);
+                     i < leafNode.keys.length && leafNode.keys[i] <= upperBound; i++) {
+                    consumer.accept(leafNode.keys[i], leafNode.values[i]);
+                    count++;
+                }
+                return count;
+            }
+            InternalNode internalNode = (InternalNode) node;
+            long count = 0;
+            int last = childIndex(node.keys, upperBound);
+            for (int i = childIndex(node.keys, lowerBound); i <= last; i++) {
+                count += scan(internalNode.children[i], lowerBound, upperBound, consumer);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * This method returns the index of the child of an Internal Node to follow for a key.
+     */
+    private static int childIndex(int[] keys, int key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns the index of the first key which is greater than or equal to the key.
+     */
+    private static int lowerBound(int[] keys, int key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns a consistent view of the tree as it is now. Later writes do not change it.
+     *
+     * @return snapshot of the current version
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * This method searches for a given key in the current version and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public double searchValue(int key, double defaultValue) {
+        return current.searchValue(key, defaultValue);
+    }
+
+    /**
+     * This method passes the key value pairs of the current version whose keys are in between lowerBound and
+     * upperBound included to the consumer, in increasing order of keys. See {@link Snapshot#searchRange}.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param consumer   consumer of the key value pairs
+     * @return number of pairs passed to the consumer
+     */
+    public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) {
+        return current.searchRange(lowerBound, upperBound, consumer);
+    }
+
+    /**
+     * This method returns the number of key value pairs in the current version.
+     *
+     * @return number of key value pairs
+     */
+    public long size() {
+        return current.size;
+    }
+
+    /**
+     * This method inserts a key value pair, replacing the value if the key is already present.
+     * The nodes on the path to the leaf are copied and the new version is published when the insert is done.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted
+     */
+    public synchronized void insert(int key, double value) {
+        Snapshot snapshot = current;
+        changedSize = false;
+        Node root = insert(snapshot.root, key, value);
+        if (splitSibling != null) {
+            root = new InternalNode(new int[]{splitSeparator}, new Node[]{root, splitSibling});
+            splitSibling = null;
+        }
+        current = new Snapshot(root, changedSize ? snapshot.size + 1 : snapshot.size);
+    }
+
+    /**
+     * This method deletes the key value pair of a key. Underfull nodes on the path borrow from or are merged
+     * with a sibling, which is copied too.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was present, false otherwise
+     */
+    public synchronized boolean delete(int key) {
+        Snapshot snapshot = current;
+        changedSize = false;
+        Node root = delete(snapshot.root, key);
+        if (!changedSize) {
+            return false;
+        }
+        // Root with a single child. The child becomes the root
+        if (root instanceof InternalNode && root.keys.length == 0) {
+            root = ((InternalNode) root).children[0];
+        }
+        current = new Snapshot(root, snapshot.size - 1);
+        return true;
+    }
+
+    /**
+     * This method returns a copy of a node with the pair inserted. If the copy overflows, it is split: the
+     * left half is returned and the right half and its separator are left in splitSibling and splitSeparator.
+     */
+    private Node insert(Node node, int key, double value) {
+        if (node instanceof LeafNode) {
+            LeafNode leafNode = (LeafNode) node;
+            int count = leafNode.keys.length;
+            int index = lowerBound(leafNode.keys, key);
+            if (index < count && leafNode.keys[index] == key) {
+                double[] values = leafNode.values.clone();
+                values[index] = value;
+                return new LeafNode(leafNode.keys, values);
+            }
+            changedSize = true;
+            int[] keys = new int[count + 1];
+            double[] values = new double[count + 1];
+            System.arraycopy(leafNode.keys, 0, keys, 0, index);
+            System.arraycopy(leafNode.values, 0, values, 0, index);
+            keys[index] = key;
+            values[index] = value;
+            System.arraycopy(leafNode.keys, index, keys, index + 1, count - index);
+            System.arraycopy(leafNode.values, index, values, index + 1, count - index);
+            if (count + 1 <= maximumPairs) {
+                return new LeafNode(keys, values);
+            }
+            int mid = (count + 1) / 2;
+            LeafNode rightNode = new LeafNode(Arrays.copyOfRange(keys, mid, count + 1),
+                    Arrays.copyOfRange(values, mid, count + 1));
+            splitSibling = rightNode;
+            splitSeparator = rightNode.keys[0];
+            return new LeafNode(Arrays.copyOfRange(keys, 0, mid), Arrays.copyOfRange(values, 0, mid));
+        }
+
+        InternalNode internalNode = (InternalNode) node;
+        int index = childIndex(node.keys, key);
+        Node child = insert(internalNode.children[index], key, value);
+        if (splitSibling == null) {
+            Node[] children = internalNode.children.clone();
+            children[index] = child;
+            return new InternalNode(node.keys, children);
+        }
+        // The child was split. Add the separator and the right half after the child
+        int count = node.keys.length;
+        int[] keys = new int[count + 1];
+        Node[] children = new Node[count + 2];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        keys[index] = splitSeparator;
+        System.arraycopy(node.keys, index, keys, index + 1, count - index);
+        System.arraycopy(internalNode.children, 0, children, 0, index);
+        children[index] = child;
+        children[index + 1] = splitSibling;
+        System.arraycopy(internalNode.children, index + 1, children, index + 2, count - index);
+        splitSibling = null;
+        if (children.length <= degree) {
+            return new InternalNode(keys, children);
+        }
+        // The key in the middle moves up as the separator of the two halves
+        int mid = keys.length / 2;
+        splitSeparator = keys[mid];
+        splitSibling = new InternalNode(Arrays.copyOfRange(keys, mid + 1, keys.length),
+                Arrays.copyOfRange(children, mid + 1, children.length));
+        return new InternalNode(Arrays.copyOfRange(keys, 0, mid), Arrays.copyOfRange(children, 0, mid + 1));
+    }
+
+    /**
+     * This method returns a copy of a node with the key deleted, or the node itself if the key is not present.
+     * The returned node may be underfull, its parent fixes that.
+     */
+    private Node delete(Node node, int key) {
+        if (node instanceof LeafNode) {
+            LeafNode leafNode = (LeafNode) node;
+            int count = leafNode.keys.length;
+            int index = lowerBound(leafNode.keys, key);
+            if (index == count || leafNode.keys[index] != key) {
+                return node;
+            }
+            changedSize = true;
+            int[] keys = new int[count - 1];
+            double[] values = new double[count - 1];
+            System.arraycopy(leafNode.keys, 0, keys, 0, index);
+            System.arraycopy(leafNode.values, 0, values, 0, index);
+            System.arraycopy(leafNode.keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(leafNode.values, index + 1, values, index, count - index - 1);
+            return new LeafNode(keys, values);
+        }
+
+        InternalNode internalNode = (InternalNode) node;
+        int index = childIndex(node.keys, key);
+        Node child = delete(internalNode.children[index], key);
+        if (child == internalNode.children[index]) {
+            return node;
+        }
+        int[] keys = node.keys;
+        Node[] children = internalNode.children.clone();
+        children[index] = child;
+        if (!isUnderfull(child)) {
+            return new InternalNode(keys, children);
+        }
+
+        // Fix the underfull child with its left sibling, or its right sibling if it is the first child
+        int leftIndex = index > 0 ? index - 1 : index;
+        Node left = children[leftIndex];
+        Node right = children[leftIndex + 1];
+        if (left instanceof LeafNode) {
+            LeafNode leftLeaf = (LeafNode) left;
+            LeafNode rightLeaf = (LeafNode) right;
+            int[] pairKeys = concat(leftLeaf.keys, rightLeaf.keys);
+            double[] pairValues = concat(leftLeaf.values, rightLeaf.values);
+            if (pairKeys.length <= maximumPairs) {
+                return mergeChildren(keys, children, leftIndex, new LeafNode(pairKeys, pairValues));
+            }
+            int mid = pairKeys.length / 2;
+            children[leftIndex] = new LeafNode(Arrays.copyOfRange(pairKeys, 0, mid),
+                    Arrays.copyOfRange(pairValues, 0, mid));
+            children[leftIndex + 1] = new LeafNode(Arrays.copyOfRange(pairKeys, mid, pairKeys.length),
+                    Arrays.copyOfRange(pairValues, mid, pairKeys.length));
+            keys = keys.clone();
+            keys[leftIndex] = pairKeys[mid];
+            return new InternalNode(keys, children);
+        }
+
+        InternalNode leftNode = (InternalNode) left;
+        InternalNode rightNode = (InternalNode) right;
+        // The separator between the two nodes comes down between their keys
+        int[] childKeys = new int[leftNode.keys.length + 1 + rightNode.keys.length];
+        System.arraycopy(leftNode.keys, 0, childKeys, 0, leftNode.keys.length);
+        childKeys[leftNode.keys.length] = keys[leftIndex];
+        System.arraycopy(rightNode.keys, 0, childKeys, leftNode.keys.length + 1, rightNode.keys.length);
+        Node[] grandchildren = concat(leftNode.children, rightNode.children);
+        if (grandchildren.length <= degree) {
+            return mergeChildren(keys, children, leftIndex, new InternalNode(childKeys, grandchildren));
+        }
+        int mid = childKeys.length / 2;
+        children[leftIndex] = new InternalNode(Arrays.copyOfRange(childKeys, 0, mid),
+                Arrays.copyOfRange(grandchildren, 0, mid + 1));
+        children[leftIndex + 1] = new InternalNode(Arrays.copyOfRange(childKeys, mid + 1, childKeys.length),
+                Arrays.copyOfRange(grandchildren, mid + 1, grandchildren.length));
+        keys = keys.clone();
+        keys[leftIndex] = childKeys[mid];
+        return new InternalNode(keys, children);
+    }
+
+    private boolean isUnderfull(Node node) {
+        return node instanceof LeafNode
+                ? node.keys.length < minimumPairs
+                : node.keys.length + 1 < minimumChildren;
+    }
+
+    /**
+     * This method returns an Internal Node whose children at leftIndex and leftIndex + 1 are replaced by one merged
+     * child, dropping the separator between them.
+     */
+    private static InternalNode mergeChildren(int[] keys, Node[] children, int leftIndex, Node merged) {
+        int[] newKeys = new int[keys.length - 1];
+        Node[] newChildren = new Node[children.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, leftIndex);
+        System.arraycopy(keys, leftIndex + 1, newKeys, leftIndex, keys.length - leftIndex - 1);
+        System.arraycopy(children, 0, newChildren, 0, leftIndex);
+        newChildren[leftIndex] = merged;
+        System.arraycopy(children, leftIndex + 2, newChildren, leftIndex + 1, children.length - leftIndex - 2);
+        return new InternalNode(newKeys, newChildren);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static double[] concat(double[] first, double[] second) {
+        double[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static Node[] concat(Node[] first, Node[] second) {
+        Node[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * B+ tree made durable with a {@link WriteAheadLog} and checkpoints.
+ * <p>
+ * Every insert and delete is appended to the log before it is applied to the in-memory {@link bplustree} and
+ * returns once the log record is committed according to the sync policy. A delete of a key which is not in the
+ * tree changes nothing and is not logged. Mutations of the tree are serialized on the tree, while commits run
+ * outside that lock so that concurrent writers share one fsync.
+ * <p>
+ * A change is applied to the tree before its commit, so when a commit fails the tree holds changes which may not be
+ * in the log. The durable tree then fails: every later operation and checkpoint throws, and the tree must be opened
+ * again to recover what is durable.
+ * <p>
+ * The directory holds numbered generations. Log file wal-N.log holds the operations of generation N and
+ * checkpoint-N.snapshot is a {@link MappedSnapshot} of the tree after all operations up to generation N.
+ * {@link #checkpoint()} starts a new log generation, writes the snapshot of the previous one and deletes
+ * the files it replaces. {@link #open(File, int, WriteAheadLog.SyncPolicy, long)} recovers the tree by
+ * bulk loading the newest checkpoint and replaying the logs written after it.
+ */
+public class DurableBPlusTree implements Closeable {
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".snapshot";
+
+    private final bplustree tree;
+    private final File directory;
+    private final WriteAheadLog.SyncPolicy syncPolicy;
+    private final long intervalMillis;
+    private WriteAheadLog log;
+    private long generation;
+    // Guarded by tree. Set by the first failed commit, after which the tree may hold changes not in the log
+    private IOException failure;
+    public long recoveredRecords;
+
+    private DurableBPlusTree(bplustree tree, File directory, WriteAheadLog.SyncPolicy syncPolicy,
+                             long intervalMillis) {
+        this.tree = tree;
+        this.directory = directory;
+        this.syncPolicy = syncPolicy;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * This method opens a durable tree in a directory, recovering it from the newest checkpoint and the logs
+     * written after it. An empty or missing directory gives an empty tree.
+     *
+     * @param directory      directory holding the logs and checkpoints, created if it does not exist
+     * @param degree         degree of the tree
+     * @param syncPolicy     when committed log records are forced to the storage device
+     * @param intervalMillis interval between forces for {@link WriteAheadLog.SyncPolicy#INTERVAL}
+     * @return the recovered tree
+     * @throws IOException if the directory cannot be read or the new log cannot be created
+     */
+    public static DurableBPlusTree open(File directory, int degree, WriteAheadLog.SyncPolicy syncPolicy,
+                                        long intervalMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        DurableBPlusTree durableTree = new DurableBPlusTree(new bplustree(degree), directory, syncPolicy,
+                intervalMillis);
+
+        long checkpointGeneration = -1;
+        for (long checkpoint : listGenerations(directory, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+            checkpointGeneration = Math.max(checkpointGeneration, checkpoint);
+        }
+        long lastGeneration = checkpointGeneration;
+        if (checkpointGeneration >= 0) {
+            durableTree.loadCheckpoint(durableTree.checkpointFile(checkpointGeneration));
+        }
+        for (long logGeneration : listGenerations(directory, LOG_PREFIX, LOG_SUFFIX)) {
+            if (logGeneration > checkpointGeneration) {
+                durableTree.recoveredRecords += WriteAheadLog.replay(durableTree.logFile(logGeneration),
+                        durableTree.tree);
+            }
+            lastGeneration = Math.max(lastGeneration, logGeneration);
+        }
+
+        durableTree.generation = lastGeneration + 1;
+        durableTree.log = new WriteAheadLog(durableTree.logFile(durableTree.generation), syncPolicy, intervalMillis);
+        return durableTree;
+    }
+
+    /**
+     * Getter Method to get the in-memory tree. It must only be read while holding its lock,
+     * as writers of the durable tree change it.
+     *
+     * @return in-memory tree
+     */
+    public bplustree getTree() {
+        return tree;
+    }
+
+    /**
+     * This method logs and inserts a key value pair.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted
+     * @throws IOException if the log cannot be written or the durable tree failed before
+     */
+    public void insert(int key, double value) throws IOException {
+        WriteAheadLog currentLog;
+        long sequenceNumber;
+        synchronized (tree) {
+            checkNotFailed();
+            currentLog = log;
+            sequenceNumber = currentLog.append(WriteAheadLog.INSERT, key, value);
+            tree.insert(key, value);
+        }
+        commit(currentLog, sequenceNumber);
+    }
+
+    /**
+     * This method logs and deletes the key value pair with the key provided, if the key is in the tree.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was present, false otherwise
+     * @throws IOException if the log cannot be written or the durable tree failed before
+     */
+    public boolean delete(int key) throws IOException {
+        WriteAheadLog currentLog;
+        long sequenceNumber;
+        synchronized (tree) {
+            checkNotFailed();
+            if (tree.getFirstLeafNode() == null || tree.findLeafNode(key).findIndexOfKeyInData(key) < 0) {
+                return false;
+            }
+            currentLog = log;
+            sequenceNumber = currentLog.append(WriteAheadLog.DELETE, key, 0);
+            tree.delete(key);
+        }
+        commit(currentLog, sequenceNumber);
+        return true;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     * @throws IllegalStateException if the durable tree failed, as the tree may hold changes not in the log
+     */
+    public double searchValue(int key, double defaultValue) {
+        synchronized (tree) {
+            if (failure != null) {
+                throw new IllegalStateException("Durable tree failed, open it again to recover", failure);
+            }
+            return tree.searchValue(key, defaultValue);
+        }
+    }
+
+    /**
+     * This method writes a checkpoint of the tree and deletes the logs and checkpoints it replaces.
+     * Writers wait while the checkpoint is written. Files are deleted only once the new log and the checkpoint are
+     * forced to the storage device together with their names in the directory, so a crash at any point leaves
+     * either the old files or the new ones to recover from.
+     *
+     * @throws IOException if the checkpoint cannot be written or the durable tree failed before
+     */
+    public void checkpoint() throws IOException {
+        synchronized (tree) {
+            checkNotFailed();
+            long checkpointGeneration = generation;
+            try {
+                log.close();
+            } catch (IOException e) {
+                // Records of the closed log may not be written, while their changes are in the tree
+                failure = e;
+                throw e;
+            }
+            generation++;
+            log = new WriteAheadLog(logFile(generation), syncPolicy, intervalMillis);
+            // The log only forces its directory when it is ever forced itself
+            WriteAheadLog.syncDirectory(directory);
+            tree.exportSnapshot(checkpointFile(checkpointGeneration));
+
+            for (long logGeneration : listGenerations(directory, LOG_PREFIX, LOG_SUFFIX)) {
+                if (logGeneration <= checkpointGeneration) {
+                    logFile(logGeneration).delete();
+                }
+            }
+            for (long checkpoint : listGenerations(directory, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+                if (checkpoint < checkpointGeneration) {
+                    checkpointFile(checkpoint).delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * This method syncs and closes the log.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (tree) {
+            log.close();
+        }
+    }
+
+    /**
+     * This method commits a log record and fails the durable tree if the commit fails, as the change of the record
+     * is already applied to the tree.
+     */
+    private void commit(WriteAheadLog currentLog, long sequenceNumber) throws IOException {
+        try {
+            currentLog.commit(sequenceNumber);
+        } catch (IOException | RuntimeException e) {
+            synchronized (tree) {
+                if (failure == null) {
+                    failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void checkNotFailed() throws IOException {
+        if (failure != null) {
+            throw new IOException("Durable tree failed, open it again to recover", failure);
+        }
+    }
+
+    private void loadCheckpoint(File file) throws IOException {
+        try (MappedSnapshot snapshot = MappedSnapshot.open(file)) {
+            final int[] keys = new int[snapshot.size()];
+            final double[] values = new double[snapshot.size()];
+            final int[] count = {0};
+            snapshot.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, (key, value) -> {
+                keys[count[0]] = key;
+                values[count[0]++] = value;
+            });
+            tree.bulkLoad(keys, values);
+        }
+    }
+
+    private File logFile(long logGeneration) {
+        return new File(directory, LOG_PREFIX + logGeneration + LOG_SUFFIX);
+    }
+
+    private File checkpointFile(long checkpointGeneration) {
+        return new File(directory, CHECKPOINT_PREFIX + checkpointGeneration + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * This method returns the generations of the files in the directory with a prefix and suffix, in increasing order.
+     */
+    private static long[] listGenerations(File directory, String prefix, String suffix) {
+        String[] names = directory.list();
+        long[] generations = new long[names == null ? 0 : names.length];
+        int count = 0;
+        for (int i = 0; i < generations.length; i++) {
+            String name = names[i];
+            if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                try {
+                    generations[count++] = Long.parseLong(name.substring(prefix.length(),
+                            name.length() - suffix.length()));
+                } catch (NumberFormatException e) {
+                    count--;
+                }
+            }
+        }
+        generations = Arrays.copyOf(generations, count);
+        Arrays.sort(generations);
+        return generations;
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort for key value pairs which may not fit in memory.
+ * <p>
+ * Pairs are added one at a time and collected in primitive arrays. When a run of runSize pairs is full
+ * it is sorted and written to a temporary file. After {@link #sort()} the sorter is read like a cursor,
+ * pairs come back in increasing order of keys by merging all runs. Pairs with equal keys keep the order
+ * in which they were added. If all pairs fit in one run nothing is written to disk.
+ * <p>
+ * Typical usage:
+ * <pre>
+ * try (ExternalSorter sorter = new ExternalSorter(tempDirectory, ExternalSorter.DEFAULT_RUN_SIZE)) {
+ *     sorter.add(key, value);
+ *     ...
+ *     sorter.sort();
+ *     while (sorter.next()) {
+ *         use(sorter.getKey(), sorter.getValue());
+ *     }
+ * }
+ * </pre>
+ */
+public class ExternalSorter implements Closeable {
+    public static final int DEFAULT_RUN_SIZE = 1 << 22;
+
+    private final File tempDirectory;
+    private final int runSize;
+    private final ArrayList<File> runFiles = new ArrayList<>();
+    private int[] keys;
+    private double[] values;
+    private int count;
+
+    private PriorityQueue<Run> queue;
+    private Run currentRun;
+    private int key;
+    private double value;
+
+    /**
+     * Constructs an External Sorter which writes runs of runSize pairs to files in tempDirectory.
+     *
+     * @param tempDirectory directory for the temporary run files
+     * @param runSize       number of pairs sorted in memory at a time
+     */
+    public ExternalSorter(File tempDirectory, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("runSize must be positive: " + runSize);
+        }
+        this.tempDirectory = tempDirectory;
+        this.runSize = runSize;
+        this.keys = new int[Math.min(runSize, 1024)];
+        this.values = new double[keys.length];
+    }
+
+    /**
+     * This method adds a key value pair to be sorted.
+     *
+     * @param key   The key of the key value pair.
+     * @param value The value of the key value pair.
+     * @throws IOException if a run cannot be written
+     */
+    public void add(int key, double value) throws IOException {
+        if (queue != null) {
+            throw new IllegalStateException("Pairs cannot be added after sort()");
+        }
+        if (count == keys.length) {
+            if (count == runSize) {
+                spillRun();
+            } else {
+                int capacity = (int) Math.min(runSize, 2L * keys.length);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+        keys[count] = key;
+        values[count] = value;
+        count++;
+    }
+
+    /**
+     * This method finishes adding pairs and prepares the sorted output. Afterwards pairs are read with
+     * {@link #next()}, {@link #getKey()} and {@link #getValue()}.
+     *
+     * @throws IOException if a run cannot be written or read
+     */
+    public void sort() throws IOException {
+        sortPairs(keys, values, count);
+        queue = new PriorityQueue<>((r1, r2) -> r1.key != r2.key ? Integer.compare(r1.key, r2.key)
+                : Integer.compare(r1.order, r2.order));
+
+        // Runs on disk come before the run in memory, which holds the pairs added last
+        for (int i = 0; i < runFiles.size(); i++) {
+            Run run = new Run(i, runFiles.get(i));
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+        Run memoryRun = new Run(runFiles.size(), keys, values, count);
+        if (memoryRun.advance()) {
+            queue.add(memoryRun);
+        }
+    }
+
+    /**
+     * This method moves to the next pair in increasing order of keys.
+     *
+     * @return true if there is a pair, false if all pairs are read
+     * @throws IOException if a run cannot be read
+     */
+    public boolean next() throws IOException {
+        if (currentRun != null && currentRun.advance()) {
+            queue.add(currentRun);
+        }
+        currentRun = queue.poll();
+        if (currentRun == null) {
+            return false;
+        }
+        key = currentRun.key;
+        value = currentRun.value;
+        return true;
+    }
+
+    /**
+     * Getter Method to get the key of the current pair.
+     *
+     * @return key of the current pair
+     */
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * Getter Method to get the value of the current pair.
+     *
+     * @return value of the current pair
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * This method closes the run files and deletes them.
+     *
+     * @throws IOException if a run file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (queue != null) {
+            for (Run run : queue) {
+                run.close();
+            }
+        }
+        if (currentRun != null) {
+            currentRun.close();
+        }
+        for (File runFile : runFiles) {
+            runFile.delete();
+        }
+        runFiles.clear();
+    }
+
+    /**
+     * This method sorts the buffered pairs and writes them to a new run file.
+     */
+    private void spillRun() throws IOException {
+        sortPairs(keys, values, count);
+        File runFile = File.createTempFile("bplustree-run-", ".bin", tempDirectory);
+        runFile.deleteOnExit();
+        runFiles.add(runFile);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), 1 << 16))) {
+            for (int i = 0; i < count; i++) {
+                out.writeInt(keys[i]);
+                out.writeDouble(values[i]);
+            }
+        }
+        count = 0;
+    }
+
+    /**
+     * This method sorts the first count pairs of the parallel keys and values arrays in increasing order of keys.
+     * Pairs with equal keys keep their order.
+     *
+     * @param keys   keys to be sorted
+     * @param values values moved along with their keys
+     * @param count  number of pairs
+     */
+    public static void sortPairs(int[] keys, double[] values, int count) {
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++) {
+            sorted = keys[i - 1] <= keys[i];
+        }
+        if (sorted) {
+            return;
+        }
+
+        // Sort the key together with its original position so equal keys stay in order
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        double[] sortedValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (int) (order[i] >> 32);
+            sortedValues[i] = values[(int) order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, count);
+    }
+
+    /**
+     * Sorted run, either in memory or in a file, being merged.
+     */
+    private static class Run implements Closeable {
+        final int order;
+        DataInputStream in;
+        int[] keys;
+        double[] values;
+        int count;
+        int position;
+        int key;
+        double value;
+
+        Run(int order, File file) throws IOException {
+            this.order = order;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        Run(int order, int[] keys, double[] values, int count) {
+            this.order = order;
+            this.keys = keys;
+            this.values = values;
+            this.count = count;
+        }
+
+        boolean advance() throws IOException {
+            if (in == null) {
+                if (position == count) {
+                    return false;
+                }
+                key = keys[position];
+                value = values[position];
+                position++;
+                return true;
+            }
+            try {
+                key = in.readInt();
+                value = in.readDouble();
+                return true;
+            } catch (EOFException e) {
+                close();
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+}
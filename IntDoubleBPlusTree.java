@@ -0,0 +1,129 @@
+/**
+ * B+ tree of int keys and double values, stored in int and double arrays without boxing.
+ * <p>
+ * It holds the same pairs as {@link bplustree} on the shared {@link AbstractBPlusTree} engine, but like the other
+ * trees of the engine it keeps keys unique: inserting an existing key replaces its value.
+ */
+public class IntDoubleBPlusTree extends AbstractBPlusTree {
+    // Key and value of the insert or delete running, searches use a search key of their own
+    private final IntKey stagedKey = new IntKey();
+    private double stagedValue;
+
+    /**
+     * Search key of an int key.
+     */
+    static final class IntKey implements SearchKey {
+        int key;
+
+        IntKey() {
+        }
+
+        IntKey(int key) {
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Object keys, int index) {
+            return Integer.compare(key, ((int[]) keys)[index]);
+        }
+    }
+
+    /**
+     * Constructs an empty B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public IntDoubleBPlusTree(int degree) {
+        super(degree);
+    }
+
+    @Override
+    protected Object newKeyArray(int length) {
+        return new int[length];
+    }
+
+    @Override
+    protected Object newValueArray(int length) {
+        return new double[length];
+    }
+
+    @Override
+    protected void insertStagedPairAt(LeafNode leafNode, int index) {
+        shiftPairsRight(leafNode, index);
+        ((int[]) leafNode.keys)[index] = stagedKey.key;
+        ((double[]) leafNode.values)[index] = stagedValue;
+    }
+
+    @Override
+    protected void storeStagedValue(Object values, int index) {
+        ((double[]) values)[index] = stagedValue;
+    }
+
+    /**
+     * This Method is used to insert a key value pair in the B+ Tree. The value of an existing key is replaced.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted
+     * @return true if the key was inserted, false if the value of an existing key was replaced
+     */
+    public boolean insert(int key, double value) {
+        stagedKey.key = key;
+        stagedValue = value;
+        return insertStagedPair(stagedKey);
+    }
+
+    /**
+     * This method is used to delete key value pair from B+ Tree whose key is provided in the arguments.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was deleted, false if it is not present
+     */
+    public boolean delete(int key) {
+        stagedKey.key = key;
+        return deleteStagedKey(stagedKey);
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public double searchValue(int key, double defaultValue) {
+        IntKey searchKey = new IntKey(key);
+        LeafNode leafNode = findLeafNode(searchKey);
+        int index = findIndex(leafNode, searchKey);
+        return index < 0 ? defaultValue : ((double[]) leafNode.values)[index];
+    }
+
+    /**
+     * This method hands all key value pairs whose keys are in a range to a consumer, in increasing order of keys.
+     *
+     * @param lowerBound lower bound of the range, inclusive
+     * @param upperBound upper bound of the range, inclusive
+     * @param consumer   receives the key value pairs
+     * @return number of key value pairs in the range
+     */
+    public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) {
+        IntKey searchKey = new IntKey(lowerBound);
+        LeafNode leafNode = findLeafNode(searchKey);
+        if (leafNode == null) {
+            return 0;
+        }
+        long count = 0;
+        int index = findLowerBoundIndex(leafNode, searchKey);
+        for (; leafNode != null; leafNode = leafNode.rightSibling, index = 0) {
+            int[] keys = (int[]) leafNode.keys;
+            double[] values = (double[]) leafNode.values;
+            for (; index < leafNode.count; index++) {
+                if (keys[index] > upperBound) {
+                    return count;
+                }
+                consumer.accept(keys[index], values[index]);
+                count++;
+            }
+        }
+        return count;
+    }
+}
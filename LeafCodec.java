@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * Compressed encoding of the key value pairs of a Leaf Node of {@link bplustree} in one long array.
+ * <p>
+ * Keys are stored frame of reference: the first key is the base and every key is stored as its distance from the
+ * base in as many bits as the largest distance needs. Keys are sorted, so the largest distance is the one of the
+ * last key, and dense keys take a few bits each. Every key can be read without reading the others, so a Leaf Node
+ * is searched with a binary search over the packed keys.
+ * <p>
+ * Values are stored XOR encoded as in the Gorilla time series database: the first value in 64 bits, and every
+ * further value as the XOR with the value before it. An XOR of zero, a repeated value, takes one bit. Otherwise
+ * only the bits between the leading and the trailing zero bits of the XOR are stored, reusing the position of
+ * the previous XOR when they fit in it. Values are read in order, so reading one value decodes the values before it.
+ * <p>
+ * Layout: word 0 holds the base key in its low 32 bits and the number of bits per key in the next 6 bits.
+ * Packed keys start at bit 64, the value stream follows the last key. Bits are filled from the least
+ * significant bit of each word.
+ */
+public final class LeafCodec {
+    private static final int HEADER_BITS = 64;
+    // Most bits one value can take: control bits, 5 bits of leading zeros, 6 bits of length and 64 bits
+    private static final int MAXIMUM_VALUE_BITS = 2 + 5 + 6 + 64;
+
+    private LeafCodec() {
+    }
+
+    /**
+     * This method encodes sorted key value pairs.
+     *
+     * @param keys   keys in increasing order
+     * @param values values, values[i] belongs to keys[i]
+     * @param count  number of pairs, at least 1
+     * @return encoded pairs
+     */
+    public static long[] encode(int[] keys, double[] values, int count) {
+        int keyBits = 64 - Long.numberOfLeadingZeros((long) keys[count - 1] - keys[0]);
+        long maximumBits = HEADER_BITS + (long) count * (keyBits + MAXIMUM_VALUE_BITS);
+        long[] words = new long[(int) ((maximumBits + 63) >>> 6) + 1];
+        words[0] = (keys[0] & 0xFFFFFFFFL) | ((long) keyBits << 32);
+
+        long position = HEADER_BITS;
+        for (int i = 0; i < count; i++) {
+            writeBits(words, position, (long) keys[i] - keys[0], keyBits);
+            position += keyBits;
+        }
+
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writeBits(words, position, previous, 64);
+        position += 64;
+        int previousLeadingZeros = -1;
+        int previousTrailingZeros = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                // Control bit 0: same value as before
+                position++;
+                continue;
+            }
+            int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailingZeros = Long.numberOfTrailingZeros(xor);
+            if (previousLeadingZeros >= 0 && leadingZeros >= previousLeadingZeros
+                    && trailingZeros >= previousTrailingZeros) {
+                // Control bits 1, 0: the meaningful bits fit the position of the previous XOR
+                writeBits(words, position, 1, 2);
+                position += 2;
+                int length = 64 - previousLeadingZeros - previousTrailingZeros;
+                writeBits(words, position, xor >>> previousTrailingZeros, length);
+                position += length;
+            } else {
+                // Control bits 1, 1: new position given by the leading zeros and the length of the meaningful bits
+                int length = 64 - leadingZeros - trailingZeros;
+                writeBits(words, position, 3, 2);
+                writeBits(words, position + 2, leadingZeros, 5);
+                writeBits(words, position + 7, length - 1, 6);
+                position += 13;
+                writeBits(words, position, xor >>> trailingZeros, length);
+                position += length;
+                previousLeadingZeros = leadingZeros;
+                previousTrailingZeros = trailingZeros;
+            }
+        }
+        // One spare word, so that every read can take the word after the one it starts in
+        return Arrays.copyOf(words, (int) ((position + 63) >>> 6) + 1);
+    }
+
+    /**
+     * This method decodes all pairs.
+     *
+     * @param words  encoded pairs
+     * @param count  number of pairs
+     * @param keys   receives the keys
+     * @param values receives the values
+     */
+    public static void decode(long[] words, int count, int[] keys, double[] values) {
+        int base = (int) words[0];
+        int keyBits = keyBits(words);
+        if (keyBits == 0) {
+            Arrays.fill(keys, 0, count, base);
+        } else {
+            long position = HEADER_BITS;
+            for (int i = 0; i < count; i++) {
+                keys[i] = base + (int) readBits(words, position, keyBits);
+                position += keyBits;
+            }
+        }
+        decodeValues(words, count, count - 1, values);
+    }
+
+    /**
+     * Getter Method to get the key at an index.
+     *
+     * @param words encoded pairs
+     * @param index index of the key
+     * @return key at the index
+     */
+    public static int getKey(long[] words, int index) {
+        int keyBits = keyBits(words);
+        if (keyBits == 0) {
+            return (int) words[0];
+        }
+        return (int) words[0] + (int) readBits(words, HEADER_BITS + (long) index * keyBits, keyBits);
+    }
+
+    /**
+     * Getter Method to get the value at an index, decoding the values before it.
+     *
+     * @param words encoded pairs
+     * @param count number of pairs
+     * @param index index of the value
+     * @return value at the index
+     */
+    public static double getValue(long[] words, int count, int index) {
+        return Double.longBitsToDouble(decodeValues(words, count, index, null));
+    }
+
+    /**
+     * This method returns the index of the first key greater than or equal to a key, or greater than the key
+     * if upper is true.
+     *
+     * @param words encoded pairs
+     * @param count number of pairs
+     * @param key   key to be found
+     * @param upper false for the lower bound, true for the upper bound
+     * @return index of the bound, count if all keys are before it
+     */
+    public static int findBoundIndex(long[] words, int count, int key, boolean upper) {
+        int base = (int) words[0];
+        int keyBits = keyBits(words);
+        // Compare distances from the base, keys below the base come before all keys
+        long distance = (long) key - base;
+        if (distance < 0) {
+            return 0;
+        }
+        if (keyBits == 0) {
+            return distance > 0 || upper ? count : 0;
+        }
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long midDistance = readBits(words, HEADER_BITS + (long) mid * keyBits, keyBits);
+            if (midDistance < distance || (upper && midDistance == distance)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method returns the number of bytes of the encoded pairs.
+     *
+     * @param words encoded pairs
+     * @return size in bytes
+     */
+    public static long sizeInBytes(long[] words) {
+        return 8L * words.length;
+    }
+
+    private static int keyBits(long[] words) {
+        return (int) (words[0] >>> 32) & 63;
+    }
+
+    /**
+     * This method decodes the values up to an index in order, without decoding the keys.
+     *
+     * @param words  encoded pairs
+     * @param count  number of pairs
+     * @param last   index of the last value to be decoded
+     * @param values receives the values if not null
+     * @return bits of the value at index last
+     */
+    public static long decodeValues(long[] words, int count, int last, double[] values) {
+        long position = HEADER_BITS + (long) count * keyBits(words);
+        long bits = readBits(words, position, 64);
+        position += 64;
+        if (values != null) {
+            values[0] = Double.longBitsToDouble(bits);
+        }
+        int leadingZeros = 0;
+        int length = 0;
+        for (int i = 1; i <= last; i++) {
+            // Read the control bits, leading zeros and length at once, only the control bits may be used
+            long control = readBits(words, position, 13);
+            if ((control & 1) == 0) {
+                position++;
+            } else {
+                if ((control & 2) == 0) {
+                    position += 2;
+                } else {
+                    leadingZeros = (int) (control >>> 2) & 31;
+                    length = (int) (control >>> 7) + 1;
+                    position += 13;
+                }
+                long meaningfulBits = readBits(words, position, length);
+                position += length;
+                bits ^= meaningfulBits << (64 - leadingZeros - length);
+            }
+            if (values != null) {
+                values[i] = Double.longBitsToDouble(bits);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * This method writes the low length bits of a value at a bit position. The bits must still be zero.
+     */
+    private static void writeBits(long[] words, long position, long value, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (length < 64) {
+            value &= (1L << length) - 1;
+        }
+        int word = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        words[word] |= value << shift;
+        if (shift + length > 64) {
+            words[word + 1] |= value >>> (64 - shift);
+        }
+    }
+
+    /**
+     * This method reads length bits at a bit position, length from 1 to 64. The bits are taken from the word the
+     * position is in and the word after it without branches, the spare word at the end makes the second one exist.
+     */
+    private static long readBits(long[] words, long position, int length) {
+        int word = (int) (position >>> 6);
+        int shift = (int) position & 63;
+        // Shifted in two steps, as a shift by 64 would leave the word unchanged
+        long value = (words[word] >>> shift) | ((words[word + 1] << 1) << (63 - shift));
+        return value & (-1L >>> (64 - length));
+    }
+}
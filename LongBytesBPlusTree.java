@@ -0,0 +1,129 @@
+/**
+ * B+ tree of long keys and variable size byte array values. Keys are stored in long arrays without boxing,
+ * Leaf Nodes keep a reference to every value array.
+ * <p>
+ * Value arrays are stored as given, not copied, and must not be changed after they are inserted.
+ * Inserting an existing key replaces its value. See {@link AbstractBPlusTree} for the node structure.
+ */
+public class LongBytesBPlusTree extends AbstractBPlusTree {
+    // Key and value of the insert or delete running, searches use a search key of their own
+    private final LongLongBPlusTree.LongKey stagedKey = new LongLongBPlusTree.LongKey();
+    private byte[] stagedValue;
+
+    /**
+     * Callback receiving the key value pairs of a range scan in increasing order of keys.
+     */
+    public interface PairConsumer {
+
+        /**
+         * This method is called once for every key value pair.
+         *
+         * @param key   The key of the key value pair.
+         * @param value The value of the key value pair.
+         */
+        void accept(long key, byte[] value);
+    }
+
+    /**
+     * Constructs an empty B+ tree with the degree provided.
+     *
+     * @param degree The degree of B+ Tree. Normally an integer greater than 2.
+     */
+    public LongBytesBPlusTree(int degree) {
+        super(degree);
+    }
+
+    @Override
+    protected Object newKeyArray(int length) {
+        return new long[length];
+    }
+
+    @Override
+    protected Object newValueArray(int length) {
+        return new byte[length][];
+    }
+
+    @Override
+    protected void insertStagedPairAt(LeafNode leafNode, int index) {
+        shiftPairsRight(leafNode, index);
+        ((long[]) leafNode.keys)[index] = stagedKey.key;
+        ((byte[][]) leafNode.values)[index] = stagedValue;
+    }
+
+    @Override
+    protected void storeStagedValue(Object values, int index) {
+        ((byte[][]) values)[index] = stagedValue;
+    }
+
+    /**
+     * This Method is used to insert a key value pair in the B+ Tree. The value of an existing key is replaced.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted, not null
+     * @return true if the key was inserted, false if the value of an existing key was replaced
+     */
+    public boolean insert(long key, byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        stagedKey.key = key;
+        stagedValue = value;
+        boolean isInserted = insertStagedPair(stagedKey);
+        stagedValue = null;
+        return isInserted;
+    }
+
+    /**
+     * This method is used to delete key value pair from B+ Tree whose key is provided in the arguments.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was deleted, false if it is not present
+     */
+    public boolean delete(long key) {
+        stagedKey.key = key;
+        return deleteStagedKey(stagedKey);
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key key to be searched
+     * @return value of the key if key is found else null
+     */
+    public byte[] search(long key) {
+        LongLongBPlusTree.LongKey searchKey = new LongLongBPlusTree.LongKey(key);
+        LeafNode leafNode = findLeafNode(searchKey);
+        int index = findIndex(leafNode, searchKey);
+        return index < 0 ? null : ((byte[][]) leafNode.values)[index];
+    }
+
+    /**
+     * This method hands all key value pairs whose keys are in a range to a consumer, in increasing order of keys.
+     *
+     * @param lowerBound lower bound of the range, inclusive
+     * @param upperBound upper bound of the range, inclusive
+     * @param consumer   receives the key value pairs
+     * @return number of key value pairs in the range
+     */
+    public long searchRange(long lowerBound, long upperBound, PairConsumer consumer) {
+        LongLongBPlusTree.LongKey searchKey = new LongLongBPlusTree.LongKey(lowerBound);
+        LeafNode leafNode = findLeafNode(searchKey);
+        if (leafNode == null) {
+            return 0;
+        }
+        long count = 0;
+        int index = findLowerBoundIndex(leafNode, searchKey);
+        for (; leafNode != null; leafNode = leafNode.rightSibling, index = 0) {
+            long[] keys = (long[]) leafNode.keys;
+            byte[][] values = (byte[][]) leafNode.values;
+            for (; index < leafNode.count; index++) {
+                if (keys[index] > upperBound) {
+                    return count;
+                }
+                consumer.accept(keys[index], values[index]);
+                count++;
+            }
+        }
+        return count;
+    }
+}
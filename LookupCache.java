@@ -0,0 +1,313 @@
+import java.util.Arrays;
+
+/**
+ * Bounded cache of the values of recently searched keys, kept in front of a {@link bplustree} so that a point
+ * search of a hot key does not descend the tree.
+ * <p>
+ * Entries live in parallel primitive arrays, keys in an int array and values in a double array, and are found
+ * through an open addressing hash table with linear probing, which holds entry indexes. Removed entries leave no
+ * tombstones: the entries after them in their probe run are shifted back. The entries are also linked in a doubly
+ * linked list of indexes from the most to the least recently used. A hit moves its entry to the front, and when the
+ * cache is full a new entry replaces the least recently used one.
+ * <p>
+ * The tree removes a key from the cache whenever the key is inserted or deleted, and clears the cache when it is
+ * bulk loaded, so a cached value is always the value a search of the tree would find.
+ * <p>
+ * Like the tree, the cache is not synchronized. Counters may be read from other threads, for example by
+ * {@link TreeMetrics}, and are then a little behind.
+ */
+public class LookupCache {
+    private static final int NONE = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final int capacity;
+    // Entry index of each slot of the hash table, NONE for a free slot. At least twice as many slots as entries
+    private final int[] table;
+    private final int shift;
+    private final int mask;
+
+    private final int[] keys;
+    private final double[] values;
+    // Links of the recency list, and of the list of free entries through next
+    private final int[] previous;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private int size;
+    private int used;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructs an empty cache holding at most capacity keys.
+     *
+     * @param capacity maximum number of keys cached, at least 1
+     */
+    public LookupCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^29: " + capacity);
+        }
+        this.capacity = capacity;
+        int bits = 32 - Integer.numberOfLeadingZeros(2 * capacity - 1);
+        this.table = new int[1 << bits];
+        this.shift = 32 - bits;
+        this.mask = table.length - 1;
+        Arrays.fill(table, NONE);
+        this.keys = new int[capacity];
+        this.values = new double[capacity];
+        this.previous = new int[capacity];
+        this.next = new int[capacity];
+    }
+
+    /**
+     * Getter Method to get the maximum number of keys cached.
+     *
+     * @return capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter Method to get the number of keys cached.
+     *
+     * @return number of keys cached
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter Method to get the number of lookups which found their key.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter Method to get the number of lookups which did not find their key.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter Method to get the number of keys dropped to make room for a new key.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Getter Method to get the number of cached keys removed because the key was inserted or deleted.
+     *
+     * @return number of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Getter Method to get the fraction of lookups which found their key.
+     *
+     * @return hits divided by lookups, 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * This method sets the hit, miss, eviction and invalidation counters back to zero. Cached keys are kept.
+     */
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+    }
+
+    /**
+     * This method looks a key up. A hit makes the key the most recently used one.
+     *
+     * @param key key to be looked up
+     * @return index of the entry of the key, to be passed to {@link #getValue(int)}, -1 if the key is not cached
+     */
+    public int lookup(int key) {
+        int entry = find(key);
+        if (entry == NONE) {
+            misses++;
+            return NONE;
+        }
+        hits++;
+        if (entry != head) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Getter Method to get the value of an entry returned by {@link #lookup(int)}. The index is only valid until
+     * the cache is changed.
+     *
+     * @param entry index of the entry
+     * @return value of the entry
+     */
+    public double getValue(int entry) {
+        return values[entry];
+    }
+
+    /**
+     * This method caches the value of a key as the most recently used one. A key already cached gets the new value.
+     * If the cache is full the least recently used key is dropped first.
+     *
+     * @param key   key to be cached
+     * @param value value of the key
+     */
+    public void put(int key, double value) {
+        int entry = find(key);
+        if (entry != NONE) {
+            values[entry] = value;
+            if (entry != head) {
+                unlink(entry);
+                linkFirst(entry);
+            }
+            return;
+        }
+        if (size == capacity) {
+            entry = tail;
+            removeFromTable(keys[entry]);
+            unlink(entry);
+            size--;
+            evictions++;
+        } else if (free != NONE) {
+            entry = free;
+            free = next[entry];
+        } else {
+            entry = used++;
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        int slot = slotOf(key);
+        while (table[slot] != NONE) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+        linkFirst(entry);
+        size++;
+    }
+
+    /**
+     * This method removes a key from the cache. Nothing is done if the key is not cached.
+     *
+     * @param key key to be removed
+     */
+    public void invalidate(int key) {
+        if (size == 0) {
+            return;
+        }
+        int entry = removeFromTable(key);
+        if (entry != NONE) {
+            unlink(entry);
+            next[entry] = free;
+            free = entry;
+            size--;
+            invalidations++;
+        }
+    }
+
+    /**
+     * This method removes all keys from the cache. Counters are kept.
+     */
+    public void clear() {
+        Arrays.fill(table, NONE);
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * This method returns the home slot of a key: the high bits of the key multiplied by an odd constant, which
+     * spreads runs of consecutive keys over the whole table.
+     */
+    private int slotOf(int key) {
+        return (key * HASH_MULTIPLIER) >>> shift;
+    }
+
+    /**
+     * This method returns the entry index of a key, NONE if the key is not cached.
+     */
+    private int find(int key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == NONE || keys[entry] == key) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * This method removes a key from the hash table and returns its entry index, NONE if the key is not cached.
+     * Entries after the freed slot in the same probe run are shifted back into it if their home slot allows, so
+     * every entry stays reachable from its home slot without tombstones.
+     */
+    private int removeFromTable(int key) {
+        int hole = slotOf(key);
+        while (table[hole] != NONE && keys[table[hole]] != key) {
+            hole = (hole + 1) & mask;
+        }
+        int removed = table[hole];
+        if (removed == NONE) {
+            return NONE;
+        }
+        for (int slot = (hole + 1) & mask; table[slot] != NONE; slot = (slot + 1) & mask) {
+            int home = slotOf(keys[table[slot]]);
+            // The entry may move back if the hole is no further from its home slot than the entry is
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = NONE;
+        return removed;
+    }
+
+    private void linkFirst(int entry) {
+        previous[entry] = NONE;
+        next[entry] = head;
+        if (head != NONE) {
+            previous[head] = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void unlink(int entry) {
+        int before = previous[entry];
+        int after = next[entry];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+}
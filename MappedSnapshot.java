@@ -0,0 +1,279 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only snapshot of a B+ tree answering searches straight from a memory-mapped file.
+ * <p>
+ * {@link #write(bplustree, File)} walks the leaf nodes of a tree from its first leaf node and writes all keys
+ * followed by all values as flat sorted arrays, together with a sparse index holding the first key of every block
+ * of {@link #INDEX_STRIDE} pairs. {@link #open(File)} only maps the file: a search does a binary search over the
+ * sparse index and then over one block of keys, reading the mapping in place, so opening is near-instant and
+ * there is no heap cost per pair. The file is immutable and can be opened by any number of readers.
+ * <p>
+ * File layout, all numbers big-endian:
+ * <pre>
+ * header : magic int, version int, number of pairs long, index stride int, number of index entries int
+ * keys   : int[number of pairs]
+ * values : double[number of pairs], 8 byte aligned
+ * index  : int[number of index entries]
+ * </pre>
+ * A single mapping is limited to 2 GiB, so a snapshot holds at most {@link #MAXIMUM_PAIRS} pairs.
+ * <p>
+ * Note that this class is not synchronized, but searches do not change its state and may run concurrently.
+ */
+public class MappedSnapshot implements Closeable {
+    public static final int INDEX_STRIDE = 64;
+    public static final long MAXIMUM_PAIRS = (Integer.MAX_VALUE - 64) / 13;
+
+    private static final int MAGIC = 0x42505453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int numberOfPairs;
+    private final int indexStride;
+    private final int numberOfIndexEntries;
+    private final int valuesOffset;
+    private final int indexOffset;
+
+    private MappedSnapshot(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a B+ tree snapshot file");
+        }
+        this.numberOfPairs = (int) buffer.getLong(8);
+        this.indexStride = buffer.getInt(16);
+        this.numberOfIndexEntries = buffer.getInt(20);
+        this.valuesOffset = valuesOffset(numberOfPairs);
+        this.indexOffset = valuesOffset + 8 * numberOfPairs;
+        if (buffer.capacity() != indexOffset + 4 * numberOfIndexEntries) {
+            throw new IOException("Truncated B+ tree snapshot file");
+        }
+    }
+
+    /**
+     * This method writes a snapshot of a tree to a file. The snapshot is written to a temporary file next to it,
+     * forced to the storage device and then renamed, and the rename is forced with the directory, so readers never
+     * see a partially written snapshot and a snapshot which was written survives a crash.
+     *
+     * @param tree tree to be written
+     * @param file snapshot file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(bplustree tree, File file) throws IOException {
+        long count = 0;
+        for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            count += node.getNumberOfPairs();
+        }
+        if (count > MAXIMUM_PAIRS) {
+            throw new IllegalArgumentException("Snapshot is limited to " + MAXIMUM_PAIRS + " pairs: " + count);
+        }
+        int numberOfPairs = (int) count;
+        int numberOfIndexEntries = (numberOfPairs + INDEX_STRIDE - 1) / INDEX_STRIDE;
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOutput = new FileOutputStream(temporaryFile);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput, 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(numberOfPairs);
+            output.writeInt(INDEX_STRIDE);
+            output.writeInt(numberOfIndexEntries);
+
+            int[] index = new int[numberOfIndexEntries];
+            int position = 0;
+            for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+                for (int i = 0; i < node.getNumberOfPairs(); i++, position++) {
+                    if (position % INDEX_STRIDE == 0) {
+                        index[position / INDEX_STRIDE] = node.getKey(i);
+                    }
+                    output.writeInt(node.getKey(i));
+                }
+            }
+            for (int padding = HEADER_SIZE + 4 * numberOfPairs; padding < valuesOffset(numberOfPairs); padding++) {
+                output.writeByte(0);
+            }
+            // Copy the pairs of each leaf node, so compressed leaf nodes are decoded once
+            int[] keyBuffer = new int[tree.getMaximumDataInLeafNode() + 1];
+            double[] valueBuffer = new double[keyBuffer.length];
+            for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+                int pairs = node.copyPairs(keyBuffer, valueBuffer);
+                for (int i = 0; i < pairs; i++) {
+                    output.writeDouble(valueBuffer[i]);
+                }
+            }
+            for (int key : index) {
+                output.writeInt(key);
+            }
+            // The rename may reach the storage device before the data, leaving an empty file under the new name
+            output.flush();
+            fileOutput.getChannel().force(true);
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        WriteAheadLog.syncDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * This method opens a snapshot file by mapping it into memory.
+     *
+     * @param file snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be mapped or is not a snapshot file
+     */
+    public static MappedSnapshot open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new MappedSnapshot(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Getter Method to get the number of key value pairs in the snapshot.
+     *
+     * @return number of key value pairs
+     */
+    public int size() {
+        return numberOfPairs;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public double searchValue(int key, double defaultValue) {
+        int position = findLowerBoundPosition(key);
+        if (position < numberOfPairs && getKey(position) == key) {
+            return getValue(position);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * This method searches for a given key and returns the value in the format written by
+     * {@link bplustree#search(int)}, the value if the key is found else 'Null'.
+     *
+     * @param key key to be searched
+     * @return value of the key or 'Null'
+     */
+    public String search(int key) {
+        int position = findLowerBoundPosition(key);
+        if (position < numberOfPairs && getKey(position) == key) {
+            return Double.toString(getValue(position));
+        }
+        return bplustree.NULL_VALUE;
+    }
+
+    /**
+     * This method searches for keys in between lowerBound and upperBound included and returns their values
+     * in the format written by {@link bplustree#search(int, int)}, comma separated values or 'Null'.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @return values of the keys in the range or 'Null'
+     */
+    public String search(int lowerBound, int upperBound) {
+        int position = findLowerBoundPosition(lowerBound);
+        if (position == numberOfPairs || getKey(position) > upperBound) {
+            return bplustree.NULL_VALUE;
+        }
+        StringBuilder result = new StringBuilder();
+        result.append(getValue(position++));
+        for (; position < numberOfPairs && getKey(position) <= upperBound; position++) {
+            result.append(',').append(getValue(position));
+        }
+        return result.toString();
+    }
+
+    /**
+     * This method passes the key value pairs whose keys are in between lowerBound and upperBound included
+     * to the consumer, in increasing order of keys.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param consumer   consumer of the key value pairs
+     * @return number of pairs passed to the consumer
+     */
+    public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) {
+        int start = findLowerBoundPosition(lowerBound);
+        int position = start;
+        for (; position < numberOfPairs; position++) {
+            int key = getKey(position);
+            if (key > upperBound) {
+                break;
+            }
+            consumer.accept(key, getValue(position));
+        }
+        return position - start;
+    }
+
+    /**
+     * This method closes the file. The mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method returns the position of the first pair whose key is greater than or equal to the key.
+     * The sparse index gives the last block starting below the key, and the block is searched for the position.
+     */
+    private int findLowerBoundPosition(int key) {
+        int low = 0;
+        int high = numberOfIndexEntries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(indexOffset + 4 * mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        low = (low - 1) * indexStride;
+        high = Math.min(low + indexStride, numberOfPairs);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getKey(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int getKey(int position) {
+        return buffer.getInt(HEADER_SIZE + 4 * position);
+    }
+
+    private double getValue(int position) {
+        return buffer.getDouble(valuesOffset + 8 * position);
+    }
+
+    private static int valuesOffset(int numberOfPairs) {
+        return (HEADER_SIZE + 4 * numberOfPairs + 7) & ~7;
+    }
+}
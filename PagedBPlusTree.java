@@ -0,0 +1,826 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Disk-backed B+ tree of int keys and double values stored in fixed-size pages of a single file.
+ * <p>
+ * Every Leaf Node and Internal Node is one page. Nodes are never deserialized into objects: operations read and
+ * write the pages in place through a {@link BufferPool}, which keeps a bounded number of pages in memory and
+ * writes dirty pages back when they are evicted, so the tree can be much larger than the heap.
+ * Page 0 is the meta page holding the root page id, so reopening the file only reads the meta page and the root.
+ * <p>
+ * Page layout, all numbers big-endian:
+ * <pre>
+ * meta page : magic int, page size int, root page id int, first leaf page id int, height int, number of pairs long,
+ *             first free page id int
+ * node page : type byte (1 leaf, 2 internal, 3 free), 3 padding bytes, count int, right sibling int, left sibling
+ *             int, then
+ *   leaf      keys int[leafCapacity], values double[leafCapacity] (8 byte aligned)
+ *   internal  keys int[internalCapacity], children int[internalCapacity + 1]
+ *   free      nothing, the right sibling is the next free page
+ * </pre>
+ * Leaves are linked with their siblings like {@link bplustree.LeafNode}. Deletes remove the pair from its leaf without
+ * merging or borrowing, so leaves may become underfull, which keeps most deletes to a single page write. A leaf page
+ * emptied by a delete is unlinked from its siblings and its parent, an internal page left without children is removed
+ * from its parent the same way, and a root with a single child is replaced by the child. Removed pages go to a free
+ * list linked from the meta page and are reused by the next splits before the file grows.
+ * <p>
+ * The meta page is written when the root, the first leaf, the height or the free list change, and on
+ * {@link #flush()} and {@link #close()}. The number of pairs is only written on flush and close, and dirty pages are
+ * written back whenever the buffer pool evicts them, so the file is consistent only after a flush or close.
+ * <p>
+ * Note that this implementation is not synchronized.
+ */
+public class PagedBPlusTree implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_PAGE_BUDGET = 1024;
+
+    private static final int MAGIC = 0x42505431;
+    private static final int META_PAGE = 0;
+    private static final int NO_PAGE = 0;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte FREE = 3;
+
+    private static final int TYPE = 0;
+    private static final int COUNT = 4;
+    private static final int RIGHT_SIBLING = 8;
+    private static final int LEFT_SIBLING = 12;
+    private static final int KEYS = 16;
+
+    private final FileChannel channel;
+    private final BufferPool bufferPool;
+    private final int pageSize;
+    public final int leafCapacity;
+    public final int internalCapacity;
+    private final int leafValues;
+    private final int internalChildren;
+
+    private int rootPageId;
+    private int firstLeafPageId;
+    private int height;
+    private long size;
+    private int freePageId;
+    // Null unless the key filter is enabled. Kept in memory only, see setKeyFilter
+    private BloomFilter keyFilter;
+
+    private PagedBPlusTree(FileChannel channel, int pageSize, int pageBudget) throws IOException {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.bufferPool = new BufferPool(channel, pageSize, pageBudget);
+        this.leafCapacity = (pageSize - KEYS) / 12;
+        this.leafValues = (KEYS + 4 * leafCapacity + 7) & ~7;
+        this.internalCapacity = (pageSize - KEYS - 4) / 8;
+        this.internalChildren = KEYS + 4 * internalCapacity;
+    }
+
+    /**
+     * This method creates a new empty tree in a file, replacing the file if it exists.
+     *
+     * @param file       file holding the pages
+     * @param pageSize   size of a page in bytes, at least 64
+     * @param pageBudget maximum number of pages kept in memory
+     * @return the new tree
+     * @throws IOException if the file cannot be created
+     */
+    public static PagedBPlusTree create(File file, int pageSize, int pageBudget) throws IOException {
+        if (pageSize < 64) {
+            throw new IllegalArgumentException("Page size must be at least 64 bytes: " + pageSize);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        PagedBPlusTree tree = new PagedBPlusTree(channel, pageSize, pageBudget);
+        BufferPool.Frame meta = tree.bufferPool.allocate();
+        tree.bufferPool.unpin(meta, true);
+
+        BufferPool.Frame leaf = tree.bufferPool.allocate();
+        leaf.buffer.put(TYPE, LEAF);
+        tree.rootPageId = leaf.pageId;
+        tree.firstLeafPageId = leaf.pageId;
+        tree.height = 1;
+        tree.bufferPool.unpin(leaf, true);
+        tree.writeMeta();
+        return tree;
+    }
+
+    /**
+     * This method opens a tree stored in a file by reading its meta page.
+     *
+     * @param file       file holding the pages
+     * @param pageBudget maximum number of pages kept in memory
+     * @return the tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     */
+    public static PagedBPlusTree open(File file, int pageBudget) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(8);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a B+ tree page file: " + file);
+        }
+        PagedBPlusTree tree = new PagedBPlusTree(channel, header.getInt(4), pageBudget);
+        BufferPool.Frame meta = tree.bufferPool.pin(META_PAGE);
+        tree.rootPageId = meta.buffer.getInt(8);
+        tree.firstLeafPageId = meta.buffer.getInt(12);
+        tree.height = meta.buffer.getInt(16);
+        tree.size = meta.buffer.getLong(20);
+        tree.freePageId = meta.buffer.getInt(28);
+        tree.bufferPool.unpin(meta, false);
+        return tree;
+    }
+
+    /**
+     * This method creates a tree file holding the key value pairs of an in-memory tree.
+     * The leaf nodes of the source tree are walked from its first leaf node and packed into full leaf pages,
+     * then the internal node pages are built bottom up.
+     *
+     * @param source     tree to be written
+     * @param file       file holding the pages, replaced if it exists
+     * @param pageSize   size of a page in bytes
+     * @param pageBudget maximum number of pages kept in memory
+     * @return the new tree
+     * @throws IOException if the file cannot be written
+     */
+    public static PagedBPlusTree copyOf(bplustree source, File file, int pageSize, int pageBudget) throws IOException {
+        PagedBPlusTree tree = create(file, pageSize, pageBudget);
+        int[] levelPages = new int[16];
+        int[] levelLowestKeys = new int[16];
+        int levelCount = 0;
+
+        // Pack leaf pages. The empty leaf made by create is reused as the first leaf
+        BufferPool.Frame leaf = tree.bufferPool.pin(tree.firstLeafPageId);
+        int count = 0;
+        // Copy the pairs of each leaf node, so compressed leaf nodes are decoded once
+        int[] keyBuffer = new int[source.getMaximumDataInLeafNode() + 1];
+        double[] valueBuffer = new double[keyBuffer.length];
+        for (bplustree.LeafNode node = source.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            int pairs = node.copyPairs(keyBuffer, valueBuffer);
+            for (int i = 0; i < pairs; i++) {
+                if (count == tree.leafCapacity) {
+                    leaf.buffer.putInt(COUNT, count);
+                    BufferPool.Frame next = tree.bufferPool.allocate();
+                    next.buffer.put(TYPE, LEAF);
+                    next.buffer.putInt(LEFT_SIBLING, leaf.pageId);
+                    leaf.buffer.putInt(RIGHT_SIBLING, next.pageId);
+                    if (levelCount == levelPages.length) {
+                        levelPages = Arrays.copyOf(levelPages, levelCount * 2);
+                        levelLowestKeys = Arrays.copyOf(levelLowestKeys, levelCount * 2);
+                    }
+                    levelPages[levelCount] = leaf.pageId;
+                    levelLowestKeys[levelCount++] = leaf.buffer.getInt(KEYS);
+                    tree.bufferPool.unpin(leaf, true);
+                    leaf = next;
+                    count = 0;
+                }
+                leaf.buffer.putInt(KEYS + 4 * count, keyBuffer[i]);
+                leaf.buffer.putDouble(tree.leafValues + 8 * count, valueBuffer[i]);
+                count++;
+                tree.size++;
+            }
+        }
+        leaf.buffer.putInt(COUNT, count);
+        if (levelCount == levelPages.length) {
+            levelPages = Arrays.copyOf(levelPages, levelCount + 1);
+            levelLowestKeys = Arrays.copyOf(levelLowestKeys, levelCount + 1);
+        }
+        levelPages[levelCount] = leaf.pageId;
+        levelLowestKeys[levelCount++] = leaf.buffer.getInt(KEYS);
+        tree.bufferPool.unpin(leaf, true);
+
+        // Build internal levels. The last node of a level takes at least two children
+        int fanout = tree.internalCapacity + 1;
+        while (levelCount > 1) {
+            int parentCount = 0;
+            for (int start = 0; start < levelCount; ) {
+                int children = Math.min(fanout, levelCount - start);
+                if (levelCount - start - children == 1) {
+                    children--;
+                }
+                BufferPool.Frame internal = tree.bufferPool.allocate();
+                internal.buffer.put(TYPE, INTERNAL);
+                internal.buffer.putInt(COUNT, children - 1);
+                for (int i = 0; i < children; i++) {
+                    internal.buffer.putInt(tree.internalChildren + 4 * i, levelPages[start + i]);
+                    if (i > 0) {
+                        internal.buffer.putInt(KEYS + 4 * (i - 1), levelLowestKeys[start + i]);
+                    }
+                }
+                levelPages[parentCount] = internal.pageId;
+                levelLowestKeys[parentCount++] = levelLowestKeys[start];
+                tree.bufferPool.unpin(internal, true);
+                start += children;
+            }
+            levelCount = parentCount;
+            tree.height++;
+        }
+        tree.rootPageId = levelPages[0];
+        tree.writeMeta();
+        return tree;
+    }
+
+    /**
+     * Getter Method to get the number of key value pairs in the tree.
+     *
+     * @return number of key value pairs
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Getter Method to get the height of the tree, 1 for a tree with a single leaf page.
+     *
+     * @return height of the tree
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter Method to get the buffer pool of the tree, for its hit, miss and eviction counters.
+     *
+     * @return buffer pool of the tree
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Getter Method to get the Bloom filter of all keys of the tree.
+     *
+     * @return key filter, null if the key filter is disabled
+     */
+    public BloomFilter getKeyFilter() {
+        return keyFilter;
+    }
+
+    /**
+     * Setter Method to turn the Bloom filter of all keys of the tree on or off.
+     * <p>
+     * The key filter is kept in memory and tested before a search or delete reads any page, so most searches of
+     * missing keys cost no page reads. Inserts add their key, deleted keys stay in the filter. Once more keys were
+     * added than the filter is sized for it is built again from the leaf pages, sized for twice the number of pairs.
+     * The filter is not stored in the file: turning it on reads all leaf pages once, also after reopening the file.
+     *
+     * @param enabled true to keep a Bloom filter of all keys
+     * @throws IOException if a page cannot be read
+     */
+    public void setKeyFilter(boolean enabled) throws IOException {
+        keyFilter = null;
+        if (enabled) {
+            rebuildKeyFilter();
+        }
+    }
+
+    /**
+     * This method builds the key filter again from the keys of the leaf pages, sized for twice the number of pairs.
+     *
+     * @throws IOException if a page cannot be read
+     */
+    private void rebuildKeyFilter() throws IOException {
+        BloomFilter filter = new BloomFilter(Math.max(1024, 2 * size));
+        searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, (key, value) -> filter.add(key));
+        keyFilter = filter;
+    }
+
+    /**
+     * This method searches for a given key and returns its value.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     * @throws IOException if a page cannot be read
+     */
+    public double searchValue(int key, double defaultValue) throws IOException {
+        if (keyFilter != null && !keyFilter.mightContain(key)) {
+            return defaultValue;
+        }
+        BufferPool.Frame leaf = findFirstLeafPage(key);
+        ByteBuffer page = leaf.buffer;
+        int index = lowerBound(page, page.getInt(COUNT), key);
+        double value = index < page.getInt(COUNT) && page.getInt(KEYS + 4 * index) == key
+                ? page.getDouble(leafValues + 8 * index) : defaultValue;
+        bufferPool.unpin(leaf, false);
+        return value;
+    }
+
+    /**
+     * This method passes the key value pairs whose keys are in between lowerBound and upperBound included
+     * to the consumer, in increasing order of keys. It follows right siblings from the leaf page holding
+     * the lower bound and stops at the first key above the upper bound.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param consumer   consumer of the key value pairs
+     * @return number of pairs passed to the consumer
+     * @throws IOException if a page cannot be read
+     */
+    public long searchRange(int lowerBound, int upperBound, PairConsumer consumer) throws IOException {
+        long total = 0;
+        BufferPool.Frame leaf = findFirstLeafPage(lowerBound);
+        int index = lowerBound(leaf.buffer, leaf.buffer.getInt(COUNT), lowerBound);
+        while (true) {
+            ByteBuffer page = leaf.buffer;
+            int count = page.getInt(COUNT);
+            for (; index < count; index++) {
+                int key = page.getInt(KEYS + 4 * index);
+                if (key > upperBound) {
+                    bufferPool.unpin(leaf, false);
+                    return total;
+                }
+                consumer.accept(key, page.getDouble(leafValues + 8 * index));
+                total++;
+            }
+            int next = page.getInt(RIGHT_SIBLING);
+            bufferPool.unpin(leaf, false);
+            if (next == NO_PAGE) {
+                return total;
+            }
+            leaf = bufferPool.pin(next);
+            index = 0;
+        }
+    }
+
+    /**
+     * This method inserts a key value pair. Like {@link bplustree#insert(int, double)} a pair with an existing key
+     * is added after the pairs with that key. A full leaf page is split into two pages and the separator is added
+     * to the parent page, splitting internal pages up to the root when they are full.
+     *
+     * @param key   Key to inserted
+     * @param value value to inserted
+     * @throws IOException if a page cannot be read or written
+     */
+    public void insert(int key, double value) throws IOException {
+        if (keyFilter != null) {
+            if (keyFilter.isOverloaded()) {
+                rebuildKeyFilter();
+            }
+            keyFilter.add(key);
+        }
+        int[] path = new int[height];
+        int[] childIndexes = new int[height];
+        BufferPool.Frame leaf = findLeafPage(key, path, childIndexes);
+        ByteBuffer page = leaf.buffer;
+        int count = page.getInt(COUNT);
+        size++;
+
+        if (count < leafCapacity) {
+            insertIntoLeaf(page, count, upperBound(page, count, key), key, value);
+            bufferPool.unpin(leaf, true);
+            return;
+        }
+
+        // Split the full leaf page. The upper half moves to a new right sibling page
+        BufferPool.Frame right = allocatePage();
+        ByteBuffer rightPage = right.buffer;
+        rightPage.put(TYPE, LEAF);
+        int mid = (count + 1) / 2;
+        int moved = count - mid;
+        System.arraycopy(page.array(), KEYS + 4 * mid, rightPage.array(), KEYS, 4 * moved);
+        System.arraycopy(page.array(), leafValues + 8 * mid, rightPage.array(), leafValues, 8 * moved);
+        page.putInt(COUNT, mid);
+        rightPage.putInt(COUNT, moved);
+
+        int oldRight = page.getInt(RIGHT_SIBLING);
+        rightPage.putInt(RIGHT_SIBLING, oldRight);
+        rightPage.putInt(LEFT_SIBLING, leaf.pageId);
+        page.putInt(RIGHT_SIBLING, right.pageId);
+        if (oldRight != NO_PAGE) {
+            BufferPool.Frame oldRightFrame = bufferPool.pin(oldRight);
+            oldRightFrame.buffer.putInt(LEFT_SIBLING, right.pageId);
+            bufferPool.unpin(oldRightFrame, true);
+        }
+
+        int separator = rightPage.getInt(KEYS);
+        if (key < separator) {
+            insertIntoLeaf(page, mid, upperBound(page, mid, key), key, value);
+        } else {
+            insertIntoLeaf(rightPage, moved, upperBound(rightPage, moved, key), key, value);
+        }
+        int leftPageId = leaf.pageId;
+        int rightPageId = right.pageId;
+        bufferPool.unpin(leaf, true);
+        bufferPool.unpin(right, true);
+
+        insertIntoParent(path, childIndexes, height - 2, leftPageId, separator, rightPageId);
+    }
+
+    /**
+     * This method adds a separator key and the page id of a new right sibling to the parent of a page.
+     * If the parent page is full it is split and its middle key moves up, a split root creates a new root.
+     *
+     * @param path         page ids of the internal pages from the root down to the parent
+     * @param childIndexes index of the child followed in each page of the path
+     * @param level        index in path of the parent, -1 if the split page is the root
+     * @param leftPage     page which was split
+     * @param separator    first key of the right page
+     * @param rightPage    new right sibling page
+     */
+    private void insertIntoParent(int[] path, int[] childIndexes, int level, int leftPage, int separator,
+                                  int rightPage) throws IOException {
+        while (true) {
+            if (level < 0) {
+                BufferPool.Frame newRoot = allocatePage();
+                ByteBuffer page = newRoot.buffer;
+                page.put(TYPE, INTERNAL);
+                page.putInt(COUNT, 1);
+                page.putInt(KEYS, separator);
+                page.putInt(internalChildren, leftPage);
+                page.putInt(internalChildren + 4, rightPage);
+                rootPageId = newRoot.pageId;
+                height++;
+                bufferPool.unpin(newRoot, true);
+                writeMeta();
+                return;
+            }
+
+            BufferPool.Frame parent = bufferPool.pin(path[level]);
+            ByteBuffer page = parent.buffer;
+            int count = page.getInt(COUNT);
+            // Keys equal to the separator may already be in the parent, so the position comes from the descent
+            int index = childIndexes[level];
+            if (count < internalCapacity) {
+                insertIntoInternal(page, count, index, separator, rightPage);
+                bufferPool.unpin(parent, true);
+                return;
+            }
+
+            // Split the full internal page. Build the overfull key and child lists and divide them
+            int[] keys = new int[count + 1];
+            int[] children = new int[count + 2];
+            for (int i = 0, k = 0; i <= count; i++) {
+                if (i == index) {
+                    keys[k++] = separator;
+                }
+                if (i < count) {
+                    keys[k++] = page.getInt(KEYS + 4 * i);
+                }
+            }
+            for (int i = 0, c = 0; i <= count; i++) {
+                children[c++] = page.getInt(internalChildren + 4 * i);
+                if (i == index) {
+                    children[c++] = rightPage;
+                }
+            }
+            int mid = (count + 1) / 2;
+            BufferPool.Frame sibling = allocatePage();
+            ByteBuffer siblingPage = sibling.buffer;
+            siblingPage.put(TYPE, INTERNAL);
+            page.putInt(COUNT, mid);
+            for (int i = 0; i < mid; i++) {
+                page.putInt(KEYS + 4 * i, keys[i]);
+                page.putInt(internalChildren + 4 * i, children[i]);
+            }
+            page.putInt(internalChildren + 4 * mid, children[mid]);
+            int rightCount = count - mid;
+            siblingPage.putInt(COUNT, rightCount);
+            for (int i = 0; i < rightCount; i++) {
+                siblingPage.putInt(KEYS + 4 * i, keys[mid + 1 + i]);
+                siblingPage.putInt(internalChildren + 4 * i, children[mid + 1 + i]);
+            }
+            siblingPage.putInt(internalChildren + 4 * rightCount, children[count + 1]);
+
+            leftPage = parent.pageId;
+            separator = keys[mid];
+            rightPage = sibling.pageId;
+            bufferPool.unpin(parent, true);
+            bufferPool.unpin(sibling, true);
+            level--;
+        }
+    }
+
+    /**
+     * This method deletes the first key value pair with the key provided. A leaf page left empty is removed from
+     * the tree and added to the free list, unless it is the only leaf page.
+     *
+     * @param key key of the key value pair to be deleted
+     * @return true if the key was present, false otherwise
+     * @throws IOException if a page cannot be read or written
+     */
+    public boolean delete(int key) throws IOException {
+        if (keyFilter != null && !keyFilter.mightContain(key)) {
+            return false;
+        }
+        int[] path = new int[height];
+        int[] childIndexes = new int[height];
+        BufferPool.Frame leaf = findFirstLeafPage(key, path, childIndexes);
+        ByteBuffer page = leaf.buffer;
+        int count = page.getInt(COUNT);
+        int index = lowerBound(page, count, key);
+        if (index == count || page.getInt(KEYS + 4 * index) != key) {
+            bufferPool.unpin(leaf, false);
+            return false;
+        }
+        byte[] bytes = page.array();
+        System.arraycopy(bytes, KEYS + 4 * (index + 1), bytes, KEYS + 4 * index, 4 * (count - index - 1));
+        System.arraycopy(bytes, leafValues + 8 * (index + 1), bytes, leafValues + 8 * index, 8 * (count - index - 1));
+        page.putInt(COUNT, count - 1);
+        int leftSibling = page.getInt(LEFT_SIBLING);
+        int rightSibling = page.getInt(RIGHT_SIBLING);
+        int leafPageId = leaf.pageId;
+        bufferPool.unpin(leaf, true);
+        size--;
+        if (count == 1 && height > 1) {
+            removeEmptyLeaf(path, childIndexes, leafPageId, leftSibling, rightSibling);
+        }
+        return true;
+    }
+
+    /**
+     * This method unlinks an empty leaf page from its siblings and removes it from its parent. A parent left without
+     * children is removed from its own parent, up to the root, and then a root with a single child is replaced by
+     * the child. Removed pages are added to the free list.
+     *
+     * @param path         page ids of the internal pages from the root down to the parent of the leaf page
+     * @param childIndexes index of the child followed in each page of the path
+     * @param leafPageId   empty leaf page
+     * @param leftSibling  left sibling of the leaf page
+     * @param rightSibling right sibling of the leaf page
+     */
+    private void removeEmptyLeaf(int[] path, int[] childIndexes, int leafPageId, int leftSibling, int rightSibling)
+            throws IOException {
+        if (leftSibling == NO_PAGE) {
+            firstLeafPageId = rightSibling;
+        } else {
+            BufferPool.Frame left = bufferPool.pin(leftSibling);
+            left.buffer.putInt(RIGHT_SIBLING, rightSibling);
+            bufferPool.unpin(left, true);
+        }
+        if (rightSibling != NO_PAGE) {
+            BufferPool.Frame right = bufferPool.pin(rightSibling);
+            right.buffer.putInt(LEFT_SIBLING, leftSibling);
+            bufferPool.unpin(right, true);
+        }
+        freePage(leafPageId);
+
+        // Remove the child pointer and the separator next to it. The first child takes the separator to its right,
+        // which is safe as the removed subtree held no keys
+        for (int level = height - 2; level >= 0; level--) {
+            BufferPool.Frame parent = bufferPool.pin(path[level]);
+            ByteBuffer page = parent.buffer;
+            int count = page.getInt(COUNT);
+            if (count == 0) {
+                bufferPool.unpin(parent, false);
+                freePage(path[level]);
+                continue;
+            }
+            int index = childIndexes[level];
+            int keyIndex = Math.max(index - 1, 0);
+            byte[] bytes = page.array();
+            System.arraycopy(bytes, KEYS + 4 * (keyIndex + 1), bytes, KEYS + 4 * keyIndex, 4 * (count - keyIndex - 1));
+            System.arraycopy(bytes, internalChildren + 4 * (index + 1), bytes, internalChildren + 4 * index,
+                    4 * (count - index));
+            page.putInt(COUNT, count - 1);
+            bufferPool.unpin(parent, true);
+            break;
+        }
+
+        while (height > 1) {
+            BufferPool.Frame root = bufferPool.pin(rootPageId);
+            if (root.buffer.getInt(COUNT) > 0) {
+                bufferPool.unpin(root, false);
+                break;
+            }
+            int child = root.buffer.getInt(internalChildren);
+            bufferPool.unpin(root, false);
+            freePage(rootPageId);
+            rootPageId = child;
+            height--;
+        }
+        writeMeta();
+    }
+
+    /**
+     * This method writes the meta page and all dirty pages back to the file and forces them to the storage device.
+     *
+     * @throws IOException if a page cannot be written
+     */
+    public void flush() throws IOException {
+        writeMeta();
+        bufferPool.flush();
+    }
+
+    /**
+     * This method flushes the tree and closes the file.
+     *
+     * @throws IOException if a page cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * This method descends from the root to the leaf page where the key is inserted and returns it pinned.
+     *
+     * @param key          key to be inserted
+     * @param path         receives the page ids of the internal pages from the root down
+     * @param childIndexes receives the index of the child followed in each internal page
+     */
+    private BufferPool.Frame findLeafPage(int key, int[] path, int[] childIndexes) throws IOException {
+        BufferPool.Frame frame = bufferPool.pin(rootPageId);
+        int level = 0;
+        while (frame.buffer.get(TYPE) == INTERNAL) {
+            ByteBuffer page = frame.buffer;
+            int index = childIndex(page, page.getInt(COUNT), key);
+            int child = page.getInt(internalChildren + 4 * index);
+            path[level] = frame.pageId;
+            childIndexes[level] = index;
+            level++;
+            bufferPool.unpin(frame, false);
+            frame = bufferPool.pin(child);
+        }
+        return frame;
+    }
+
+    /**
+     * This method returns pinned the leaf page holding the first pair with a key greater than or equal to the key.
+     * Pairs with a key equal to a separator may be on both sides of it, so the descent takes the child left of
+     * an equal separator and moves right past leaf pages which end before the key.
+     *
+     * @param key key to be found
+     */
+    private BufferPool.Frame findFirstLeafPage(int key) throws IOException {
+        return findFirstLeafPage(key, null, null);
+    }
+
+    /**
+     * This method returns pinned the leaf page holding the first pair with a key greater than or equal to the key,
+     * like {@link #findFirstLeafPage(int)}, and the path of internal pages leading to it.
+     *
+     * @param key          key to be found
+     * @param path         receives the page ids of the internal pages from the root down, null if not needed
+     * @param childIndexes receives the index of the child followed in each internal page, null if not needed
+     */
+    private BufferPool.Frame findFirstLeafPage(int key, int[] path, int[] childIndexes) throws IOException {
+        BufferPool.Frame frame = bufferPool.pin(rootPageId);
+        int level = 0;
+        while (frame.buffer.get(TYPE) == INTERNAL) {
+            ByteBuffer page = frame.buffer;
+            int index = lowerBound(page, page.getInt(COUNT), key);
+            int child = page.getInt(internalChildren + 4 * index);
+            if (path != null) {
+                path[level] = frame.pageId;
+                childIndexes[level] = index;
+            }
+            level++;
+            bufferPool.unpin(frame, false);
+            frame = bufferPool.pin(child);
+        }
+        while (true) {
+            ByteBuffer page = frame.buffer;
+            int count = page.getInt(COUNT);
+            int next = page.getInt(RIGHT_SIBLING);
+            if (next == NO_PAGE || (count > 0 && page.getInt(KEYS + 4 * (count - 1)) >= key)) {
+                return frame;
+            }
+            bufferPool.unpin(frame, false);
+            if (path != null) {
+                advancePath(path, childIndexes);
+            }
+            frame = bufferPool.pin(next);
+        }
+    }
+
+    /**
+     * This method moves a path of internal pages from a leaf page to its right sibling: the lowest page of the path
+     * with a child right of the path moves to that child, and the pages below it to their first child.
+     */
+    private void advancePath(int[] path, int[] childIndexes) throws IOException {
+        int level = height - 2;
+        while (level >= 0) {
+            BufferPool.Frame frame = bufferPool.pin(path[level]);
+            int count = frame.buffer.getInt(COUNT);
+            bufferPool.unpin(frame, false);
+            if (childIndexes[level] < count) {
+                break;
+            }
+            level--;
+        }
+        if (level < 0) {
+            return;
+        }
+        childIndexes[level]++;
+        for (; level < height - 2; level++) {
+            BufferPool.Frame frame = bufferPool.pin(path[level]);
+            path[level + 1] = frame.buffer.getInt(internalChildren + 4 * childIndexes[level]);
+            childIndexes[level + 1] = 0;
+            bufferPool.unpin(frame, false);
+        }
+    }
+
+    private void writeMeta() throws IOException {
+        BufferPool.Frame meta = bufferPool.pin(META_PAGE);
+        ByteBuffer page = meta.buffer;
+        page.putInt(0, MAGIC);
+        page.putInt(4, pageSize);
+        page.putInt(8, rootPageId);
+        page.putInt(12, firstLeafPageId);
+        page.putInt(16, height);
+        page.putLong(20, size);
+        page.putInt(28, freePageId);
+        bufferPool.unpin(meta, true);
+    }
+
+    /**
+     * This method pins a zeroed page for a new node, taken from the free list if it is not empty and appended to
+     * the file otherwise.
+     */
+    private BufferPool.Frame allocatePage() throws IOException {
+        if (freePageId == NO_PAGE) {
+            return bufferPool.allocate();
+        }
+        BufferPool.Frame frame = bufferPool.pin(freePageId);
+        freePageId = frame.buffer.getInt(RIGHT_SIBLING);
+        Arrays.fill(frame.buffer.array(), (byte) 0);
+        frame.dirty = true;
+        writeMeta();
+        return frame;
+    }
+
+    /**
+     * This method adds a page which is no longer part of the tree to the free list.
+     */
+    private void freePage(int pageId) throws IOException {
+        BufferPool.Frame frame = bufferPool.pin(pageId);
+        frame.buffer.put(TYPE, FREE);
+        frame.buffer.putInt(COUNT, 0);
+        frame.buffer.putInt(RIGHT_SIBLING, freePageId);
+        frame.buffer.putInt(LEFT_SIBLING, NO_PAGE);
+        bufferPool.unpin(frame, true);
+        freePageId = pageId;
+        writeMeta();
+    }
+
+    private void insertIntoLeaf(ByteBuffer page, int count, int index, int key, double value) {
+        byte[] bytes = page.array();
+        System.arraycopy(bytes, KEYS + 4 * index, bytes, KEYS + 4 * (index + 1), 4 * (count - index));
+        System.arraycopy(bytes, leafValues + 8 * index, bytes, leafValues + 8 * (index + 1), 8 * (count - index));
+        page.putInt(KEYS + 4 * index, key);
+        page.putDouble(leafValues + 8 * index, value);
+        page.putInt(COUNT, count + 1);
+    }
+
+    private void insertIntoInternal(ByteBuffer page, int count, int index, int key, int child) {
+        byte[] bytes = page.array();
+        System.arraycopy(bytes, KEYS + 4 * index, bytes, KEYS + 4 * (index + 1), 4 * (count - index));
+        System.arraycopy(bytes, internalChildren + 4 * (index + 1), bytes, internalChildren + 4 * (index + 2),
+                4 * (count - index));
+        page.putInt(KEYS + 4 * index, key);
+        page.putInt(internalChildren + 4 * (index + 1), child);
+        page.putInt(COUNT, count + 1);
+    }
+
+    /**
+     * This method returns the number of keys of an internal page less than or equal to the key,
+     * which is the index of the child whose subtree holds the key.
+     */
+    private static int childIndex(ByteBuffer page, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (page.getInt(KEYS + 4 * mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(ByteBuffer page, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (page.getInt(KEYS + 4 * mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(ByteBuffer page, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (page.getInt(KEYS + 4 * mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Callback receiving key value pairs, for example the pairs of a range scan in increasing order of keys.
+ */
+public interface PairConsumer {
+
+    /**
+     * This method is called once for every key value pair.
+     *
+     * @param key   The key of the key value pair.
+     * @param value The value of the key value pair.
+     */
+    void accept(int key, double value);
+}
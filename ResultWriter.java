@@ -0,0 +1,259 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered sink for search results.
+ * <p>
+ * Text and numbers are encoded straight into one reusable byte buffer, which is written to the channel when it is
+ * full and on {@link #flush()}, and at the end of every line if the writer is created to flush every line.
+ * Otherwise a caller must flush or close the writer when it is done. {@link #writeDouble(double)} writes the same
+ * text as {@link Double#toString(double)} without creating a string for plain values, that is zero and values
+ * between 10^-3 and 10^7 with at most {@link #MAXIMUM_FRACTION_DIGITS} digits after the point; other values fall
+ * back to {@link Double#toString(double)}.
+ * <p>
+ * The append methods throw {@link UncheckedIOException} if the buffer cannot be written to the channel.
+ * Note that this implementation is not synchronized.
+ */
+public class ResultWriter implements Closeable, Flushable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    public static final int MAXIMUM_FRACTION_DIGITS = 9;
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L,
+            10_000_000L, 100_000_000L, 1_000_000_000L};
+    private static final long MAXIMUM_EXACT_DIGITS = 1L << 53;
+
+    private final WritableByteChannel channel;
+    private final boolean autoFlush;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+
+    /**
+     * Constructs a Result Writer writing to a channel.
+     *
+     * @param channel channel the results are written to
+     */
+    public ResultWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a Result Writer writing to a channel.
+     *
+     * @param channel    channel the results are written to
+     * @param bufferSize size of the buffer in bytes, at least 64
+     */
+    public ResultWriter(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, false);
+    }
+
+    /**
+     * Constructs a Result Writer writing to a channel.
+     *
+     * @param channel    channel the results are written to
+     * @param bufferSize size of the buffer in bytes, at least 64
+     * @param autoFlush  true to write the buffer to the channel at the end of every line
+     */
+    public ResultWriter(WritableByteChannel channel, int bufferSize, boolean autoFlush) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 bytes: " + bufferSize);
+        }
+        this.channel = channel;
+        this.autoFlush = autoFlush;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.bytes = buffer.array();
+    }
+
+    /**
+     * This method opens a Result Writer on a file, replacing the file if it exists.
+     *
+     * @param file output file
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     */
+    public static ResultWriter open(File file) throws IOException {
+        return new ResultWriter(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * This method writes a string.
+     *
+     * @param text string to be written
+     * @return this writer
+     */
+    public ResultWriter write(String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Rare non ASCII text is encoded as UTF-8 through a temporary array
+                writeBytes(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            if (position == bytes.length) {
+                drain();
+            }
+            bytes[position++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * This method writes an ASCII character.
+     *
+     * @param c character to be written
+     * @return this writer
+     */
+    public ResultWriter write(char c) {
+        if (position == bytes.length) {
+            drain();
+        }
+        bytes[position++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * This method ends the current line, and writes the buffer to the channel if the writer flushes every line.
+     *
+     * @return this writer
+     */
+    public ResultWriter newLine() {
+        write('\n');
+        if (autoFlush) {
+            drain();
+        }
+        return this;
+    }
+
+    /**
+     * This method writes a double value as {@link Double#toString(double)} does.
+     *
+     * @param value value to be written
+     * @return this writer
+     */
+    public ResultWriter writeDouble(double value) {
+        // Room for a sign, 8 integer digits, the point and 9 fraction digits
+        if (bytes.length - position < 20) {
+            drain();
+        }
+        if (!writePlainDouble(value)) {
+            write(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * This method writes all buffered bytes to the channel.
+     *
+     * @throws IOException if the bytes cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    /**
+     * This method flushes the writer and closes the channel.
+     *
+     * @throws IOException if the bytes cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method writes the shortest decimal which reads back as the value, if the value is plain.
+     * The shortest number of fraction digits is the first one for which the nearest decimal reads back as the value.
+     * Both the decimal digits and the power of ten are exact doubles, so one division decides it.
+     *
+     * @return false if the value is not plain and nothing was written
+     */
+    private boolean writePlainDouble(double value) {
+        if (value == 0) {
+            if (Double.doubleToRawLongBits(value) != 0) {
+                bytes[position++] = '-';
+            }
+            bytes[position++] = '0';
+            bytes[position++] = '.';
+            bytes[position++] = '0';
+            return true;
+        }
+        double magnitude = Math.abs(value);
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) {
+            return false;
+        }
+        for (int fractionDigits = 0; fractionDigits <= MAXIMUM_FRACTION_DIGITS; fractionDigits++) {
+            long scale = POWERS_OF_TEN[fractionDigits];
+            long digits = Math.round(magnitude * scale);
+            if (digits >= MAXIMUM_EXACT_DIGITS) {
+                return false;
+            }
+            if (digits / (double) scale == magnitude) {
+                if (value < 0) {
+                    bytes[position++] = '-';
+                }
+                writeLong(digits / scale);
+                bytes[position++] = '.';
+                if (fractionDigits == 0) {
+                    bytes[position++] = '0';
+                } else {
+                    long fraction = digits % scale;
+                    for (int i = fractionDigits - 1; i >= 0; i--) {
+                        bytes[position + i] = (byte) ('0' + fraction % 10);
+                        fraction /= 10;
+                    }
+                    position += fractionDigits;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLong(long value) {
+        int length = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        for (int i = position + length - 1; i >= position; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    private void writeBytes(byte[] source) {
+        for (byte b : source) {
+            if (position == bytes.length) {
+                drain();
+            }
+            bytes[position++] = b;
+        }
+    }
+
+    private void drain() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,704 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Metrics of a {@link bplustree}: counts and latency histograms of inserts, deletes and searches, counts of
+ * the splits, borrows and merges done to keep the tree balanced, and the height and fill factor of the tree.
+ * <p>
+ * Metrics are off unless {@link bplustree#enableMetrics()} is called. The tree keeps a null reference while they
+ * are off, so every operation pays one field read and one null check and nothing else.
+ * <p>
+ * Counters are {@link LongAdder}s and histogram buckets are atomic, so metrics can be read while the tree is in use,
+ * from a JMX client or from {@link #startPeriodicDump(PrintStream, long)}. The number of Leaf Nodes and pairs are
+ * counted once when the metrics are created and then kept by the tree at every insert, delete, split and merge, so
+ * reading them and the fill factor costs the same at any size. The height is read from the root when asked.
+ */
+public class TreeMetrics implements TreeMetricsMXBean {
+    public final bplustree tree;
+
+    public final LatencyHistogram insertLatency = new LatencyHistogram();
+    public final LatencyHistogram deleteLatency = new LatencyHistogram();
+    public final LatencyHistogram searchLatency = new LatencyHistogram();
+    public final LatencyHistogram rangeSearchLatency = new LatencyHistogram();
+
+    public final LongAdder leafSplits = new LongAdder();
+    public final LongAdder internalSplits = new LongAdder();
+    public final LongAdder rootSplits = new LongAdder();
+    public final LongAdder leafBorrows = new LongAdder();
+    public final LongAdder leafMerges = new LongAdder();
+    public final LongAdder internalBorrows = new LongAdder();
+    public final LongAdder internalMerges = new LongAdder();
+    public final LongAdder internalAdjustments = new LongAdder();
+    public final LongAdder adjustmentCascades = new LongAdder();
+    public final LongAdder treeFilterRejections = new LongAdder();
+    public final LongAdder leafFilterRejections = new LongAdder();
+    public final LongAdder insertHintHits = new LongAdder();
+
+    // Kept by the tree as it changes, not set back to zero by reset()
+    public final LongAdder leafNodes = new LongAdder();
+    public final LongAdder pairs = new LongAdder();
+
+    private ObjectName objectName;
+    private ScheduledExecutorService dumpExecutor;
+
+    /**
+     * Constructs metrics of a tree with all counters at zero, counting the Leaf Nodes and pairs the tree has.
+     *
+     * @param tree tree whose height and fill factor are reported
+     */
+    public TreeMetrics(bplustree tree) {
+        this.tree = tree;
+        recount();
+    }
+
+    /**
+     * This method counts the Leaf Nodes and pairs of the tree again, walking all Leaf Nodes. The tree keeps both
+     * counts as it changes, so this is needed only when Leaf Nodes were installed without the tree knowing, and must
+     * be called from the thread changing the tree.
+     */
+    public void recount() {
+        long leafNodes = 0;
+        long pairs = 0;
+        for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            leafNodes++;
+            pairs += node.getNumberOfPairs();
+        }
+        this.leafNodes.reset();
+        this.leafNodes.add(leafNodes);
+        this.pairs.reset();
+        this.pairs.add(pairs);
+    }
+
+    /**
+     * Histogram of latencies in nanoseconds, with buckets in the manner of HdrHistogram: every power of two is split
+     * into 32 buckets of equal width, so a recorded value is known to about 3% at any magnitude, from nanoseconds to
+     * minutes, in a fixed array of counts.
+     */
+    public static class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS);
+        private final AtomicLong maximum = new AtomicLong();
+
+        /**
+         * This method records one latency.
+         *
+         * @param nanos latency in nanoseconds, negative latencies are recorded as 0
+         */
+        public void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            counts.getAndIncrement(bucketIndex(value));
+            if (value > maximum.get()) {
+                maximum.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        /**
+         * Getter Method to get the number of recorded latencies.
+         *
+         * @return number of recorded latencies
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Getter Method to get the largest recorded latency.
+         *
+         * @return largest latency in nanoseconds, 0 if none was recorded
+         */
+        public long getMaximum() {
+            return maximum.get();
+        }
+
+        /**
+         * This method returns the latency below or at which a fraction of the recorded latencies are, rounded up
+         * to the top of its bucket.
+         *
+         * @param fraction fraction of the latencies, from 0 to 1, for example 0.99 for the 99th percentile
+         * @return latency in nanoseconds, 0 if none was recorded
+         */
+        public long getPercentile(double fraction) {
+            long count = getCount();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketTop(i), maximum.get());
+                }
+            }
+            return maximum.get();
+        }
+
+        /**
+         * This method sets all counts back to zero.
+         */
+        public void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            maximum.set(0);
+        }
+
+        /**
+         * This method returns the index of the bucket of a value. Values below 64 have a bucket each, larger values
+         * share a bucket with the values having the same highest 6 bits.
+         */
+        private static int bucketIndex(long value) {
+            if (value < 2 * SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+        }
+
+        /**
+         * This method returns the largest value of a bucket.
+         */
+        private static long bucketTop(int index) {
+            if (index < 2 * SUB_BUCKETS) {
+                return index;
+            }
+            int shift = (index >>> SUB_BUCKET_BITS) - 1;
+            long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+            return ((mantissa + 1) << shift) - 1;
+        }
+    }
+
+    /**
+     * Summary of a {@link LatencyHistogram} at one point in time, shown by JMX clients as composite data.
+     */
+    public static class LatencySummary {
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long maximum;
+
+        /**
+         * Constructs a summary with the values provided in the method arguments, all latencies in nanoseconds.
+         *
+         * @param count   number of recorded latencies
+         * @param p50     median latency
+         * @param p90     90th percentile latency
+         * @param p99     99th percentile latency
+         * @param p999    99.9th percentile latency
+         * @param maximum largest latency
+         */
+        public LatencySummary(long count, long p50, long p90, long p99, long p999, long maximum) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.maximum = maximum;
+        }
+
+        /**
+         * Constructs a summary of a histogram.
+         *
+         * @param histogram histogram to be summarized
+         */
+        public LatencySummary(LatencyHistogram histogram) {
+            this(histogram.getCount(), histogram.getPercentile(0.5), histogram.getPercentile(0.9),
+                    histogram.getPercentile(0.99), histogram.getPercentile(0.999), histogram.getMaximum());
+        }
+
+        /**
+         * This method rebuilds a summary from the composite data a JMX client received.
+         *
+         * @param data composite data of a summary
+         * @return summary
+         */
+        public static LatencySummary from(CompositeData data) {
+            return new LatencySummary((Long) data.get("count"), (Long) data.get("p50Nanos"),
+                    (Long) data.get("p90Nanos"), (Long) data.get("p99Nanos"), (Long) data.get("p999Nanos"),
+                    (Long) data.get("maximumNanos"));
+        }
+
+        /**
+         * Getter Method to get the number of recorded latencies.
+         *
+         * @return number of recorded latencies
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Getter Method to get the median latency.
+         *
+         * @return median latency in nanoseconds
+         */
+        public long getP50Nanos() {
+            return p50;
+        }
+
+        /**
+         * Getter Method to get the 90th percentile latency.
+         *
+         * @return 90th percentile latency in nanoseconds
+         */
+        public long getP90Nanos() {
+            return p90;
+        }
+
+        /**
+         * Getter Method to get the 99th percentile latency.
+         *
+         * @return 99th percentile latency in nanoseconds
+         */
+        public long getP99Nanos() {
+            return p99;
+        }
+
+        /**
+         * Getter Method to get the 99.9th percentile latency.
+         *
+         * @return 99.9th percentile latency in nanoseconds
+         */
+        public long getP999Nanos() {
+            return p999;
+        }
+
+        /**
+         * Getter Method to get the largest latency.
+         *
+         * @return largest latency in nanoseconds
+         */
+        public long getMaximumNanos() {
+            return maximum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns", count, p50, p90, p99,
+                    p999, maximum);
+        }
+    }
+
+    /**
+     * Getter Method to get the number of inserts.
+     *
+     * @return number of inserts
+     */
+    @Override
+    public long getInserts() {
+        return insertLatency.getCount();
+    }
+
+    /**
+     * Getter Method to get the number of deletes.
+     *
+     * @return number of deletes
+     */
+    @Override
+    public long getDeletes() {
+        return deleteLatency.getCount();
+    }
+
+    /**
+     * Getter Method to get the number of point searches.
+     *
+     * @return number of point searches
+     */
+    @Override
+    public long getSearches() {
+        return searchLatency.getCount();
+    }
+
+    /**
+     * Getter Method to get the number of range searches.
+     *
+     * @return number of range searches
+     */
+    @Override
+    public long getRangeSearches() {
+        return rangeSearchLatency.getCount();
+    }
+
+    /**
+     * Getter Method to get the number of Leaf Node splits.
+     *
+     * @return number of Leaf Node splits
+     */
+    @Override
+    public long getLeafSplits() {
+        return leafSplits.sum();
+    }
+
+    /**
+     * Getter Method to get the number of Internal Node splits, root splits included.
+     *
+     * @return number of Internal Node splits
+     */
+    @Override
+    public long getInternalSplits() {
+        return internalSplits.sum();
+    }
+
+    /**
+     * Getter Method to get the number of times the tree grew a level, by a split of its root node.
+     *
+     * @return number of new roots
+     */
+    @Override
+    public long getRootSplits() {
+        return rootSplits.sum();
+    }
+
+    /**
+     * Getter Method to get the number of pairs borrowed by deficient Leaf Nodes.
+     *
+     * @return number of Leaf Node borrows
+     */
+    @Override
+    public long getLeafBorrows() {
+        return leafBorrows.sum();
+    }
+
+    /**
+     * Getter Method to get the number of Leaf Node merges.
+     *
+     * @return number of Leaf Node merges
+     */
+    @Override
+    public long getLeafMerges() {
+        return leafMerges.sum();
+    }
+
+    /**
+     * Getter Method to get the number of child pointers borrowed by deficient Internal Nodes.
+     *
+     * @return number of Internal Node borrows
+     */
+    @Override
+    public long getInternalBorrows() {
+        return internalBorrows.sum();
+    }
+
+    /**
+     * Getter Method to get the number of Internal Node merges.
+     *
+     * @return number of Internal Node merges
+     */
+    @Override
+    public long getInternalMerges() {
+        return internalMerges.sum();
+    }
+
+    /**
+     * Getter Method to get the number of calls of adjustInternalNodes, cascades included.
+     *
+     * @return number of Internal Node adjustments
+     */
+    @Override
+    public long getInternalAdjustments() {
+        return internalAdjustments.sum();
+    }
+
+    /**
+     * Getter Method to get the number of adjustments which left the parent deficient, so that it was adjusted too.
+     *
+     * @return number of cascading adjustments
+     */
+    @Override
+    public long getAdjustmentCascades() {
+        return adjustmentCascades.sum();
+    }
+
+    /**
+     * Getter Method to get the number of point searches rejected by the tree filter before descending.
+     *
+     * @return number of tree filter rejections
+     */
+    @Override
+    public long getTreeFilterRejections() {
+        return treeFilterRejections.sum();
+    }
+
+    /**
+     * Getter Method to get the number of point searches rejected by the filter of their Leaf Node.
+     *
+     * @return number of leaf filter rejections
+     */
+    @Override
+    public long getLeafFilterRejections() {
+        return leafFilterRejections.sum();
+    }
+
+    /**
+     * Getter Method to get the number of inserts which went into the Leaf Node of the previous insert without
+     * descending from the root.
+     *
+     * @return number of insert hint hits
+     */
+    @Override
+    public long getInsertHintHits() {
+        return insertHintHits.sum();
+    }
+
+    /**
+     * Getter Method to get the height of the tree, 1 for a single Leaf Node and 0 for an empty tree.
+     *
+     * @return height of the tree
+     */
+    @Override
+    public int getHeight() {
+        bplustree.InternalNode root = tree.getRoot();
+        if (root != null) {
+            return root.getLevel() + 1;
+        }
+        return tree.getFirstLeafNode() == null ? 0 : 1;
+    }
+
+    /**
+     * Getter Method to get the number of Leaf Nodes.
+     *
+     * @return number of Leaf Nodes
+     */
+    @Override
+    public long getLeafNodes() {
+        return leafNodes.sum();
+    }
+
+    /**
+     * Getter Method to get the number of key value pairs.
+     *
+     * @return number of pairs
+     */
+    @Override
+    public long getPairs() {
+        return pairs.sum();
+    }
+
+    /**
+     * Getter Method to get the fill factor of Leaf Nodes: pairs divided by the pairs the Leaf Nodes can hold.
+     *
+     * @return fill factor from 0 to 1
+     */
+    @Override
+    public double getFillFactor() {
+        long leafNodes = getLeafNodes();
+        return leafNodes == 0 ? 0 : (double) getPairs() / (leafNodes * tree.getMaximumDataInLeafNode());
+    }
+
+    /**
+     * Getter Method to get the number of point searches answered by the lookup cache.
+     *
+     * @return number of lookup cache hits, 0 if the lookup cache is disabled
+     */
+    @Override
+    public long getCacheHits() {
+        LookupCache lookupCache = tree.getLookupCache();
+        return lookupCache == null ? 0 : lookupCache.getHits();
+    }
+
+    /**
+     * Getter Method to get the number of point searches which missed the lookup cache.
+     *
+     * @return number of lookup cache misses, 0 if the lookup cache is disabled
+     */
+    @Override
+    public long getCacheMisses() {
+        LookupCache lookupCache = tree.getLookupCache();
+        return lookupCache == null ? 0 : lookupCache.getMisses();
+    }
+
+    /**
+     * Getter Method to get the number of keys dropped from the full lookup cache to make room for new keys.
+     *
+     * @return number of lookup cache evictions, 0 if the lookup cache is disabled
+     */
+    @Override
+    public long getCacheEvictions() {
+        LookupCache lookupCache = tree.getLookupCache();
+        return lookupCache == null ? 0 : lookupCache.getEvictions();
+    }
+
+    /**
+     * Getter Method to get the fraction of point searches answered by the lookup cache.
+     *
+     * @return lookup cache hit ratio from 0 to 1, 0 if the lookup cache is disabled
+     */
+    @Override
+    public double getCacheHitRatio() {
+        LookupCache lookupCache = tree.getLookupCache();
+        return lookupCache == null ? 0 : lookupCache.getHitRatio();
+    }
+
+    /**
+     * Getter Method to get the latency percentiles of inserts.
+     *
+     * @return summary of insert latencies
+     */
+    @Override
+    public LatencySummary getInsertLatency() {
+        return new LatencySummary(insertLatency);
+    }
+
+    /**
+     * Getter Method to get the latency percentiles of deletes.
+     *
+     * @return summary of delete latencies
+     */
+    @Override
+    public LatencySummary getDeleteLatency() {
+        return new LatencySummary(deleteLatency);
+    }
+
+    /**
+     * Getter Method to get the latency percentiles of point searches.
+     *
+     * @return summary of point search latencies
+     */
+    @Override
+    public LatencySummary getSearchLatency() {
+        return new LatencySummary(searchLatency);
+    }
+
+    /**
+     * Getter Method to get the latency percentiles of range searches.
+     *
+     * @return summary of range search latencies
+     */
+    @Override
+    public LatencySummary getRangeSearchLatency() {
+        return new LatencySummary(rangeSearchLatency);
+    }
+
+    /**
+     * This method sets all counters and histograms back to zero.
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : new LatencyHistogram[]{insertLatency, deleteLatency, searchLatency,
+                rangeSearchLatency}) {
+            histogram.reset();
+        }
+        for (LongAdder counter : new LongAdder[]{leafSplits, internalSplits, rootSplits, leafBorrows, leafMerges,
+                internalBorrows, internalMerges, internalAdjustments, adjustmentCascades, treeFilterRejections,
+                leafFilterRejections, insertHintHits}) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * This method returns all metrics as text, one metric per line.
+     *
+     * @return metrics as text
+     */
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append("inserts ").append(getInserts()).append('\n');
+        text.append("deletes ").append(getDeletes()).append('\n');
+        text.append("searches ").append(getSearches()).append('\n');
+        text.append("rangeSearches ").append(getRangeSearches()).append('\n');
+        text.append("leafSplits ").append(getLeafSplits()).append('\n');
+        text.append("internalSplits ").append(getInternalSplits()).append('\n');
+        text.append("rootSplits ").append(getRootSplits()).append('\n');
+        text.append("leafBorrows ").append(getLeafBorrows()).append('\n');
+        text.append("leafMerges ").append(getLeafMerges()).append('\n');
+        text.append("internalBorrows ").append(getInternalBorrows()).append('\n');
+        text.append("internalMerges ").append(getInternalMerges()).append('\n');
+        text.append("internalAdjustments ").append(getInternalAdjustments()).append('\n');
+        text.append("adjustmentCascades ").append(getAdjustmentCascades()).append('\n');
+        text.append("treeFilterRejections ").append(getTreeFilterRejections()).append('\n');
+        text.append("leafFilterRejections ").append(getLeafFilterRejections()).append('\n');
+        text.append("insertHintHits ").append(getInsertHintHits()).append('\n');
+        text.append("height ").append(getHeight()).append('\n');
+        text.append("leafNodes ").append(getLeafNodes()).append('\n');
+        text.append("pairs ").append(getPairs()).append('\n');
+        text.append(String.format("fillFactor %.3f%n", getFillFactor()));
+        if (tree.getLookupCache() != null) {
+            text.append("cacheHits ").append(getCacheHits()).append('\n');
+            text.append("cacheMisses ").append(getCacheMisses()).append('\n');
+            text.append("cacheEvictions ").append(getCacheEvictions()).append('\n');
+            text.append(String.format("cacheHitRatio %.3f%n", getCacheHitRatio()));
+        }
+        text.append("insertLatency ").append(getInsertLatency()).append('\n');
+        text.append("deleteLatency ").append(getDeleteLatency()).append('\n');
+        text.append("searchLatency ").append(getSearchLatency()).append('\n');
+        text.append("rangeSearchLatency ").append(getRangeSearchLatency()).append('\n');
+        return text.toString();
+    }
+
+    /**
+     * This method registers the metrics with the platform MBean server under the name
+     * bplustree:type=TreeMetrics,name=name.
+     *
+     * @param name name of the tree, telling it apart from other trees in the same JVM
+     * @throws JMException if the name is malformed or already registered
+     */
+    public synchronized void registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("bplustree:type=TreeMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+    }
+
+    /**
+     * This method removes the metrics from the platform MBean server, if they were registered.
+     *
+     * @throws JMException if the MBean server fails to remove them
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    /**
+     * This method starts printing {@link #dump()} at a fixed period from a daemon thread, stopping a previous
+     * periodic dump. A dump which fails prints the error in its place and later dumps go on.
+     *
+     * @param out          stream the metrics are printed to
+     * @param periodMillis milliseconds between two dumps
+     */
+    public synchronized void startPeriodicDump(PrintStream out, long periodMillis) {
+        stopPeriodicDump();
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bplustree-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpExecutor.scheduleAtFixedRate(() -> {
+            // An exception escaping the task would cancel all later dumps
+            try {
+                out.print(dump());
+            } catch (Throwable e) {
+                out.println("metrics dump failed: " + e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This method stops the periodic dump, if one was started.
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+    }
+}
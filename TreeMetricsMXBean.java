@@ -0,0 +1,216 @@
+/**
+ * Management interface of {@link TreeMetrics}. Once registered with
+ * {@link TreeMetrics#registerMBean(String)}, its attributes are shown by JMX clients such as JConsole and
+ * VisualVM under the domain bplustree.
+ */
+public interface TreeMetricsMXBean {
+
+    /**
+     * Getter Method to get the number of inserts.
+     *
+     * @return number of inserts
+     */
+    long getInserts();
+
+    /**
+     * Getter Method to get the number of deletes.
+     *
+     * @return number of deletes
+     */
+    long getDeletes();
+
+    /**
+     * Getter Method to get the number of point searches.
+     *
+     * @return number of point searches
+     */
+    long getSearches();
+
+    /**
+     * Getter Method to get the number of range searches.
+     *
+     * @return number of range searches
+     */
+    long getRangeSearches();
+
+    /**
+     * Getter Method to get the number of Leaf Node splits.
+     *
+     * @return number of Leaf Node splits
+     */
+    long getLeafSplits();
+
+    /**
+     * Getter Method to get the number of Internal Node splits, root splits included.
+     *
+     * @return number of Internal Node splits
+     */
+    long getInternalSplits();
+
+    /**
+     * Getter Method to get the number of times the tree grew a level, by a split of its root node.
+     *
+     * @return number of new roots
+     */
+    long getRootSplits();
+
+    /**
+     * Getter Method to get the number of pairs borrowed by deficient Leaf Nodes.
+     *
+     * @return number of Leaf Node borrows
+     */
+    long getLeafBorrows();
+
+    /**
+     * Getter Method to get the number of Leaf Node merges.
+     *
+     * @return number of Leaf Node merges
+     */
+    long getLeafMerges();
+
+    /**
+     * Getter Method to get the number of child pointers borrowed by deficient Internal Nodes.
+     *
+     * @return number of Internal Node borrows
+     */
+    long getInternalBorrows();
+
+    /**
+     * Getter Method to get the number of Internal Node merges.
+     *
+     * @return number of Internal Node merges
+     */
+    long getInternalMerges();
+
+    /**
+     * Getter Method to get the number of calls of adjustInternalNodes, cascades included.
+     *
+     * @return number of Internal Node adjustments
+     */
+    long getInternalAdjustments();
+
+    /**
+     * Getter Method to get the number of adjustments which left the parent deficient, so that it was adjusted too.
+     *
+     * @return number of cascading adjustments
+     */
+    long getAdjustmentCascades();
+
+    /**
+     * Getter Method to get the number of point searches rejected by the tree filter before descending.
+     *
+     * @return number of tree filter rejections
+     */
+    long getTreeFilterRejections();
+
+    /**
+     * Getter Method to get the number of point searches rejected by the filter of their Leaf Node.
+     *
+     * @return number of leaf filter rejections
+     */
+    long getLeafFilterRejections();
+
+    /**
+     * Getter Method to get the number of inserts which went into the Leaf Node of the previous insert without
+     * descending from the root.
+     *
+     * @return number of insert hint hits
+     */
+    long getInsertHintHits();
+
+    /**
+     * Getter Method to get the height of the tree, 1 for a single Leaf Node and 0 for an empty tree.
+     *
+     * @return height of the tree
+     */
+    int getHeight();
+
+    /**
+     * Getter Method to get the number of Leaf Nodes.
+     *
+     * @return number of Leaf Nodes
+     */
+    long getLeafNodes();
+
+    /**
+     * Getter Method to get the number of key value pairs.
+     *
+     * @return number of pairs
+     */
+    long getPairs();
+
+    /**
+     * Getter Method to get the fill factor of Leaf Nodes: pairs divided by the pairs the Leaf Nodes can hold.
+     *
+     * @return fill factor from 0 to 1
+     */
+    double getFillFactor();
+
+    /**
+     * Getter Method to get the number of point searches answered by the lookup cache.
+     *
+     * @return number of lookup cache hits, 0 if the lookup cache is disabled
+     */
+    long getCacheHits();
+
+    /**
+     * Getter Method to get the number of point searches which missed the lookup cache.
+     *
+     * @return number of lookup cache misses, 0 if the lookup cache is disabled
+     */
+    long getCacheMisses();
+
+    /**
+     * Getter Method to get the number of keys dropped from the full lookup cache to make room for new keys.
+     *
+     * @return number of lookup cache evictions, 0 if the lookup cache is disabled
+     */
+    long getCacheEvictions();
+
+    /**
+     * Getter Method to get the fraction of point searches answered by the lookup cache.
+     *
+     * @return lookup cache hit ratio from 0 to 1, 0 if the lookup cache is disabled
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Getter Method to get the latency percentiles of inserts.
+     *
+     * @return summary of insert latencies
+     */
+    TreeMetrics.LatencySummary getInsertLatency();
+
+    /**
+     * Getter Method to get the latency percentiles of deletes.
+     *
+     * @return summary of delete latencies
+     */
+    TreeMetrics.LatencySummary getDeleteLatency();
+
+    /**
+     * Getter Method to get the latency percentiles of point searches.
+     *
+     * @return summary of point search latencies
+     */
+    TreeMetrics.LatencySummary getSearchLatency();
+
+    /**
+     * Getter Method to get the latency percentiles of range searches.
+     *
+     * @return summary of range search latencies
+     */
+    TreeMetrics.LatencySummary getRangeSearchLatency();
+
+    /**
+     * This method sets all counters and histograms back to zero.
+     */
+    void reset();
+
+    /**
+     * This method returns all metrics as text, one metric per line.
+     *
+     * @return metrics as text
+     */
+    String dump();
+}
@@ -0,0 +1,380 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary write-ahead log of insert and delete operations on a B+ tree.
+ * <p>
+ * Every operation is one fixed-size record: type byte, key int, value double (0 for deletes) and a CRC32C checksum
+ * of the first 13 bytes. Records are appended to an in-memory buffer and given increasing log sequence numbers.
+ * {@link #commit(long)} makes a record durable according to the {@link SyncPolicy}. Writing and forcing the file
+ * is done by one leader thread at a time for all records appended so far, so threads committing at the same time
+ * share one write and one fsync (group commit) while the next batch is appended to a second buffer.
+ * <p>
+ * {@link #replay(File, bplustree)} applies the records of a log file to a tree. It stops at the first incomplete
+ * or corrupt record, which is the tail of a write interrupted by a crash, and truncates the file there.
+ */
+public class WriteAheadLog implements Closeable {
+    public static final byte INSERT = 1;
+    public static final byte DELETE = 2;
+    public static final int RECORD_SIZE = 17;
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * When committed records are forced to the storage device.
+     */
+    public enum SyncPolicy {
+        /**
+         * {@link #commit(long)} returns once the record is forced to the storage device.
+         */
+        EVERY_OPERATION,
+        /**
+         * {@link #commit(long)} returns at once and a background thread forces the log every interval.
+         */
+        INTERVAL,
+        /**
+         * {@link #commit(long)} returns at once. The log is written when the buffer is full and on close,
+         * and never forced, so the operating system decides when it reaches the storage device.
+         */
+        NONE
+    }
+
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final Thread syncThread;
+    private final CRC32C checksum = new CRC32C();
+
+    // Guarded by this. The leader writes the spare buffer swapped out of appendBuffer without holding the lock
+    private ByteBuffer appendBuffer;
+    private ByteBuffer spareBuffer;
+    private boolean flushing;
+    private boolean closing;
+    private boolean closed;
+    private IOException failure;
+    private long appendedSequenceNumber;
+    private long writtenSequenceNumber;
+    private long durableSequenceNumber;
+
+    /**
+     * Constructs a Write Ahead Log appending to a file.
+     *
+     * @param file           log file, created if it does not exist
+     * @param syncPolicy     when committed records are forced to the storage device
+     * @param intervalMillis interval between forces for {@link SyncPolicy#INTERVAL}
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(File file, SyncPolicy syncPolicy, long intervalMillis) throws IOException {
+        this(file, syncPolicy, intervalMillis, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a Write Ahead Log appending to a file. A new file is forced with its directory, so that it is
+     * still there after a crash together with the records later forced to it.
+     *
+     * @param file           log file, created if it does not exist
+     * @param syncPolicy     when committed records are forced to the storage device
+     * @param intervalMillis interval between forces for {@link SyncPolicy#INTERVAL}
+     * @param bufferSize     size of each of the two append buffers in bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(File file, SyncPolicy syncPolicy, long intervalMillis, int bufferSize) throws IOException {
+        if (syncPolicy == SyncPolicy.INTERVAL && intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+        }
+        if (bufferSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Buffer must hold at least one record: " + bufferSize);
+        }
+        boolean created = !file.exists();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (created && syncPolicy != SyncPolicy.NONE) {
+            try {
+                syncDirectory(file.getAbsoluteFile().getParentFile());
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        this.syncPolicy = syncPolicy;
+        this.appendBuffer = ByteBuffer.allocate(bufferSize);
+        this.spareBuffer = ByteBuffer.allocate(bufferSize);
+
+        if (syncPolicy == SyncPolicy.INTERVAL) {
+            syncThread = new Thread(() -> {
+                try {
+                    while (awaitInterval(intervalMillis)) {
+                        flush(getAppendedSequenceNumber(), true);
+                    }
+                } catch (IOException e) {
+                    // The failure is kept and thrown to the next caller
+                }
+            }, "write-ahead-log-sync");
+            syncThread.setDaemon(true);
+            syncThread.start();
+        } else {
+            syncThread = null;
+        }
+    }
+
+    /**
+     * Getter Method to get the sequence number of the last appended record.
+     *
+     * @return sequence number of the last appended record, 0 if none
+     */
+    public synchronized long getAppendedSequenceNumber() {
+        return appendedSequenceNumber;
+    }
+
+    /**
+     * Getter Method to get the sequence number of the last record forced to the storage device.
+     *
+     * @return sequence number of the last durable record, 0 if none
+     */
+    public synchronized long getDurableSequenceNumber() {
+        return durableSequenceNumber;
+    }
+
+    /**
+     * This method appends a record to the log buffer. If the buffer is full it is written to the file first.
+     *
+     * @param type  {@link #INSERT} or {@link #DELETE}
+     * @param key   key of the operation
+     * @param value value of an insert, ignored for a delete
+     * @return sequence number of the record, to be passed to {@link #commit(long)}
+     * @throws IOException if the log cannot be written
+     */
+    public long append(byte type, int key, double value) throws IOException {
+        while (true) {
+            long fullUpTo;
+            synchronized (this) {
+                checkOpen();
+                if (appendBuffer.remaining() >= RECORD_SIZE) {
+                    int start = appendBuffer.position();
+                    appendBuffer.put(type).putInt(key).putDouble(type == DELETE ? 0 : value);
+                    checksum.reset();
+                    checksum.update(appendBuffer.array(), start, RECORD_SIZE - 4);
+                    appendBuffer.putInt((int) checksum.getValue());
+                    return ++appendedSequenceNumber;
+                }
+                fullUpTo = appendedSequenceNumber;
+            }
+            flush(fullUpTo, false);
+        }
+    }
+
+    /**
+     * This method waits until a record is durable as required by the sync policy. With
+     * {@link SyncPolicy#EVERY_OPERATION} it returns once the record is forced to the storage device,
+     * otherwise it returns at once.
+     *
+     * @param sequenceNumber sequence number returned by {@link #append(byte, int, double)}
+     * @throws IOException if the log cannot be written or forced
+     */
+    public void commit(long sequenceNumber) throws IOException {
+        if (syncPolicy == SyncPolicy.EVERY_OPERATION) {
+            flush(sequenceNumber, true);
+        } else {
+            synchronized (this) {
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method writes all appended records to the file and, unless the sync policy is
+     * {@link SyncPolicy#NONE}, forces them to the storage device.
+     *
+     * @throws IOException if the log cannot be written or forced
+     */
+    public void sync() throws IOException {
+        flush(getAppendedSequenceNumber(), syncPolicy != SyncPolicy.NONE);
+    }
+
+    /**
+     * This method syncs the log, stops the background sync thread and closes the file.
+     *
+     * @throws IOException if the log cannot be written or forced
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncThread != null) {
+            // Not interrupted, an interrupt during a write would close the channel
+            synchronized (this) {
+                closing = true;
+                notifyAll();
+            }
+            try {
+                syncThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * This method writes the records up to a sequence number, and forces them if force is true.
+     * The first thread to find no write in progress becomes the leader: it swaps the append buffer with the spare
+     * buffer and writes all records appended so far without holding the lock. Other threads wait for the leader
+     * and return if their records were in its batch, or one of them becomes the next leader.
+     */
+    private void flush(long sequenceNumber, boolean force) throws IOException {
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            synchronized (this) {
+                while (flushing && (force ? durableSequenceNumber : writtenSequenceNumber) < sequenceNumber) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the write-ahead log", e);
+                    }
+                }
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+                if ((force ? durableSequenceNumber : writtenSequenceNumber) >= sequenceNumber) {
+                    return;
+                }
+                flushing = true;
+                batch = appendBuffer;
+                appendBuffer = spareBuffer;
+                spareBuffer = null;
+                batchEnd = appendedSequenceNumber;
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                batch.clear();
+                spareBuffer = batch;
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    writtenSequenceNumber = batchEnd;
+                    if (force) {
+                        durableSequenceNumber = batchEnd;
+                    }
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * This method waits for the sync interval of the background sync thread.
+     *
+     * @return false if the log is closing
+     */
+    private synchronized boolean awaitInterval(long intervalMillis) {
+        long deadline = System.nanoTime() + intervalMillis * 1_000_000L;
+        long remaining;
+        while (!closing && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                wait(Math.max(1, remaining / 1_000_000L));
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return !closing;
+    }
+
+    /**
+     * This method forces a directory to the storage device, so that files created, renamed or deleted in it are
+     * still so after a crash. Forcing a file only forces its data, not its name. Windows cannot open a directory and
+     * needs no force for it, so nothing is done there.
+     *
+     * @param directory directory to be forced
+     * @throws IOException if the directory cannot be opened or forced
+     */
+    public static void syncDirectory(File directory) throws IOException {
+        if (File.separatorChar == '\\') {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    /**
+     * This method applies the records of a log file to a tree in order. Reading stops at the first incomplete
+     * or corrupt record and the file is truncated there, so that it only holds complete records.
+     *
+     * @param file log file
+     * @param tree tree the records are applied to
+     * @return number of records applied
+     * @throws IOException if the file cannot be read
+     */
+    public static long replay(File file, bplustree tree) throws IOException {
+        long applied = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            CRC32C checksum = new CRC32C();
+            long position = 0;
+            boolean valid = true;
+            while (valid && channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    int start = buffer.position();
+                    checksum.reset();
+                    checksum.update(buffer.array(), start, RECORD_SIZE - 4);
+                    byte type = buffer.get();
+                    int key = buffer.getInt();
+                    double value = buffer.getDouble();
+                    if (buffer.getInt() != (int) checksum.getValue() || (type != INSERT && type != DELETE)) {
+                        valid = false;
+                        break;
+                    }
+                    if (type == INSERT) {
+                        tree.insert(key, value);
+                    } else {
+                        tree.delete(key);
+                    }
+                    position += RECORD_SIZE;
+                    applied++;
+                }
+                buffer.compact();
+            }
+            if (channel.size() > position) {
+                channel.truncate(position);
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Random;
+
+/**
+ * Benchmark of {@link bplustree#insert(int, double)} for keys which arrive mostly in increasing order, like
+ * timestamps.
+ * <p>
+ * Streams are strictly increasing keys, increasing keys of which every hundredth arrives late by up to 1000
+ * positions, and keys in random order. For every stream it reports the time per insert, the number of Leaf Nodes,
+ * their fill factor and the heap retained by the loaded tree.
+ * <p>
+ * Usage: java -Xmx2g AppendInsertBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class AppendInsertBenchmark {
+    private static final int LATE_INTERVAL = 100;
+    private static final int MAXIMUM_DELAY = 1000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        String[] names = {"increasing", "1% late", "random"};
+        int[][] streams = {BenchmarkSupport.sequentialKeys(entries), lateKeys(entries, new Random(5)),
+                BenchmarkSupport.shuffledKeys(entries, 42)};
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%12s %14s %12s %12s %12s%n", "order", "insert ns/op", "leaf nodes", "fill factor",
+                "heap MiB");
+        for (int i = 0; i < streams.length; i++) {
+            final int[] keys = streams[i];
+            double insert = BenchmarkSupport.measure(keys.length, () -> BenchmarkSupport.loadTree(degree, keys).getDegree());
+            long before = BenchmarkSupport.usedHeap();
+            bplustree tree = BenchmarkSupport.loadTree(degree, keys);
+            long heap = BenchmarkSupport.usedHeap() - before;
+            TreeMetrics metrics = new TreeMetrics(tree);
+            System.out.printf("%12s %14.1f %,12d %12.3f %12.1f%n", names[i], insert, metrics.getLeafNodes(),
+                    metrics.getFillFactor(), heap / (1024.0 * 1024.0));
+        }
+    }
+
+    /**
+     * This method returns the keys 0 to count - 1 in increasing order, except that every hundredth key is moved
+     * later in the stream by a random number of positions.
+     */
+    private static int[] lateKeys(int count, Random random) {
+        int[] keys = BenchmarkSupport.sequentialKeys(count);
+        for (int i = 0; i < count; i += LATE_INTERVAL) {
+            int late = keys[i];
+            int to = Math.min(count - 1, i + 1 + random.nextInt(MAXIMUM_DELAY));
+            System.arraycopy(keys, i + 1, keys, i, to - i);
+            keys[to] = late;
+        }
+        return keys;
+    }
+}
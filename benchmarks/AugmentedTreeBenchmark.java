@@ -0,0 +1,142 @@
+import java.util.Random;
+
+/**
+ * Benchmark of the augmented mode of {@link bplustree}, in which Internal Nodes keep the number and sum of the
+ * values below each child.
+ * <p>
+ * The first table compares the writes of a plain and an augmented tree: inserts of keys in random order, deletes
+ * of all keys in random order and batch inserts of 1000 pairs, in ns per pair. The second table compares, on an
+ * augmented tree, {@link bplustree#rangeCount(int, int)} and {@link bplustree#rangeSum(int, int)} with
+ * {@link bplustree#aggregate(int, int)}, which visits every pair of the range, for ranges of several widths.
+ * It also reports {@link bplustree#rank(int)} and {@link bplustree#select(long)}.
+ * <p>
+ * Usage: java AugmentedTreeBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class AugmentedTreeBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUERIES = 1000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        final int[] keys = BenchmarkSupport.shuffledKeys(entries, 42);
+        final int[] deleteKeys = BenchmarkSupport.shuffledKeys(entries, 7);
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-10s %14s %14s %14s%n", "mode", "insert ns/op", "delete ns/op", "batch ns/op");
+        for (int round = 0; round < 2; round++) {
+            for (boolean augmented : new boolean[]{false, true}) {
+                double insert = BenchmarkSupport.measure(entries, () -> {
+                    bplustree tree = newTree(degree, augmented);
+                    for (int key : keys) {
+                        tree.insert(key, key);
+                    }
+                    return tree.getDegree();
+                });
+                double batch = BenchmarkSupport.measure(entries, () -> {
+                    bplustree tree = newTree(degree, augmented);
+                    double[] values = new double[BATCH_SIZE];
+                    int[] batchKeys = new int[BATCH_SIZE];
+                    for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+                        int count = Math.min(BATCH_SIZE, keys.length - start);
+                        System.arraycopy(keys, start, batchKeys, 0, count);
+                        tree.insertBatch(batchKeys, values, count, false);
+                    }
+                    return tree.getDegree();
+                });
+                double delete = timeDeletes(degree, keys, deleteKeys, augmented);
+                // The first round warms up both modes and is not reported
+                if (round == 1) {
+                    System.out.printf("%-10s %14.1f %14.1f %14.1f%n", augmented ? "augmented" : "plain", insert,
+                            delete, batch);
+                }
+            }
+        }
+
+        final bplustree tree = newTree(degree, true);
+        for (int key : keys) {
+            tree.insert(key, key % 1000 / 4.0);
+        }
+        System.out.println();
+        System.out.printf("%12s %16s %16s %16s%n", "range", "aggregate ns/op", "rangeCount ns/op", "rangeSum ns/op");
+        Random random = new Random(3);
+        for (long power = 100; power <= entries; power *= 100) {
+            final int width = (int) power;
+            final int[] lowerBounds = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                lowerBounds[i] = random.nextInt(entries - width + 1);
+            }
+            double aggregate = BenchmarkSupport.measure(QUERIES, () -> {
+                double sum = 0;
+                for (int lowerBound : lowerBounds) {
+                    sum += tree.aggregate(lowerBound, lowerBound + width - 1).getSum();
+                }
+                return (long) sum;
+            });
+            double count = BenchmarkSupport.measure(QUERIES, () -> {
+                long sum = 0;
+                for (int lowerBound : lowerBounds) {
+                    sum += tree.rangeCount(lowerBound, lowerBound + width - 1);
+                }
+                return sum;
+            });
+            double sum = BenchmarkSupport.measure(QUERIES, () -> {
+                double total = 0;
+                for (int lowerBound : lowerBounds) {
+                    total += tree.rangeSum(lowerBound, lowerBound + width - 1);
+                }
+                return (long) total;
+            });
+            System.out.printf("%,12d %16.1f %16.1f %16.1f%n", width, aggregate, count, sum);
+        }
+
+        double rank = BenchmarkSupport.measure(entries, () -> {
+            long sum = 0;
+            for (int key : deleteKeys) {
+                sum += tree.rank(key);
+            }
+            return sum;
+        });
+        double select = BenchmarkSupport.measure(entries, () -> {
+            long sum = 0;
+            for (int key : deleteKeys) {
+                sum += tree.select(key);
+            }
+            return sum;
+        });
+        System.out.println();
+        System.out.printf("rank %.1f ns/op, select %.1f ns/op%n", rank, select);
+    }
+
+    private static bplustree newTree(int degree, boolean augmented) {
+        bplustree tree = new bplustree(degree);
+        tree.setAugmented(augmented);
+        return tree;
+    }
+
+    /**
+     * This method loads a tree and deletes all its keys a few times and returns the best time per delete.
+     * Deletes change the tree, so they are timed without {@link BenchmarkSupport#measure}, which runs an operation
+     * on the same tree many times.
+     */
+    private static double timeDeletes(int degree, int[] keys, int[] deleteKeys, boolean augmented) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < BenchmarkSupport.MEASURED_ITERATIONS; i++) {
+            bplustree tree = BenchmarkSupport.loadTree(degree, keys);
+            tree.setAugmented(augmented);
+            long start = System.nanoTime();
+            for (int key : deleteKeys) {
+                tree.delete(key);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / deleteKeys.length;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Random;
+
+/**
+ * Helper methods shared by the benchmarks: key generation, heap measurement and timing.
+ */
+public final class BenchmarkSupport {
+    public static final int WARMUP_ITERATIONS = 5;
+    public static final int MEASURED_ITERATIONS = 5;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Operation whose time is measured. It returns a value so that the JIT cannot remove the work.
+     */
+    public interface Operation {
+        long run();
+    }
+
+    /**
+     * This method returns the keys 0 to count - 1 in increasing order.
+     *
+     * @param count number of keys
+     * @return sequential keys
+     */
+    public static int[] sequentialKeys(int count) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+
+    /**
+     * This method returns the keys 0 to count - 1 in a random order.
+     *
+     * @param count number of keys
+     * @param seed  seed of the random generator
+     * @return shuffled keys
+     */
+    public static int[] shuffledKeys(int count, long seed) {
+        int[] keys = sequentialKeys(count);
+        Random random = new Random(seed);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    /**
+     * This method returns a tree of the given degree holding the given keys, each key mapped to half of its value.
+     *
+     * @param degree degree of the tree
+     * @param keys   keys to be inserted
+     * @return loaded tree
+     */
+    public static bplustree loadTree(int degree, int[] keys) {
+        bplustree tree = new bplustree(degree);
+        for (int key : keys) {
+            tree.insert(key, key * 0.5);
+        }
+        return tree;
+    }
+
+    /**
+     * This method runs warmup iterations and then measured iterations of an operation
+     * and returns the best average time of one operation in nanoseconds.
+     *
+     * @param operationsPerRun number of operations done by one run of the operation
+     * @param operation        operation to be measured
+     * @return nanoseconds per operation
+     */
+    public static double measure(long operationsPerRun, Operation operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += operation.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += operation.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return (double) best / operationsPerRun;
+    }
+
+    /**
+     * This method returns the heap in use after running the garbage collector a few times.
+     *
+     * @return used heap in bytes
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
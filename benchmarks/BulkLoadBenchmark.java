@@ -0,0 +1,110 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Cold load benchmark comparing one insert per key with the bottom up bulk loader.
+ * <p>
+ * It loads the same pairs with {@link bplustree#insert(int, double)}, with {@link bplustree#bulkLoad(int[], double[])}
+ * for sorted and for shuffled arrays, and with {@link bplustree#bulkLoad(Iterator, double, File)} for shuffled
+ * pairs sorted through external sort runs on disk.
+ * <p>
+ * Usage: java -Xmx8g BulkLoadBenchmark [entries] [degree] [runSize]
+ * Defaults are 10000000 entries, degree 256 and runs of 1000000 pairs. 100M entries needs roughly 4g of heap
+ * for the tree plus the input arrays.
+ */
+public class BulkLoadBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, degree and external sort run size
+     * @throws IOException if the external sort fails
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int runSize = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        int[] sortedKeys = BenchmarkSupport.sequentialKeys(entries);
+        int[] shuffledKeys = BenchmarkSupport.shuffledKeys(entries, 42);
+        double[] values = new double[entries];
+        for (int i = 0; i < entries; i++) {
+            values[i] = i * 0.5;
+        }
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+
+        long start = System.nanoTime();
+        bplustree tree = new bplustree(degree);
+        for (int i = 0; i < entries; i++) {
+            tree.insert(shuffledKeys[i], values[i]);
+        }
+        report("insert, shuffled keys", entries, start);
+        tree = null;
+
+        start = System.nanoTime();
+        tree = new bplustree(degree);
+        tree.bulkLoad(sortedKeys, values);
+        report("bulkLoad, sorted arrays", entries, start);
+        tree = null;
+
+        start = System.nanoTime();
+        tree = new bplustree(degree);
+        tree.bulkLoad(shuffledKeys, values, 0.9);
+        report("bulkLoad, shuffled arrays, fill 0.9", entries, start);
+        tree = null;
+
+        start = System.nanoTime();
+        tree = new bplustree(degree);
+        tree.bulkLoad(new PairIterator(shuffledKeys, values), 1.0, new File(System.getProperty("java.io.tmpdir")));
+        report("bulkLoad, shuffled iterator (default runs)", entries, start);
+        tree = null;
+
+        // Small runs force the external sort to spill to disk
+        start = System.nanoTime();
+        try (ExternalSorter sorter = new ExternalSorter(new File(System.getProperty("java.io.tmpdir")), runSize)) {
+            for (int i = 0; i < entries; i++) {
+                sorter.add(shuffledKeys[i], values[i]);
+            }
+            sorter.sort();
+            bplustree.BulkLoader loader = new bplustree(degree).new BulkLoader(1.0);
+            while (sorter.next()) {
+                loader.add(sorter.getKey(), sorter.getValue());
+            }
+            loader.finish();
+        }
+        report("external sort (" + runSize + " pair runs) + load", entries, start);
+    }
+
+    private static void report(String name, int entries, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-45s %8.2f s %,14.0f pairs/s%n", name, seconds, entries / seconds);
+    }
+
+    /**
+     * Iterator handing out the pairs of two arrays.
+     */
+    private static class PairIterator implements Iterator<bplustree.Data> {
+        private final int[] keys;
+        private final double[] values;
+        private int index;
+
+        PairIterator(int[] keys, double[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < keys.length;
+        }
+
+        @Override
+        public bplustree.Data next() {
+            bplustree.Data data = new bplustree.Data(keys[index], values[index]);
+            index++;
+            return data;
+        }
+    }
+}
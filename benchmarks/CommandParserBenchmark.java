@@ -0,0 +1,102 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of parsing input scripts, comparing line reading with regular expressions with {@link CommandParser}.
+ * <p>
+ * It writes a script of inserts, searches, range searches and deletes and parses it both ways without running the
+ * tree operations: once with {@link BufferedReader#readLine()}, whitespace removal and a split on a regular
+ * expression followed by {@link Integer#parseInt(String)} and {@link Double#parseDouble(String)}, as bplustree used
+ * to, and once with {@link CommandParser}. A checksum of the parsed numbers shows that both read the same commands.
+ * <p>
+ * Usage: java CommandParserBenchmark [lines] [file]
+ * Defaults are 10000000 lines and a temporary file.
+ */
+public class CommandParserBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of lines and script file
+     * @throws IOException if the script cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        File file = args.length > 1 ? new File(args[1]) : File.createTempFile("bplustree-script", ".txt");
+        if (args.length <= 1) {
+            file.deleteOnExit();
+        }
+
+        Random random = new Random(42);
+        try (BufferedWriter output = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            output.write("Initialize(64)\n");
+            for (int i = 1; i < lines; i++) {
+                int key = random.nextInt(100_000_000);
+                int operation = random.nextInt(10);
+                if (operation < 6) {
+                    output.write("Insert(" + key + ", " + random.nextInt(1_000_000) / 100.0 + ")\n");
+                } else if (operation < 8) {
+                    output.write("Search(" + key + ")\n");
+                } else if (operation < 9) {
+                    output.write("Search(" + key + ", " + (key + random.nextInt(100)) + ")\n");
+                } else {
+                    output.write("Delete (" + key + ")\n");
+                }
+            }
+        }
+        System.out.printf("lines=%d file=%,d bytes%n", lines, file.length());
+        System.out.printf("%-12s %12s %14s %20s%n", "", "seconds", "lines/s", "checksum");
+        for (int round = 0; round < BenchmarkSupport.MEASURED_ITERATIONS; round++) {
+            long start = System.nanoTime();
+            double checksum = parseWithRegularExpressions(file);
+            report("regex", lines, start, checksum);
+
+            start = System.nanoTime();
+            checksum = parseWithCommandParser(file);
+            report("parser", lines, start, checksum);
+        }
+    }
+
+    private static double parseWithRegularExpressions(File file) throws IOException {
+        double checksum = 0;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                String[] tokens = Pattern.compile("[\\s]").matcher(line).replaceAll("").trim().split("\\(|,|\\)");
+                checksum += Integer.parseInt(tokens[1].trim());
+                if (tokens[0].equalsIgnoreCase(bplustree.INSERT)) {
+                    checksum += Double.parseDouble(tokens[2].trim());
+                } else if (tokens.length == 3) {
+                    checksum += Integer.parseInt(tokens[2].trim());
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static double parseWithCommandParser(File file) throws IOException {
+        double checksum = 0;
+        try (CommandParser parser = new CommandParser(file)) {
+            while (parser.next()) {
+                checksum += parser.getKey();
+                if (parser.getCommand() == CommandParser.INSERT) {
+                    checksum += parser.getValue();
+                } else if (parser.getCommand() == CommandParser.RANGE_SEARCH) {
+                    checksum += parser.getUpperBound();
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static void report(String name, int lines, long start, double checksum) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-12s %12.2f %,14.0f %20.2f%n", name, seconds, lines / seconds, checksum);
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scaling benchmark of {@link ConcurrentBPlusTree} against {@link bplustree} behind one global lock.
+ * <p>
+ * Both trees are preloaded with the same keys. Then every thread runs a mix of lookups and inserts on random keys
+ * for a fixed duration and the total throughput is reported for 1, 2, 4, 8, 16 and 32 threads.
+ * <p>
+ * Usage: java ConcurrentScalingBenchmark [entries] [readPercent] [seconds] [degree]
+ * Defaults are 1000000 entries, 90 percent reads, 2 seconds per run and degree 64.
+ */
+public class ConcurrentScalingBenchmark {
+
+    /**
+     * Operation on a tree.
+     */
+    private interface TreeOperations {
+        double search(int key);
+
+        void insert(int key, double value);
+    }
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, read percentage, seconds per run and degree
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int readPercent = args.length > 1 ? Integer.parseInt(args[1]) : 90;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        int degree = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        final ConcurrentBPlusTree concurrentTree = new ConcurrentBPlusTree(degree);
+        final bplustree lockedTree = new bplustree(degree);
+        for (int key : BenchmarkSupport.shuffledKeys(entries, 42)) {
+            concurrentTree.insert(key * 2, key);
+            lockedTree.insert(key * 2, key);
+        }
+        final Object lock = new Object();
+        TreeOperations concurrent = new TreeOperations() {
+            public double search(int key) {
+                return concurrentTree.searchValue(key, -1);
+            }
+
+            public void insert(int key, double value) {
+                concurrentTree.insert(key, value);
+            }
+        };
+        TreeOperations globalLock = new TreeOperations() {
+            public double search(int key) {
+                synchronized (lock) {
+                    return lockedTree.searchValue(key, -1);
+                }
+            }
+
+            public void insert(int key, double value) {
+                synchronized (lock) {
+                    lockedTree.insert(key, value);
+                }
+            }
+        };
+
+        System.out.printf("entries=%d reads=%d%% degree=%d cores=%d%n", entries, readPercent, degree,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %18s %18s%n", "threads", "global lock ops/s", "OLC ops/s");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            double locked = run(globalLock, threads, entries * 2, readPercent, seconds);
+            double olc = run(concurrent, threads, entries * 2, readPercent, seconds);
+            System.out.printf("%8d %,18.0f %,18.0f%n", threads, locked, olc);
+        }
+    }
+
+    private static double run(final TreeOperations tree, int threads, final int keySpace, final int readPercent,
+                              double seconds) throws InterruptedException {
+        final AtomicLong operations = new AtomicLong();
+        final long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        final CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                double sink = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    int key = random.nextInt(keySpace);
+                    if (random.nextInt(100) < readPercent) {
+                        sink += tree.search(key);
+                    } else {
+                        // Odd keys are not preloaded, so writes also add new keys and split leaves
+                        tree.insert(key | 1, key);
+                    }
+                    count++;
+                }
+                operations.addAndGet(count + (sink == 42 ? 1 : 0));
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return operations.get() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,318 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded stress test of {@link ConcurrentBPlusTree}.
+ * <p>
+ * Writer threads own disjoint sets of keys (key % writers == thread index) and insert, overwrite and delete them
+ * while keeping a private record of what each key should hold. Reader threads run point lookups and range scans at
+ * the same time and check that every value they see belongs to its key (values are always key * 2 + version) and
+ * that range scans return keys in increasing order inside the range. At the end the tree is checked against the
+ * records of all writers.
+ * <p>
+ * A churn phase then has all writers delete and insert the same keys. Every key starts in the tree and is a token:
+ * a writer whose delete returns true holds the key until it inserts it again, and two writers holding the same key at
+ * once is a failure. Writers alternate between mostly deleting and mostly inserting, so the tree drains and fills up
+ * again and leaves empty and are removed while readers run. At the end all held keys are inserted again and the tree
+ * must hold all of them.
+ * <p>
+ * A sliding window phase last has every writer insert increasing keys and delete the key inserted a window earlier,
+ * the pattern of a queue or a time series. The used heap after garbage collection must not grow between the first
+ * and the last quarter of the phase, which catches nodes of emptied leaves kept in the tree.
+ * <p>
+ * The test exits with status 1 on the first failure.
+ * <p>
+ * Usage: java ConcurrentStressTest [writers] [readers] [operationsPerWriter] [degree]
+ * Defaults are 4 writers, 4 readers, 500000 operations and degree 8 (small nodes split and fill up often).
+ */
+public class ConcurrentStressTest {
+    private static final int KEYS_PER_WRITER = 50_000;
+
+    private static final int WINDOW = 1_000;
+
+    /**
+     * Main Method of the stress test.
+     *
+     * @param args writers, readers, operations per writer and degree
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int operations = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        final int degree = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        final int keySpace = writers * KEYS_PER_WRITER;
+
+        final ConcurrentBPlusTree tree = new ConcurrentBPlusTree(degree);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final double[][] expected = new double[writers][];
+        final CountDownLatch writersDone = new CountDownLatch(writers);
+        Thread[] threads = new Thread[writers + readers];
+
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads[w] = new Thread(() -> {
+                Random random = new Random(writer);
+                double[] state = new double[KEYS_PER_WRITER];
+                Arrays.fill(state, Double.NaN);
+                for (int i = 0; i < operations && failure.get() == null; i++) {
+                    int slot = random.nextInt(KEYS_PER_WRITER);
+                    int key = slot * writers + writer;
+                    if (random.nextInt(4) == 0) {
+                        boolean deleted = tree.delete(key);
+                        if (deleted == Double.isNaN(state[slot])) {
+                            failure.compareAndSet(null, "delete(" + key + ") returned " + deleted);
+                        }
+                        state[slot] = Double.NaN;
+                    } else {
+                        double value = key * 2.0 + random.nextInt(1000) / 1000.0;
+                        tree.insert(key, value);
+                        state[slot] = value;
+                    }
+                    if (i % 64 == 0) {
+                        double seen = tree.searchValue(key, Double.NaN);
+                        if (Double.compare(seen, state[slot]) != 0) {
+                            failure.compareAndSet(null, "writer read back " + seen + " for " + key + ", expected " + state[slot]);
+                        }
+                    }
+                }
+                expected[writer] = state;
+                writersDone.countDown();
+            });
+        }
+
+        for (int r = 0; r < readers; r++) {
+            threads[writers + r] = reader(tree, 1000 + r, keySpace, writersDone, failure);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Final state must match the records of the writers
+        long present = 0;
+        for (int w = 0; w < writers && failure.get() == null; w++) {
+            for (int slot = 0; slot < KEYS_PER_WRITER; slot++) {
+                int key = slot * writers + w;
+                double seen = tree.searchValue(key, Double.NaN);
+                if (Double.compare(seen, expected[w][slot]) != 0) {
+                    failure.compareAndSet(null, "final value of " + key + " is " + seen + ", expected " + expected[w][slot]);
+                    break;
+                }
+                present += Double.isNaN(seen) ? 0 : 1;
+            }
+        }
+        long[] scanned = {0};
+        tree.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, (k, v) -> scanned[0]++);
+        if (failure.get() == null && (scanned[0] != present || tree.size() != present)) {
+            failure.compareAndSet(null, "scan found " + scanned[0] + " pairs, size() is " + tree.size() + ", expected " + present);
+        }
+
+        exitOnFailure(failure);
+        System.out.printf("OK: %d writers x %d operations, %d readers, degree %d, %d keys left, %.2f s%n",
+                writers, operations, readers, degree, present, seconds);
+
+        churn(writers, readers, operations, degree, keySpace);
+        slidingWindow(writers, readers, operations, degree);
+    }
+
+    /**
+     * This method runs the churn phase: writers delete and insert the same keys, holding a deleted key until they
+     * insert it again.
+     */
+    private static void churn(int writers, int readers, int operations, int degree, int keySpace)
+            throws InterruptedException {
+        final ConcurrentBPlusTree tree = new ConcurrentBPlusTree(degree);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final AtomicIntegerArray holders = new AtomicIntegerArray(keySpace);
+        for (int key = 0; key < keySpace; key++) {
+            tree.insert(key, key * 2.0);
+            holders.set(key, -1);
+        }
+        final CountDownLatch writersDone = new CountDownLatch(writers);
+        final long[] smallestSize = {Long.MAX_VALUE};
+        Thread[] threads = new Thread[writers + readers];
+
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads[w] = new Thread(() -> {
+                Random random = new Random(2000 + writer);
+                ArrayDeque<Integer> held = new ArrayDeque<>();
+                for (int i = 0; i < operations && failure.get() == null; i++) {
+                    // Mostly deletes, then mostly inserts, so the tree drains and fills up again
+                    boolean draining = i / (2 * keySpace / writers) % 2 == 0;
+                    boolean delete = draining == (random.nextInt(8) != 0);
+                    if (delete || held.isEmpty()) {
+                        int key = random.nextInt(keySpace);
+                        if (tree.delete(key)) {
+                            if (!holders.compareAndSet(key, -1, writer)) {
+                                failure.compareAndSet(null, "delete(" + key + ") returned true while writer "
+                                        + holders.get(key) + " holds it");
+                            }
+                            held.add(key);
+                        }
+                    } else {
+                        int key = held.poll();
+                        // Released before the insert, the key cannot be deleted while it is not in the tree
+                        holders.set(key, -1);
+                        tree.insert(key, key * 2.0 + random.nextInt(1000) / 1000.0);
+                    }
+                    if (writer == 0 && i % 1024 == 0) {
+                        smallestSize[0] = Math.min(smallestSize[0], tree.size());
+                    }
+                }
+                for (Integer key : held) {
+                    holders.set(key, -1);
+                    tree.insert(key, key * 2.0);
+                }
+                writersDone.countDown();
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            threads[writers + r] = reader(tree, 3000 + r, keySpace, writersDone, failure);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] scanned = {0};
+        tree.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, (k, v) -> scanned[0]++);
+        for (int key = 0; key < keySpace && failure.get() == null; key++) {
+            double value = tree.searchValue(key, Double.NaN);
+            if (Double.isNaN(value) || (long) Math.floor(value / 2.0) != key) {
+                failure.compareAndSet(null, "after churn " + key + " holds " + value);
+            }
+        }
+        if (failure.get() == null && (scanned[0] != keySpace || tree.size() != keySpace)) {
+            failure.compareAndSet(null, "after churn scan found " + scanned[0] + " pairs, size() is " + tree.size()
+                    + ", expected " + keySpace);
+        }
+        exitOnFailure(failure);
+        System.out.printf("OK: churn of %d writers x %d operations on shared keys, %d readers, smallest size %d, "
+                + "%.2f s%n", writers, operations, readers, smallestSize[0], seconds);
+    }
+
+    /**
+     * This method runs the sliding window phase and checks that the used heap stays bounded.
+     */
+    private static void slidingWindow(int writers, int readers, int operations, int degree)
+            throws InterruptedException {
+        final ConcurrentBPlusTree tree = new ConcurrentBPlusTree(degree);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final CountDownLatch writersDone = new CountDownLatch(writers);
+        final long[] usedHeap = new long[2];
+        final int[] measurements = {0};
+        // All writers stop while the heap is measured, the last one to arrive measures
+        final CyclicBarrier measure = new CyclicBarrier(writers,
+                () -> usedHeap[measurements[0]++] = usedHeapAfterGc());
+        Thread[] threads = new Thread[writers + readers];
+
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads[w] = new Thread(() -> {
+                // No early exit on a failure, the other writers would wait for this one at the barrier
+                for (int i = 0; i < operations; i++) {
+                    tree.insert(i * writers + writer, (i * writers + writer) * 2.0);
+                    if (i >= WINDOW && !tree.delete((i - WINDOW) * writers + writer)) {
+                        failure.compareAndSet(null, "delete(" + ((i - WINDOW) * writers + writer) + ") returned false");
+                    }
+                    if (i == operations / 4 || i == operations - 1) {
+                        try {
+                            measure.await();
+                        } catch (InterruptedException | BrokenBarrierException e) {
+                            break;
+                        }
+                    }
+                }
+                writersDone.countDown();
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            threads[writers + r] = reader(tree, 4000 + r, operations * writers, writersDone, failure);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long expected = (long) Math.min(WINDOW, operations) * writers;
+        if (failure.get() == null && tree.size() != expected) {
+            failure.compareAndSet(null, "sliding window left " + tree.size() + " pairs, expected " + expected);
+        }
+        // Readers still run while the heap is measured, allow a few MB of noise
+        if (failure.get() == null && usedHeap[1] > usedHeap[0] + (8 << 20)) {
+            failure.compareAndSet(null, "sliding window heap grew from " + (usedHeap[0] >> 20) + " MB to "
+                    + (usedHeap[1] >> 20) + " MB");
+        }
+        exitOnFailure(failure);
+        System.out.printf("OK: sliding window of %d keys, %d writers x %d operations, %d readers, heap %d MB -> %d MB, "
+                + "%.2f s%n", WINDOW, writers, operations, readers, usedHeap[0] >> 20, usedHeap[1] >> 20, seconds);
+    }
+
+    /**
+     * This method returns a reader thread running point lookups and range scans until the writers are done,
+     * checking that every value belongs to its key and that range scans return increasing keys inside the range.
+     */
+    private static Thread reader(ConcurrentBPlusTree tree, long seed, int keySpace, CountDownLatch writersDone,
+                                 AtomicReference<String> failure) {
+        return new Thread(() -> {
+            Random random = new Random(seed);
+            while (writersDone.getCount() > 0 && failure.get() == null) {
+                int key = random.nextInt(keySpace);
+                double value = tree.searchValue(key, Double.NaN);
+                if (!Double.isNaN(value) && (long) Math.floor(value / 2.0) != key) {
+                    failure.compareAndSet(null, "lookup of " + key + " returned " + value);
+                }
+                if (random.nextInt(16) == 0) {
+                    final int lowerBound = random.nextInt(keySpace);
+                    final int upperBound = lowerBound + random.nextInt(2000);
+                    final int[] previous = {Integer.MIN_VALUE};
+                    tree.searchRange(lowerBound, upperBound, (k, v) -> {
+                        if (k < lowerBound || k > upperBound || k <= previous[0] || (long) Math.floor(v / 2.0) != k) {
+                            failure.compareAndSet(null, "range [" + lowerBound + ", " + upperBound + "] returned "
+                                    + k + "=" + v + " after " + previous[0]);
+                        }
+                        previous[0] = k;
+                    });
+                }
+            }
+        });
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void exitOnFailure(AtomicReference<String> failure) {
+        if (failure.get() != null) {
+            System.out.println("FAILED: " + failure.get());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Random;
+
+/**
+ * Benchmark of {@link bplustree#insertBatch(int[], double[])} against one {@link bplustree#insert(int, double)}
+ * per pair.
+ * <p>
+ * A tree is loaded with even keys and batches of odd keys are inserted into copies of it, both one pair at a time
+ * and as batches. Random batches spread their keys over the whole tree, clustered batches put them into a window of
+ * keys a hundred times the batch size, like ingest of recent records. It reports the pairs per second of both for
+ * batches of 10000 and 100000 pairs.
+ * <p>
+ * Usage: java InsertBatchBenchmark [entries] [pairs] [degree]
+ * Defaults are 1000000 entries, 1000000 inserted pairs per run and degree 64.
+ */
+public class InsertBatchBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, number of inserted pairs and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int pairs = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        int[] preloadKeys = BenchmarkSupport.shuffledKeys(entries, 42);
+        for (int i = 0; i < entries; i++) {
+            preloadKeys[i] *= 2;
+        }
+
+        Random random = new Random(7);
+        System.out.printf("entries=%d pairs=%d degree=%d%n", entries, pairs, degree);
+        System.out.printf("%-10s %10s %16s %16s %9s%n", "keys", "batch", "insert pairs/s", "batch pairs/s",
+                "speedup");
+        for (String distribution : new String[]{"random", "clustered"}) {
+            for (int batchSize = 10_000; batchSize <= 100_000; batchSize *= 10) {
+                int batches = Math.max(1, pairs / batchSize);
+                int[][] batchKeys = new int[batches][batchSize];
+                double[][] batchValues = new double[batches][batchSize];
+                for (int b = 0; b < batches; b++) {
+                    int windowStart = random.nextInt(Math.max(1, entries - 100 * batchSize));
+                    for (int i = 0; i < batchSize; i++) {
+                        int key = distribution.equals("random")
+                                ? random.nextInt(entries) : windowStart + random.nextInt(100 * batchSize);
+                        batchKeys[b][i] = 2 * key + 1;
+                        batchValues[b][i] = key;
+                    }
+                }
+
+                double single = 0;
+                double batched = 0;
+                for (int round = 0; round < BenchmarkSupport.WARMUP_ITERATIONS
+                        + BenchmarkSupport.MEASURED_ITERATIONS; round++) {
+                    bplustree tree = BenchmarkSupport.loadTree(degree, preloadKeys);
+                    long start = System.nanoTime();
+                    for (int b = 0; b < batches; b++) {
+                        for (int i = 0; i < batchSize; i++) {
+                            tree.insert(batchKeys[b][i], batchValues[b][i]);
+                        }
+                    }
+                    double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+                    tree = BenchmarkSupport.loadTree(degree, preloadKeys);
+                    start = System.nanoTime();
+                    for (int b = 0; b < batches; b++) {
+                        tree.insertBatch(batchKeys[b], batchValues[b]);
+                    }
+                    double batchedSeconds = (System.nanoTime() - start) / 1e9;
+
+                    if (round >= BenchmarkSupport.WARMUP_ITERATIONS) {
+                        single += singleSeconds;
+                        batched += batchedSeconds;
+                    }
+                }
+                long insertedPairs = (long) batches * batchSize * BenchmarkSupport.MEASURED_ITERATIONS;
+                System.out.printf("%-10s %10d %,16.0f %,16.0f %8.2fx%n", distribution, batchSize,
+                        insertedPairs / single, insertedPairs / batched, single / batched);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Insert throughput benchmark over sequential, random and reverse ordered key streams.
+ * <p>
+ * For every key order it reports the throughput of {@link bplustree#insert(int, double)}. It also compares the
+ * leaf level cost of the sorted position insert of {@link bplustree.LeafNode#insertData(int, int, double)}
+ * with appending a pair to an ArrayList and sorting it with a new comparator, which is how
+ * leaf nodes used to insert.
+ * <p>
+ * Usage: java InsertThroughputBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class InsertThroughputBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        int[] reverse = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            reverse[i] = entries - 1 - i;
+        }
+        String[] names = {"sequential", "random", "reverse"};
+        int[][] streams = {BenchmarkSupport.sequentialKeys(entries), BenchmarkSupport.shuffledKeys(entries, 42), reverse};
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%12s %14s%n", "order", "inserts/s");
+        for (int i = 0; i < streams.length; i++) {
+            final int[] keys = streams[i];
+            double nanos = BenchmarkSupport.measure(keys.length, () -> BenchmarkSupport.loadTree(degree, keys).getDegree());
+            System.out.printf("%12s %,14.0f%n", names[i], 1e9 / nanos);
+        }
+
+        // Leaf level comparison: fill a leaf of maximum size with keys in each order
+        final int leafSize = degree - 1;
+        final int rounds = Math.max(1, entries / leafSize);
+        System.out.println();
+        System.out.printf("%12s %20s %20s %8s%n", "leaf order", "append+sort ns/pair", "sorted slot ns/pair", "speedup");
+        for (int i = 0; i < streams.length; i++) {
+            final int[] keys = leafKeys(i, leafSize);
+            double appendSort = BenchmarkSupport.measure((long) rounds * leafSize, () -> {
+                long sum = 0;
+                Comparator<bplustree.Data> comparator;
+                for (int round = 0; round < rounds; round++) {
+                    ArrayList<bplustree.Data> listOfData = new ArrayList<>();
+                    for (int key : keys) {
+                        listOfData.add(new bplustree.Data(key, key));
+                        comparator = (d1, d2) -> Integer.compare(d1.getKey(), d2.getKey());
+                        listOfData.sort(comparator);
+                    }
+                    sum += listOfData.get(0).getKey();
+                }
+                return sum;
+            });
+            final bplustree tree = new bplustree(degree);
+            double sortedSlot = BenchmarkSupport.measure((long) rounds * leafSize, () -> {
+                long sum = 0;
+                for (int round = 0; round < rounds; round++) {
+                    bplustree.LeafNode leafNode = tree.new LeafNode();
+                    for (int key : keys) {
+                        leafNode.insertData(leafSize, key, key);
+                    }
+                    sum += leafNode.getKey(0);
+                }
+                return sum;
+            });
+            System.out.printf("%12s %20.1f %20.1f %7.2fx%n", names[i], appendSort, sortedSlot, appendSort / sortedSlot);
+        }
+    }
+
+    private static int[] leafKeys(int order, int leafSize) {
+        if (order == 0) {
+            return BenchmarkSupport.sequentialKeys(leafSize);
+        } else if (order == 1) {
+            return BenchmarkSupport.shuffledKeys(leafSize, 42);
+        }
+        int[] keys = new int[leafSize];
+        for (int i = 0; i < leafSize; i++) {
+            keys[i] = leafSize - 1 - i;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Benchmark of the layout of Internal Nodes, comparing trees whose Internal Nodes take the degree provided with
+ * trees whose Internal Nodes are sized to whole cache lines, see {@link bplustree#bplustree(int, boolean)}.
+ * <p>
+ * For each degree both trees are loaded with the same keys in random order. It reports the maximum degree of
+ * Internal Nodes, the height of the tree, the heap used by the tree and the time per point lookup of keys
+ * in random order.
+ * <p>
+ * Usage: java InternalNodeLayoutBenchmark [entries] [lookups] [degrees...]
+ * Defaults are 1000000 entries, 1000000 lookups and degrees 4, 16, 64 and 256.
+ */
+public class InternalNodeLayoutBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, number of lookups and degrees
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int[] degrees = {4, 16, 64, 256};
+        if (args.length > 2) {
+            degrees = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                degrees[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int[] keys = BenchmarkSupport.shuffledKeys(entries, 42);
+        final int[] lookupKeys = new int[lookups];
+        int[] order = BenchmarkSupport.shuffledKeys(entries, 7);
+        for (int i = 0; i < lookups; i++) {
+            lookupKeys[i] = keys[order[i % entries]];
+        }
+
+        System.out.printf("entries=%d lookups=%d%n", entries, lookups);
+        System.out.printf("%8s %-12s %16s %8s %10s %14s%n", "degree", "layout", "internal degree", "height",
+                "heap MB", "lookup ns/op");
+        for (int degree : degrees) {
+            for (boolean cacheLineSizedNodes : new boolean[]{false, true}) {
+                long before = BenchmarkSupport.usedHeap();
+                final bplustree tree = new bplustree(degree, cacheLineSizedNodes);
+                for (int key : keys) {
+                    tree.insert(key, key);
+                }
+                long heap = BenchmarkSupport.usedHeap() - before;
+                double lookup = BenchmarkSupport.measure(lookups, () -> {
+                    long found = 0;
+                    for (int key : lookupKeys) {
+                        found += tree.searchValue(key, -1) > -1 ? 1 : 0;
+                    }
+                    return found;
+                });
+                System.out.printf("%8d %-12s %16d %8d %10.1f %14.1f%n", degree,
+                        cacheLineSizedNodes ? "cache line" : "default", tree.internalNodeMaximumDegree,
+                        tree.getRoot() == null ? 0 : tree.getRoot().getLevel(), heap / 1e6, lookup);
+            }
+        }
+    }
+}
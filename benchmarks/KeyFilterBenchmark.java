@@ -0,0 +1,116 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Benchmark of point searches with the Bloom filters of {@link bplustree} and {@link PagedBPlusTree}, for keys
+ * which are missing and keys which are present.
+ * <p>
+ * The trees hold the even keys 0 to 2 * (entries - 1), so every odd key in that range is a missing key which falls
+ * between two stored keys and is not rejected by the bounds of a Leaf Node. For the in-memory tree it reports the
+ * time per {@link bplustree#searchValue(int, double)} with no filter, with per leaf filters, with a tree-wide filter
+ * and with both, on plain and on compressed Leaf Nodes. For the disk-backed tree it reports the time per
+ * {@link PagedBPlusTree#searchValue(int, double)} with and without its key filter and the buffer pool misses.
+ * <p>
+ * Usage: java KeyFilterBenchmark [entries] [degree] [pageBudget]
+ * Defaults are 1000000 entries, degree 64 and 256 pages in memory.
+ */
+public class KeyFilterBenchmark {
+    private static final String[] MODES = {"none", "leaf", "tree", "leaf+tree"};
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, degree and page budget
+     * @throws IOException if the page file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int pageBudget = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        int[] order = BenchmarkSupport.shuffledKeys(entries, 42);
+        final int[] hits = new int[entries];
+        final int[] misses = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            hits[i] = 2 * order[i];
+            misses[i] = 2 * order[i] + 1;
+        }
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-12s %-10s %14s %14s%n", "leaves", "filters", "miss ns/op", "hit ns/op");
+        for (boolean compressed : new boolean[]{false, true}) {
+            final bplustree tree = new bplustree(degree);
+            for (int key : hits) {
+                tree.insert(key, key);
+            }
+            if (compressed) {
+                tree.compressLeafNodes();
+            }
+            for (int mode = 0; mode < MODES.length; mode++) {
+                tree.setLeafFilters(mode == 1 || mode == 3);
+                tree.setTreeFilter(mode >= 2);
+                double miss = BenchmarkSupport.measure(entries, () -> {
+                    double sum = 0;
+                    for (int key : misses) {
+                        sum += tree.searchValue(key, 0);
+                    }
+                    return (long) sum;
+                });
+                double hit = BenchmarkSupport.measure(entries, () -> {
+                    double sum = 0;
+                    for (int key : hits) {
+                        sum += tree.searchValue(key, 0);
+                    }
+                    return (long) sum;
+                });
+                System.out.printf("%-12s %-10s %14.1f %14.1f%n", compressed ? "compressed" : "plain", MODES[mode],
+                        miss, hit);
+            }
+        }
+
+        File file = File.createTempFile("bplustree", ".pages");
+        PagedBPlusTree paged = PagedBPlusTree.create(file, PagedBPlusTree.DEFAULT_PAGE_SIZE, pageBudget);
+        for (int key : hits) {
+            paged.insert(key, key);
+        }
+        System.out.println();
+        System.out.printf("paged tree, pageBudget=%d%n", pageBudget);
+        System.out.printf("%-10s %14s %16s %14s %16s%n", "filter", "miss ns/op", "misses/search", "hit ns/op",
+                "misses/search");
+        for (boolean filtered : new boolean[]{false, true}) {
+            paged.setKeyFilter(filtered);
+            double[] miss = timePaged(paged, misses);
+            double[] hit = timePaged(paged, hits);
+            System.out.printf("%-10s %14.1f %16.2f %14.1f %16.2f%n", filtered ? "key" : "none", miss[0], miss[1],
+                    hit[0], hit[1]);
+        }
+        paged.close();
+        file.delete();
+    }
+
+    /**
+     * This method searches every key a few times and returns the best time per search and the buffer pool misses
+     * per search of that run. Searches throw IOException, so they are timed without {@link BenchmarkSupport#measure}.
+     */
+    private static double[] timePaged(PagedBPlusTree tree, int[] keys) throws IOException {
+        long best = Long.MAX_VALUE;
+        long bestMisses = 0;
+        double sum = 0;
+        for (int i = 0; i < BenchmarkSupport.MEASURED_ITERATIONS; i++) {
+            long misses = tree.getBufferPool().misses;
+            long start = System.nanoTime();
+            for (int key : keys) {
+                sum += tree.searchValue(key, 0);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+                bestMisses = tree.getBufferPool().misses - misses;
+            }
+        }
+        if (sum == 42) {
+            System.out.println();
+        }
+        return new double[]{(double) best / keys.length, (double) bestMisses / keys.length};
+    }
+}
@@ -0,0 +1,117 @@
+import java.lang.ref.Reference;
+
+/**
+ * Benchmark of the B+ trees of {@link AbstractBPlusTree} for long keys, comparing the primitive specialization
+ * {@link LongLongBPlusTree} with {@link ComparableBPlusTree} of boxed Long keys and values. It also compares
+ * {@link IntDoubleBPlusTree} with {@link bplustree}, which hold the same int keys and double values.
+ * <p>
+ * The long trees get the same 64-bit keys in random order, the int trees the same int keys in random order.
+ * It reports the time per insert and per point lookup, and the heap used by each loaded tree.
+ * <p>
+ * Usage: java KeyTypeBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class KeyTypeBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        // Spread the keys over the whole long range, like aircraft and event IDs
+        int[] order = BenchmarkSupport.shuffledKeys(entries, 42);
+        final long[] keys = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = order[i] * 0x9E3779B97F4A7C15L;
+        }
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-22s %14s %14s %12s%n", "", "insert ns/op", "lookup ns/op", "heap MB");
+
+        double insert = BenchmarkSupport.measure(entries, () -> {
+            LongLongBPlusTree tree = new LongLongBPlusTree(degree);
+            for (long key : keys) {
+                tree.insert(key, key);
+            }
+            return tree.size();
+        });
+        long before = BenchmarkSupport.usedHeap();
+        final LongLongBPlusTree primitiveTree = new LongLongBPlusTree(degree);
+        for (long key : keys) {
+            primitiveTree.insert(key, key);
+        }
+        long heap = BenchmarkSupport.usedHeap() - before;
+        double lookup = BenchmarkSupport.measure(entries, () -> {
+            long sum = 0;
+            for (long key : keys) {
+                sum += primitiveTree.searchValue(key, 0);
+            }
+            return sum;
+        });
+        System.out.printf("%-22s %14.1f %14.1f %12.1f%n", "LongLongBPlusTree", insert, lookup, heap / 1e6);
+
+        insert = BenchmarkSupport.measure(entries, () -> {
+            ComparableBPlusTree<Long, Long> tree = new ComparableBPlusTree<>(degree);
+            for (long key : keys) {
+                tree.insert(key, key);
+            }
+            return tree.size();
+        });
+        before = BenchmarkSupport.usedHeap();
+        final ComparableBPlusTree<Long, Long> boxedTree = new ComparableBPlusTree<>(degree);
+        for (long key : keys) {
+            boxedTree.insert(key, key);
+        }
+        heap = BenchmarkSupport.usedHeap() - before;
+        lookup = BenchmarkSupport.measure(entries, () -> {
+            long sum = 0;
+            for (long key : keys) {
+                sum += boxedTree.search(key);
+            }
+            return sum;
+        });
+        System.out.printf("%-22s %14.1f %14.1f %12.1f%n", "ComparableBPlusTree", insert, lookup, heap / 1e6);
+
+        insert = BenchmarkSupport.measure(entries, () -> {
+            IntDoubleBPlusTree tree = new IntDoubleBPlusTree(degree);
+            for (int key : order) {
+                tree.insert(key, key * 0.5);
+            }
+            return tree.size();
+        });
+        before = BenchmarkSupport.usedHeap();
+        final IntDoubleBPlusTree engineTree = new IntDoubleBPlusTree(degree);
+        for (int key : order) {
+            engineTree.insert(key, key * 0.5);
+        }
+        heap = BenchmarkSupport.usedHeap() - before;
+        lookup = BenchmarkSupport.measure(entries, () -> {
+            double sum = 0;
+            for (int key : order) {
+                sum += engineTree.searchValue(key, 0);
+            }
+            return (long) sum;
+        });
+        System.out.printf("%-22s %14.1f %14.1f %12.1f%n", "IntDoubleBPlusTree", insert, lookup, heap / 1e6);
+
+        insert = BenchmarkSupport.measure(entries, () -> BenchmarkSupport.loadTree(degree, order).getDegree());
+        before = BenchmarkSupport.usedHeap();
+        final bplustree tree = BenchmarkSupport.loadTree(degree, order);
+        heap = BenchmarkSupport.usedHeap() - before;
+        lookup = BenchmarkSupport.measure(entries, () -> {
+            double sum = 0;
+            for (int key : order) {
+                sum += tree.searchValue(key, 0);
+            }
+            return (long) sum;
+        });
+        System.out.printf("%-22s %14.1f %14.1f %12.1f%n", "bplustree", insert, lookup, heap / 1e6);
+        // Keep all trees reachable until all heap sizes are measured
+        System.out.printf("sizes %d %d %d%n", primitiveTree.size(), boxedTree.size(), engineTree.size());
+        Reference.reachabilityFence(tree);
+    }
+}
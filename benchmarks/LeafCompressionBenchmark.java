@@ -0,0 +1,117 @@
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+/**
+ * Benchmark of compressed Leaf Nodes, see {@link LeafCodec}.
+ * <p>
+ * The tree is bulk loaded with dense increasing keys, most one apart and some with small gaps, and values of
+ * one of three kinds: counters (whole numbers growing with the key), sensor readings (a random walk in steps of
+ * a quarter) and random doubles. For each kind it reports the heap used by the tree and by its leaf pairs per entry,
+ * the time per pair of a full scan with {@link bplustree.RangeCursor}, the time per query of
+ * {@link bplustree#search(int, int)} over 1000 keys and the time per point lookup,
+ * first with plain Leaf Nodes and then after {@link bplustree#compressLeafNodes()}.
+ * <p>
+ * Usage: java -Xmx2g LeafCompressionBenchmark [entries] [degree]
+ * Defaults are 5000000 entries and degree 64.
+ */
+public class LeafCompressionBenchmark {
+    private static final int RANGE_WIDTH = 1000;
+    private static final int QUERIES = 1000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        // Range query results are formatted but not printed
+        bplustree.writer = new ResultWriter(Channels.newChannel(OutputStream.nullOutputStream()));
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-10s %-6s %10s %12s %14s %14s %14s%n", "values", "leaves", "heap MB", "leaf B/pair",
+                "scan ns/pair", "range us/op", "lookup ns/op");
+        for (String kind : new String[]{"counter", "sensor", "random"}) {
+            run(kind, entries, degree);
+        }
+    }
+
+    private static void run(String kind, int entries, int degree) {
+        Random random = new Random(42);
+        final int[] keys = new int[entries];
+        double[] values = new double[entries];
+        int key = 1_000_000;
+        double reading = 20;
+        for (int i = 0; i < entries; i++) {
+            key += random.nextInt(10) == 0 ? 1 + random.nextInt(8) : 1;
+            keys[i] = key;
+            if (kind.equals("counter")) {
+                values[i] = key;
+            } else if (kind.equals("sensor")) {
+                reading += (random.nextInt(3) - 1) * 0.25;
+                values[i] = reading;
+            } else {
+                values[i] = random.nextDouble() * 1000;
+            }
+        }
+        final int[] lowerBounds = new int[QUERIES];
+        final int[] lookupKeys = new int[QUERIES * 100];
+        for (int i = 0; i < lowerBounds.length; i++) {
+            lowerBounds[i] = keys[random.nextInt(entries - RANGE_WIDTH)];
+        }
+        for (int i = 0; i < lookupKeys.length; i++) {
+            lookupKeys[i] = keys[random.nextInt(entries)];
+        }
+
+        long before = BenchmarkSupport.usedHeap();
+        final bplustree tree = new bplustree(degree);
+        tree.bulkLoad(keys, values);
+        for (boolean compressed : new boolean[]{false, true}) {
+            if (compressed) {
+                tree.compressLeafNodes();
+            }
+            long heap = BenchmarkSupport.usedHeap() - before;
+            double scan = BenchmarkSupport.measure(entries, () -> {
+                double sum = 0;
+                bplustree.RangeCursor cursor = tree.rangeCursor(Integer.MIN_VALUE, Integer.MAX_VALUE);
+                while (cursor.next()) {
+                    sum += cursor.getValue();
+                }
+                return (long) sum;
+            });
+            double range = BenchmarkSupport.measure(QUERIES, () -> {
+                for (int lowerBound : lowerBounds) {
+                    tree.search(lowerBound, lowerBound + RANGE_WIDTH - 1);
+                }
+                return QUERIES;
+            });
+            double lookup = BenchmarkSupport.measure(lookupKeys.length, () -> {
+                double sum = 0;
+                for (int lookupKey : lookupKeys) {
+                    sum += tree.searchValue(lookupKey, 0);
+                }
+                return (long) sum;
+            });
+            System.out.printf("%-10s %-6s %10.1f %12.2f %14.2f %14.1f %14.1f%n", kind,
+                    compressed ? "packed" : "plain", heap / 1e6, (double) leafPairBytes(tree) / entries, scan,
+                    range / 1000, lookup);
+        }
+        // Keep the keys and values reachable until the heap is measured
+        System.out.printf("%-10s %d pairs, last %d=%.2f%n", "", keys.length, keys[keys.length - 1],
+                values[values.length - 1]);
+    }
+
+    /**
+     * This method sums the bytes of the arrays holding the pairs of the Leaf Nodes, without object headers.
+     */
+    private static long leafPairBytes(bplustree tree) {
+        long bytes = 0;
+        for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            bytes += node.isCompressed() ? LeafCodec.sizeInBytes(node.packedPairs)
+                    : 4L * node.keys.length + 8L * node.values.length;
+        }
+        return bytes;
+    }
+}
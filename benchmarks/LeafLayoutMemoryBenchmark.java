@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+
+/**
+ * Memory benchmark comparing the Leaf Node layouts of the B+ tree.
+ * <p>
+ * It loads the tree with the requested number of key value pairs and measures the heap it retains.
+ * Then it builds the leaf payload of the same tree twice, once in the primitive array layout used by
+ * {@link bplustree.LeafNode} and once in the old layout (an ArrayList of Data objects, each Data object
+ * holding a reference to the enclosing tree) and measures the heap retained by each of them.
+ * <p>
+ * Usage: java -Xmx4g LeafLayoutMemoryBenchmark [entries] [degree]
+ * Defaults are 10000000 entries and degree 64.
+ */
+public class LeafLayoutMemoryBenchmark {
+
+    /**
+     * Key value pair as it was stored by the old Leaf Node. It is an inner class, so every instance
+     * carries a hidden reference to the enclosing instance, like the old bplustree.Data did.
+     */
+    public class LegacyData {
+        public int key;
+        public double value;
+
+        public LegacyData(int key, double value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree of the tree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        new LeafLayoutMemoryBenchmark().run(entries, degree);
+    }
+
+    private void run(int entries, int degree) {
+        int[] keys = BenchmarkSupport.shuffledKeys(entries, 42);
+
+        long before = BenchmarkSupport.usedHeap();
+        bplustree tree = new bplustree(degree);
+        for (int key : keys) {
+            tree.insert(key, key * 0.5);
+        }
+        long treeBytes = BenchmarkSupport.usedHeap() - before;
+        keys = null;
+
+        // Leaf payload in the primitive array layout, with the same occupancy as the loaded tree
+        before = BenchmarkSupport.usedHeap();
+        ArrayList<Object> arrayLeaves = new ArrayList<>();
+        for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            int[] leafKeys = new int[degree];
+            double[] leafValues = new double[degree];
+            System.arraycopy(node.getKeys(), 0, leafKeys, 0, node.getNumberOfPairs());
+            System.arraycopy(node.getValues(), 0, leafValues, 0, node.getNumberOfPairs());
+            arrayLeaves.add(leafKeys);
+            arrayLeaves.add(leafValues);
+        }
+        long arrayBytes = BenchmarkSupport.usedHeap() - before;
+
+        // Leaf payload in the old ArrayList<Data> layout, with the same occupancy as the loaded tree
+        before = BenchmarkSupport.usedHeap();
+        ArrayList<ArrayList<LegacyData>> legacyLeaves = new ArrayList<>();
+        for (bplustree.LeafNode node = tree.getFirstLeafNode(); node != null; node = node.getRightSibling()) {
+            ArrayList<LegacyData> listOfData = new ArrayList<>();
+            for (int i = 0; i < node.getNumberOfPairs(); i++) {
+                listOfData.add(new LegacyData(node.getKey(i), node.getValue(i)));
+            }
+            legacyLeaves.add(listOfData);
+        }
+        long legacyBytes = BenchmarkSupport.usedHeap() - before;
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("tree (array leaves)      : %,d bytes, %.2f bytes/entry%n", treeBytes, (double) treeBytes / entries);
+        System.out.printf("leaf payload, arrays     : %,d bytes, %.2f bytes/entry%n", arrayBytes, (double) arrayBytes / entries);
+        System.out.printf("leaf payload, List<Data> : %,d bytes, %.2f bytes/entry%n", legacyBytes, (double) legacyBytes / entries);
+        System.out.printf("tree (List<Data> leaves) : %,d bytes (estimated), %.2f bytes/entry%n",
+                treeBytes - arrayBytes + legacyBytes, (double) (treeBytes - arrayBytes + legacyBytes) / entries);
+
+        // keep everything reachable until all measurements are done
+        if (tree.getDegree() + arrayLeaves.size() + legacyLeaves.size() == 0) {
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of point searches through a {@link LookupCache} when searches are skewed toward hot keys.
+ * <p>
+ * The tree is loaded with the keys 0 to entries - 1. Searched keys follow a Zipf distribution: the key of
+ * popularity rank r, counting from 1, is searched with a probability proportional to 1 / r^s, and ranks are given
+ * to the keys in random order so that hot keys are spread over the tree. For every skew s and cache capacity it
+ * reports the time per {@link bplustree#searchValue(int, double)} and the hit ratio of the cache. Capacity 0 is
+ * the tree without a cache.
+ * <p>
+ * The last column repeats the searches with one insert or delete of a random hot key for every 20 searches, which
+ * invalidates the key in the cache.
+ * <p>
+ * Usage: java LookupCacheBenchmark [entries] [degree] [searches]
+ * Defaults are 1000000 entries, degree 64 and 2000000 searches.
+ */
+public class LookupCacheBenchmark {
+    private static final double[] SKEWS = {0.5, 0.8, 0.99, 1.2};
+    private static final int[] CAPACITIES = {0, 1024, 4096, 16384, 65536};
+    private static final int WRITE_INTERVAL = 20;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, degree and number of searches
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int searches = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        final bplustree tree = BenchmarkSupport.loadTree(degree, BenchmarkSupport.shuffledKeys(entries, 42));
+        int[] keysByRank = BenchmarkSupport.shuffledKeys(entries, 7);
+
+        System.out.printf("entries=%d degree=%d searches=%d%n", entries, degree, searches);
+        System.out.printf("%6s %9s %14s %10s %16s %14s%n", "skew", "capacity", "search ns/op", "hit ratio",
+                "5% writes ns/op", "hit ratio");
+        for (double skew : SKEWS) {
+            final int[] keys = zipfKeys(keysByRank, skew, searches, new Random(11));
+            for (int capacity : CAPACITIES) {
+                tree.setLookupCache(capacity > 0 ? new LookupCache(capacity) : null);
+                double search = BenchmarkSupport.measure(searches, () -> {
+                    double sum = 0;
+                    for (int key : keys) {
+                        sum += tree.searchValue(key, 0);
+                    }
+                    return (long) sum;
+                });
+                double hitRatio = hitRatio(tree);
+
+                tree.setLookupCache(capacity > 0 ? new LookupCache(capacity) : null);
+                double mixed = BenchmarkSupport.measure(searches, () -> {
+                    double sum = 0;
+                    for (int i = 0; i < keys.length; i++) {
+                        int key = keys[i];
+                        if (i % WRITE_INTERVAL == 0) {
+                            // Every key is deleted and inserted again, so the tree keeps its size
+                            tree.delete(key);
+                            tree.insert(key, key);
+                        }
+                        sum += tree.searchValue(key, 0);
+                    }
+                    return (long) sum;
+                });
+                System.out.printf("%6.2f %9d %14.1f %10.3f %16.1f %14.3f%n", skew, capacity, search, hitRatio,
+                        mixed, hitRatio(tree));
+            }
+        }
+    }
+
+    private static double hitRatio(bplustree tree) {
+        return tree.getLookupCache() == null ? 0 : tree.getLookupCache().getHitRatio();
+    }
+
+    /**
+     * This method draws keys from a Zipf distribution over the keys given in order of popularity, by inverting the
+     * cumulative distribution with a binary search.
+     *
+     * @param keysByRank keys from the most to the least popular
+     * @param skew       exponent s of the distribution, 0 for uniform
+     * @param count      number of keys drawn
+     * @param random     random generator
+     * @return keys drawn
+     */
+    public static int[] zipfKeys(int[] keysByRank, double skew, int count, Random random) {
+        double[] cumulative = new double[keysByRank.length];
+        double total = 0;
+        for (int rank = 0; rank < keysByRank.length; rank++) {
+            total += Math.pow(rank + 1, -skew);
+            cumulative[rank] = total;
+        }
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            keys[i] = keysByRank[Math.min(keysByRank.length - 1, rank < 0 ? -rank - 1 : rank)];
+        }
+        return keys;
+    }
+}
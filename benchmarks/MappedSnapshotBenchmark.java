@@ -0,0 +1,94 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Benchmark comparing searches on a {@link MappedSnapshot} with searches on the in-heap {@link bplustree}.
+ * <p>
+ * It loads a tree, exports it to a snapshot file and reports the export time, the time to open the snapshot,
+ * the heap used by the tree and by the opened snapshot, and the time per point lookup and per range scan
+ * of 100 keys on both.
+ * <p>
+ * Usage: java MappedSnapshotBenchmark [entries] [degree]
+ * Defaults are 10000000 entries and degree 128.
+ */
+public class MappedSnapshotBenchmark {
+    private static final int LOOKUPS_PER_RUN = 1_000_000;
+    private static final int SCANS_PER_RUN = 100_000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     * @throws IOException if the snapshot file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        File file = File.createTempFile("bplustree", ".snapshot");
+        file.deleteOnExit();
+
+        long heapBefore = BenchmarkSupport.usedHeap();
+        final bplustree tree = BenchmarkSupport.loadTree(degree, BenchmarkSupport.sequentialKeys(entries));
+        long treeHeap = BenchmarkSupport.usedHeap() - heapBefore;
+
+        long start = System.nanoTime();
+        tree.exportSnapshot(file);
+        double exportSeconds = (System.nanoTime() - start) / 1e9;
+
+        heapBefore = BenchmarkSupport.usedHeap();
+        start = System.nanoTime();
+        final MappedSnapshot snapshot = MappedSnapshot.open(file);
+        double openMillis = (System.nanoTime() - start) / 1e6;
+        long snapshotHeap = BenchmarkSupport.usedHeap() - heapBefore;
+
+        System.out.printf("entries=%d degree=%d file=%,d bytes%n", entries, degree, file.length());
+        System.out.printf("export %.2f s, open %.3f ms%n", exportSeconds, openMillis);
+        System.out.printf("heap: tree %,d bytes, snapshot %,d bytes%n", treeHeap, snapshotHeap);
+
+        final int[] lookupKeys = new int[LOOKUPS_PER_RUN];
+        Random random = new Random(7);
+        for (int i = 0; i < lookupKeys.length; i++) {
+            lookupKeys[i] = random.nextInt(entries);
+        }
+        final long[] scanned = {0};
+        final PairConsumer counter = (key, value) -> scanned[0]++;
+
+        double heapLookup = BenchmarkSupport.measure(LOOKUPS_PER_RUN, () -> {
+            long found = 0;
+            for (int key : lookupKeys) {
+                found += tree.searchValue(key, -1) > -1 ? 1 : 0;
+            }
+            return found;
+        });
+        double mappedLookup = BenchmarkSupport.measure(LOOKUPS_PER_RUN, () -> {
+            long found = 0;
+            for (int key : lookupKeys) {
+                found += snapshot.searchValue(key, -1) > -1 ? 1 : 0;
+            }
+            return found;
+        });
+        double heapScan = BenchmarkSupport.measure(SCANS_PER_RUN, () -> {
+            long found = 0;
+            for (int i = 0; i < SCANS_PER_RUN; i++) {
+                bplustree.RangeCursor cursor = tree.rangeCursor(lookupKeys[i], lookupKeys[i] + 99);
+                while (cursor.next()) {
+                    found++;
+                }
+            }
+            return found;
+        });
+        double mappedScan = BenchmarkSupport.measure(SCANS_PER_RUN, () -> {
+            long found = 0;
+            for (int i = 0; i < SCANS_PER_RUN; i++) {
+                found += snapshot.searchRange(lookupKeys[i], lookupKeys[i] + 99, counter);
+            }
+            return found;
+        });
+
+        System.out.printf("%-22s %12s %12s%n", "", "heap ns/op", "mmap ns/op");
+        System.out.printf("%-22s %12.1f %12.1f%n", "point lookup", heapLookup, mappedLookup);
+        System.out.printf("%-22s %12.1f %12.1f%n", "range scan, 100 keys", heapScan, mappedScan);
+        snapshot.close();
+    }
+}
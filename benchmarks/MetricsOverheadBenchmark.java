@@ -0,0 +1,92 @@
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Benchmark of the cost of {@link TreeMetrics}, comparing trees with metrics disabled, which is the default,
+ * with trees with metrics enabled.
+ * <p>
+ * For each setting a tree is loaded with keys in random order, then point searched, range searched and emptied
+ * in random order. It reports the time per insert, point search, range search and delete.
+ * <p>
+ * Usage: java MetricsOverheadBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class MetricsOverheadBenchmark {
+    private static final int RANGE_WIDTH = 100;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        // Range query results are formatted but not printed
+        bplustree.writer = new ResultWriter(Channels.newChannel(OutputStream.nullOutputStream()));
+
+        final int[] keys = BenchmarkSupport.shuffledKeys(entries, 42);
+        final int[] lookupKeys = BenchmarkSupport.shuffledKeys(entries, 7);
+        final int ranges = entries / 100;
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-10s %14s %14s %14s %14s%n", "metrics", "insert ns/op", "search ns/op", "range ns/op",
+                "delete ns/op");
+        for (int round = 0; round < 2; round++) {
+            for (boolean enabled : new boolean[]{false, true}) {
+                // Every run of an operation starts from the same tree, loaded by the insert run
+                final bplustree[] tree = new bplustree[1];
+                double insert = BenchmarkSupport.measure(entries, () -> {
+                    tree[0] = new bplustree(degree);
+                    if (enabled) {
+                        tree[0].enableMetrics();
+                    }
+                    for (int key : keys) {
+                        tree[0].insert(key, key);
+                    }
+                    return tree[0].getDegree();
+                });
+                double search = BenchmarkSupport.measure(entries, () -> {
+                    double sum = 0;
+                    for (int key : lookupKeys) {
+                        sum += tree[0].searchValue(key, 0);
+                    }
+                    return (long) sum;
+                });
+                double range = BenchmarkSupport.measure(ranges, () -> {
+                    for (int i = 0; i < ranges; i++) {
+                        tree[0].search(lookupKeys[i], lookupKeys[i] + RANGE_WIDTH - 1);
+                    }
+                    return ranges;
+                });
+                double delete = timeDeletes(degree, keys, lookupKeys, enabled);
+                // The first round warms up both settings and is not reported
+                if (round == 1) {
+                    System.out.printf("%-10s %14.1f %14.1f %14.1f %14.1f%n", enabled ? "enabled" : "disabled",
+                            insert, search, range, delete);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method loads a tree and deletes all its keys a few times and returns the best time per delete.
+     * Deletes change the tree, so they are timed without {@link BenchmarkSupport#measure}, which runs an operation
+     * on the same tree many times.
+     */
+    private static double timeDeletes(int degree, int[] keys, int[] deleteKeys, boolean enabled) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < BenchmarkSupport.MEASURED_ITERATIONS; i++) {
+            bplustree tree = BenchmarkSupport.loadTree(degree, keys);
+            if (enabled) {
+                tree.enableMetrics();
+            }
+            long start = System.nanoTime();
+            for (int key : deleteKeys) {
+                tree.delete(key);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / deleteKeys.length;
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.Random;
+
+/**
+ * Benchmark of {@link bplustree#multiGet(int[], double[], long[])} against one
+ * {@link bplustree#searchValue(int, double)} per key.
+ * <p>
+ * For batch sizes from 1 to 100000 random keys it reports the time per key of both, so the falling per-key cost of
+ * the shared traversal shows as the batches grow denser in the tree.
+ * <p>
+ * Usage: java MultiGetBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class MultiGetBenchmark {
+    private static final int KEYS_PER_RUN = 1_000_000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final bplustree tree = BenchmarkSupport.loadTree(degree, BenchmarkSupport.shuffledKeys(entries, 42));
+
+        Random random = new Random(7);
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%10s %16s %16s %9s%n", "batch", "searchValue ns", "multiGet ns", "speedup");
+        for (int batchSize = 1; batchSize <= 100_000; batchSize *= 10) {
+            final int batches = Math.max(1, KEYS_PER_RUN / batchSize);
+            final int[][] batchKeys = new int[batches][batchSize];
+            for (int[] keys : batchKeys) {
+                for (int i = 0; i < batchSize; i++) {
+                    keys[i] = random.nextInt(entries);
+                }
+            }
+            final double[] values = new double[batchSize];
+            final long[] found = new long[(batchSize + 63) >>> 6];
+
+            double single = BenchmarkSupport.measure((long) batches * batchSize, () -> {
+                long hits = 0;
+                for (int[] keys : batchKeys) {
+                    for (int key : keys) {
+                        hits += tree.searchValue(key, -1) > -1 ? 1 : 0;
+                    }
+                }
+                return hits;
+            });
+            double batched = BenchmarkSupport.measure((long) batches * batchSize, () -> {
+                long hits = 0;
+                for (int[] keys : batchKeys) {
+                    tree.multiGet(keys, values, found);
+                    hits += Long.bitCount(found[0]);
+                }
+                return hits;
+            });
+            System.out.printf("%10d %16.1f %16.1f %8.2fx%n", batchSize, single, batched, single / batched);
+        }
+    }
+}
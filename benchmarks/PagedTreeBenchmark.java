@@ -0,0 +1,127 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Benchmark of {@link PagedBPlusTree} with a buffer pool smaller than the tree.
+ * <p>
+ * It inserts shuffled keys into a new page file, reopens the file and runs random point lookups and range scans,
+ * then copies an in-memory tree into a page file. For every phase it reports the throughput and the buffer pool
+ * hit ratio, evictions and page writes.
+ * <p>
+ * A last phase slides a window of {@link #WINDOW} keys over a new page file: it inserts the keys 0 to entries - 1
+ * in increasing order and deletes every key once the window has moved past it, so the emptied leaf pages go to
+ * the free list and are used again. It reports the file size, reopens the file and checks with lookups that the
+ * keys in the window are found and the deleted keys are not.
+ * <p>
+ * Usage: java PagedTreeBenchmark [entries] [pageSize] [pageBudget] [file]
+ * Defaults are 2000000 entries, 4096 byte pages, 256 pages (1 MiB) in memory and a temporary file.
+ */
+public class PagedTreeBenchmark {
+    private static final int WINDOW = 100_000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, page size, page budget and file
+     * @throws IOException if the page file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : PagedBPlusTree.DEFAULT_PAGE_SIZE;
+        int pageBudget = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        File file = args.length > 3 ? new File(args[3]) : File.createTempFile("bplustree", ".pages");
+
+        int[] keys = BenchmarkSupport.shuffledKeys(entries, 42);
+        System.out.printf("entries=%d pageSize=%d pageBudget=%d file=%s%n", entries, pageSize, pageBudget, file);
+
+        long start = System.nanoTime();
+        PagedBPlusTree tree = PagedBPlusTree.create(file, pageSize, pageBudget);
+        for (int key : keys) {
+            tree.insert(key, key * 0.5);
+        }
+        tree.close();
+        report("insert, shuffled keys", entries, start, tree.getBufferPool());
+        System.out.printf("file size %,d bytes, height %d%n", file.length(), tree.getHeight());
+
+        start = System.nanoTime();
+        tree = PagedBPlusTree.open(file, pageBudget);
+        Random random = new Random(7);
+        double sink = 0;
+        for (int i = 0; i < entries; i++) {
+            sink += tree.searchValue(random.nextInt(entries), -1);
+        }
+        report("searchValue, random keys", entries, start, tree.getBufferPool());
+
+        int scans = Math.max(1, entries / 1000);
+        final long[] scanned = {0};
+        start = System.nanoTime();
+        for (int i = 0; i < scans; i++) {
+            int lowerBound = random.nextInt(entries);
+            tree.searchRange(lowerBound, lowerBound + 999, (key, value) -> scanned[0]++);
+        }
+        report("searchRange, 1000 keys", scanned[0], start, tree.getBufferPool());
+        tree.close();
+
+        bplustree source = BenchmarkSupport.loadTree(256, BenchmarkSupport.sequentialKeys(entries));
+        start = System.nanoTime();
+        tree = PagedBPlusTree.copyOf(source, file, pageSize, pageBudget);
+        tree.close();
+        report("copyOf in-memory tree", entries, start, tree.getBufferPool());
+        System.out.printf("file size %,d bytes, height %d%n", file.length(), tree.getHeight());
+
+        slideWindow(file, entries, pageSize, pageBudget);
+
+        if (args.length <= 3) {
+            file.delete();
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * This method inserts the keys 0 to entries - 1 into a new page file, deleting each key again when the key
+     * WINDOW greater is inserted, and then looks up the keys in the window and as many deleted keys.
+     */
+    private static void slideWindow(File file, int entries, int pageSize, int pageBudget) throws IOException {
+        int window = Math.min(WINDOW, entries / 2);
+        long start = System.nanoTime();
+        PagedBPlusTree tree = PagedBPlusTree.create(file, pageSize, pageBudget);
+        for (int key = 0; key < entries; key++) {
+            tree.insert(key, key * 0.5);
+            if (key >= window) {
+                tree.delete(key - window);
+            }
+        }
+        tree.close();
+        report("sliding window, " + window + " keys", 2L * entries - window, start, tree.getBufferPool());
+        System.out.printf("file size %,d bytes, height %d, %,d pairs%n", file.length(), tree.getHeight(),
+                tree.size());
+
+        start = System.nanoTime();
+        tree = PagedBPlusTree.open(file, pageBudget);
+        long liveFound = 0;
+        long deletedFound = 0;
+        for (int key = entries - window; key < entries; key++) {
+            if (tree.searchValue(key, -1) == key * 0.5) {
+                liveFound++;
+            }
+            if (key - window >= 0 && tree.searchValue(key - window, -1) != -1) {
+                deletedFound++;
+            }
+        }
+        report("searchValue after reopen", 2L * window, start, tree.getBufferPool());
+        System.out.printf("found %,d of %,d keys in the window, %,d deleted keys%n", liveFound, window,
+                deletedFound);
+        tree.close();
+    }
+
+    private static void report(String name, long operations, long start, BufferPool bufferPool) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long accesses = bufferPool.hits + bufferPool.misses;
+        System.out.printf("%-28s %8.2f s %,14.0f ops/s  hit ratio %5.1f%%  evictions %,d  page writes %,d%n",
+                name, seconds, operations / seconds, accesses == 0 ? 0 : 100.0 * bufferPool.hits / accesses,
+                bufferPool.evictions, bufferPool.pageWrites);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Point lookup benchmark comparing the binary search lookup path of the B+ tree with linear scans
+ * of internal node keys and leaf keys, across tree degrees.
+ * <p>
+ * Both lookups run against the same loaded tree. The linear lookup walks listOfKeys of every internal node
+ * and scans the whole leaf, which is how {@link bplustree#getLeafNode} and {@link bplustree#search(int)}
+ * used to find a key.
+ * <p>
+ * Usage: java PointLookupBenchmark [entries] [lookups] [degree ...]
+ * Defaults are 1000000 entries, 1000000 lookups and degrees 4 64 256 1024.
+ */
+public class PointLookupBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, number of lookups and degrees
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int[] degrees = {4, 64, 256, 1024};
+        if (args.length > 2) {
+            degrees = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                degrees[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        int[] probes = BenchmarkSupport.shuffledKeys(entries, 7);
+        if (lookups < entries) {
+            int[] prefix = new int[lookups];
+            System.arraycopy(probes, 0, prefix, 0, lookups);
+            probes = prefix;
+        }
+        final int[] keys = probes;
+
+        System.out.printf("entries=%d lookups=%d%n", entries, keys.length);
+        System.out.printf("%8s %14s %14s %8s%n", "degree", "linear ns/op", "binary ns/op", "speedup");
+        for (int degree : degrees) {
+            final bplustree tree = BenchmarkSupport.loadTree(degree, BenchmarkSupport.shuffledKeys(entries, 42));
+
+            double linear = BenchmarkSupport.measure(keys.length, () -> {
+                long found = 0;
+                for (int key : keys) {
+                    found += linearSearch(tree, key) > -1 ? 1 : 0;
+                }
+                return found;
+            });
+            double binary = BenchmarkSupport.measure(keys.length, () -> {
+                long found = 0;
+                for (int key : keys) {
+                    found += tree.searchValue(key, -1) > -1 ? 1 : 0;
+                }
+                return found;
+            });
+            System.out.printf("%8d %14.1f %14.1f %7.2fx%n", degree, linear, binary, linear / binary);
+        }
+    }
+
+    /**
+     * Lookup which scans internal node keys and leaf keys linearly.
+     *
+     * @param tree tree to be searched
+     * @param key  key to be searched
+     * @return value of the key, -1 if not found
+     */
+    private static double linearSearch(bplustree tree, int key) {
+        Object node = tree.getRoot() != null ? tree.getRoot() : tree.getFirstLeafNode();
+        while (node instanceof bplustree.InternalNode) {
+            bplustree.InternalNode internalNode = (bplustree.InternalNode) node;
+            int index = 0;
+            while (index < internalNode.getDegree() - 1) {
+                if (internalNode.getKey(index) > key) {
+                    break;
+                }
+                index++;
+            }
+            node = internalNode.getChild(index);
+        }
+
+        bplustree.LeafNode leafNode = (bplustree.LeafNode) node;
+        double result = -1;
+        for (int i = 0; i < leafNode.getNumberOfPairs(); i++) {
+            if (leafNode.getKey(i) == key) {
+                result = leafNode.getValue(i);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of range aggregation: count, sum, minimum and maximum of the values in a range of keys.
+ * <p>
+ * The tree is bulk loaded with the keys 0 to entries - 1 and random values. For ranges of several widths it
+ * reports the time per query of summing the values with a {@link bplustree.RangeCursor}, of
+ * {@link bplustree#aggregate(int, int)}, and of {@link bplustree#aggregate(int, int, ForkJoinPool)} on pools of
+ * 1 to 16 threads. For ranges up to 1000000 keys it also reports the time of the former way to get a sum, which is
+ * {@link bplustree#search(int, int)} writing the values as text and parsing them back.
+ * <p>
+ * Usage: java -Xmx4g RangeAggregationBenchmark [entries] [degree] [threads...]
+ * Defaults are 100000000 entries, degree 64 and pools of 1, 2, 4, 8 and 16 threads.
+ */
+public class RangeAggregationBenchmark {
+    private static final int QUERIES = 5;
+    private static final int MAXIMUM_TEXT_RANGE = 1_000_000;
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, degree and numbers of threads
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int[] threads = {1, 2, 4, 8, 16};
+        if (args.length > 2) {
+            threads = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                threads[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        final bplustree tree = new bplustree(degree);
+        load(tree, entries);
+        ForkJoinPool[] pools = new ForkJoinPool[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            pools[i] = new ForkJoinPool(threads[i]);
+        }
+
+        System.out.printf("entries=%d degree=%d cores=%d%n", entries, degree,
+                Runtime.getRuntime().availableProcessors());
+        StringBuilder header = new StringBuilder(String.format("%12s %10s %10s %10s", "range", "text ms",
+                "cursor ms", "seq ms"));
+        for (int count : threads) {
+            header.append(String.format(" %9s", "fj" + count + " ms"));
+        }
+        System.out.println(header);
+
+        Random random = new Random(42);
+        for (long power = 1000; power < entries * 10L; power *= 10) {
+            // Widths are powers of ten, the last one is the whole tree
+            int width = (int) Math.min(power, entries);
+            final int[] lowerBounds = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                lowerBounds[i] = random.nextInt(entries - width + 1);
+            }
+            final int rangeWidth = width;
+            StringBuilder line = new StringBuilder(String.format("%,12d", width));
+            if (width <= MAXIMUM_TEXT_RANGE) {
+                line.append(String.format(" %10.3f", BenchmarkSupport.measure(QUERIES, () -> {
+                    double sum = 0;
+                    for (int lowerBound : lowerBounds) {
+                        sum += textSum(tree, lowerBound, lowerBound + rangeWidth - 1);
+                    }
+                    return (long) sum;
+                }) / 1e6));
+            } else {
+                line.append(String.format(" %10s", "-"));
+            }
+            line.append(String.format(" %10.3f", BenchmarkSupport.measure(QUERIES, () -> {
+                double sum = 0;
+                for (int lowerBound : lowerBounds) {
+                    bplustree.RangeCursor cursor = tree.rangeCursor(lowerBound, lowerBound + rangeWidth - 1);
+                    while (cursor.next()) {
+                        sum += cursor.getValue();
+                    }
+                }
+                return (long) sum;
+            }) / 1e6));
+            line.append(String.format(" %10.3f", BenchmarkSupport.measure(QUERIES, () -> {
+                double sum = 0;
+                for (int lowerBound : lowerBounds) {
+                    sum += tree.aggregate(lowerBound, lowerBound + rangeWidth - 1).getSum();
+                }
+                return (long) sum;
+            }) / 1e6));
+            for (final ForkJoinPool pool : pools) {
+                line.append(String.format(" %9.3f", BenchmarkSupport.measure(QUERIES, () -> {
+                    double sum = 0;
+                    for (int lowerBound : lowerBounds) {
+                        sum += tree.aggregate(lowerBound, lowerBound + rangeWidth - 1, pool).getSum();
+                    }
+                    return (long) sum;
+                }) / 1e6));
+            }
+            System.out.println(line);
+        }
+        for (ForkJoinPool pool : pools) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * This method bulk loads the keys 0 to entries - 1 with random values. The pairs are added one at a time,
+     * so that they are never held in arrays besides the tree.
+     */
+    private static void load(bplustree tree, int entries) {
+        Random random = new Random(7);
+        bplustree.BulkLoader loader = tree.new BulkLoader(bplustree.DEFAULT_FILL_FACTOR);
+        for (int key = 0; key < entries; key++) {
+            loader.add(key, random.nextInt(1_000_000) / 100.0);
+        }
+        loader.finish();
+    }
+
+    /**
+     * This method sums the values of a range the way it was done before aggregates: the values are written as
+     * comma separated text by {@link bplustree#search(int, int)} and parsed back.
+     */
+    private static double textSum(bplustree tree, int lowerBound, int upperBound) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultWriter previous = bplustree.writer;
+        bplustree.writer = new ResultWriter(Channels.newChannel(out));
+        try {
+            tree.search(lowerBound, upperBound);
+            bplustree.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            bplustree.writer = previous;
+        }
+        double sum = 0;
+        for (String value : out.toString().trim().split(",")) {
+            if (!value.equals(bplustree.NULL_VALUE)) {
+                sum += Double.parseDouble(value);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Range scan benchmark comparing the early terminating {@link bplustree.RangeCursor} with a scan which
+ * follows right siblings up to the last leaf node and collects the values into a list, which is how
+ * {@link bplustree#search(int, int)} used to work.
+ * <p>
+ * Usage: java RangeScanBenchmark [entries] [queries] [degree]
+ * Defaults are 1000000 entries, 200 queries and degree 64. Range widths are 10, 1000 and 100000 keys.
+ */
+public class RangeScanBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, number of queries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        final bplustree tree = BenchmarkSupport.loadTree(degree, BenchmarkSupport.shuffledKeys(entries, 42));
+        Random random = new Random(11);
+        final int[] lowerBounds = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            lowerBounds[i] = random.nextInt(entries);
+        }
+
+        System.out.printf("entries=%d queries=%d degree=%d%n", entries, queries, degree);
+        System.out.printf("%8s %16s %16s %10s%n", "width", "full scan us/op", "cursor us/op", "speedup");
+        for (final int width : new int[]{10, 1000, 100_000}) {
+            double fullScan = BenchmarkSupport.measure(queries, () -> {
+                long count = 0;
+                for (int lowerBound : lowerBounds) {
+                    count += fullScan(tree, lowerBound, lowerBound + width - 1).size();
+                }
+                return count;
+            });
+            double cursor = BenchmarkSupport.measure(queries, () -> {
+                long count = 0;
+                for (int lowerBound : lowerBounds) {
+                    bplustree.RangeCursor rangeCursor = tree.rangeCursor(lowerBound, lowerBound + width - 1);
+                    while (rangeCursor.next()) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            System.out.printf("%8d %16.1f %16.1f %9.1fx%n", width, fullScan / 1000, cursor / 1000, fullScan / cursor);
+        }
+
+        System.out.println();
+        System.out.printf("%8s %16s %16s%n", "offset", "limit 100 us/op", "reverse us/op");
+        for (final long offset : new long[]{0, 10_000, 100_000}) {
+            double forward = BenchmarkSupport.measure(queries, () -> {
+                long count = 0;
+                for (int lowerBound : lowerBounds) {
+                    bplustree.RangeCursor rangeCursor = tree.rangeCursor(lowerBound, Integer.MAX_VALUE, offset, 100);
+                    while (rangeCursor.next()) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            double reverse = BenchmarkSupport.measure(queries, () -> {
+                long count = 0;
+                for (int lowerBound : lowerBounds) {
+                    bplustree.RangeCursor rangeCursor = tree.reverseRangeCursor(Integer.MIN_VALUE, lowerBound, offset, 100);
+                    while (rangeCursor.next()) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            System.out.printf("%8d %16.1f %16.1f%n", offset, forward / 1000, reverse / 1000);
+        }
+    }
+
+    /**
+     * Range scan which visits every leaf node from the one holding the lower bound to the last one.
+     *
+     * @param tree       tree to be searched
+     * @param lowerBound lowerBound of the range, included
+     * @param upperBound upperBound of the range, included
+     * @return values of the keys in the range
+     */
+    private static ArrayList<Double> fullScan(bplustree tree, int lowerBound, int upperBound) {
+        ArrayList<Double> resultsList = new ArrayList<>();
+        bplustree.LeafNode node = tree.findLeafNode(lowerBound);
+        while (node != null) {
+            for (int i = 0; i < node.getNumberOfPairs(); i++) {
+                if (lowerBound <= node.getKey(i) && node.getKey(i) <= upperBound) {
+                    resultsList.add(node.getValue(i));
+                }
+            }
+            node = node.getRightSibling();
+        }
+        return resultsList;
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Crash recovery test of {@link DurableBPlusTree}.
+ * <p>
+ * Every round starts a child JVM which opens the durable tree in a directory with
+ * {@link WriteAheadLog.SyncPolicy#EVERY_OPERATION} and deletes random keys which are in the tree and inserts those
+ * which are not (values are always key * 2 + version), while a second thread writes checkpoints. Before each
+ * operation the child prints it and after its commit returns it prints "ok". The parent kills the child at a random
+ * time, opens the directory again and checks that the tree holds every acknowledged operation and nothing else,
+ * except that the one operation in flight when the child was killed may or may not be there. The next round continues
+ * from the recovered tree. The test exits with status 1 on the first failure.
+ * <p>
+ * Killing the process keeps the page cache of the operating system, so this checks the order in which logs and
+ * checkpoints are written, replaced and deleted, not that forced data survives a power loss.
+ * <p>
+ * Usage: java RecoveryStressTest [rounds] [degree] [directory]
+ * Defaults are 20 rounds, degree 8 and a new temporary directory.
+ */
+public class RecoveryStressTest {
+    private static final int KEY_SPACE = 5_000;
+
+    /**
+     * Main Method of the recovery test.
+     *
+     * @param args rounds, degree and directory, or the arguments of a child process
+     * @throws Exception if a child cannot be started or the directory cannot be read
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            runChild(new File(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            return;
+        }
+        final int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final File directory = args.length > 2 ? new File(args[2])
+                : Files.createTempDirectory("recovery-stress").toFile();
+
+        double[] expected = new double[KEY_SPACE];
+        Arrays.fill(expected, Double.NaN);
+        try (DurableBPlusTree tree = DurableBPlusTree.open(directory, degree, WriteAheadLog.SyncPolicy.NONE, 0)) {
+            readTree(tree, expected);
+        }
+        Random random = new Random(42);
+        long acknowledged = 0;
+        long start = System.nanoTime();
+
+        for (int round = 0; round < rounds; round++) {
+            Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"), RecoveryStressTest.class.getName(), "--child",
+                    directory.getPath(), String.valueOf(degree), String.valueOf(random.nextLong()))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+            // Operation printed by the child and not yet acknowledged: type, key and value
+            final double[] pending = new double[3];
+            final long[] acknowledgedInRound = {0};
+            final AtomicReference<String> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try (BufferedReader input = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+                    String line;
+                    while ((line = input.readLine()) != null) {
+                        String[] fields = line.split(" ");
+                        if (fields[0].equals("ok") && pending[0] != 0) {
+                            apply(expected, pending);
+                            pending[0] = 0;
+                            acknowledgedInRound[0]++;
+                        } else if (fields.length == 3 && (fields[0].equals("I") || fields[0].equals("D"))) {
+                            pending[0] = fields[0].equals("I") ? 1 : 2;
+                            pending[1] = Integer.parseInt(fields[1]);
+                            pending[2] = Double.parseDouble(fields[2]);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, "reading the child failed: " + e);
+                }
+            });
+            reader.start();
+            Thread.sleep(200 + random.nextInt(600));
+            child.destroyForcibly();
+            child.waitFor(30, TimeUnit.SECONDS);
+            reader.join();
+            acknowledged += acknowledgedInRound[0];
+
+            double[] recovered = new double[KEY_SPACE];
+            Arrays.fill(recovered, Double.NaN);
+            try (DurableBPlusTree tree = DurableBPlusTree.open(directory, degree, WriteAheadLog.SyncPolicy.NONE, 0)) {
+                readTree(tree, recovered);
+            }
+            // The operation in flight may have reached the log before the kill
+            if (pending[0] != 0 && !Arrays.equals(recovered, expected)) {
+                apply(expected, pending);
+            }
+            for (int key = 0; key < KEY_SPACE && failure.get() == null; key++) {
+                if (Double.compare(recovered[key], expected[key]) != 0) {
+                    failure.set("round " + round + ": recovered " + recovered[key] + " for " + key + ", expected "
+                            + expected[key]);
+                }
+            }
+            if (failure.get() != null) {
+                System.out.println("FAILED: " + failure.get());
+                System.exit(1);
+            }
+        }
+
+        long present = Arrays.stream(expected).filter(value -> !Double.isNaN(value)).count();
+        System.out.printf("OK: %d rounds, %d acknowledged operations, degree %d, %d keys left, %.2f s%n", rounds,
+                acknowledged, degree, present, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * This method is the child process: it changes the tree until it is killed.
+     */
+    private static void runChild(File directory, int degree, long seed) throws Exception {
+        DurableBPlusTree tree = DurableBPlusTree.open(directory, degree, WriteAheadLog.SyncPolicy.EVERY_OPERATION, 0);
+        Thread checkpointer = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(20);
+                    tree.checkpoint();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(2);
+            }
+        });
+        checkpointer.setDaemon(true);
+        checkpointer.start();
+
+        Random random = new Random(seed);
+        for (int version = 0; ; version = (version + 1) % 1000) {
+            int key = random.nextInt(KEY_SPACE);
+            // Keys are unique in the tree, so a key in the tree is deleted rather than inserted again
+            if (!Double.isNaN(tree.searchValue(key, Double.NaN))) {
+                System.out.println("D " + key + " 0");
+                System.out.flush();
+                tree.delete(key);
+            } else {
+                double value = key * 2.0 + version / 1000.0;
+                System.out.println("I " + key + " " + value);
+                System.out.flush();
+                tree.insert(key, value);
+            }
+            System.out.println("ok");
+            System.out.flush();
+        }
+    }
+
+    private static void apply(double[] state, double[] operation) {
+        state[(int) operation[1]] = operation[0] == 1 ? operation[2] : Double.NaN;
+    }
+
+    /**
+     * This method copies the pairs of a recovered tree into an array indexed by key.
+     */
+    private static void readTree(DurableBPlusTree tree, double[] state) {
+        bplustree inMemoryTree = tree.getTree();
+        synchronized (inMemoryTree) {
+            int[] keys = new int[inMemoryTree.getMaximumDataInLeafNode() + 1];
+            double[] values = new double[keys.length];
+            for (bplustree.LeafNode node = inMemoryTree.getFirstLeafNode(); node != null;
+                 node = node.getRightSibling()) {
+                int pairs = node.copyPairs(keys, values);
+                for (int i = 0; i < pairs; i++) {
+                    if (keys[i] < 0 || keys[i] >= KEY_SPACE || !Double.isNaN(state[keys[i]])) {
+                        throw new IllegalStateException("Unexpected or duplicate key " + keys[i]);
+                    }
+                    state[keys[i]] = values[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Benchmark of output-heavy search workloads, comparing the previous logging output path with {@link ResultWriter}.
+ * <p>
+ * It runs the same point searches and range searches of 20 keys on a loaded tree and writes the results to a file,
+ * once through a {@link Logger} with a {@link FileHandler} and a one line formatter as bplustree used to, and once
+ * through {@link bplustree#writer}. The tree work is the same in both runs, so the difference is the output path.
+ * <p>
+ * Usage: java ResultWriterBenchmark [entries] [searches] [degree]
+ * Defaults are 1000000 entries, 2000000 searches and degree 64.
+ */
+public class ResultWriterBenchmark {
+
+    /**
+     * Formatter writing the message of a log record as one line, like the formatter bplustree used to have.
+     */
+    private static class LineFormatter extends Formatter {
+        @Override
+        public String format(LogRecord record) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(record.getMessage());
+            sb.append("\n");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, number of searches and degree
+     * @throws IOException if the output files cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int searches = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        bplustree tree = new bplustree(degree);
+        Random random = new Random(42);
+        for (int key : BenchmarkSupport.shuffledKeys(entries, 42)) {
+            // Two decimals, like the values of the input scripts
+            tree.insert(key, random.nextInt(10_000_000) / 100.0);
+        }
+        int[] keys = new int[searches];
+        for (int i = 0; i < searches; i++) {
+            // A tenth of the point searches miss and write Null
+            keys[i] = random.nextInt(entries + entries / 10);
+        }
+        File loggerFile = File.createTempFile("bplustree-logger", ".txt");
+        File resultFile = File.createTempFile("bplustree-result", ".txt");
+        loggerFile.deleteOnExit();
+        resultFile.deleteOnExit();
+
+        System.out.printf("entries=%d searches=%d degree=%d%n", entries, searches, degree);
+        System.out.printf("%-26s %14s %14s%n", "", "logger s", "ResultWriter s");
+        for (int round = 0; round < BenchmarkSupport.MEASURED_ITERATIONS; round++) {
+            Logger logger = Logger.getLogger(ResultWriterBenchmark.class.getName() + round);
+            FileHandler fileHandler = new FileHandler(loggerFile.getPath());
+            fileHandler.setFormatter(new LineFormatter());
+            logger.addHandler(fileHandler);
+            logger.setUseParentHandlers(false);
+            long start = System.nanoTime();
+            for (int key : keys) {
+                double value = tree.searchValue(key, Double.NaN);
+                logger.info(Double.isNaN(value) ? bplustree.NULL_VALUE : Double.toString(value));
+            }
+            for (int i = 0; i < searches / 10; i++) {
+                bplustree.RangeCursor cursor = tree.rangeCursor(keys[i], keys[i] + 19);
+                if (!cursor.next()) {
+                    logger.info(bplustree.NULL_VALUE);
+                } else {
+                    StringBuilder result = new StringBuilder();
+                    result.append(cursor.getValue());
+                    while (cursor.next()) {
+                        result.append(',').append(cursor.getValue());
+                    }
+                    logger.info(result.toString());
+                }
+            }
+            fileHandler.close();
+            double loggerSeconds = (System.nanoTime() - start) / 1e9;
+
+            bplustree.writer = ResultWriter.open(resultFile);
+            start = System.nanoTime();
+            for (int key : keys) {
+                tree.search(key);
+            }
+            for (int i = 0; i < searches / 10; i++) {
+                tree.search(keys[i], keys[i] + 19);
+            }
+            bplustree.writer.close();
+            double resultWriterSeconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-26s %14.2f %14.2f%n", "round " + (round + 1), loggerSeconds, resultWriterSeconds);
+        }
+        new File(loggerFile.getPath() + ".lck").delete();
+        System.out.printf("output files %,d and %,d bytes%n", loggerFile.length(), resultFile.length());
+    }
+}
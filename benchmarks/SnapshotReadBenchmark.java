@@ -0,0 +1,186 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Benchmark of reader latency under a concurrent write load, comparing snapshot scans of {@link CowBPlusTree}
+ * with scans of {@link bplustree} behind a read write lock, which stops writers for as long as a scan runs.
+ * <p>
+ * Both trees are preloaded with the same keys. Then one writer thread inserts and deletes random keys as fast
+ * as it can while reader threads scan random ranges, each scan seeing one consistent version of the tree.
+ * It reports the latency percentiles of the scans, and the scans and writes done per second.
+ * <p>
+ * Usage: java SnapshotReadBenchmark [entries] [rangeWidth] [readers] [seconds] [degree]
+ * Defaults are 1000000 entries, ranges of 10000 keys, 2 reader threads, 5 seconds per run and degree 64.
+ */
+public class SnapshotReadBenchmark {
+    private static final int MAXIMUM_SAMPLES = 1 << 20;
+
+    /**
+     * Operations on a tree.
+     */
+    private interface TreeOperations {
+        long scan(int lowerBound, int upperBound);
+
+        void insert(int key, double value);
+
+        void delete(int key);
+    }
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries, range width, reader threads, seconds per run and degree
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rangeWidth = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 5;
+        int degree = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+
+        final CowBPlusTree cowTree = new CowBPlusTree(degree);
+        final bplustree lockedTree = new bplustree(degree);
+        for (int key : BenchmarkSupport.shuffledKeys(entries, 42)) {
+            cowTree.insert(key * 2, key);
+            lockedTree.insert(key * 2, key);
+        }
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        TreeOperations locked = new TreeOperations() {
+            public long scan(int lowerBound, int upperBound) {
+                lock.readLock().lock();
+                try {
+                    long count = 0;
+                    bplustree.RangeCursor cursor = lockedTree.rangeCursor(lowerBound, upperBound);
+                    while (cursor.next()) {
+                        count++;
+                    }
+                    return count;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            public void insert(int key, double value) {
+                lock.writeLock().lock();
+                try {
+                    lockedTree.insert(key, value);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            public void delete(int key) {
+                lock.writeLock().lock();
+                try {
+                    if (lockedTree.searchValue(key, -1) != -1) {
+                        lockedTree.delete(key);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+        final long[] pairs = new long[1];
+        TreeOperations snapshots = new TreeOperations() {
+            public long scan(int lowerBound, int upperBound) {
+                return cowTree.snapshot().searchRange(lowerBound, upperBound, (key, value) -> pairs[0]++);
+            }
+
+            public void insert(int key, double value) {
+                cowTree.insert(key, value);
+            }
+
+            public void delete(int key) {
+                cowTree.delete(key);
+            }
+        };
+
+        System.out.printf("entries=%d range=%d readers=%d degree=%d cores=%d%n", entries, rangeWidth, readers, degree,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-16s %10s %10s %10s %10s %12s %12s%n", "", "p50 us", "p99 us", "p99.9 us", "max us",
+                "scans/s", "writes/s");
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up both trees and is not reported
+            boolean report = round == 1;
+            run("read write lock", locked, entries * 2, rangeWidth, readers, seconds, report);
+            run("cow snapshot", snapshots, entries * 2, rangeWidth, readers, seconds, report);
+        }
+    }
+
+    private static void run(String name, final TreeOperations tree, final int keySpace, final int rangeWidth,
+                            int readers, double seconds, boolean report) throws InterruptedException {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong writes = new AtomicLong();
+        final long[][] samples = new long[readers][MAXIMUM_SAMPLES];
+        final int[] sampleCounts = new int[readers];
+
+        Thread writer = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long done = 0;
+            while (running.get()) {
+                // Odd keys come and go, the preloaded even keys stay
+                int key = random.nextInt(keySpace) | 1;
+                if (random.nextBoolean()) {
+                    tree.insert(key, key);
+                } else {
+                    tree.delete(key);
+                }
+                done++;
+            }
+            writes.set(done);
+        });
+        Thread[] readerThreads = new Thread[readers];
+        for (int i = 0; i < readers; i++) {
+            final int reader = i;
+            readerThreads[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] latencies = samples[reader];
+                int count = 0;
+                while (running.get()) {
+                    int lowerBound = random.nextInt(keySpace - rangeWidth);
+                    long start = System.nanoTime();
+                    tree.scan(lowerBound, lowerBound + rangeWidth - 1);
+                    latencies[count & (MAXIMUM_SAMPLES - 1)] = System.nanoTime() - start;
+                    count++;
+                }
+                sampleCounts[reader] = count;
+            });
+        }
+
+        writer.start();
+        for (Thread thread : readerThreads) {
+            thread.start();
+        }
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        writer.join();
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+
+        long scans = 0;
+        long[] all = new long[0];
+        for (int i = 0; i < readers; i++) {
+            scans += sampleCounts[i];
+            int kept = Math.min(sampleCounts[i], MAXIMUM_SAMPLES);
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + kept);
+            System.arraycopy(samples[i], 0, all, offset, kept);
+        }
+        if (!report || all.length == 0) {
+            return;
+        }
+        Arrays.sort(all);
+        System.out.printf("%-16s %10.1f %10.1f %10.1f %10.1f %,12.0f %,12.0f%n", name,
+                percentile(all, 0.5) / 1000, percentile(all, 0.99) / 1000, percentile(all, 0.999) / 1000,
+                all[all.length - 1] / 1000.0, scans / seconds, writes.get() / seconds);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+    }
+}
@@ -0,0 +1,118 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark of string keys, comparing {@link BytesBPlusTree} with and without key compression, and
+ * {@link ComparableBPlusTree} of String keys.
+ * <p>
+ * Keys look like flight records, for example {@code UAL1234/KORD-KSFO/2021-03-15}, so neighbouring keys share long
+ * prefixes. All trees get the same keys in random order. It reports the heap used by each loaded tree, the bytes
+ * stored for the keys in Leaf Nodes and Internal Nodes of the byte trees, and the time per point lookup.
+ * <p>
+ * Usage: java StringKeyBenchmark [entries] [degree]
+ * Defaults are 1000000 entries and degree 64.
+ */
+public class StringKeyBenchmark {
+    private static final String[] AIRLINES = {"AAL", "ACA", "AFR", "ANA", "BAW", "CPA", "DAL", "DLH", "EIN", "ETD",
+            "FDX", "JBU", "KLM", "QFA", "QTR", "SIA", "SWA", "THY", "UAE", "UAL"};
+    private static final String[] AIRPORTS = {"EDDF", "EGLL", "EHAM", "KATL", "KBOS", "KDEN", "KDFW", "KJFK", "KLAX",
+            "KMIA", "KORD", "KSEA", "KSFO", "LFPG", "LTFM", "OMDB", "RJTT", "VHHH", "WSSS", "YSSY"};
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of entries and degree
+     */
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        int[] order = BenchmarkSupport.shuffledKeys(entries, 42);
+        final String[] strings = new String[entries];
+        final byte[][] keys = new byte[entries][];
+        for (int i = 0; i < entries; i++) {
+            strings[i] = flightKey(order[i]);
+            keys[i] = strings[i].getBytes(StandardCharsets.US_ASCII);
+        }
+
+        System.out.printf("entries=%d degree=%d%n", entries, degree);
+        System.out.printf("%-24s %10s %16s %16s %14s%n", "", "heap MB", "leaf key bytes", "separator bytes",
+                "lookup ns/op");
+        for (boolean keyCompression : new boolean[]{false, true}) {
+            long before = BenchmarkSupport.usedHeap();
+            final BytesBPlusTree tree = new BytesBPlusTree(degree, keyCompression);
+            for (int i = 0; i < entries; i++) {
+                tree.insert(keys[i], i);
+            }
+            long heap = BenchmarkSupport.usedHeap() - before;
+            double lookup = BenchmarkSupport.measure(entries, () -> {
+                long sum = 0;
+                for (byte[] key : keys) {
+                    sum += tree.searchValue(key, 0);
+                }
+                return sum;
+            });
+            System.out.printf("%-24s %10.1f %,16d %,16d %14.1f%n",
+                    keyCompression ? "bytes, compressed" : "bytes, uncompressed", heap / 1e6,
+                    leafKeyBytes(tree), separatorBytes(tree.root), lookup);
+        }
+
+        long before = BenchmarkSupport.usedHeap();
+        final ComparableBPlusTree<String, Long> stringTree = new ComparableBPlusTree<>(degree);
+        for (int i = 0; i < entries; i++) {
+            // A copy of the key, as the byte trees store copies of their keys
+            stringTree.insert(new String(keys[i], StandardCharsets.US_ASCII), (long) i);
+        }
+        long heap = BenchmarkSupport.usedHeap() - before;
+        double lookup = BenchmarkSupport.measure(entries, () -> {
+            long sum = 0;
+            for (String key : strings) {
+                sum += stringTree.search(key);
+            }
+            return sum;
+        });
+        System.out.printf("%-24s %10.1f %16s %16s %14.1f%n", "String", heap / 1e6, "-", "-", lookup);
+    }
+
+    /**
+     * This method builds the key of a flight record. Different numbers give different keys.
+     */
+    private static String flightKey(int number) {
+        int flight = number % (AIRLINES.length * 5000);
+        int day = number / (AIRLINES.length * 5000);
+        int route = (flight * 31) % (AIRPORTS.length * AIRPORTS.length);
+        return String.format("%s%04d/%s-%s/%d-%02d-%02d", AIRLINES[flight % AIRLINES.length],
+                flight / AIRLINES.length + 1, AIRPORTS[route / AIRPORTS.length], AIRPORTS[route % AIRPORTS.length],
+                2021 + day / 365, day % 365 / 31 + 1, day % 31 + 1);
+    }
+
+    /**
+     * This method sums the bytes of the prefixes and suffixes stored in the Leaf Nodes.
+     */
+    private static long leafKeyBytes(BytesBPlusTree tree) {
+        long bytes = 0;
+        for (AbstractBPlusTree.LeafNode leafNode = tree.getFirstLeafNode(); leafNode != null;
+             leafNode = leafNode.getRightSibling()) {
+            BytesBPlusTree.PrefixLeafNode prefixLeafNode = (BytesBPlusTree.PrefixLeafNode) leafNode;
+            bytes += prefixLeafNode.prefix.length + prefixLeafNode.getSuffixEnd(prefixLeafNode.count - 1);
+        }
+        return bytes;
+    }
+
+    /**
+     * This method sums the bytes of the separators stored in the Internal Nodes.
+     */
+    private static long separatorBytes(AbstractBPlusTree.Node node) {
+        if (!(node instanceof AbstractBPlusTree.InternalNode)) {
+            return 0;
+        }
+        AbstractBPlusTree.InternalNode internalNode = (AbstractBPlusTree.InternalNode) node;
+        long bytes = 0;
+        for (int i = 0; i < internalNode.count; i++) {
+            bytes += ((byte[][]) internalNode.keys)[i].length;
+        }
+        for (int i = 0; i <= internalNode.count; i++) {
+            bytes += separatorBytes(internalNode.children[i]);
+        }
+        return bytes;
+    }
+}
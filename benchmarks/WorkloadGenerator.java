@@ -0,0 +1,170 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of input scripts in the format read by {@link bplustree#main(String[])}: one {@code Initialize(degree)}
+ * line followed by {@code Insert(key, value)}, {@code Search(key)}, {@code Search(lowerBound, upperBound)} and
+ * {@code Delete(key)} lines.
+ * <p>
+ * Every operation is drawn by its percentage in the mix. Inserts always add a key not in the tree, deletes remove
+ * a random key in the tree, and nine in ten point searches ask for a key in the tree, the others for a key which
+ * is not. Range searches start at a key in the tree and cover rangeWidth keys. Random keys are spread over the
+ * non-negative int values without repeating, sequential keys are 0, 1, 2, ...
+ * <p>
+ * Running the same script before and after a change, with {@code time java bplustree script.txt}, shows
+ * regressions of the whole path from parsing to output.
+ * <p>
+ * Usage: java WorkloadGenerator output [operations] [degree] [mix] [keys] [rangeWidth] [seed]
+ * Defaults are 1000000 operations, degree 64, mix 50:35:10:5 (percent of inserts, point searches, deletes and
+ * range searches), random keys, range width 100 and seed 42.
+ * example : java WorkloadGenerator churn.txt 10000000 64 30:40:30:0 random
+ */
+public class WorkloadGenerator {
+    private static final int KEY_MULTIPLIER = 0x9E3779B1;
+
+    private final SplittableRandom random;
+    private final boolean sequentialKeys;
+    // Keys in the tree, in no order
+    private int[] keys = new int[1024];
+    private int numberOfKeys;
+    private int nextKeyNumber;
+
+    /**
+     * Constructs a generator with an empty tree.
+     *
+     * @param sequentialKeys true for keys 0, 1, 2, ..., false for random keys
+     * @param seed           seed of the random generator
+     */
+    public WorkloadGenerator(boolean sequentialKeys, long seed) {
+        this.sequentialKeys = sequentialKeys;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Main Method of the generator.
+     *
+     * @param args output file, operations, degree, mix, keys, range width and seed
+     * @throws IOException if the script cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java WorkloadGenerator output [operations] [degree] [mix] [keys] [rangeWidth]"
+                    + " [seed]");
+            return;
+        }
+        long operations = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int[] mix = parseMix(args.length > 3 ? args[3] : "50:35:10:5");
+        boolean sequentialKeys = args.length > 4 && args[4].equals("sequential");
+        int rangeWidth = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 42;
+
+        try (Writer writer = new BufferedWriter(new FileWriter(args[0]), 1 << 16)) {
+            new WorkloadGenerator(sequentialKeys, seed).write(writer, operations, degree, mix, rangeWidth);
+        }
+    }
+
+    /**
+     * This method parses a mix of percentages of inserts, point searches, deletes and range searches, for example
+     * 50:35:10:5, which must add up to 100.
+     *
+     * @param mix mix to be parsed
+     * @return the four percentages
+     */
+    public static int[] parseMix(String mix) {
+        String[] parts = mix.split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("mix must be insert:search:delete:range percentages: " + mix);
+        }
+        int[] percentages = new int[4];
+        int total = 0;
+        for (int i = 0; i < 4; i++) {
+            percentages[i] = Integer.parseInt(parts[i].trim());
+            if (percentages[i] < 0) {
+                throw new IllegalArgumentException("mix percentages must not be negative: " + mix);
+            }
+            total += percentages[i];
+        }
+        if (total != 100) {
+            throw new IllegalArgumentException("mix percentages must add up to 100: " + mix);
+        }
+        return percentages;
+    }
+
+    /**
+     * This method writes a script.
+     *
+     * @param writer     writer the script is written to
+     * @param operations number of operations after the Initialize line
+     * @param degree     degree of the tree
+     * @param mix        percentages of inserts, point searches, deletes and range searches
+     * @param rangeWidth number of keys covered by a range search
+     * @throws IOException if the script cannot be written
+     */
+    public void write(Writer writer, long operations, int degree, int[] mix, int rangeWidth) throws IOException {
+        writer.write(bplustree.INITIALIZE + "(" + degree + ")\n");
+        for (long i = 0; i < operations; i++) {
+            int draw = random.nextInt(100);
+            // Deletes and searches of an empty tree become inserts
+            if (draw < mix[0] || numberOfKeys == 0) {
+                int key = newKey();
+                addKey(key);
+                double value = (random.nextInt(200_000) - 100_000) / 100.0;
+                writer.write(bplustree.INSERT + "(" + key + ", " + value + ")\n");
+            } else if (draw < mix[0] + mix[1]) {
+                int key = random.nextInt(10) == 0 ? missingKey() : keys[random.nextInt(numberOfKeys)];
+                writer.write(bplustree.SEARCH + "(" + key + ")\n");
+            } else if (draw < mix[0] + mix[1] + mix[2]) {
+                writer.write(bplustree.DELETE + "(" + removeKey(random.nextInt(numberOfKeys)) + ")\n");
+            } else {
+                int lowerBound = keys[random.nextInt(numberOfKeys)];
+                int upperBound = (int) Math.min(Integer.MAX_VALUE, (long) lowerBound + keySpacing() * rangeWidth);
+                writer.write(bplustree.SEARCH + "(" + lowerBound + ", " + upperBound + ")\n");
+            }
+        }
+    }
+
+    /**
+     * This method returns a key which was never returned before. Random keys are the key numbers multiplied by
+     * an odd constant without the sign bit, which is different for every number below 2^31.
+     */
+    private int newKey() {
+        int number = nextKeyNumber++;
+        return sequentialKeys ? number : (number * KEY_MULTIPLIER) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * This method returns a key which is not in the tree yet.
+     */
+    private int missingKey() {
+        int number = nextKeyNumber + random.nextInt(1 << 20);
+        return sequentialKeys ? number : (number * KEY_MULTIPLIER) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * This method returns the average distance between two neighbouring keys in the tree.
+     */
+    private long keySpacing() {
+        return sequentialKeys ? 1 : Math.max(1, Integer.MAX_VALUE / Math.max(1, numberOfKeys));
+    }
+
+    private void addKey(int key) {
+        if (numberOfKeys == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+        }
+        keys[numberOfKeys++] = key;
+    }
+
+    /**
+     * This method removes the key at a position by moving the last key into its place.
+     */
+    private int removeKey(int position) {
+        int key = keys[position];
+        keys[position] = keys[--numberOfKeys];
+        return key;
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Throughput benchmark of {@link DurableBPlusTree} inserts for each {@link WriteAheadLog.SyncPolicy}.
+ * <p>
+ * For 1, 4, 16 and 64 writer threads it runs inserts of distinct keys into a new durable tree and reports the
+ * operations per second, then reopens the directory and reports the recovery time. With
+ * {@link WriteAheadLog.SyncPolicy#EVERY_OPERATION} the throughput depends on how many commits share one fsync,
+ * so it grows with the number of writers.
+ * <p>
+ * Usage: java WriteAheadLogBenchmark [operations] [intervalMillis] [degree] [directory]
+ * Defaults are 1000000 operations, 5 ms sync interval, degree 128 and a temporary directory.
+ */
+public class WriteAheadLogBenchmark {
+
+    /**
+     * Main Method of the benchmark.
+     *
+     * @param args number of operations, sync interval, degree and directory
+     * @throws Exception if the log cannot be written or a writer fails
+     */
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long intervalMillis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 128;
+        File parent = args.length > 3 ? new File(args[3]) : Files.createTempDirectory("bplustree-wal").toFile();
+
+        System.out.printf("operations=%d interval=%d ms degree=%d directory=%s%n", operations, intervalMillis,
+                degree, parent);
+        System.out.printf("%-16s %8s %14s %12s%n", "policy", "threads", "ops/s", "recovery s");
+        for (WriteAheadLog.SyncPolicy syncPolicy : WriteAheadLog.SyncPolicy.values()) {
+            for (int threads = 1; threads <= 64; threads *= 4) {
+                // One fsync per commit is slow on a single writer, so that case runs fewer operations
+                int count = syncPolicy == WriteAheadLog.SyncPolicy.EVERY_OPERATION && threads == 1
+                        ? Math.min(operations, 20_000) : operations;
+                File directory = new File(parent, syncPolicy + "-" + threads);
+                deleteDirectory(directory);
+                double opsPerSecond = run(directory, syncPolicy, intervalMillis, degree, threads, count);
+
+                long start = System.nanoTime();
+                DurableBPlusTree.open(directory, degree, syncPolicy, intervalMillis).close();
+                double recoverySeconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-16s %8d %,14.0f %12.2f%n", syncPolicy, threads, opsPerSecond, recoverySeconds);
+                deleteDirectory(directory);
+            }
+        }
+        if (args.length <= 3) {
+            parent.delete();
+        }
+    }
+
+    private static double run(File directory, WriteAheadLog.SyncPolicy syncPolicy, long intervalMillis, int degree,
+                              final int threads, final int operations) throws Exception {
+        final DurableBPlusTree tree = DurableBPlusTree.open(directory, degree, syncPolicy, intervalMillis);
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int writer = t;
+            new Thread(() -> {
+                try {
+                    for (int key = writer; key < operations; key += threads) {
+                        tree.insert(key, key);
+                    }
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        tree.close();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return operations / seconds;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,48 @@
+import jmh.TreeOperations;
+
+/**
+ * Adapter of {@link bplustree} to the {@link TreeOperations} of the JMH benchmarks.
+ */
+public class BPlusTreeOperations implements TreeOperations {
+    private final bplustree tree;
+
+    /**
+     * Constructs an empty tree of a degree.
+     *
+     * @param degree degree of the tree
+     */
+    public BPlusTreeOperations(int degree) {
+        tree = new bplustree(degree);
+    }
+
+    @Override
+    public void insert(int key, double value) {
+        tree.insert(key, value);
+    }
+
+    @Override
+    public void delete(int key) {
+        tree.delete(key);
+    }
+
+    @Override
+    public double searchValue(int key, double defaultValue) {
+        return tree.searchValue(key, defaultValue);
+    }
+
+    @Override
+    public double scan(int lowerBound, int upperBound) {
+        double sum = 0;
+        bplustree.RangeCursor cursor = tree.rangeCursor(lowerBound, upperBound);
+        while (cursor.next()) {
+            sum += cursor.getValue();
+        }
+        return sum;
+    }
+
+    @Override
+    public boolean enableMetrics() {
+        tree.enableMetrics();
+        return true;
+    }
+}
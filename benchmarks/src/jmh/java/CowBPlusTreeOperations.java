@@ -0,0 +1,45 @@
+import jmh.TreeOperations;
+
+/**
+ * Adapter of {@link CowBPlusTree} to the {@link TreeOperations} of the JMH benchmarks.
+ */
+public class CowBPlusTreeOperations implements TreeOperations {
+    private final CowBPlusTree tree;
+    private double sum;
+
+    /**
+     * Constructs an empty tree of a degree.
+     *
+     * @param degree degree of the tree
+     */
+    public CowBPlusTreeOperations(int degree) {
+        tree = new CowBPlusTree(degree);
+    }
+
+    @Override
+    public void insert(int key, double value) {
+        tree.insert(key, value);
+    }
+
+    @Override
+    public void delete(int key) {
+        tree.delete(key);
+    }
+
+    @Override
+    public double searchValue(int key, double defaultValue) {
+        return tree.searchValue(key, defaultValue);
+    }
+
+    @Override
+    public double scan(int lowerBound, int upperBound) {
+        sum = 0;
+        tree.searchRange(lowerBound, upperBound, (key, value) -> sum += value);
+        return sum;
+    }
+
+    @Override
+    public boolean enableMetrics() {
+        return false;
+    }
+}
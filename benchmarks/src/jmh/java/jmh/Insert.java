@@ -0,0 +1,53 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserts of new keys, in random order or in increasing order.
+ * <p>
+ * Every iteration starts from a newly loaded tree of size keys and grows it by the keys it inserts, so that
+ * iterations do not build on each other. With sequential order the tree is loaded with the keys 0 to size - 1
+ * in increasing order and the inserts continue from there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class Insert extends TreeState {
+
+    @Param({"random", "sequential"})
+    public String order;
+
+    /**
+     * This method loads a new tree for the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reload() {
+        load();
+    }
+
+    @Override
+    public int nextKey() {
+        return order.equals("random") ? super.nextKey() : nextKey++;
+    }
+
+    @Benchmark
+    public void insert() {
+        int key = nextKey();
+        tree.insert(key, key * 0.5);
+    }
+}
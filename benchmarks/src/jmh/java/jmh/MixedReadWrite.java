@@ -0,0 +1,60 @@
+package jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mixed reads and writes: readPercent of the operations are point lookups of random keys in the tree, the others
+ * are writes, each of which deletes the oldest key and inserts a new one. The kind of every operation is drawn in
+ * advance, so the benchmark loop has no random generator in it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MixedReadWrite extends TreeState {
+    private static final int OPERATIONS = 1 << 20;
+
+    @Param({"50", "90", "99"})
+    public int readPercent;
+
+    // Position of a key in keys to be read, or -1 for a write
+    private int[] operations;
+    private int next;
+
+    /**
+     * This method draws the kind of every operation and the keys to be read.
+     */
+    @Setup
+    public void drawOperations() {
+        SplittableRandom random = new SplittableRandom(42);
+        operations = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            operations[i] = random.nextInt(100) < readPercent ? random.nextInt(size) : -1;
+        }
+    }
+
+    @Benchmark
+    public double operation() {
+        next = (next + 1) & (OPERATIONS - 1);
+        int position = operations[next];
+        if (position < 0) {
+            churn();
+            return 0;
+        }
+        return tree.searchValue(keys[position], -1);
+    }
+}
@@ -0,0 +1,53 @@
+package jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Point lookups of keys in the tree, in random order, or of keys not in the tree with hit=false.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PointLookup extends TreeState {
+    private static final int LOOKUPS = 1 << 20;
+
+    @Param({"true"})
+    public boolean hit;
+
+    private int[] lookupKeys;
+    private int next;
+
+    /**
+     * This method picks the keys to be looked up.
+     */
+    @Setup
+    public void pickKeys() {
+        SplittableRandom random = new SplittableRandom(42);
+        lookupKeys = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Keys from size on were never inserted
+            lookupKeys[i] = key(hit ? random.nextInt(size) : size + random.nextInt(Integer.MAX_VALUE - size));
+        }
+    }
+
+    @Benchmark
+    public double lookup() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return tree.searchValue(lookupKeys[next], -1);
+    }
+}
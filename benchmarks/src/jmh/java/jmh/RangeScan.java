@@ -0,0 +1,66 @@
+package jmh;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Range scans summing the values of about width keys, starting at random keys.
+ * <p>
+ * Keys are spread over all int values, so a range of width keys is the distance between a key in the tree and
+ * the key width positions after it in key order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RangeScan extends TreeState {
+    private static final int SCANS = 1 << 16;
+
+    @Param({"10", "1000"})
+    public int width;
+
+    private int[] lowerBounds;
+    private int[] upperBounds;
+    private int next;
+
+    /**
+     * This method picks the ranges to be scanned.
+     */
+    @Setup
+    public void pickRanges() {
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = key(i);
+        }
+        Arrays.sort(sorted);
+        SplittableRandom random = new SplittableRandom(42);
+        lowerBounds = new int[SCANS];
+        upperBounds = new int[SCANS];
+        int count = Math.min(width, size);
+        for (int i = 0; i < SCANS; i++) {
+            int first = random.nextInt(size - count + 1);
+            lowerBounds[i] = sorted[first];
+            upperBounds[i] = sorted[first + count - 1];
+        }
+    }
+
+    @Benchmark
+    public double scan() {
+        next = (next + 1) & (SCANS - 1);
+        return tree.scan(lowerBounds[next], upperBounds[next]);
+    }
+}
@@ -0,0 +1,75 @@
+package jmh;
+
+/**
+ * Operations of a tree as seen by the JMH benchmarks.
+ * <p>
+ * JMH does not accept benchmarks in the default package, and classes in a package cannot name the tree classes,
+ * which are in the default package. So the benchmarks call the trees through this interface, which adapters in
+ * the default package implement. The adapter is found by name once per trial, and every call after that is an
+ * ordinary interface call the JIT inlines.
+ */
+public interface TreeOperations {
+
+    /**
+     * This method inserts a key value pair. The key must not be in the tree.
+     *
+     * @param key   key to be inserted
+     * @param value value to be inserted
+     */
+    void insert(int key, double value);
+
+    /**
+     * This method deletes a key. The key must be in the tree.
+     *
+     * @param key key to be deleted
+     */
+    void delete(int key);
+
+    /**
+     * This method returns the value of a key.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    double searchValue(int key, double defaultValue);
+
+    /**
+     * This method sums the values of the keys in between lowerBound and upperBound included.
+     *
+     * @param lowerBound lowerBound of the range of keys to be scanned
+     * @param upperBound upperBound of the range of keys to be scanned
+     * @return sum of the values in the range
+     */
+    double scan(int lowerBound, int upperBound);
+
+    /**
+     * This method turns on the metrics of the tree, so that their cost is part of every operation after it.
+     *
+     * @return true if the metrics are on, false if the tree keeps no metrics
+     */
+    boolean enableMetrics();
+
+    /**
+     * This method creates an empty tree.
+     *
+     * @param implementation bplustree or cow, for {@code bplustree} or {@code CowBPlusTree}
+     * @param degree         degree of the tree
+     * @return operations of the new tree
+     */
+    static TreeOperations create(String implementation, int degree) {
+        String adapter;
+        if (implementation.equals("bplustree")) {
+            adapter = "BPlusTreeOperations";
+        } else if (implementation.equals("cow")) {
+            adapter = "CowBPlusTreeOperations";
+        } else {
+            throw new IllegalArgumentException("Unknown tree implementation: " + implementation);
+        }
+        try {
+            return (TreeOperations) Class.forName(adapter).getConstructor(int.class).newInstance(degree);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create tree adapter " + adapter, e);
+        }
+    }
+}
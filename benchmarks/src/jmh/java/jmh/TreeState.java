@@ -0,0 +1,93 @@
+package jmh;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Tree shared by the operations of one benchmark thread, loaded with size keys in random order.
+ * <p>
+ * Keys are the numbers 0, 1, 2, ... multiplied by an odd constant, which spreads them over all int values in
+ * a random looking order and never gives the same key twice. The keys in the tree are remembered in the order
+ * they were inserted, so that churn can delete the oldest key and insert a new one, keeping the size steady.
+ * <p>
+ * Degrees go from 4 to 1024, from nodes a few keys long to nodes whose binary search spans many cache lines.
+ * Sizes go from 1000 to 10000000 by default. Larger trees are given with {@code -p size=100000000}, with a heap
+ * of about 8 GB, for example {@code -jvmArgsAppend -Xmx8g}.
+ * <p>
+ * Every benchmark runs with the metrics of the tree off and on. Results with metrics off, compared with a build
+ * from before the metrics, check that metrics which are off cost nothing; results with metrics on show what they
+ * cost. {@code CowBPlusTree} keeps no metrics, it is run with {@code -p metrics=false}.
+ */
+@State(Scope.Thread)
+public class TreeState {
+    private static final int KEY_MULTIPLIER = 0x9E3779B1;
+
+    @Param({"bplustree"})
+    public String implementation;
+
+    @Param({"4", "16", "64", "256", "1024"})
+    public int degree;
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    public TreeOperations tree;
+
+    // Keys in the tree in the order they were inserted, the oldest one at head
+    public int[] keys;
+    public int head;
+    public int nextKey;
+
+    /**
+     * This method creates the tree and loads it.
+     */
+    @Setup
+    public void load() {
+        tree = TreeOperations.create(implementation, degree);
+        if (metrics && !tree.enableMetrics()) {
+            throw new IllegalStateException("Tree implementation " + implementation + " keeps no metrics");
+        }
+        keys = new int[size];
+        head = 0;
+        nextKey = 0;
+        for (int i = 0; i < size; i++) {
+            keys[i] = nextKey();
+            tree.insert(keys[i], keys[i] * 0.5);
+        }
+    }
+
+    /**
+     * This method returns a key which was never returned before.
+     *
+     * @return new key
+     */
+    public int nextKey() {
+        return key(nextKey++);
+    }
+
+    /**
+     * This method returns the key of a number.
+     *
+     * @param number number of the key
+     * @return key of the number
+     */
+    public static int key(int number) {
+        return number * KEY_MULTIPLIER;
+    }
+
+    /**
+     * This method deletes the oldest key and inserts a new key in its place.
+     */
+    public void churn() {
+        tree.delete(keys[head]);
+        int key = nextKey();
+        tree.insert(key, key * 0.5);
+        keys[head] = key;
+        head = head + 1 == size ? 0 : head + 1;
+    }
+}
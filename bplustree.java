@@ -1,17 +1,11 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.logging.FileHandler;
-import java.util.logging.Formatter;
-import java.util.logging.LogRecord;
-import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.util.Collections.sort;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * B+ tree Implementation. The primary value of a B+ tree is in storing data for
@@ -24,7 +18,9 @@ import static java.util.Collections.sort;
  */
 @SuppressWarnings("unchecked")
 public class bplustree {
-    public static Logger writer = Logger.getLogger(bplustree.class.getName());
+    // Standard output is flushed after every result, like the Logger it replaces. See initializeWriter
+    public static ResultWriter writer = new ResultWriter(Channels.newChannel(System.out),
+            ResultWriter.DEFAULT_BUFFER_SIZE, true);
 
     public static final String INITIALIZE = "Initialize";
     public static final String INSERT = "Insert";
@@ -32,14 +28,38 @@ public class bplustree {
     public static final String SEARCH = "Search";
 
     public static final String NULL_VALUE = "Null";
+    public static final double DEFAULT_FILL_FACTOR = 1.0;
+    // Null unless the JVM runs with the jdk.incubator.vector module, see ChildSearch
+    static final ChildSearch VECTOR_CHILD_SEARCH = ChildSearch.vectorized();
     public int degree;
     public int internalNodeMinimumDegree;
     public int internalNodeMaximumDegree;
     public int minimumDataInLeafNode;
     public int maximumDataInLeafNode;
     public int midPointIndex;
+    public int internalNodeMidPointIndex;
+    public boolean cacheLineSizedNodes;
     public InternalNode root;
     public LeafNode firstLeafNode;
+    // Null unless metrics are enabled
+    public TreeMetrics metrics;
+    // Internal Nodes keep the number and sum of the values below each child, see setAugmented
+    public boolean augmented;
+    // Null unless the lookup cache is enabled
+    public LookupCache lookupCache;
+    // Leaf Nodes keep a Bloom filter of their keys, see setLeafFilters
+    public boolean leafFilters;
+    // Null unless the tree filter is enabled, see setTreeFilter
+    public BloomFilter treeFilter;
+    // Leaf Node of the last insert and its fence keys, the bounds of the keys routed to it. Null after a change
+    // which may move the fence keys, see findInsertLeafNode
+    private LeafNode insertHint;
+    private long insertHintLowerBound;
+    private long insertHintUpperBound;
+
+    // Reused by insertBatch to merge the pairs of a Leaf Node with the pairs of a batch
+    private int[] mergedKeys = new int[0];
+    private double[] mergedValues = new double[0];
 
     /**
      * Constructs an empty B+Tree with degree provided and initializes all the properties needed to perform operations.
@@ -47,13 +67,33 @@ public class bplustree {
      * @param degree The degree of B+ Tree. Normally an integer greater than 2.
      */
     public bplustree(int degree) {
+        this(degree, false);
+    }
+
+    /**
+     * Constructs an empty B+Tree with degree provided and initializes all the properties needed to perform operations.
+     * <p>
+     * With cacheLineSizedNodes the maximum degree of Internal Nodes is raised so that the key array and the child
+     * pointer array of an overfull Internal Node, each with its 16 byte array header, fill whole 64 byte cache lines.
+     * Leaf Nodes keep the degree provided.
+     *
+     * @param degree              The degree of B+ Tree. Normally an integer greater than 2.
+     * @param cacheLineSizedNodes true to size Internal Nodes to whole cache lines
+     */
+    public bplustree(int degree, boolean cacheLineSizedNodes) {
         this.degree = degree;
         this.root = null;
+        this.cacheLineSizedNodes = cacheLineSizedNodes;
         this.internalNodeMaximumDegree = degree;
-        this.internalNodeMinimumDegree = (int) Math.ceil((double) degree / (double) 2);
+        if (cacheLineSizedNodes) {
+            // 16 ints, or compressed references, per cache line less 4 for the array header, one slot for overflow
+            this.internalNodeMaximumDegree = degree + Math.floorMod(12 - (degree + 1), 16);
+        }
+        this.internalNodeMinimumDegree = (int) Math.ceil((double) internalNodeMaximumDegree / (double) 2);
         this.maximumDataInLeafNode = degree - 1;
         this.minimumDataInLeafNode = (int) Math.ceil((double) degree / (double) 2) - 1;
         this.midPointIndex = (int) Math.ceil((double) (degree + 1) / (double) 2) - 1;
+        this.internalNodeMidPointIndex = (int) Math.ceil((double) (internalNodeMaximumDegree + 1) / (double) 2) - 1;
     }
 
     /**
@@ -90,6 +130,7 @@ public class bplustree {
      */
     public void setRoot(InternalNode root) {
         this.root = root;
+        this.insertHint = null;
     }
 
     /**
@@ -108,6 +149,10 @@ public class bplustree {
      */
     public void setFirstLeafNode(LeafNode firstLeafNode) {
         this.firstLeafNode = firstLeafNode;
+        this.insertHint = null;
+        if (metrics != null) {
+            metrics.recount();
+        }
     }
 
     /**
@@ -200,12 +245,197 @@ public class bplustree {
         this.midPointIndex = midPointIndex;
     }
 
+    /**
+     * Getter Method to get the value of Index at which Keys of Internal Node are to be split in the B+ Tree.
+     * It differs from midPointIndex only with cache line sized nodes.
+     *
+     * @return index at which Keys of Internal Node are to be split in the B+ Tree
+     */
+    public int getInternalNodeMidPointIndex() {
+        return internalNodeMidPointIndex;
+    }
+
+    /**
+     * Setter Method to set the value of Index at which Keys of Internal Node are to be split in the B+ Tree.
+     *
+     * @param internalNodeMidPointIndex index at which Keys of Internal Node are to be split in the B+ Tree
+     */
+    public void setInternalNodeMidPointIndex(int internalNodeMidPointIndex) {
+        this.internalNodeMidPointIndex = internalNodeMidPointIndex;
+    }
+
+    /**
+     * Getter Method to get the number of children the arrays of a new Internal Node are sized for, one more than
+     * the maximum degree so that an overfull Internal Node can be split.
+     *
+     * @return number of children of a new Internal Node
+     */
+    public int getInternalNodeCapacity() {
+        return internalNodeMaximumDegree + 1;
+    }
+
+    /**
+     * Getter Method to get the metrics of the B+ Tree.
+     *
+     * @return metrics of the B+ Tree, null if metrics are disabled
+     */
+    public TreeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Setter Method to set the metrics of the B+ Tree. Null disables metrics. The Leaf Nodes and pairs are counted
+     * again, as the tree may have changed since the metrics were created.
+     *
+     * @param metrics metrics of the B+ Tree
+     */
+    public void setMetrics(TreeMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.recount();
+        }
+    }
+
+    /**
+     * This method enables metrics of the B+ Tree, see {@link TreeMetrics}. Metrics already enabled are kept.
+     *
+     * @return metrics of the B+ Tree
+     */
+    public TreeMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new TreeMetrics(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * Getter Method to get the lookup cache of the B+ Tree.
+     *
+     * @return lookup cache of the B+ Tree, null if the lookup cache is disabled
+     */
+    public LookupCache getLookupCache() {
+        return lookupCache;
+    }
+
+    /**
+     * Setter Method to set the lookup cache of the B+ Tree. Null disables the lookup cache.
+     * The cache is cleared, as it may hold keys of another tree.
+     *
+     * @param lookupCache lookup cache of the B+ Tree
+     */
+    public void setLookupCache(LookupCache lookupCache) {
+        if (lookupCache != null) {
+            lookupCache.clear();
+        }
+        this.lookupCache = lookupCache;
+    }
+
+    /**
+     * This method enables a lookup cache of the values of recently searched keys in front of the B+ Tree, see
+     * {@link LookupCache}. Point searches with {@link #search(int)} and {@link #searchValue(int, double)} look the
+     * key up in the cache first and only descend the tree on a miss. A lookup cache already enabled is kept.
+     *
+     * @param capacity maximum number of keys cached
+     * @return lookup cache of the B+ Tree
+     */
+    public LookupCache enableLookupCache(int capacity) {
+        if (lookupCache == null) {
+            lookupCache = new LookupCache(capacity);
+        }
+        return lookupCache;
+    }
+
+    /**
+     * Getter Method to check whether Leaf Nodes keep Bloom filters of their keys.
+     *
+     * @return true if Leaf Nodes keep Bloom filters
+     */
+    public boolean hasLeafFilters() {
+        return leafFilters;
+    }
+
+    /**
+     * Setter Method to turn the Bloom filters of Leaf Nodes on or off.
+     * <p>
+     * With leaf filters every Leaf Node keeps a {@link BloomFilter} of its keys, so a point search of a missing key
+     * is mostly rejected at its Leaf Node without searching the keys, which for a compressed Leaf Node means without
+     * decoding them. Inserts add their key to the filter, splits and merges build the filters of the Leaf Nodes
+     * involved again, and a filter which had more keys added than the Leaf Node can hold is built again.
+     * Deleted keys stay in the filter until then. Turning the filters on builds them for all Leaf Nodes.
+     *
+     * @param leafFilters true to keep Bloom filters in Leaf Nodes
+     */
+    public void setLeafFilters(boolean leafFilters) {
+        this.leafFilters = leafFilters;
+        for (LeafNode node = firstLeafNode; node != null; node = node.getRightSibling()) {
+            node.rebuildFilter();
+        }
+    }
+
+    /**
+     * Getter Method to get the Bloom filter of all keys of the B+ Tree.
+     *
+     * @return tree filter, null if the tree filter is disabled
+     */
+    public BloomFilter getTreeFilter() {
+        return treeFilter;
+    }
+
+    /**
+     * Setter Method to turn the Bloom filter of all keys of the B+ Tree on or off.
+     * <p>
+     * The tree filter is tested before a point search descends from the root, so most searches of missing keys
+     * return without visiting any node. Inserts add their key, deleted keys stay in the filter. Once more keys were
+     * added than the filter is sized for it is built again from the Leaf Nodes, sized for twice the number of pairs,
+     * so a growing tree builds it a logarithmic number of times. Turning the filter on builds it.
+     *
+     * @param enabled true to keep a Bloom filter of all keys
+     */
+    public void setTreeFilter(boolean enabled) {
+        treeFilter = null;
+        if (enabled) {
+            rebuildTreeFilter();
+        }
+    }
+
+    /**
+     * Getter Method to check whether the B+ Tree is augmented.
+     *
+     * @return true if Internal Nodes keep the number and sum of the values below each child
+     */
+    public boolean isAugmented() {
+        return augmented;
+    }
+
+    /**
+     * Setter Method to turn the augmented mode of the B+ Tree on or off.
+     * <p>
+     * In augmented mode every Internal Node keeps, next to each child pointer, the number of key value pairs and
+     * the sum of the values in the subtree of that child. Inserts, deletes, splits, borrows and merges keep them up
+     * to date, so {@link #rangeCount(int, int)}, {@link #rangeSum(int, int)}, {@link #rank(int)} and
+     * {@link #select(long)} only descend the tree once or twice instead of visiting the pairs.
+     * Turning the mode on computes the totals of the whole tree once, turning it off drops them.
+     * <p>
+     * Totals are never adjusted by the values added or removed. After a change the total of a Leaf Node is added up
+     * again from its values, and the totals of its ancestors from those of their children, so a large value leaves
+     * no rounding error behind once it is deleted.
+     *
+     * @param augmented true to keep subtree totals in Internal Nodes
+     */
+    public void setAugmented(boolean augmented) {
+        this.augmented = augmented;
+        if (root != null) {
+            computeSubtreeTotals(root);
+        }
+    }
+
     /**
      * Nested class to hold B+ tree node key value pair.
+     * Leaf Nodes do not store Data instances, it is only used to hand key value pairs to and from the tree.
      *
      * @author Riyaz Shaik
      */
-    public class Data {
+    public static class Data {
         public int key;
         public double value;
 
@@ -257,44 +487,32 @@ public class bplustree {
         }
     }
 
-    /**
-     * Nested class to sort key value pairs in the increasing order of keys.
-     *
-     * @author Riyaz Shaik
-     */
-    public class DataComparator implements Comparator<Data> {
-
-        /**
-         * Overriding Compare method of Comparator Interface.
-         * Compares its two arguments for order.  Returns a negative integer,
-         * zero, or a positive integer as the first key value pair is less than, equal
-         * to, or greater than the second.
-         *
-         * @param d1 the first key value pair to be compared.
-         * @param d2 the second key value pair to be compared.
-         * @return a negative integer, zero, or a positive integer as the
-         * first argument is less than, equal to, or greater than the
-         * second.
-         */
-        @Override
-        public int compare(Data d1, Data d2) {
-            return Integer.compare(d1.getKey(), d2.getKey());
-        }
-    }
-
     /**
      * Nested class to represant Leaf Node of a B+ Tree.
      * Contains Internal Node as parent and left, right sibling leaf nodes forming a doubly liked list of leaf nodes
-     * and list of key value pairs stored by the leaf node
+     * and key value pairs stored by the leaf node.
+     * <p>
+     * Key value pairs are stored in two parallel primitive arrays, keys in an int array and values in a double array,
+     * filled in increasing order of keys from index 0 to numberOfPairs - 1. The arrays have room for one pair more
+     * than the maximum number of pairs so that an overfull leaf can be split.
+     * <p>
+     * A Leaf Node can be compressed with {@link #compress()}: its pairs are then encoded by {@link LeafCodec} in
+     * packedPairs and keys and values are null. Reads work on the compressed pairs, a change decompresses the
+     * Leaf Node first.
      *
      * @author Riyaz Shaik
      */
-    public class LeafNode {
+    public class LeafNode extends Node {
         public int numberOfPairs;
         public InternalNode parent;
         public LeafNode leftSibling;
         public LeafNode rightSibling;
-        public ArrayList<Data> listOfData = new ArrayList();
+        public int[] keys;
+        public double[] values;
+        public long[] packedPairs;
+        // Null unless the tree has leaf filters. Bloom filter of the keys and number of keys added to it
+        public long[] filter;
+        public int filterKeys;
 
         /**
          * Constructs a Leaf Node Instance having no key value pairs
@@ -302,21 +520,30 @@ public class bplustree {
          */
         public LeafNode() {
             this.numberOfPairs = 0;
+            this.keys = new int[maximumDataInLeafNode + 1];
+            this.values = new double[maximumDataInLeafNode + 1];
             leftSibling = null;
-            leftSibling = null;
+            rightSibling = null;
+            if (leafFilters) {
+                this.filter = BloomFilter.newWords(maximumDataInLeafNode);
+            }
         }
 
         /**
          * Constructs a Leaf Node Instance having key value pairs provided in the method arguments
          * and with parent value provided in the method arguments
          *
-         * @param dataList The list of key value pairs
-         * @param parent The parent of the Leaf Node
+         * @param keys          The array of keys, sorted in increasing order
+         * @param values        The array of values, values[i] belongs to keys[i]
+         * @param numberOfPairs The number of key value pairs present in the arrays
+         * @param parent        The parent of the Leaf Node
          */
-        public LeafNode(ArrayList<Data> dataList, InternalNode parent) {
-            this.listOfData = dataList;
-            this.numberOfPairs = dataList.size();
+        public LeafNode(int[] keys, double[] values, int numberOfPairs, InternalNode parent) {
+            this.keys = keys;
+            this.values = values;
+            this.numberOfPairs = numberOfPairs;
             this.parent = parent;
+            rebuildFilter();
         }
 
         /**
@@ -374,21 +601,153 @@ public class bplustree {
         }
 
         /**
-         * Getter Method to get list of key value pairs of Leaf Node.
+         * Getter Method to get the array of keys of Leaf Node, decompressing the Leaf Node if it is compressed.
+         * Only the first numberOfPairs entries are valid.
+         *
+         * @return array of keys of Leaf Node
+         */
+        public int[] getKeys() {
+            decompress();
+            return keys;
+        }
+
+        /**
+         * Getter Method to get the array of values of Leaf Node, decompressing the Leaf Node if it is compressed.
+         * Only the first numberOfPairs entries are valid.
+         *
+         * @return array of values of Leaf Node
+         */
+        public double[] getValues() {
+            decompress();
+            return values;
+        }
+
+        /**
+         * Getter Method to get the key at an index of Leaf Node.
+         *
+         * @param index index of the key value pair
+         * @return key at the index
+         */
+        public int getKey(int index) {
+            return packedPairs == null ? keys[index] : LeafCodec.getKey(packedPairs, index);
+        }
+
+        /**
+         * Getter Method to get the value at an index of Leaf Node.
+         * In a compressed Leaf Node the values before the index are decoded too, so use
+         * {@link #copyPairs(int[], double[])} to read all values.
+         *
+         * @param index index of the key value pair
+         * @return value at the index
+         */
+        public double getValue(int index) {
+            return packedPairs == null ? values[index] : LeafCodec.getValue(packedPairs, numberOfPairs, index);
+        }
+
+        /**
+         * This method copies the key value pairs of Leaf Node into arrays, decoding them in one pass
+         * if the Leaf Node is compressed.
+         *
+         * @param keyBuffer   receives the keys, at least numberOfPairs long
+         * @param valueBuffer receives the values, at least numberOfPairs long
+         * @return number of key value pairs copied
+         */
+        public int copyPairs(int[] keyBuffer, double[] valueBuffer) {
+            if (packedPairs != null) {
+                LeafCodec.decode(packedPairs, numberOfPairs, keyBuffer, valueBuffer);
+            } else {
+                System.arraycopy(keys, 0, keyBuffer, 0, numberOfPairs);
+                System.arraycopy(values, 0, valueBuffer, 0, numberOfPairs);
+            }
+            return numberOfPairs;
+        }
+
+        /**
+         * This method adds up the values of a run of key value pairs of Leaf Node.
+         * The values of a compressed Leaf Node are decoded up to the last value added.
+         *
+         * @param from index of the first value added
+         * @param to   index after the last value added
+         * @return sum of the values at indexes from to to - 1
+         */
+        public double sumValues(int from, int to) {
+            if (from >= to) {
+                return 0;
+            }
+            double[] values = this.values;
+            if (packedPairs != null) {
+                values = new double[numberOfPairs];
+                LeafCodec.decodeValues(packedPairs, numberOfPairs, to - 1, values);
+            }
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        /**
+         * This method builds a list of the key value pairs of Leaf Node.
+         * The list is a copy, changes to it are not reflected in the Leaf Node.
          *
          * @return list of key value pairs of Leaf Node
          */
         public ArrayList<Data> getListOfData() {
+            int[] keys = this.keys;
+            double[] values = this.values;
+            if (packedPairs != null) {
+                keys = new int[numberOfPairs];
+                values = new double[numberOfPairs];
+                copyPairs(keys, values);
+            }
+            ArrayList<Data> listOfData = new ArrayList<>(numberOfPairs);
+            for (int i = 0; i < numberOfPairs; i++) {
+                listOfData.add(new Data(keys[i], values[i]));
+            }
             return listOfData;
         }
 
         /**
-         * Setter Method to set list of key value pairs of Leaf Node.
+         * Getter Method to check whether the Leaf Node is compressed.
          *
-         * @param listOfData list of key value pairs of Leaf Node
+         * @return true if the pairs are encoded in packedPairs, false if they are in keys and values
          */
-        public void setListOfData(ArrayList<Data> listOfData) {
-            this.listOfData = listOfData;
+        public boolean isCompressed() {
+            return packedPairs != null;
+        }
+
+        /**
+         * This method compresses the key value pairs of Leaf Node with {@link LeafCodec}.
+         * The Leaf Node is left as it is if it is empty, already compressed, or the encoded pairs
+         * would not be smaller than the arrays.
+         *
+         * @return true if the Leaf Node was compressed by this call
+         */
+        public boolean compress() {
+            if (packedPairs != null || numberOfPairs == 0) {
+                return false;
+            }
+            long[] encoded = LeafCodec.encode(keys, values, numberOfPairs);
+            if (LeafCodec.sizeInBytes(encoded) >= 4L * keys.length + 8L * values.length) {
+                return false;
+            }
+            packedPairs = encoded;
+            keys = null;
+            values = null;
+            return true;
+        }
+
+        /**
+         * This method decodes the key value pairs of a compressed Leaf Node back into keys and values.
+         * Nothing is done if the Leaf Node is not compressed.
+         */
+        public void decompress() {
+            if (packedPairs != null) {
+                keys = new int[maximumDataInLeafNode + 1];
+                values = new double[maximumDataInLeafNode + 1];
+                LeafCodec.decode(packedPairs, numberOfPairs, keys, values);
+                packedPairs = null;
+            }
         }
 
         /**
@@ -410,61 +769,108 @@ public class bplustree {
         }
 
         /**
-         * This method adds new key value pair (Data) to Leaf Node.
-         * It checks whether the current list of Key Value pairs size is not greater than maximum
+         * This method adds new key value pair to Leaf Node at its sorted position.
+         * It checks whether the current number of Key Value pairs is not greater than maximum
          * number of key value pairs that a leaf node can hold
-         * 1. It inserts if the size of list is less than maximum number of key value pairs of leaf node can have and returns true
+         * 1. It inserts if the number of pairs is less than maximum number of key value pairs of leaf node can have and returns true
          * 2. If not it doesnt insert and returns false
          *
          * @param leafNodeMaximumPairs The maximum number of key value pairs a leaf node can have.
-         * @param data                The Key value pair(represented in stored in Data class).
+         * @param key                  The key of the key value pair.
+         * @param value                The value of the key value pair.
          * @return true insertion successful, false insertion unsuccessful.
          */
-        public boolean insertData(int leafNodeMaximumPairs, Data data) {
+        public boolean insertData(int leafNodeMaximumPairs, int key, double value) {
             boolean isInserted = false;
 
             if (leafNodeMaximumPairs > numberOfPairs) {
-                listOfData.add(data);
+                decompress();
+                // Find the slot after the keys less than or equal to the key and shift the rest to the right
+                int index = findUpperBoundIndex(key);
+                System.arraycopy(keys, index, keys, index + 1, numberOfPairs - index);
+                System.arraycopy(values, index, values, index + 1, numberOfPairs - index);
+                keys[index] = key;
+                values[index] = value;
                 numberOfPairs++;
-                sortData();
                 isInserted = true;
+                if (filter != null) {
+                    // Deleted keys still in the filter count too. Build it again once it holds more than it is
+                    // sized for
+                    if (++filterKeys > maximumDataInLeafNode) {
+                        rebuildFilter();
+                    } else {
+                        BloomFilter.add(filter, key);
+                    }
+                }
             }
 
             return isInserted;
         }
 
         /**
-         * This method is used to sort key value pairs in increasing order of keys.
-         * It uses DataComparator class for this purpose.
+         * This method removes the key value pair at an index from Leaf Node.
+         * Pairs after the index are shifted one position to the left.
+         *
+         * @param index index of the key value pair to be removed
          */
-        public void sortData() {
-            sort(listOfData, new DataComparator());
+        public void removeData(int index) {
+            decompress();
+            System.arraycopy(keys, index + 1, keys, index, numberOfPairs - index - 1);
+            System.arraycopy(values, index + 1, values, index, numberOfPairs - index - 1);
+            numberOfPairs--;
         }
 
         /**
-         * This method is used to split the list of key value pairs on a
-         * midpoint index into 2 seperate lists of key value pairs.
+         * This method is used to split the key value pairs on a
+         * midpoint index into 2 seperate Leaf Nodes.
          * <p>
-         * It returns back the list containing the second half of key value pairs
-         * and removes those elements from the original list.
+         * It returns back a new Leaf Node containing the second half of key value pairs
+         * and removes those pairs from the current Leaf Node. The new Leaf Node has no parent and siblings set.
          *
-         * @param midPointIndex The index on which the list of key value pairs are to be split
-         * @return The list containing the second half of key value pairs
+         * @param midPointIndex The index on which the key value pairs are to be split
+         * @return The Leaf Node containing the second half of key value pairs
          */
-        public ArrayList<Data> splitDataList(int midPointIndex) {
-            ArrayList<Data> secondHalfDataList = new ArrayList();
-
-            for (int i = midPointIndex; i < listOfData.size(); i++) {
-                secondHalfDataList.add(listOfData.get(i));
+        public LeafNode splitDataList(int midPointIndex) {
+            decompress();
+            LeafNode secondHalf = new LeafNode();
+            int secondHalfSize = numberOfPairs - midPointIndex;
+
+            System.arraycopy(keys, midPointIndex, secondHalf.keys, 0, secondHalfSize);
+            System.arraycopy(values, midPointIndex, secondHalf.values, 0, secondHalfSize);
+            secondHalf.numberOfPairs = secondHalfSize;
+            numberOfPairs = midPointIndex;
+            if (filter != null) {
+                rebuildFilter();
+                secondHalf.rebuildFilter();
             }
 
-            for (int i = 0; i < secondHalfDataList.size(); i++) {
-                if (secondHalfDataList.get(i).getKey() == listOfData.get(midPointIndex).getKey()) {
-                    listOfData.remove(midPointIndex);
-                }
+            return secondHalf;
+        }
+
+        /**
+         * This method moves all key value pairs of the current Leaf Node into a sibling Leaf Node.
+         * Used when the current Leaf Node is merged with its sibling.
+         *
+         * @param sibling The left or right sibling receiving the key value pairs
+         */
+        public void moveDataTo(LeafNode sibling) {
+            decompress();
+            sibling.decompress();
+            // Right sibling. Its pairs are shifted right to make room for the smaller keys of this node
+            if (sibling == rightSibling) {
+                System.arraycopy(sibling.keys, 0, sibling.keys, numberOfPairs, sibling.numberOfPairs);
+                System.arraycopy(sibling.values, 0, sibling.values, numberOfPairs, sibling.numberOfPairs);
+                System.arraycopy(keys, 0, sibling.keys, 0, numberOfPairs);
+                System.arraycopy(values, 0, sibling.values, 0, numberOfPairs);
+            } else {
+                System.arraycopy(keys, 0, sibling.keys, sibling.numberOfPairs, numberOfPairs);
+                System.arraycopy(values, 0, sibling.values, sibling.numberOfPairs, numberOfPairs);
+            }
+            sibling.numberOfPairs += numberOfPairs;
+            numberOfPairs = 0;
+            if (sibling.filter != null) {
+                sibling.rebuildFilter();
             }
-            numberOfPairs = listOfData.size();
-            return secondHalfDataList;
         }
 
         /**
@@ -482,72 +888,184 @@ public class bplustree {
 
         /**
          * This method is used to check if the current Leaf Node can merge with its sibling Node.
+         * The pairs of both nodes must fit in one node. The sibling may hold fewer than the minimum number of pairs,
+         * as the last Leaf Node does after a split of appended keys.
          *
-         * @param minimumDataInLeafNode The minimum number of key value pairs that leaf node can hold
+         * @param maximumDataInLeafNode The maximum number of key value pairs that leaf node can hold
          * @param sibling               The sibling of the current leaf node
          * @return true If Leaf Node can merge with its sibling,
          * false If Leaf Node cannot merge with its sibling
          */
-        public boolean checkCanMerge(int minimumDataInLeafNode, LeafNode sibling) {
+        public boolean checkCanMerge(int maximumDataInLeafNode, LeafNode sibling) {
             return sibling != null && sibling.getParent() == parent
-                    && sibling.getNumberOfPairs() == minimumDataInLeafNode;
+                    && numberOfPairs + sibling.getNumberOfPairs() <= maximumDataInLeafNode;
+        }
+
+        /**
+         * This method is used to find the position of a key in the key value pairs of current Leaf Node.
+         * It does a binary search over the sorted keys and returns the index of the first pair
+         * whose key is greater than or equal to the key.
+         *
+         * @param key The key whose position needs to be found
+         * @return index of the first pair with key greater than or equal to the key,
+         * numberOfPairs if all keys are smaller than the key
+         */
+        public int findLowerBoundIndex(int key) {
+            if (packedPairs != null) {
+                return LeafCodec.findBoundIndex(packedPairs, numberOfPairs, key, false);
+            }
+            int low = 0;
+            int high = numberOfPairs;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * This method is used to find the position after a key in the key value pairs of current Leaf Node.
+         * It does a binary search over the sorted keys and returns the index of the first pair
+         * whose key is greater than the key.
+         *
+         * @param key The key whose position needs to be found
+         * @return index of the first pair with key greater than the key,
+         * numberOfPairs if all keys are smaller than or equal to the key
+         */
+        public int findUpperBoundIndex(int key) {
+            if (packedPairs != null) {
+                return LeafCodec.findBoundIndex(packedPairs, numberOfPairs, key, true);
+            }
+            int low = 0;
+            int high = numberOfPairs;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
         }
 
         /**
-         * This method is used to find the index of a key in the list of key value pairs of current Leaf Node.
+         * This method is used to find the index of a key in the key value pairs of current Leaf Node.
          *
          * @param key The key whose index needs to be found
          * @return index index of the key if key value pair is present,
          * -1 if key is not present
          */
         public int findIndexOfKeyInData(int key) {
-            int index = -1;
-            for (int i = 0; i < listOfData.size(); i++) {
-                if (listOfData.get(i).getKey() == key) {
-                    index = i;
-                }
-            }
+            int index = findLowerBoundIndex(key);
+            return index < numberOfPairs && getKey(index) == key ? index : -1;
+        }
+
+        /**
+         * This method tests a key against the Bloom filter of Leaf Node.
+         *
+         * @param key The key to be tested
+         * @return false if the key is not in Leaf Node, true if it may be or Leaf Node has no filter
+         */
+        public boolean mightContain(int key) {
+            return filter == null || BloomFilter.mightContain(filter, key);
+        }
 
-            return index;
+        /**
+         * This method builds the Bloom filter of Leaf Node from its keys, or drops it if the tree has no
+         * leaf filters.
+         */
+        public void rebuildFilter() {
+            if (!leafFilters) {
+                filter = null;
+                filterKeys = 0;
+                return;
+            }
+            if (filter == null) {
+                filter = BloomFilter.newWords(maximumDataInLeafNode);
+            } else {
+                BloomFilter.clear(filter);
+            }
+            for (int i = 0; i < numberOfPairs; i++) {
+                BloomFilter.add(filter, getKey(i));
+            }
+            filterKeys = numberOfPairs;
         }
     }
 
+    /**
+     * Nested class, base of Leaf Node and Internal Node, so that the children of an Internal Node
+     * are held in one typed array.
+     */
+    public abstract class Node {
+    }
+
     /**
      * Nested class to represent Internal Node of a B+ Tree.
      * Contains Internal Node as parent and left, right sibling Internal nodes forming a doubly liked list of Internal nodes,
-     * list of keys whose values are present in the leaf nodes of its children,
-     * list of child pointers
+     * keys whose values are present in the leaf nodes of its children,
+     * and child pointers
+     * <p>
+     * Keys are stored in an int array and child pointers in an array of nodes, degree children and degree - 1 keys
+     * filled from index 0. The arrays are sized by {@link #getInternalNodeCapacity()} and grow if a node gets more
+     * children. The level of an Internal Node is its distance from the Leaf Nodes: the children of a level 1
+     * Internal Node are Leaf Nodes, so a lookup knows the type of every child without checking it.
      *
      * @author Riyaz Shaik
      */
-    public class InternalNode {
+    public class InternalNode extends Node {
         public int degree;
+        public final int level;
         public InternalNode leftSibling;
         public InternalNode rightSibling;
         public InternalNode parentNode;
-        public ArrayList<Integer> listOfKeys = new ArrayList();
-        public ArrayList listOfChildren = new ArrayList();
+        public int[] keys;
+        public Node[] children;
+        // Null unless the tree is augmented. Number of pairs and sum of values in the subtree of each child
+        public long[] childCounts;
+        public double[] childSums;
 
         /**
-         * Constructs a 0 degree Internal Node Instance having keys provided in the method arguments
+         * Constructs an Internal Node Instance of a level having no keys and no child pointers
          *
-         * @param keys The list of keys
+         * @param level The level of the Internal Node, 1 if its children are Leaf Nodes
          */
-        public InternalNode(ArrayList<Integer> keys) {
+        public InternalNode(int level) {
+            this.level = level;
             this.degree = 0;
-            this.listOfKeys = keys;
+            this.keys = new int[getInternalNodeCapacity()];
+            this.children = new Node[keys.length];
+            if (augmented) {
+                this.childCounts = new long[keys.length];
+                this.childSums = new double[keys.length];
+            }
         }
 
         /**
-         * Constructs an Internal Node with degree and list of child pointers provided in the method arguments
+         * Constructs an Internal Node Instance of a level having the keys and child pointers provided in the method
+         * arguments. The arrays are used as they are. In an augmented tree the subtree totals of the children
+         * are zero until they are computed.
          *
-         * @param keys     The list of keys
-         * @param children The list of child pointers
+         * @param level    The level of the Internal Node, 1 if its children are Leaf Nodes
+         * @param keys     The array of keys, holding degree - 1 keys
+         * @param children The array of child pointers, holding degree children
+         * @param degree   The number of child pointers
          */
-        public InternalNode(ArrayList<Integer> keys, ArrayList children) {
-            this.degree = children.size();
-            this.listOfKeys = keys;
-            this.listOfChildren = children;
+        public InternalNode(int level, int[] keys, Node[] children, int degree) {
+            this.level = level;
+            this.keys = keys;
+            this.children = children;
+            this.degree = degree;
+            if (augmented) {
+                this.childCounts = new long[keys.length];
+                this.childSums = new double[keys.length];
+            }
         }
 
         /**
@@ -568,6 +1086,15 @@ public class bplustree {
             this.degree = degree;
         }
 
+        /**
+         * Getter Method to get level of Internal Node.
+         *
+         * @return level of Internal Node, 1 if its children are Leaf Nodes
+         */
+        public int getLevel() {
+            return level;
+        }
+
         /**
          * Getter Method to get left sibling of Internal Node.
          *
@@ -623,230 +1150,927 @@ public class bplustree {
         }
 
         /**
-         * Getter Method to get list of keys of Internal Node.
+         * Getter Method to get the array of keys of Internal Node.
+         * Only the first degree - 1 entries are valid.
          *
-         * @return list of keys of Internal Node
+         * @return array of keys of Internal Node
          */
-        public ArrayList<Integer> getListOfKeys() {
-            return listOfKeys;
+        public int[] getKeys() {
+            return keys;
         }
 
         /**
-         * Setter Method to set list of keys of Internal Node.
+         * Getter Method to get the array of child pointers of Internal Node.
+         * Only the first degree entries are valid.
          *
-         * @param listOfKeys list of keys of Internal Node
+         * @return array of child pointers of Internal Node
          */
-        public void setListOfKeys(ArrayList<Integer> listOfKeys) {
-            this.listOfKeys = listOfKeys;
+        public Node[] getChildren() {
+            return children;
         }
 
         /**
-         * Getter Method to get list of child pointers of Internal Node.
+         * Getter Method to get the key at an index of Internal Node.
          *
-         * @return list of child pointers of Internal Node
+         * @param index index of the key
+         * @return key at the index
          */
-        public ArrayList getListOfChildren() {
-            return listOfChildren;
+        public int getKey(int index) {
+            return keys[index];
         }
 
         /**
-         * Setter Method to set list of child pointers of Internal Node.
+         * Setter Method to set the key at an index of Internal Node.
          *
-         * @param listOfChildren list of child pointers of Internal Node
+         * @param index index of the key
+         * @param key   new key at the index
          */
-        public void setListOfChildren(ArrayList listOfChildren) {
-            this.listOfChildren = listOfChildren;
+        public void setKey(int index, int key) {
+            keys[index] = key;
         }
 
         /**
-         * This method is used to sort keys of the internal node in the increasing order of keys.
+         * Getter Method to get the child pointer at an index of Internal Node.
+         *
+         * @param index index of the child pointer
+         * @return child pointer at the index
          */
-        public void sortKeys() {
-            sort(listOfKeys);
+        public Node getChild(int index) {
+            return children[index];
         }
 
         /**
-         * This method is used to add a new child pointer to the exsiting list of child pointers.
+         * Getter Method to get the number of key value pairs in the subtree of the child at an index.
+         * Only kept in an augmented tree.
          *
-         * @param node The child to be added to the existing list of children
+         * @param index index of the child pointer
+         * @return number of key value pairs below the child
          */
-        public void addChildPointer(Object node) {
-            listOfChildren.add(node);
-            degree++;
+        public long getChildCount(int index) {
+            return childCounts[index];
         }
 
         /**
-         * This method is used to add a new child pointer at a specific index
-         * to the existing list of child pointers.
-         * The new child is inserted at position index and children
-         * previously at position index and above are pushed right.
+         * Getter Method to get the sum of the values in the subtree of the child at an index.
+         * Only kept in an augmented tree.
          *
-         * @param node  The child to be added to the existing list of children
-         * @param index The index at which the child needs to be added
+         * @param index index of the child pointer
+         * @return sum of the values below the child
          */
-        public void addChildPointer(Object node, int index) {
-            listOfChildren.add(index, node);
-            degree++;
+        public double getChildSum(int index) {
+            return childSums[index];
         }
 
         /**
-         * This method is used to search for a child in list of children.
-         * It returns the index of child if the child is found else it returns -1.
+         * Getter Method to get the number of key value pairs in the subtree of Internal Node.
+         * Only kept in an augmented tree.
          *
-         * @param node The child to be found.
-         * @return index index of the key if key value pair is present,
-         * -1 if key is not present
+         * @return number of key value pairs below the Internal Node
          */
-        public int findChildIndex(Object node) {
-            int index = 0;
-            while (index < listOfChildren.size()) {
-                if (listOfChildren.get(index).equals(node)) {
-                    return index;
-                }
-                index++;
+        public long getSubtreeCount() {
+            long count = 0;
+            for (int i = 0; i < degree; i++) {
+                count += childCounts[i];
             }
-
-            return -1;
+            return count;
         }
 
         /**
-         * This method is used to split the list of keys on a
-         * midpoint index into 2 separate lists of keys.
-         * <p>
-         * It returns back the list containing the second half of keys
-         * and removes those elements from the original list.
+         * Getter Method to get the sum of the values in the subtree of Internal Node.
+         * Only kept in an augmented tree.
          *
-         * @param midPointIndex The index on which the list of keys are to be split
-         * @return The list containing the second half of keys
+         * @return sum of the values below the Internal Node
          */
-        public ArrayList<Integer> splitKeys(int midPointIndex) {
-            ArrayList<Integer> secondHalfKeysList = new ArrayList();
-
-            listOfKeys.remove(midPointIndex);
-            for (int i = midPointIndex; i < listOfKeys.size(); i++) {
-                secondHalfKeysList.add(listOfKeys.get(i));
-            }
-
-            for (int i = 0; i < secondHalfKeysList.size(); i++) {
-                if (secondHalfKeysList.get(i) == listOfKeys.get(midPointIndex)) {
-                    listOfKeys.remove(midPointIndex);
-                }
+        public double getSubtreeSum() {
+            double sum = 0;
+            for (int i = 0; i < degree; i++) {
+                sum += childSums[i];
             }
-
-            return secondHalfKeysList;
+            return sum;
         }
 
         /**
-         * This method is used to split the list of child pointers on a
-         * midpoint index into 2 separate lists of child pointers.
-         * <p>
-         * It returns back the list containing the second half of child pointers
-         * and removes those elements from the original list.
+         * This method sets the subtree totals of the child at an index from the child itself: the totals of its
+         * own children for an Internal Node, its key value pairs for a Leaf Node.
+         * Nothing is done unless the tree is augmented.
          *
-         * @param midPointIndex The index on which the list of keys are to be split
-         * @return The list containing the second half of child pointers
+         * @param index index of the child pointer
          */
-        public ArrayList splitChildPointers(int midPointIndex) {
-            ArrayList secondHalfChildren = new ArrayList();
-
-            for (int i = midPointIndex + 1; i < listOfChildren.size(); i++) {
-                secondHalfChildren.add(listOfChildren.get(i));
+        public void refreshChildTotals(int index) {
+            if (childCounts == null) {
+                return;
             }
-
-            for (int i = 0; i < secondHalfChildren.size(); i++) {
-                listOfChildren.remove(midPointIndex + 1);
-                degree--;
+            Node child = children[index];
+            if (child instanceof InternalNode) {
+                InternalNode node = (InternalNode) child;
+                childCounts[index] = node.getSubtreeCount();
+                childSums[index] = node.getSubtreeSum();
+            } else {
+                LeafNode node = (LeafNode) child;
+                childCounts[index] = node.getNumberOfPairs();
+                childSums[index] = node.sumValues(0, node.getNumberOfPairs());
             }
-
-            return secondHalfChildren;
         }
 
         /**
-         * This method is used to check if the current Internal Node can borrow a Key from its sibling Node.
+         * This method is used to add a new child pointer after the existing child pointers, without a key.
+         * Used for the first child of a new Internal Node. In an augmented tree the subtree totals of the child
+         * are computed from it.
          *
-         * @param internalNodeMinimumDegree The minimum number of children that internal node can have
-         * @param sibling                   The sibling of the current internal node
-         * @return true If Internal Node can borrow a key from its sibling,
-         * false If Internal Node cannot borrow a key from its sibling
+         * @param node The child to be added to the existing list of children
          */
-        public boolean checkCanBorrow(int internalNodeMinimumDegree, InternalNode sibling) {
-            return sibling != null && sibling.getDegree() > internalNodeMinimumDegree;
+        public void addChildPointer(Node node) {
+            ensureCapacity(degree + 1);
+            children[degree++] = node;
+            refreshChildTotals(degree - 1);
         }
 
         /**
-         * This method is used to check if the current Internal Node can merge with its sibling Node.
+         * This method is used to add a new key at its sorted position and a new child pointer right after that key.
          *
-         * @param internalNodeMinimumDegree The minimum number of key value pairs that leaf node can hold
-         * @param sibling                   The sibling of the current internal node
-         * @return true If Internal Node can merge with its sibling,
-         * false If Internal Node cannot merge with its sibling
+         * @param key  The key to be added
+         * @param node The child to be added, holding the keys from the key on
+         * @return index at which the key is added
          */
-        public boolean checkCanMerge(int internalNodeMinimumDegree, InternalNode sibling) {
-            return sibling != null && sibling.getParentNode() == parentNode && sibling.getDegree() == internalNodeMinimumDegree;
+        public int insertChild(int key, Node node) {
+            int keyIndex = findChildIndexForKey(key, degree - 1);
+            insertChild(keyIndex, key, node);
+            return keyIndex;
         }
-    }
 
-    /**
-     * Nested class to format the output file records.
-     *
-     * @author Riyaz Shaik
+        /**
+         * This method is used to add a new key at an index and a new child pointer right after that key.
+         * Keys and children previously at those positions and above are pushed right.
+         * In an augmented tree the subtree totals of the child are computed from it.
+         *
+         * @param keyIndex The index at which the key is added, the child is added at keyIndex + 1
+         * @param key      The key to be added
+         * @param node     The child to be added
+         */
+        public void insertChild(int keyIndex, int key, Node node) {
+            ensureCapacity(degree + 1);
+            System.arraycopy(keys, keyIndex, keys, keyIndex + 1, degree - 1 - keyIndex);
+            System.arraycopy(children, keyIndex + 1, children, keyIndex + 2, degree - 1 - keyIndex);
+            keys[keyIndex] = key;
+            children[keyIndex + 1] = node;
+            if (childCounts != null) {
+                System.arraycopy(childCounts, keyIndex + 1, childCounts, keyIndex + 2, degree - 1 - keyIndex);
+                System.arraycopy(childSums, keyIndex + 1, childSums, keyIndex + 2, degree - 1 - keyIndex);
+            }
+            degree++;
+            refreshChildTotals(keyIndex + 1);
+        }
+
+        /**
+         * This method is used to add a key and a child pointer before the existing ones.
+         * In an augmented tree the subtree totals of the child are computed from it.
+         *
+         * @param node The child to be added as the first child
+         * @param key  The key to be added between the new first child and the old first child
+         */
+        public void insertFirstChild(Node node, int key) {
+            ensureCapacity(degree + 1);
+            System.arraycopy(keys, 0, keys, 1, degree - 1);
+            System.arraycopy(children, 0, children, 1, degree);
+            keys[0] = key;
+            children[0] = node;
+            if (childCounts != null) {
+                System.arraycopy(childCounts, 0, childCounts, 1, degree);
+                System.arraycopy(childSums, 0, childSums, 1, degree);
+            }
+            degree++;
+            refreshChildTotals(0);
+        }
+
+        /**
+         * This method is used to remove a key and a child pointer. Keys and children after them are pushed left.
+         *
+         * @param keyIndex   The index of the key to be removed
+         * @param childIndex The index of the child to be removed
+         */
+        public void removeChild(int keyIndex, int childIndex) {
+            System.arraycopy(keys, keyIndex + 1, keys, keyIndex, degree - 2 - keyIndex);
+            System.arraycopy(children, childIndex + 1, children, childIndex, degree - 1 - childIndex);
+            if (childCounts != null) {
+                System.arraycopy(childCounts, childIndex + 1, childCounts, childIndex, degree - 1 - childIndex);
+                System.arraycopy(childSums, childIndex + 1, childSums, childIndex, degree - 1 - childIndex);
+            }
+            children[--degree] = null;
+        }
+
+        /**
+         * This method is used to append the keys and child pointers of another Internal Node after the
+         * existing ones, with a separator key in between. Used to merge the right sibling into this node.
+         *
+         * @param separator The key between the last child of this node and the first child of the other node
+         * @param node      The node whose keys and children are appended
+         */
+        public void appendChildren(int separator, InternalNode node) {
+            ensureCapacity(degree + node.degree);
+            keys[degree - 1] = separator;
+            System.arraycopy(node.keys, 0, keys, degree, node.degree - 1);
+            System.arraycopy(node.children, 0, children, degree, node.degree);
+            if (childCounts != null) {
+                System.arraycopy(node.childCounts, 0, childCounts, degree, node.degree);
+                System.arraycopy(node.childSums, 0, childSums, degree, node.degree);
+            }
+            degree += node.degree;
+        }
+
+        /**
+         * This method is used to add the keys and child pointers of another Internal Node before the
+         * existing ones, with a separator key in between. Used to merge the left sibling into this node.
+         *
+         * @param node      The node whose keys and children are added
+         * @param separator The key between the last child of the other node and the first child of this node
+         */
+        public void prependChildren(InternalNode node, int separator) {
+            ensureCapacity(degree + node.degree);
+            System.arraycopy(keys, 0, keys, node.degree, degree - 1);
+            System.arraycopy(children, 0, children, node.degree, degree);
+            System.arraycopy(node.keys, 0, keys, 0, node.degree - 1);
+            keys[node.degree - 1] = separator;
+            System.arraycopy(node.children, 0, children, 0, node.degree);
+            if (childCounts != null) {
+                System.arraycopy(childCounts, 0, childCounts, node.degree, degree);
+                System.arraycopy(childSums, 0, childSums, node.degree, degree);
+                System.arraycopy(node.childCounts, 0, childCounts, 0, node.degree);
+                System.arraycopy(node.childSums, 0, childSums, 0, node.degree);
+            }
+            degree += node.degree;
+        }
+
+        /**
+         * This method grows the arrays if they cannot hold a number of children.
+         *
+         * @param numberOfChildren number of children the arrays must hold
+         */
+        private void ensureCapacity(int numberOfChildren) {
+            if (numberOfChildren > children.length) {
+                int capacity = Math.max(numberOfChildren, 2 * children.length);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+                if (childCounts != null) {
+                    childCounts = Arrays.copyOf(childCounts, capacity);
+                    childSums = Arrays.copyOf(childSums, capacity);
+                }
+            }
+        }
+
+        /**
+         * This method is used to find the index of the child pointer to follow for a key.
+         * It returns the number of keys among the first numberOfKeys keys which are less than or equal to the key,
+         * which is the index of the child whose subtree holds the key.
+         * <p>
+         * The search halves the range like a binary search, but always does the same number of steps, and the
+         * choice of half is written so the JIT can emit a conditional move instead of a branch. Whether it does is up
+         * to the compiler. The vectorized {@link ChildSearch} is used instead when it is available.
+         *
+         * @param key          The key to be found
+         * @param numberOfKeys The number of keys of the node to be searched
+         * @return index of the child pointer to follow
+         */
+        public int findChildIndexForKey(int key, int numberOfKeys) {
+            if (VECTOR_CHILD_SEARCH != null) {
+                return VECTOR_CHILD_SEARCH.findChildIndex(keys, numberOfKeys, key);
+            }
+            if (numberOfKeys == 0) {
+                return 0;
+            }
+            int[] keys = this.keys;
+            // Keys before base are less than or equal to the key, keys from base + length on are greater
+            int base = 0;
+            int length = numberOfKeys;
+            while (length > 1) {
+                int half = length >>> 1;
+                base = keys[base + half] <= key ? base + half : base;
+                length -= half;
+            }
+            return base + (keys[base] <= key ? 1 : 0);
+        }
+
+        /**
+         * This method is used to search for a child in the child pointers.
+         * It returns the index of child if the child is found else it returns -1.
+         *
+         * @param node The child to be found.
+         * @return index index of the child if it is present,
+         * -1 if child is not present
+         */
+        public int findChildIndex(Node node) {
+            for (int index = 0; index < degree; index++) {
+                if (children[index] == node) {
+                    return index;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * This method is used to split the keys and child pointers on a midpoint index into 2 separate Internal Nodes.
+         * <p>
+         * It returns back a new Internal Node of the same level containing the keys after the midpoint index and
+         * the child pointers after the child at the midpoint index, and removes those keys and child pointers and the
+         * key at the midpoint index from the current node. The new node has no parent and siblings set.
+         *
+         * @param midPointIndex The index of the key which separates the two nodes
+         * @return The Internal Node containing the second half of keys and child pointers
+         */
+        public InternalNode splitChildren(int midPointIndex) {
+            InternalNode secondHalf = new InternalNode(level);
+            int secondHalfDegree = degree - midPointIndex - 1;
+            secondHalf.ensureCapacity(secondHalfDegree);
+            System.arraycopy(keys, midPointIndex + 1, secondHalf.keys, 0, secondHalfDegree - 1);
+            System.arraycopy(children, midPointIndex + 1, secondHalf.children, 0, secondHalfDegree);
+            if (childCounts != null) {
+                System.arraycopy(childCounts, midPointIndex + 1, secondHalf.childCounts, 0, secondHalfDegree);
+                System.arraycopy(childSums, midPointIndex + 1, secondHalf.childSums, 0, secondHalfDegree);
+            }
+            Arrays.fill(children, midPointIndex + 1, degree, null);
+            secondHalf.degree = secondHalfDegree;
+            degree = midPointIndex + 1;
+
+            return secondHalf;
+        }
+
+        /**
+         * This method is used to check if the current Internal Node can borrow a Key from its sibling Node.
+         *
+         * @param internalNodeMinimumDegree The minimum number of children that internal node can have
+         * @param sibling                   The sibling of the current internal node
+         * @return true If Internal Node can borrow a key from its sibling,
+         * false If Internal Node cannot borrow a key from its sibling
+         */
+        public boolean checkCanBorrow(int internalNodeMinimumDegree, InternalNode sibling) {
+            return sibling != null && sibling.getParentNode() == parentNode && sibling.getDegree() > internalNodeMinimumDegree;
+        }
+
+        /**
+         * This method is used to check if the current Internal Node can merge with its sibling Node.
+         *
+         * @param internalNodeMinimumDegree The minimum number of key value pairs that leaf node can hold
+         * @param sibling                   The sibling of the current internal node
+         * @return true If Internal Node can merge with its sibling,
+         * false If Internal Node cannot merge with its sibling
+         */
+        public boolean checkCanMerge(int internalNodeMinimumDegree, InternalNode sibling) {
+            return sibling != null && sibling.getParentNode() == parentNode && sibling.getDegree() == internalNodeMinimumDegree;
+        }
+    }
+
+    /**
+     * Nested class to iterate over the key value pairs of the B+ Tree whose keys are in a range.
+     * <p>
+     * A forward cursor starts at the leaf node which holds the lower bound and follows right siblings,
+     * a reverse cursor starts at the leaf node which holds the upper bound and follows left siblings.
+     * Either stops at the first key outside the range, so a scan only visits the leaf nodes holding the range.
+     * Pairs are read one at a time straight from the leaf node arrays, nothing is collected.
+     * The pairs of a compressed leaf node are decoded in one pass into buffers of the cursor when it enters the node.
+     * <p>
+     * Typical usage:
+     * <pre>
+     * RangeCursor cursor = tree.rangeCursor(10, 20);
+     * while (cursor.next()) {
+     *     use(cursor.getKey(), cursor.getValue());
+     * }
+     * </pre>
+     * The cursor reads the live tree and must not be used after the tree is modified.
      */
-    public static class OutputRecordsFormatter extends Formatter {
+    public class RangeCursor {
+        public final int lowerBound;
+        public final int upperBound;
+        public final boolean reverse;
+        public LeafNode node;
+        public int index;
+        public long remaining;
+        // Pairs of node, its own arrays or the decode buffers if it is compressed
+        private int[] keys;
+        private double[] values;
+        private int[] decodedKeys;
+        private double[] decodedValues;
+
         /**
-         * This Method is used to format the output file records.
-         * It accepts a log record and returns the formatted output record
+         * Constructs a cursor over the keys in [lowerBound, upperBound] which skips the first offset pairs
+         * and returns at most limit pairs.
          *
-         * @param record output file record
-         * @return formatted output file record
+         * @param lowerBound lowerBound of the range of keys, included
+         * @param upperBound upperBound of the range of keys, included
+         * @param offset     number of pairs in the range to be skipped
+         * @param limit      maximum number of pairs to be returned
+         * @param reverse    true to return pairs in decreasing order of keys, false for increasing order
          */
-        @Override
-        public String format(LogRecord record) {
-            return formattedMessage(record.getMessage());
+        public RangeCursor(int lowerBound, int upperBound, long offset, long limit, boolean reverse) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.reverse = reverse;
+            this.remaining = lowerBound <= upperBound ? limit : 0;
+
+            if (firstLeafNode != null && remaining > 0) {
+                // Position the cursor one step before the first pair to be returned
+                if (reverse) {
+                    enter(findLeafNode(upperBound));
+                    index = node.findUpperBoundIndex(upperBound);
+                } else {
+                    enter(findLeafNode(lowerBound));
+                    index = node.findLowerBoundIndex(lowerBound) - 1;
+                }
+                skip(offset);
+            }
         }
 
         /**
-         * This Method is used to format the message.
-         * It accepts a message and formats it
+         * This method skips pairs in the range. Whole leaf nodes are skipped when all their remaining pairs
+         * are in the range and are to be skipped.
          *
-         * @param message message to be formatted
-         * @return formatted message
+         * @param count number of pairs to be skipped
          */
-        public String formattedMessage(String message) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(message);
-            sb.append("\n");
-            return sb.toString();
+        private void skip(long count) {
+            while (count > 0 && node != null) {
+                int available = reverse ? index : node.getNumberOfPairs() - index - 1;
+                boolean wholeLeafInRange = available > 0 && (reverse
+                        ? node.getKey(0) >= lowerBound
+                        : node.getKey(node.getNumberOfPairs() - 1) <= upperBound);
+                if (wholeLeafInRange && available <= count) {
+                    count -= available;
+                    index = reverse ? 0 : node.getNumberOfPairs() - 1;
+                } else {
+                    // Skip one pair. Skipped pairs do not count against the limit
+                    if (!next()) {
+                        return;
+                    }
+                    remaining++;
+                    count--;
+                }
+            }
+        }
+
+        /**
+         * This method moves the cursor to the next pair in the range.
+         *
+         * @return true if the cursor is on a pair in the range, false if the range or the limit is exhausted
+         */
+        public boolean next() {
+            if (node == null || remaining <= 0) {
+                node = null;
+                return false;
+            }
+
+            if (reverse) {
+                index--;
+                while (index < 0) {
+                    if (!enter(node.getLeftSibling())) {
+                        return false;
+                    }
+                    index = node.getNumberOfPairs() - 1;
+                }
+                if (keys[index] < lowerBound) {
+                    node = null;
+                    return false;
+                }
+            } else {
+                index++;
+                while (index >= node.getNumberOfPairs()) {
+                    if (!enter(node.getRightSibling())) {
+                        return false;
+                    }
+                    index = 0;
+                }
+                if (keys[index] > upperBound) {
+                    node = null;
+                    return false;
+                }
+            }
+
+            remaining--;
+            return true;
+        }
+
+        /**
+         * Getter Method to get the key of the pair the cursor is on.
+         *
+         * @return key of the current pair
+         */
+        public int getKey() {
+            return keys[index];
+        }
+
+        /**
+         * Getter Method to get the value of the pair the cursor is on.
+         *
+         * @return value of the current pair
+         */
+        public double getValue() {
+            return values[index];
+        }
+
+        /**
+         * This method moves the cursor to a leaf node and makes its pairs readable from keys and values.
+         *
+         * @param leafNode leaf node to be entered, null at the end of the leaf nodes
+         * @return true if there is a leaf node, false if leafNode is null
+         */
+        private boolean enter(LeafNode leafNode) {
+            node = leafNode;
+            if (leafNode == null) {
+                return false;
+            }
+            if (leafNode.isCompressed()) {
+                if (decodedKeys == null) {
+                    decodedKeys = new int[maximumDataInLeafNode + 1];
+                    decodedValues = new double[maximumDataInLeafNode + 1];
+                }
+                leafNode.copyPairs(decodedKeys, decodedValues);
+                keys = decodedKeys;
+                values = decodedValues;
+            } else {
+                keys = leafNode.keys;
+                values = leafNode.values;
+            }
+            return true;
         }
     }
 
     /**
-     * This Method is used to remove in between whitespaces from a string.
-     * It accepts a string and removes any whitespaces present in it.
-     * For example `Delete (10)` becomes `Delete(10)`
-     *
-     * @param s string whose in between whitespaces are to be removed
-     * @return string with in between whitespaces removed
+     * Nested class to hold the result of {@link #multiGet(int[])}: the value of every key in the order of the keys
+     * and a bitmap telling which keys were found. Bit i of the bitmap is bit (i % 64) of found[i / 64].
      */
-    public static String removeInBetweenWhiteSpaces(String s) {
-        // Creating a pattern for whitespaces
-        Pattern patt = Pattern.compile("[\\s]");
+    public static class MultiGetResult {
+        public double[] values;
+        public long[] found;
+
+        /**
+         * Constructs a Multi Get Result for a number of keys.
+         *
+         * @param numberOfKeys number of keys looked up
+         */
+        public MultiGetResult(int numberOfKeys) {
+            this.values = new double[numberOfKeys];
+            this.found = new long[(numberOfKeys + 63) >>> 6];
+        }
+
+        /**
+         * Getter Method to get the values of the keys, 0 for keys not found.
+         *
+         * @return values of the keys
+         */
+        public double[] getValues() {
+            return values;
+        }
 
-        // Searching patt in s.
-        Matcher mat = patt.matcher(s);
+        /**
+         * Getter Method to get the bitmap of keys found.
+         *
+         * @return bitmap of keys found
+         */
+        public long[] getFound() {
+            return found;
+        }
 
-        // Replacing
-        return mat.replaceAll("");
+        /**
+         * This method tells whether a key was found.
+         *
+         * @param index index of the key in the keys looked up
+         * @return true if the key was found
+         */
+        public boolean isFound(int index) {
+            return (found[index >>> 6] & (1L << index)) != 0;
+        }
+    }
+
+    /**
+     * Nested class to hold the result of {@link #aggregate(int, int)}: the number, sum, minimum and maximum of
+     * the values of the keys in a range. Minimum and maximum are infinite and the average is NaN for an empty range.
+     */
+    public static class RangeAggregate {
+        public long count;
+        public double sum;
+        public double minimum = Double.POSITIVE_INFINITY;
+        public double maximum = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Getter Method to get the number of values.
+         *
+         * @return number of values in the range
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Getter Method to get the sum of the values.
+         *
+         * @return sum of the values in the range
+         */
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * Getter Method to get the smallest value.
+         *
+         * @return smallest value in the range, positive infinity if the range is empty
+         */
+        public double getMinimum() {
+            return minimum;
+        }
+
+        /**
+         * Getter Method to get the largest value.
+         *
+         * @return largest value in the range, negative infinity if the range is empty
+         */
+        public double getMaximum() {
+            return maximum;
+        }
+
+        /**
+         * Getter Method to get the average of the values.
+         *
+         * @return average of the values in the range, NaN if the range is empty
+         */
+        public double getAverage() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        /**
+         * This method adds the values of a Leaf Node from index from to index to, excluded.
+         *
+         * @param values values of the Leaf Node
+         * @param from   index of the first value
+         * @param to     index after the last value
+         */
+        public void add(double[] values, int from, int to) {
+            double sum = 0;
+            double minimum = this.minimum;
+            double maximum = this.maximum;
+            for (int i = from; i < to; i++) {
+                double value = values[i];
+                sum += value;
+                minimum = Math.min(minimum, value);
+                maximum = Math.max(maximum, value);
+            }
+            this.count += Math.max(0, to - from);
+            this.sum += sum;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        /**
+         * This method adds the values of another aggregate, of a range next to this one.
+         *
+         * @param other aggregate to be added
+         */
+        public void add(RangeAggregate other) {
+            count += other.count;
+            sum += other.sum;
+            minimum = Math.min(minimum, other.minimum);
+            maximum = Math.max(maximum, other.maximum);
+        }
+    }
+
+    /**
+     * Nested class to aggregate the values of a range of keys below an Internal Node on a {@link ForkJoinPool}.
+     * <p>
+     * The task follows the children of the node which hold keys of the range. Above level 1 it forks a task per
+     * child, so the subtrees are aggregated in parallel and every worker reads Leaf Nodes of its own subtree.
+     * At level 1 it adds the values of the Leaf Nodes in range itself.
+     */
+    public class AggregateTask extends RecursiveTask<RangeAggregate> {
+        private static final long serialVersionUID = 1L;
+
+        public final InternalNode node;
+        public final int lowerBound;
+        public final int upperBound;
+
+        /**
+         * Constructs a task aggregating the values of the keys in [lowerBound, upperBound] below a node.
+         *
+         * @param node       Internal Node whose subtree is aggregated
+         * @param lowerBound lowerBound of the range of keys, included
+         * @param upperBound upperBound of the range of keys, included
+         */
+        public AggregateTask(InternalNode node, int lowerBound, int upperBound) {
+            this.node = node;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        @Override
+        protected RangeAggregate compute() {
+            int numberOfKeys = node.getDegree() - 1;
+            int firstChild = node.findChildIndexForKey(lowerBound, numberOfKeys);
+            int lastChild = node.findChildIndexForKey(upperBound, numberOfKeys);
+            RangeAggregate aggregate = new RangeAggregate();
+            if (node.getLevel() == 1) {
+                double[] buffer = null;
+                for (int i = firstChild; i <= lastChild; i++) {
+                    buffer = addLeafNode((LeafNode) node.getChild(i), lowerBound, upperBound, aggregate, buffer);
+                }
+                return aggregate;
+            }
+
+            // Fork all children but the first, which this task aggregates itself
+            AggregateTask[] tasks = new AggregateTask[lastChild - firstChild + 1];
+            for (int i = tasks.length - 1; i >= 0; i--) {
+                tasks[i] = new AggregateTask((InternalNode) node.getChild(firstChild + i), lowerBound, upperBound);
+                if (i > 0) {
+                    tasks[i].fork();
+                }
+            }
+            aggregate.add(tasks[0].compute());
+            for (int i = 1; i < tasks.length; i++) {
+                aggregate.add(tasks[i].join());
+            }
+            return aggregate;
+        }
+    }
+
+    /**
+     * Nested class to build the B+ Tree bottom up from key value pairs in increasing order of keys.
+     * <p>
+     * Pairs are packed into Leaf Nodes, each filled to the fill factor of the maximum number of pairs,
+     * and the Leaf Nodes are linked into the doubly linked list as they fill up. {@link #finish()} then builds
+     * the Internal Node levels bottom up, each node filled to the fill factor of the maximum degree, and sets root.
+     * The last node of every level is balanced with its left sibling so no node is left deficient.
+     */
+    public class BulkLoader {
+        public final int leafNodeFill;
+        public final int internalNodeFill;
+        public ArrayList<LeafNode> leafNodes = new ArrayList<>();
+        public LeafNode currentLeafNode;
+        public boolean hasPairs;
+        public int lastKey;
+
+        /**
+         * Constructs a Bulk Loader which fills nodes to the fill factor provided.
+         *
+         * @param fillFactor fraction of the maximum number of pairs or children each node is filled to, in (0, 1]
+         */
+        public BulkLoader(double fillFactor) {
+            if (!(fillFactor > 0 && fillFactor <= 1)) {
+                throw new IllegalArgumentException("Fill factor must be in (0, 1]: " + fillFactor);
+            }
+            this.leafNodeFill = Math.max(Math.max(1, minimumDataInLeafNode),
+                    Math.min(maximumDataInLeafNode, (int) Math.round(maximumDataInLeafNode * fillFactor)));
+            this.internalNodeFill = Math.max(Math.max(2, internalNodeMinimumDegree),
+                    Math.min(internalNodeMaximumDegree, (int) Math.round(internalNodeMaximumDegree * fillFactor)));
+        }
+
+        /**
+         * This method appends a key value pair to the last Leaf Node, starting a new Leaf Node when it is full.
+         *
+         * @param key   The key of the key value pair.
+         * @param value The value of the key value pair.
+         * @return true if the pair is appended, false if its key is smaller than the key of the previous pair
+         */
+        public boolean add(int key, double value) {
+            if (hasPairs && key < lastKey) {
+                return false;
+            }
+            if (currentLeafNode == null || currentLeafNode.getNumberOfPairs() == leafNodeFill) {
+                LeafNode leafNode = new LeafNode();
+                if (currentLeafNode != null) {
+                    currentLeafNode.setRightSibling(leafNode);
+                    leafNode.setLeftSibling(currentLeafNode);
+                }
+                leafNodes.add(leafNode);
+                currentLeafNode = leafNode;
+            }
+            currentLeafNode.keys[currentLeafNode.numberOfPairs] = key;
+            currentLeafNode.values[currentLeafNode.numberOfPairs] = value;
+            currentLeafNode.numberOfPairs++;
+            hasPairs = true;
+            lastKey = key;
+            return true;
+        }
+
+        /**
+         * This method balances the last Leaf Node, builds the Internal Node levels and installs them in the tree.
+         */
+        public void finish() {
+            if (leafNodes.isEmpty()) {
+                return;
+            }
+
+            // Last Leaf Node is deficient. Merge it into its left sibling or share pairs evenly with it
+            int size = leafNodes.size();
+            LeafNode lastLeafNode = leafNodes.get(size - 1);
+            if (size > 1 && lastLeafNode.getNumberOfPairs() < minimumDataInLeafNode) {
+                LeafNode sibling = leafNodes.get(size - 2);
+                int total = sibling.getNumberOfPairs() + lastLeafNode.getNumberOfPairs();
+                if (total <= maximumDataInLeafNode) {
+                    lastLeafNode.moveDataTo(sibling);
+                    sibling.setRightSibling(null);
+                    leafNodes.remove(size - 1);
+                } else {
+                    int moved = total / 2 - lastLeafNode.getNumberOfPairs();
+                    int from = sibling.getNumberOfPairs() - moved;
+                    System.arraycopy(lastLeafNode.keys, 0, lastLeafNode.keys, moved, lastLeafNode.numberOfPairs);
+                    System.arraycopy(lastLeafNode.values, 0, lastLeafNode.values, moved, lastLeafNode.numberOfPairs);
+                    System.arraycopy(sibling.keys, from, lastLeafNode.keys, 0, moved);
+                    System.arraycopy(sibling.values, from, lastLeafNode.values, 0, moved);
+                    lastLeafNode.numberOfPairs += moved;
+                    sibling.numberOfPairs -= moved;
+                }
+            }
+
+            if (leafFilters) {
+                for (LeafNode leafNode : leafNodes) {
+                    leafNode.rebuildFilter();
+                }
+            }
+            firstLeafNode = leafNodes.get(0);
+            insertHint = null;
+            Node[] children = leafNodes.toArray(new Node[0]);
+            int[] lowestKeys = new int[children.length];
+            for (int i = 0; i < lowestKeys.length; i++) {
+                lowestKeys[i] = leafNodes.get(i).getKey(0);
+            }
+            leafNodes = new ArrayList<>();
+            currentLeafNode = null;
+
+            // Build Internal Node levels until a level has a single node
+            InternalNode newRoot = null;
+            for (int level = 1; children.length > 1; level++) {
+                int[] groupSizes = groupSizes(children.length);
+                Node[] parents = new Node[groupSizes.length];
+                int[] parentLowestKeys = new int[groupSizes.length];
+                InternalNode previous = null;
+                int start = 0;
+                for (int g = 0; g < groupSizes.length; g++) {
+                    int capacity = Math.max(getInternalNodeCapacity(), groupSizes[g]);
+                    int[] keys = new int[capacity];
+                    System.arraycopy(lowestKeys, start + 1, keys, 0, groupSizes[g] - 1);
+                    Node[] nodeChildren = new Node[capacity];
+                    System.arraycopy(children, start, nodeChildren, 0, groupSizes[g]);
+                    InternalNode node = new InternalNode(level, keys, nodeChildren, groupSizes[g]);
+                    for (int i = 0; i < groupSizes[g]; i++) {
+                        setParentOfChild(nodeChildren[i], node);
+                    }
+                    if (previous != null) {
+                        previous.setRightSibling(node);
+                        node.setLeftSibling(previous);
+                    }
+                    parents[g] = node;
+                    parentLowestKeys[g] = lowestKeys[start];
+                    previous = node;
+                    start += groupSizes[g];
+                }
+                children = parents;
+                lowestKeys = parentLowestKeys;
+                newRoot = (InternalNode) children[0];
+            }
+            root = newRoot;
+            if (augmented && root != null) {
+                computeSubtreeTotals(root);
+            }
+            if (lookupCache != null) {
+                lookupCache.clear();
+            }
+            if (treeFilter != null) {
+                rebuildTreeFilter();
+            }
+            // A walk of the new Leaf Nodes costs little next to building them
+            if (metrics != null) {
+                metrics.recount();
+            }
+        }
+
+        /**
+         * This method splits a level of children into groups, one group per Internal Node.
+         * Groups are internalNodeFill children, the last group is balanced with the one before it.
+         *
+         * @param children number of children in the level
+         * @return number of children of each Internal Node of the parent level
+         */
+        private int[] groupSizes(int children) {
+            int groups = (children + internalNodeFill - 1) / internalNodeFill;
+            int[] sizes = new int[groups];
+            for (int g = 0; g < groups; g++) {
+                sizes[g] = Math.min(internalNodeFill, children - g * internalNodeFill);
+            }
+            if (groups > 1 && sizes[groups - 1] < internalNodeMinimumDegree) {
+                int total = sizes[groups - 2] + sizes[groups - 1];
+                if (total <= internalNodeMaximumDegree) {
+                    sizes = Arrays.copyOf(sizes, groups - 1);
+                    sizes[groups - 2] = total;
+                } else {
+                    sizes[groups - 2] = total - total / 2;
+                    sizes[groups - 1] = total / 2;
+                }
+            }
+            return sizes;
+        }
     }
 
     /**
      * This Method is used to initialize output file writer.
+     * Search results are buffered, so the writer must be flushed or closed after the last search.
      */
     public static void initializeWriter() {
         try {
-            FileHandler fileHandler = new FileHandler("output_file.txt");
-            fileHandler.setFormatter(new OutputRecordsFormatter());
-            writer.addHandler(fileHandler);
-            writer.setUseParentHandlers(false);
+            writer = ResultWriter.open(new File("output_file.txt"));
         } catch (IOException e) {
             System.out.println("Error occured while creating output text file - " + e.getMessage());
             e.printStackTrace();
@@ -862,42 +2086,57 @@ public class bplustree {
      * @param value value to inserted
      */
     public void insert(int key, double value) {
-        Data data = new Data(key, value);
-
+        TreeMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (lookupCache != null) {
+            lookupCache.invalidate(key);
+        }
+        if (treeFilter != null) {
+            treeFilter.add(key);
+        }
         //Not empty tree
         if (firstLeafNode != null) {
             LeafNode lastNode = null;
-            // Find Leaf Node to be inserted into
-            lastNode = root != null ? getLeafNode(root, key) : firstLeafNode;
-            boolean isInserted = lastNode.insertData(maximumDataInLeafNode, data);
+            // Find Leaf Node to be inserted into, without a descent if it is the Leaf Node of the previous insert
+            lastNode = findInsertLeafNode(key);
+            // A key at the end of the last Leaf Node is an append. Keys arriving in increasing order only ever
+            // append, so a full Leaf Node is split leaving it full and the new Leaf Node with only the new key
+            boolean isAppend = lastNode.getRightSibling() == null
+                    && (lastNode.getNumberOfPairs() == 0 || key >= lastNode.getKey(lastNode.getNumberOfPairs() - 1));
+            boolean isInserted = lastNode.insertData(maximumDataInLeafNode, key, value);
+            if (!isInserted) {
+                // Leaf arrays have room for one extra pair. Insert it and make the node overfull
+                lastNode.insertData(maximumDataInLeafNode + 1, key, value);
+            }
+            // Count the pair in the subtree totals of the ancestors. After a split the totals of the halves are
+            // computed again from their pairs
+            if (augmented) {
+                refreshAncestorTotals(lastNode);
+            }
             //Insertion Unsuccessful
             if (!isInserted) {
-                lastNode.getListOfData().add(data);
-                lastNode.setNumberOfPairs(lastNode.getNumberOfPairs() + 1);
-                lastNode.sortData();
-
-                //split the key value pairs list
-                ArrayList<Data> secondHalfDataList = lastNode.splitDataList(midPointIndex);
-
-                // Node has parent. Add the second half list first element to parent
-                if (lastNode.getParent() != null) {
-                    int newParentKey = secondHalfDataList.get(0).getKey();
-                    lastNode.getParent().getListOfKeys().add(lastNode.getParent().getDegree() - 1, newParentKey);
-                    lastNode.getParent().sortKeys();
+                //split the key value pairs
+                LeafNode leafNode = lastNode.splitDataList(isAppend ? maximumDataInLeafNode : midPointIndex);
+                if (metrics != null) {
+                    metrics.leafSplits.increment();
+                    metrics.leafNodes.increment();
                 }
-                // Node has no parent. Create a parent and add the second half list first element to parent
-                else {
-                    ArrayList<Integer> parentKeys = new ArrayList();
-                    parentKeys.add(secondHalfDataList.get(0).getKey());
-                    InternalNode parent = new InternalNode(parentKeys);
+
+                // Node has no parent. Create a parent
+                if (lastNode.getParent() == null) {
+                    InternalNode parent = new InternalNode(1);
                     parent.addChildPointer(lastNode);
                     lastNode.setParent(parent);
                 }
 
-                // create a new Leaf Node and add it to parent
-                LeafNode leafNode = new LeafNode(secondHalfDataList, lastNode.getParent());
-                int childPointerIndex = lastNode.getParent().findChildIndex(lastNode) + 1;
-                lastNode.getParent().addChildPointer(leafNode, childPointerIndex);
+                // Add the second half first element to parent right after the child pointer of lastNode
+                // and add the new Leaf Node to parent right after that key. With equal keys in both halves
+                // the sorted position of the key could be after the child pointer of a later Leaf Node
+                InternalNode parent = lastNode.getParent();
+                int childIndex = parent.findChildIndex(lastNode);
+                leafNode.setParent(parent);
+                parent.insertChild(childIndex, leafNode.getKey(0), leafNode);
+                parent.refreshChildTotals(childIndex);
 
                 // adjust the left and right siblings
                 leafNode.setRightSibling(lastNode.getRightSibling());
@@ -907,13 +2146,22 @@ public class bplustree {
                 lastNode.setRightSibling(leafNode);
                 leafNode.setLeftSibling(lastNode);
 
+                // The first key of the new Leaf Node is the fence key between the two halves. Splits of Internal
+                // Nodes move separators up without changing them, so the fence keys of both halves stay valid
+                if (key >= leafNode.getKey(0)) {
+                    insertHint = leafNode;
+                    insertHintLowerBound = leafNode.getKey(0);
+                } else {
+                    insertHintUpperBound = leafNode.getKey(0);
+                }
+
                 // Split and Adjust internal nodes to balance the tree
                 if (root != null) {
                     InternalNode internalNode = lastNode.getParent();
                     while (internalNode != null) {
                         //If the Node is overfull. Split the Node
                         if (internalNode.getDegree() == internalNodeMaximumDegree + 1) {
-                            splitInternalNode(midPointIndex, internalNode);
+                            splitInternalNode(internalNodeMidPointIndex, internalNode);
                         } else {
                             break;
                         }
@@ -921,14 +2169,27 @@ public class bplustree {
                     }
                 } else {
                     root = lastNode.getParent();
+                    if (metrics != null) {
+                        metrics.rootSplits.increment();
+                    }
                 }
             }
         }
         // Empty Tree. Create a new Leaf node and add key value pair to it
         else {
             LeafNode leafNode = new LeafNode();
-            leafNode.insertData(maximumDataInLeafNode, data);
+            leafNode.insertData(maximumDataInLeafNode, key, value);
             firstLeafNode = leafNode;
+            if (metrics != null) {
+                metrics.leafNodes.increment();
+            }
+        }
+        if (treeFilter != null && treeFilter.isOverloaded()) {
+            rebuildTreeFilter();
+        }
+        if (metrics != null) {
+            metrics.pairs.increment();
+            metrics.insertLatency.record(System.nanoTime() - start);
         }
     }
 
@@ -943,23 +2204,15 @@ public class bplustree {
     public void splitInternalNode(int midPointIndex, InternalNode internalNode) {
         //split the keys and child pointers
         InternalNode parent = internalNode.getParentNode();
-        int newParentKey = internalNode.getListOfKeys().get(midPointIndex);
-        ArrayList<Integer> secondHalfKeysList = internalNode.splitKeys(midPointIndex);
-        ArrayList secondHalfPointersList = internalNode.splitChildPointers(midPointIndex);
-        internalNode.setDegree(internalNode.getListOfChildren().size());
-
-        //create a new sibling and adds other half of keys and child pointers to it
-        InternalNode sibling = new InternalNode(secondHalfKeysList, secondHalfPointersList);
-        for (Object childPointer : secondHalfPointersList) {
-            if (childPointer != null) {
-                if (childPointer instanceof InternalNode) {
-                    InternalNode node = (InternalNode) childPointer;
-                    node.setParentNode(sibling);
-                } else {
-                    LeafNode leafNode = (LeafNode) childPointer;
-                    leafNode.setParent(sibling);
-                }
-            }
+        int newParentKey = internalNode.getKey(midPointIndex);
+
+        //create a new sibling holding the other half of keys and child pointers
+        InternalNode sibling = internalNode.splitChildren(midPointIndex);
+        for (int i = 0; i < sibling.getDegree(); i++) {
+            setParentOfChild(sibling.getChild(i), sibling);
+        }
+        if (metrics != null) {
+            metrics.internalSplits.increment();
         }
 
         // adjust left and right siblings
@@ -970,33 +2223,419 @@ public class bplustree {
         internalNode.setRightSibling(sibling);
         sibling.setLeftSibling(internalNode);
 
-        // Node has a parent. Add a new key from splitting of node keys to parent. Add sibling to parent
+        // Node has a parent. Add a new key from splitting of node keys to parent.
+        // Add sibling to parent right after node
         if (parent != null) {
-            parent.getListOfKeys().add(newParentKey);
-            parent.sortKeys();
-
-            int childPointerIndex = parent.findChildIndex(internalNode) + 1;
-            parent.addChildPointer(sibling, childPointerIndex);
+            int childIndex = parent.findChildIndex(internalNode);
+            parent.insertChild(childIndex, newParentKey, sibling);
             sibling.setParentNode(parent);
+            parent.refreshChildTotals(childIndex);
         }
         // Node has a no parent (root node). Create a new parent and add key from splitting of node keys to parent.
         // Add node and sibling to parent. Set parent as new root node
         else {
-            ArrayList<Integer> keysList = new ArrayList();
-            keysList.add(newParentKey);
-            InternalNode newRoot = new InternalNode(keysList);
+            InternalNode newRoot = new InternalNode(internalNode.getLevel() + 1);
             newRoot.addChildPointer(internalNode);
-            newRoot.addChildPointer(sibling);
+            newRoot.insertChild(0, newParentKey, sibling);
             root = newRoot;
+            if (metrics != null) {
+                metrics.rootSplits.increment();
+            }
 
             internalNode.setParentNode(root);
             sibling.setParentNode(root);
         }
     }
 
+    /**
+     * This method inserts a batch of key value pairs. See {@link #insertBatch(int[], double[], int, boolean)}.
+     *
+     * @param keys   keys to be inserted, in any order
+     * @param values values to be inserted, values[i] belongs to keys[i]
+     */
+    public void insertBatch(int[] keys, double[] values) {
+        insertBatch(keys, values, keys.length, false);
+    }
+
+    /**
+     * This method inserts a batch of key value pairs.
+     * <p>
+     * The pairs are sorted and each run of pairs falling into the same Leaf Node is merged with the pairs of
+     * that Leaf Node in one pass. A Leaf Node which overflows is split once into as many Leaf Nodes as it needs,
+     * and an Internal Node which overflows from the new children is split once the same way, up to the root.
+     * Pairs with equal keys are inserted after the pairs already in the tree and keep their order in the batch,
+     * as if they were inserted one at a time with {@link #insert(int, double)}.
+     *
+     * @param keys            keys to be inserted, in any order
+     * @param values          values to be inserted, values[i] belongs to keys[i]
+     * @param count           number of pairs in the arrays to be inserted
+     * @param replaceExisting if true, a key already in its Leaf Node gets the new value instead of a second pair,
+     *                        and of equal keys in the batch the last one wins
+     */
+    public void insertBatch(int[] keys, double[] values, int count, boolean replaceExisting) {
+        if (count < 0 || count > keys.length || count > values.length) {
+            throw new IllegalArgumentException("count must be between 0 and the length of keys and values: " + count);
+        }
+        if (count == 0) {
+            return;
+        }
+        int[] sortedKeys = Arrays.copyOf(keys, count);
+        double[] sortedValues = Arrays.copyOf(values, count);
+        ExternalSorter.sortPairs(sortedKeys, sortedValues, count);
+        if (lookupCache != null) {
+            for (int i = 0; i < count; i++) {
+                lookupCache.invalidate(sortedKeys[i]);
+            }
+        }
+        if (treeFilter != null) {
+            for (int i = 0; i < count; i++) {
+                treeFilter.add(sortedKeys[i]);
+            }
+        }
+
+        insertHint = null;
+        if (firstLeafNode == null) {
+            firstLeafNode = new LeafNode();
+            if (metrics != null) {
+                metrics.leafNodes.increment();
+            }
+        }
+        long[] upperBound = new long[1];
+        int start = 0;
+        while (start < count) {
+            // Pairs below the upper bound of the Leaf Node of the first pair all go into that Leaf Node
+            LeafNode leafNode = findLeafNode(sortedKeys[start], upperBound);
+            int end = start + 1;
+            while (end < count && sortedKeys[end] < upperBound[0]) {
+                end++;
+            }
+            mergeIntoLeafNode(leafNode, sortedKeys, sortedValues, start, end, replaceExisting);
+            start = end;
+        }
+        if (treeFilter != null && treeFilter.isOverloaded()) {
+            rebuildTreeFilter();
+        }
+    }
+
+    /**
+     * This method is used to get the leaf node which has the key, together with the exclusive upper bound
+     * of the keys belonging to that leaf node, which is Long.MAX_VALUE for the last leaf node.
+     *
+     * @param key        key to be found
+     * @param upperBound receives the upper bound in upperBound[0]
+     * @return Leaf Node which contains the key
+     */
+    private LeafNode findLeafNode(int key, long[] upperBound) {
+        upperBound[0] = Long.MAX_VALUE;
+        if (root == null) {
+            return firstLeafNode;
+        }
+        InternalNode node = root;
+        while (true) {
+            int numberOfKeys = node.getDegree() - 1;
+            int childIndex = node.findChildIndexForKey(key, numberOfKeys);
+            if (childIndex < numberOfKeys) {
+                upperBound[0] = node.getKey(childIndex);
+            }
+            if (node.getLevel() == 1) {
+                return (LeafNode) node.getChild(childIndex);
+            }
+            node = (InternalNode) node.getChild(childIndex);
+        }
+    }
+
+    /**
+     * This method merges sorted pairs into a Leaf Node and splits the Leaf Node into as many Leaf Nodes
+     * as needed to hold them. The new Leaf Nodes are linked after it and added to its parent.
+     */
+    private void mergeIntoLeafNode(LeafNode leafNode, int[] batchKeys, double[] batchValues, int start, int end,
+                                   boolean replaceExisting) {
+        leafNode.decompress();
+        int previousCount = leafNode.getNumberOfPairs();
+        int total = leafNode.getNumberOfPairs() + end - start;
+        if (!replaceExisting && total <= maximumDataInLeafNode) {
+            // The pairs fit, so merge them into the Leaf Node from the back without copying it
+            int index = leafNode.getNumberOfPairs() - 1;
+            for (int batchIndex = end - 1, target = total - 1; batchIndex >= start; target--) {
+                if (index >= 0 && leafNode.keys[index] > batchKeys[batchIndex]) {
+                    leafNode.keys[target] = leafNode.keys[index];
+                    leafNode.values[target] = leafNode.values[index--];
+                } else {
+                    leafNode.keys[target] = batchKeys[batchIndex];
+                    leafNode.values[target] = batchValues[batchIndex--];
+                }
+            }
+            leafNode.setNumberOfPairs(total);
+            leafNode.rebuildFilter();
+            if (metrics != null) {
+                metrics.pairs.add(total - previousCount);
+            }
+            if (augmented) {
+                refreshAncestorTotals(leafNode);
+            }
+            return;
+        }
+        if (mergedKeys.length < total) {
+            mergedKeys = new int[Math.max(total, 2 * mergedKeys.length)];
+            mergedValues = new double[mergedKeys.length];
+        }
+        int[] mergedKeys = this.mergedKeys;
+        double[] mergedValues = this.mergedValues;
+        int merged = 0;
+        int index = 0;
+        int batchIndex = start;
+        while (index < leafNode.getNumberOfPairs() || batchIndex < end) {
+            if (batchIndex == end
+                    || (index < leafNode.getNumberOfPairs() && leafNode.getKey(index) <= batchKeys[batchIndex])) {
+                mergedKeys[merged] = leafNode.getKey(index);
+                mergedValues[merged++] = leafNode.getValue(index++);
+            } else if (replaceExisting && merged > 0 && mergedKeys[merged - 1] == batchKeys[batchIndex]) {
+                mergedValues[merged - 1] = batchValues[batchIndex++];
+            } else {
+                mergedKeys[merged] = batchKeys[batchIndex];
+                mergedValues[merged++] = batchValues[batchIndex++];
+            }
+        }
+
+        if (merged <= maximumDataInLeafNode) {
+            System.arraycopy(mergedKeys, 0, leafNode.keys, 0, merged);
+            System.arraycopy(mergedValues, 0, leafNode.values, 0, merged);
+            leafNode.setNumberOfPairs(merged);
+            leafNode.rebuildFilter();
+            if (metrics != null) {
+                metrics.pairs.add(merged - previousCount);
+            }
+            if (augmented) {
+                refreshAncestorTotals(leafNode);
+            }
+            return;
+        }
+
+        // Node has no parent. Create a parent
+        if (leafNode.getParent() == null) {
+            InternalNode parent = new InternalNode(1);
+            parent.addChildPointer(leafNode);
+            leafNode.setParent(parent);
+            root = parent;
+            if (metrics != null) {
+                metrics.rootSplits.increment();
+            }
+        }
+        InternalNode parent = leafNode.getParent();
+        int childIndex = parent.findChildIndex(leafNode);
+
+        // Pieces of equal size, each at least half full as there are fewer than two full nodes per piece
+        int pieces = (merged + maximumDataInLeafNode - 1) / maximumDataInLeafNode;
+        if (metrics != null) {
+            metrics.leafSplits.add(pieces - 1);
+            metrics.leafNodes.add(pieces - 1);
+            metrics.pairs.add(merged - previousCount);
+        }
+        LeafNode previous = leafNode;
+        int offset = 0;
+        for (int piece = 0; piece < pieces; piece++) {
+            int size = merged / pieces + (piece < merged % pieces ? 1 : 0);
+            LeafNode pieceNode = piece == 0 ? leafNode : new LeafNode();
+            System.arraycopy(mergedKeys, offset, pieceNode.keys, 0, size);
+            System.arraycopy(mergedValues, offset, pieceNode.values, 0, size);
+            pieceNode.setNumberOfPairs(size);
+            pieceNode.rebuildFilter();
+            if (piece > 0) {
+                pieceNode.setParent(parent);
+                parent.insertChild(childIndex + piece - 1, mergedKeys[offset], pieceNode);
+
+                // adjust the left and right siblings
+                pieceNode.setRightSibling(previous.getRightSibling());
+                if (pieceNode.getRightSibling() != null) {
+                    pieceNode.getRightSibling().setLeftSibling(pieceNode);
+                }
+                previous.setRightSibling(pieceNode);
+                pieceNode.setLeftSibling(previous);
+                previous = pieceNode;
+            }
+            offset += size;
+        }
+        // The totals of the pieces are computed from their pairs, those of the ancestors from their children
+        parent.refreshChildTotals(childIndex);
+        if (augmented) {
+            refreshAncestorTotals(parent);
+        }
+        splitOverfullInternalNodes(parent);
+    }
+
+    /**
+     * This method splits an Internal Node having more children than the maximum degree into as many
+     * Internal Nodes as needed, adds them to its parent and does the same for the parent up to the root.
+     *
+     * @param internalNode node to be split
+     */
+    private void splitOverfullInternalNodes(InternalNode internalNode) {
+        while (internalNode.getDegree() > internalNodeMaximumDegree) {
+            // Node has no parent (root node). Create a new parent and set it as new root node
+            if (internalNode.getParentNode() == null) {
+                InternalNode newRoot = new InternalNode(internalNode.getLevel() + 1);
+                newRoot.addChildPointer(internalNode);
+                internalNode.setParentNode(newRoot);
+                root = newRoot;
+                if (metrics != null) {
+                    metrics.rootSplits.increment();
+                }
+            }
+            InternalNode parent = internalNode.getParentNode();
+            int childIndex = parent.findChildIndex(internalNode);
+            int[] keys = internalNode.getKeys();
+            Node[] children = internalNode.getChildren();
+
+            int degree = internalNode.getDegree();
+            int pieces = (degree + internalNodeMaximumDegree - 1) / internalNodeMaximumDegree;
+            if (metrics != null) {
+                metrics.internalSplits.add(pieces - 1);
+            }
+            int firstSize = degree / pieces + (degree % pieces > 0 ? 1 : 0);
+            InternalNode previous = internalNode;
+            int offset = firstSize;
+            for (int piece = 1; piece < pieces; piece++) {
+                int size = degree / pieces + (piece < degree % pieces ? 1 : 0);
+                // The key in between two pieces moves up to the parent
+                InternalNode pieceNode = new InternalNode(internalNode.getLevel());
+                for (int i = offset; i < offset + size; i++) {
+                    if (i > offset) {
+                        pieceNode.insertChild(i - offset - 1, keys[i - 1], children[i]);
+                    } else {
+                        pieceNode.addChildPointer(children[i]);
+                    }
+                    setParentOfChild(children[i], pieceNode);
+                }
+                pieceNode.setParentNode(parent);
+                parent.insertChild(childIndex + piece - 1, keys[offset - 1], pieceNode);
+
+                // adjust left and right siblings
+                pieceNode.setRightSibling(previous.getRightSibling());
+                if (pieceNode.getRightSibling() != null) {
+                    pieceNode.getRightSibling().setLeftSibling(pieceNode);
+                }
+                previous.setRightSibling(pieceNode);
+                pieceNode.setLeftSibling(previous);
+                previous = pieceNode;
+                offset += size;
+            }
+            Arrays.fill(children, firstSize, degree, null);
+            internalNode.setDegree(firstSize);
+            parent.refreshChildTotals(childIndex);
+            internalNode = parent;
+        }
+    }
+
+    /**
+     * This method loads key value pairs into an empty B+ Tree bottom up, filling nodes completely.
+     * See {@link #bulkLoad(int[], double[], double)}.
+     *
+     * @param keys   keys to be loaded
+     * @param values values to be loaded, values[i] belongs to keys[i]
+     */
+    public void bulkLoad(int[] keys, double[] values) {
+        bulkLoad(keys, values, DEFAULT_FILL_FACTOR);
+    }
+
+    /**
+     * This method loads key value pairs into an empty B+ Tree bottom up.
+     * Leaf Nodes and Internal Nodes are filled to the fill factor, linked with their siblings
+     * and the Internal Node levels are built in one pass, without any splits.
+     * If keys are not in increasing order the pairs are sorted first. The arrays are not modified.
+     *
+     * @param keys       keys to be loaded
+     * @param values     values to be loaded, values[i] belongs to keys[i]
+     * @param fillFactor fraction of the maximum number of pairs or children each node is filled to, in (0, 1]
+     */
+    public void bulkLoad(int[] keys, double[] values, double fillFactor) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values must have the same length");
+        }
+        checkEmptyForBulkLoad();
+
+        BulkLoader loader = new BulkLoader(fillFactor);
+        for (int i = 0; i < keys.length; i++) {
+            if (!loader.add(keys[i], values[i])) {
+                // Unsorted input. Sort a copy of the pairs and start over
+                int[] sortedKeys = keys.clone();
+                double[] sortedValues = values.clone();
+                ExternalSorter.sortPairs(sortedKeys, sortedValues, sortedKeys.length);
+                loader = new BulkLoader(fillFactor);
+                for (int j = 0; j < sortedKeys.length; j++) {
+                    loader.add(sortedKeys[j], sortedValues[j]);
+                }
+                break;
+            }
+        }
+        loader.finish();
+    }
+
+    /**
+     * This method loads key value pairs into an empty B+ Tree bottom up, filling nodes completely.
+     * See {@link #bulkLoad(Iterator, double, File)}.
+     *
+     * @param pairs key value pairs to be loaded
+     * @throws IOException if the pairs are not sorted and the external sort fails
+     */
+    public void bulkLoad(Iterator<Data> pairs) throws IOException {
+        bulkLoad(pairs, DEFAULT_FILL_FACTOR, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * This method loads key value pairs into an empty B+ Tree bottom up.
+     * Pairs are expected in increasing order of keys and are packed into Leaf Nodes as they arrive.
+     * If a pair arrives out of order, the pairs loaded so far and the remaining pairs are sorted with an
+     * {@link ExternalSorter} writing its runs to tempDirectory, and the load starts over from the sorted pairs.
+     *
+     * @param pairs         key value pairs to be loaded
+     * @param fillFactor    fraction of the maximum number of pairs or children each node is filled to, in (0, 1]
+     * @param tempDirectory directory for the external sort run files
+     * @throws IOException if the pairs are not sorted and the external sort fails
+     */
+    public void bulkLoad(Iterator<Data> pairs, double fillFactor, File tempDirectory) throws IOException {
+        checkEmptyForBulkLoad();
+
+        BulkLoader loader = new BulkLoader(fillFactor);
+        while (pairs.hasNext()) {
+            Data data = pairs.next();
+            if (!loader.add(data.getKey(), data.getValue())) {
+                // Unsorted input. Sort everything seen so far and the rest of the input externally
+                try (ExternalSorter sorter = new ExternalSorter(tempDirectory, ExternalSorter.DEFAULT_RUN_SIZE)) {
+                    for (LeafNode node : loader.leafNodes) {
+                        for (int i = 0; i < node.getNumberOfPairs(); i++) {
+                            sorter.add(node.getKey(i), node.getValue(i));
+                        }
+                    }
+                    loader = new BulkLoader(fillFactor);
+                    sorter.add(data.getKey(), data.getValue());
+                    while (pairs.hasNext()) {
+                        data = pairs.next();
+                        sorter.add(data.getKey(), data.getValue());
+                    }
+                    sorter.sort();
+                    while (sorter.next()) {
+                        loader.add(sorter.getKey(), sorter.getValue());
+                    }
+                }
+                break;
+            }
+        }
+        loader.finish();
+    }
+
+    /**
+     * This method checks that the tree is empty before a bulk load.
+     */
+    private void checkEmptyForBulkLoad() {
+        if (firstLeafNode != null) {
+            throw new IllegalStateException("Bulk load requires an empty tree");
+        }
+    }
+
     /**
      * This method is used to get the leaf node which has the key from an internal node.
-     * It accepts Internal Node and Key and returns the Leaf Node which contains the key
+     * It accepts Internal Node and Key and returns the Leaf Node which contains the key.
+     * It descends one level per step down to level 1, whose children are Leaf Nodes.
      *
      * @param node the Internal Node from where leaf node needs to be found
      * @param key key to be found
@@ -1004,18 +2643,65 @@ public class bplustree {
      * @return Leaf Node which contains the key
      */
     public LeafNode getLeafNode(InternalNode node, int key) {
-        ArrayList<Integer> keys = node.getListOfKeys();
-        int index = 0;
+        for (int level = node.getLevel(); level > 1; level--) {
+            node = (InternalNode) node.children[node.findChildIndexForKey(key, node.degree - 1)];
+        }
+        return (LeafNode) node.children[node.findChildIndexForKey(key, node.degree - 1)];
+    }
 
-        while (index < node.getDegree() - 1) {
-            if (keys.get(index) > key) {
-                break;
+    /**
+     * This method is used to get the leaf node which has the key.
+     * It starts from the root if the tree has one, else the only leaf node is returned.
+     *
+     * @param key key to be found
+     * @return Leaf Node which contains the key, null if the tree is empty
+     */
+    public LeafNode findLeafNode(int key) {
+        return root != null ? getLeafNode(root, key) : firstLeafNode;
+    }
+
+    /**
+     * This method is used to get the leaf node an inserted key goes into.
+     * If the key lies within the fence keys of the Leaf Node of the previous insert, that Leaf Node is returned
+     * without descending from the root. Else the tree is descended and the Leaf Node found becomes the hint, with
+     * the largest separator left of the path as lower fence key and the smallest separator right of it as upper
+     * fence key. Keys arriving in increasing order, like timestamps, descend once per Leaf Node.
+     *
+     * @param key key to be inserted
+     * @return Leaf Node which the key belongs to
+     */
+    private LeafNode findInsertLeafNode(int key) {
+        if (insertHint != null && key >= insertHintLowerBound && key < insertHintUpperBound) {
+            if (metrics != null) {
+                metrics.insertHintHits.increment();
+            }
+            return insertHint;
+        }
+        long lowerBound = Long.MIN_VALUE;
+        long upperBound = Long.MAX_VALUE;
+        LeafNode leafNode = firstLeafNode;
+        if (root != null) {
+            InternalNode node = root;
+            while (true) {
+                int numberOfKeys = node.getDegree() - 1;
+                int childIndex = node.findChildIndexForKey(key, numberOfKeys);
+                if (childIndex > 0) {
+                    lowerBound = Math.max(lowerBound, node.getKey(childIndex - 1));
+                }
+                if (childIndex < numberOfKeys) {
+                    upperBound = Math.min(upperBound, node.getKey(childIndex));
+                }
+                if (node.getLevel() == 1) {
+                    leafNode = (LeafNode) node.getChild(childIndex);
+                    break;
+                }
+                node = (InternalNode) node.getChild(childIndex);
             }
-            index++;
         }
-
-        Object child = node.getListOfChildren().get(index);
-        return child instanceof InternalNode ? getLeafNode((InternalNode) child, key) : (LeafNode) child;
+        insertHint = leafNode;
+        insertHintLowerBound = lowerBound;
+        insertHintUpperBound = upperBound;
+        return leafNode;
     }
 
     /**
@@ -1031,94 +2717,84 @@ public class bplustree {
     public void adjustInternalNodes(InternalNode node) {
         InternalNode sibling;
         InternalNode parent = node.getParentNode();
-        // If root is current node and is deficient. Check if it has Internal Node as child. If not set it to null
+        if (metrics != null) {
+            metrics.internalAdjustments.increment();
+        }
+        // If root is current node and is left with one child. Set the child as root if it is an Internal Node,
+        // else the tree has a single Leaf Node and root is set to null
         if (root.equals(node)) {
-            for (Object child : node.getListOfChildren()) {
-                if (child != null) {
-                    // Internal Node is a child. Set it to root
-                    if (child instanceof InternalNode) {
-                        root = (InternalNode) child;
-                        root.setParentNode(null);
-                    } else {
-                        root = null;
-                    }
+            if (node.getDegree() == 1) {
+                Node child = node.getChild(0);
+                // Internal Node is a child. Set it to root
+                if (child instanceof InternalNode) {
+                    root = (InternalNode) child;
+                    root.setParentNode(null);
+                } else {
+                    root = null;
+                    ((LeafNode) child).setParent(null);
                 }
             }
         }
         // Current Node is deficient but not root. It can borrow from Left sibling
         else if (node.checkCanBorrow(internalNodeMinimumDegree, node.getLeftSibling())) {
             sibling = node.getLeftSibling();
+            if (metrics != null) {
+                metrics.internalBorrows.increment();
+            }
             // Get Last key and child from sibling
-            int borrowedKey = sibling.getListOfKeys().get(sibling.getDegree() - 1);
-            Object child = sibling.getListOfChildren().get(sibling.getDegree());
+            int borrowedKey = sibling.getKey(sibling.getDegree() - 2);
+            Node child = sibling.getChild(sibling.getDegree() - 1);
 
-            // Add parents node - 1 key to node and add siblings last child to node. Add borrowed key to parent
+            // Add parents node - 1 key to node and add siblings last child to node. Borrowed key replaces it in parent
             int nodeIndexFromParent = parent.findChildIndex(node) - 1;
-            node.getListOfKeys().add(0, parent.getListOfKeys().get(nodeIndexFromParent));
-            node.getListOfChildren().add(0, child);
-            parent.getListOfKeys().add(0, borrowedKey);
+            node.insertFirstChild(child, parent.getKey(nodeIndexFromParent));
+            setParentOfChild(child, node);
+            parent.setKey(nodeIndexFromParent, borrowedKey);
 
-            //Remove node - 1 key of parent, remove sibling last key and last child
-            parent.getListOfKeys().remove(nodeIndexFromParent);
-            sibling.getListOfChildren().remove(child);
-            sibling.getListOfKeys().remove(sibling.getDegree() - 1);
-            sibling.setDegree(sibling.getDegree() - 1);
-            sibling.sortKeys();
+            //Remove sibling last key and last child
+            sibling.removeChild(sibling.getDegree() - 2, sibling.getDegree() - 1);
+            parent.refreshChildTotals(nodeIndexFromParent);
+            parent.refreshChildTotals(nodeIndexFromParent + 1);
         }
         // Current Node is deficient but not root. It can borrow from Right sibling
         else if (node.checkCanBorrow(internalNodeMinimumDegree, node.getRightSibling())) {
             sibling = node.getRightSibling();
+            if (metrics != null) {
+                metrics.internalBorrows.increment();
+            }
 
             // Get first key and child from sibling
-            int borrowedKey = sibling.getListOfKeys().get(0);
-            Object child = sibling.getListOfChildren().get(0);
+            int borrowedKey = sibling.getKey(0);
+            Node child = sibling.getChild(0);
 
-            // Add parents node position key to node and add siblings last child to node. Add borrowed key to parent
+            // Add parents node position key to node and add siblings first child to node. Borrowed key replaces it in parent
             int nodeIndexFromParent = parent.findChildIndex(node);
-            node.getListOfKeys().add(node.getDegree() - 1, parent.getListOfKeys().get(nodeIndexFromParent));
-            node.getListOfChildren().add(node.getDegree(), child);
-            parent.getListOfKeys().add(parent.getDegree() - 1, borrowedKey);
+            node.insertChild(node.getDegree() - 1, parent.getKey(nodeIndexFromParent), child);
+            setParentOfChild(child, node);
+            parent.setKey(nodeIndexFromParent, borrowedKey);
 
-            //Remove node key of parent, remove sibling last key and last child
-            parent.getListOfKeys().remove(nodeIndexFromParent);
-            sibling.getListOfChildren().remove(child);
-            sibling.getListOfKeys().remove(0);
-            sibling.setDegree(sibling.getDegree() - 1);
-            sibling.sortKeys();
+            //Remove sibling first key and first child
+            sibling.removeChild(0, 0);
+            parent.refreshChildTotals(nodeIndexFromParent);
+            parent.refreshChildTotals(nodeIndexFromParent + 1);
         }
         // Current Node is deficient but not root. It can merge with Left sibling
         else if (node.checkCanMerge(internalNodeMinimumDegree, node.getLeftSibling())) {
             sibling = node.getLeftSibling();
+            if (metrics != null) {
+                metrics.internalMerges.increment();
+            }
 
-            // Add node - 1 key from parent to sibling
+            // Add node - 1 key from parent, node's keys and node's children to the end of sibling's
             int childPointerIndex = parent.findChildIndex(node);
-            sibling.getListOfKeys().add(sibling.getDegree() - 1, parent.getListOfKeys().get(childPointerIndex - 1));
-            sibling.sortKeys();
-
-            //Add node's children to sibling
-            int nodeChildListSize = node.getListOfChildren().size();
-            for (int i = 0; i < nodeChildListSize; i++) {
-                Object child = node.getListOfChildren().get(i);
-                if (child != null) {
-                    //sibling.shiftRightChildren(child);
-                    sibling.getListOfChildren().add(sibling.getDegree(), child);
-                    sibling.setDegree(sibling.getDegree() + 1);
-                    if (child instanceof InternalNode) {
-                        InternalNode childInternal = (InternalNode) child;
-                        childInternal.setParentNode(sibling);
-                    } else {
-                        LeafNode leafNode = (LeafNode) child;
-                        leafNode.setParent(sibling);
-                    }
-                    node.getListOfChildren().remove(child);
-                    node.setDegree(node.getDegree() - 1);
-                }
+            sibling.appendChildren(parent.getKey(childPointerIndex - 1), node);
+            for (int i = 0; i < node.getDegree(); i++) {
+                setParentOfChild(node.getChild(i), sibling);
             }
 
             //Remove node - 1 key from parent and remove node from parent
-            parent.getListOfKeys().remove(childPointerIndex - 1);
-            parent.getListOfChildren().remove(node);
-            parent.setDegree(parent.getDegree() - 1);
+            parent.removeChild(childPointerIndex - 1, childPointerIndex);
+            parent.refreshChildTotals(childPointerIndex - 1);
 
             // Adjust left and right siblings
             if (node.getRightSibling() != null) {
@@ -1127,36 +2803,20 @@ public class bplustree {
             sibling.setRightSibling(node.getRightSibling());
         } else if (node.checkCanMerge(internalNodeMinimumDegree, node.getRightSibling())) {
             sibling = node.getRightSibling();
+            if (metrics != null) {
+                metrics.internalMerges.increment();
+            }
 
-            // Add node key from parent to sibling
+            // Add node's keys, node key from parent and node's children to the start of sibling's, keeping their order
             int childPointerIndex = parent.findChildIndex(node);
-            sibling.getListOfKeys().add(0, parent.getListOfKeys().get(childPointerIndex));
-            sibling.sortKeys();
-
-            //Add node's children to sibling
-            int nodeChildListSize = node.getListOfChildren().size();
-            for (int i = 0; i < nodeChildListSize; i++) {
-                Object child = node.getListOfChildren().get(i);
-                if (child != null) {
-                    //sibling.shiftRightChildren(child);
-                    sibling.getListOfChildren().add(0, child);
-                    sibling.setDegree(sibling.getDegree() + 1);
-                    if (child instanceof InternalNode) {
-                        InternalNode childInternal = (InternalNode) child;
-                        childInternal.setParentNode(sibling);
-                    } else {
-                        LeafNode leafNode = (LeafNode) child;
-                        leafNode.setParent(sibling);
-                    }
-                    node.getListOfChildren().remove(child);
-                    node.setDegree(node.getDegree() - 1);
-                }
+            sibling.prependChildren(node, parent.getKey(childPointerIndex));
+            for (int i = 0; i < node.getDegree(); i++) {
+                setParentOfChild(node.getChild(i), sibling);
             }
 
             //Remove node key from parent and remove node from parent
-            parent.getListOfKeys().remove(childPointerIndex);
-            parent.getListOfChildren().remove(node);
-            parent.setDegree(parent.getDegree() - 1);
+            parent.removeChild(childPointerIndex, childPointerIndex);
+            parent.refreshChildTotals(childPointerIndex);
 
             // Adjust left and right siblings
             if (node.getLeftSibling() != null) {
@@ -1167,10 +2827,27 @@ public class bplustree {
 
         // Recursively adjust parent Internal Node if it is deficient
         if (parent != null && parent.getDegree() < internalNodeMinimumDegree) {
+            if (metrics != null) {
+                metrics.adjustmentCascades.increment();
+            }
             adjustInternalNodes(parent);
         }
     }
 
+    /**
+     * This method sets the parent of a child pointer of an Internal Node.
+     *
+     * @param child  Internal Node or Leaf Node whose parent is to be set
+     * @param parent new parent of the child
+     */
+    private void setParentOfChild(Node child, InternalNode parent) {
+        if (child instanceof InternalNode) {
+            ((InternalNode) child).setParentNode(parent);
+        } else {
+            ((LeafNode) child).setParent(parent);
+        }
+    }
+
     /**
      * This method is used to delete key value pair from B+ Tree whose key is provided in the arguments.
      * It accepts a key and delete corresponding key value from leaf node.
@@ -1183,75 +2860,101 @@ public class bplustree {
      * @param key key of the key value pair to be deleted
      */
     public void delete(int key) {
+        TreeMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (lookupCache != null) {
+            lookupCache.invalidate(key);
+        }
         // Tree is not empty
         if (firstLeafNode != null) {
             // Find the leaf node where the key value pair is and find the index of the key in the leaf node
-            LeafNode lastNode = root != null ? getLeafNode(root, key) : firstLeafNode;
+            LeafNode lastNode = findLeafNode(key);
             int deleteKeyIndex = lastNode.findIndexOfKeyInData(key);
             if (deleteKeyIndex > -1) {
                 //delete the key
-                lastNode.getListOfData().remove(deleteKeyIndex);
-                lastNode.setNumberOfPairs(lastNode.getNumberOfPairs() - 1);
+                lastNode.removeData(deleteKeyIndex);
+                if (augmented) {
+                    refreshAncestorTotals(lastNode);
+                }
+                if (metrics != null) {
+                    metrics.pairs.decrement();
+                }
 
                 // Empty Tree
                 if (root == null && firstLeafNode.getNumberOfPairs() == 0) {
                     firstLeafNode = null;
-                }
-                // Node is not deficient
-                else if (lastNode.getNumberOfPairs() >= minimumDataInLeafNode) {
-                    lastNode.sortData();
+                    insertHint = null;
+                    if (metrics != null) {
+                        metrics.leafNodes.decrement();
+                    }
                 }
                 // Node is deficient
-                else {
+                else if (root != null && lastNode.getNumberOfPairs() < minimumDataInLeafNode) {
+                    // Borrows change separators and merges remove Leaf Nodes, either may move fence keys
+                    insertHint = null;
                     LeafNode sibling = null;
                     InternalNode parent = lastNode.getParent();
                     // It can borrow from Left sibling
                     if (lastNode.checkCanBorrow(minimumDataInLeafNode, lastNode.getLeftSibling())) {
                         sibling = lastNode.getLeftSibling();
+                        if (metrics != null) {
+                            metrics.leafBorrows.increment();
+                        }
 
                         // Insert sibling last element into lastNode
-                        Data borrowedElement = sibling.getListOfData().get(sibling.getNumberOfPairs() - 1);
-                        lastNode.insertData(maximumDataInLeafNode, borrowedElement);
-                        lastNode.sortData();
+                        int borrowedKey = sibling.getKey(sibling.getNumberOfPairs() - 1);
+                        double borrowedValue = sibling.getValue(sibling.getNumberOfPairs() - 1);
+                        lastNode.insertData(maximumDataInLeafNode, borrowedKey, borrowedValue);
 
                         // Remove sibling last element
-                        sibling.getListOfData().remove(sibling.getNumberOfPairs() - 1);
-                        sibling.setNumberOfPairs(sibling.getNumberOfPairs() - 1);
+                        sibling.removeData(sibling.getNumberOfPairs() - 1);
 
                         // Update parent pointer if needed
                         int childPointerIndex = parent.findChildIndex(lastNode);
-                        if (borrowedElement.getKey() < parent.getListOfKeys().get(childPointerIndex - 1)) {
-                            parent.getListOfKeys().set(childPointerIndex - 1, lastNode.getListOfData().get(0).getKey());
+                        parent.refreshChildTotals(childPointerIndex);
+                        parent.refreshChildTotals(childPointerIndex - 1);
+                        if (borrowedKey < parent.getKey(childPointerIndex - 1)) {
+                            parent.setKey(childPointerIndex - 1, lastNode.getKey(0));
                         }
                     }
                     // It can borrow from Right sibling
                     else if (lastNode.checkCanBorrow(minimumDataInLeafNode, lastNode.getRightSibling())) {
                         sibling = lastNode.getRightSibling();
+                        if (metrics != null) {
+                            metrics.leafBorrows.increment();
+                        }
 
                         // Insert sibling first element into lastNode
-                        Data borrowedElement = sibling.getListOfData().get(0);
-                        lastNode.insertData(maximumDataInLeafNode, borrowedElement);
-                        lastNode.sortData();
+                        int borrowedKey = sibling.getKey(0);
+                        double borrowedValue = sibling.getValue(0);
+                        lastNode.insertData(maximumDataInLeafNode, borrowedKey, borrowedValue);
 
                         // Remove sibling first element
-                        sibling.getListOfData().remove(0);
-                        sibling.setNumberOfPairs(sibling.getNumberOfPairs() - 1);
+                        sibling.removeData(0);
 
                         // Update parent pointer if needed
                         int childPointerIndex = parent.findChildIndex(lastNode);
-                        if (borrowedElement.getKey() >= parent.getListOfKeys().get(childPointerIndex)) {
-                            parent.getListOfKeys().set(childPointerIndex, sibling.getListOfData().get(0).getKey());
+                        parent.refreshChildTotals(childPointerIndex);
+                        parent.refreshChildTotals(childPointerIndex + 1);
+                        if (borrowedKey >= parent.getKey(childPointerIndex)) {
+                            parent.setKey(childPointerIndex, sibling.getKey(0));
                         }
                     }
                     // It can merge with Left sibling
-                    else if (lastNode.checkCanMerge(minimumDataInLeafNode, lastNode.getLeftSibling())) {
+                    else if (lastNode.checkCanMerge(maximumDataInLeafNode, lastNode.getLeftSibling())) {
                         sibling = lastNode.getLeftSibling();
+                        if (metrics != null) {
+                            metrics.leafMerges.increment();
+                            metrics.leafNodes.decrement();
+                        }
+
+                        // Move remaining pairs of lastNode to sibling
+                        lastNode.moveDataTo(sibling);
 
                         // Remove lastNode child pointer and lastNode - 1 key from parent
                         int childPointerIndex = parent.findChildIndex(lastNode);
-                        parent.getListOfKeys().remove(childPointerIndex - 1);
-                        parent.getListOfChildren().remove(childPointerIndex);
-                        parent.setDegree(parent.getDegree() - 1);
+                        parent.removeChild(childPointerIndex - 1, childPointerIndex);
+                        parent.refreshChildTotals(childPointerIndex - 1);
 
                         // Adjust left and right siblings
                         if (lastNode.getRightSibling() != null) {
@@ -1260,14 +2963,20 @@ public class bplustree {
                         sibling.setRightSibling(lastNode.getRightSibling());
                     }
                     // It can merge with Right sibling
-                    else if (lastNode.checkCanMerge(minimumDataInLeafNode, lastNode.getRightSibling())) {
+                    else if (lastNode.checkCanMerge(maximumDataInLeafNode, lastNode.getRightSibling())) {
                         sibling = lastNode.getRightSibling();
+                        if (metrics != null) {
+                            metrics.leafMerges.increment();
+                            metrics.leafNodes.decrement();
+                        }
+
+                        // Move remaining pairs of lastNode to sibling
+                        lastNode.moveDataTo(sibling);
 
                         // Remove lastNode child pointer and lastNode key from parent
                         int childPointerIndex = parent.findChildIndex(lastNode);
-                        parent.getListOfKeys().remove(childPointerIndex);
-                        parent.getListOfChildren().remove(childPointerIndex);
-                        parent.setDegree(parent.getDegree() - 1);
+                        parent.removeChild(childPointerIndex, childPointerIndex);
+                        parent.refreshChildTotals(childPointerIndex);
 
                         // Adjust left and right siblings
                         sibling.setLeftSibling(lastNode.getLeftSibling());
@@ -1289,36 +2998,159 @@ public class bplustree {
         }else{
             System.out.println("Tree is empty. Cannot delete");
         }
+        if (metrics != null) {
+            metrics.deleteLatency.record(System.nanoTime() - start);
+        }
     }
 
     /**
      * This method searches for a given key in the B+ Tree and prints the value
      * of that particular key value pair to the output file.
      * It accepts a key and writes value of that key if key is found else writes 'Null' to output file
+     * <p>
+     * The result goes to {@link #writer}. The default writer on standard output is flushed after every result,
+     * the file writer of {@link #initializeWriter()} only when it is flushed or closed.
      *
      * @param key key to be searched
      */
     public void search(int key) {
-        String result = null;
-
-        if (firstLeafNode != null) {
+        TreeMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        LeafNode node = null;
+        int index = -1;
+        LookupCache lookupCache = this.lookupCache;
+        int entry = lookupCache != null ? lookupCache.lookup(key) : -1;
+        if (entry < 0 && firstLeafNode != null && passesTreeFilter(key)) {
             // Search for leaf node that contains the key
-            LeafNode node = root != null ? getLeafNode(root, key) : firstLeafNode;
-            for (Data data : node.getListOfData()) {
-                if (data.getKey() == key) {
-                    result = Double.toString(data.getValue());
-                    break;
-                }
+            node = findLeafNode(key);
+            index = passesLeafFilter(node, key) ? node.findIndexOfKeyInData(key) : -1;
+            if (lookupCache != null && index > -1) {
+                cacheValue(lookupCache, node, index);
             }
         }
+        if (metrics != null) {
+            metrics.searchLatency.record(System.nanoTime() - start);
+        }
 
-        // Value not found write 'Null'
-        if (result == null) {
-            writer.info(NULL_VALUE);
+        // Value found in the lookup cache write Value
+        if (entry > -1) {
+            writer.writeDouble(lookupCache.getValue(entry)).newLine();
         }
         // Value found write Value
+        else if (index > -1) {
+            writer.writeDouble(node.getValue(index)).newLine();
+        }
+        // Value not found write 'Null'
         else {
-            writer.info(result);
+            writer.write(NULL_VALUE).newLine();
+        }
+    }
+
+    /**
+     * This method searches for a given key in the B+ Tree and returns the value
+     * of that particular key value pair without writing it to the output file.
+     *
+     * @param key          key to be searched
+     * @param defaultValue value to be returned if the key is not found
+     * @return value of the key if key is found else defaultValue
+     */
+    public double searchValue(int key, double defaultValue) {
+        TreeMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        double value = defaultValue;
+        LookupCache lookupCache = this.lookupCache;
+        int entry = lookupCache != null ? lookupCache.lookup(key) : -1;
+        if (entry > -1) {
+            value = lookupCache.getValue(entry);
+        } else if (firstLeafNode != null && passesTreeFilter(key)) {
+            LeafNode node = findLeafNode(key);
+            int index = passesLeafFilter(node, key) ? node.findIndexOfKeyInData(key) : -1;
+            if (index > -1) {
+                value = node.getValue(index);
+                if (lookupCache != null) {
+                    cacheValue(lookupCache, node, index);
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.searchLatency.record(System.nanoTime() - start);
+        }
+        return value;
+    }
+
+    /**
+     * This method tests a key against the tree filter before a point search descends, counting rejections.
+     *
+     * @param key key to be searched
+     * @return false if the key is not in the B+ Tree, true if it may be or there is no tree filter
+     */
+    private boolean passesTreeFilter(int key) {
+        BloomFilter treeFilter = this.treeFilter;
+        if (treeFilter == null || treeFilter.mightContain(key)) {
+            return true;
+        }
+        if (metrics != null) {
+            metrics.treeFilterRejections.increment();
+        }
+        return false;
+    }
+
+    /**
+     * This method tests a key against the filter of the Leaf Node a point search reached, counting rejections.
+     *
+     * @param node Leaf Node the key belongs to
+     * @param key  key to be searched
+     * @return false if the key is not in the Leaf Node, true if it may be or the Leaf Node has no filter
+     */
+    private boolean passesLeafFilter(LeafNode node, int key) {
+        if (node.mightContain(key)) {
+            return true;
+        }
+        if (metrics != null) {
+            metrics.leafFilterRejections.increment();
+        }
+        return false;
+    }
+
+    /**
+     * This method builds the tree filter again from the keys of the Leaf Nodes, sized for twice the number of pairs.
+     */
+    private void rebuildTreeFilter() {
+        long pairs = 0;
+        for (LeafNode node = firstLeafNode; node != null; node = node.getRightSibling()) {
+            pairs += node.getNumberOfPairs();
+        }
+        BloomFilter filter = new BloomFilter(Math.max(1024, 2 * pairs));
+        for (LeafNode node = firstLeafNode; node != null; node = node.getRightSibling()) {
+            for (int i = 0; i < node.getNumberOfPairs(); i++) {
+                filter.add(node.getKey(i));
+            }
+        }
+        treeFilter = filter;
+    }
+
+    /**
+     * This method caches the value of a key found by a point search. A key stored more than once is not cached:
+     * which of its pairs a search finds depends on how they are split between Leaf Nodes, which changes with
+     * inserts and deletes of other keys.
+     *
+     * @param lookupCache lookup cache of the B+ Tree
+     * @param node        Leaf Node holding the key
+     * @param index       index of the first pair of the key in the Leaf Node
+     */
+    private void cacheValue(LookupCache lookupCache, LeafNode node, int index) {
+        int key = node.getKey(index);
+        int numberOfPairs = node.getNumberOfPairs();
+        LeafNode leftSibling = node.getLeftSibling();
+        LeafNode rightSibling = node.getRightSibling();
+        boolean repeated = index + 1 < numberOfPairs ? node.getKey(index + 1) == key
+                : rightSibling != null && rightSibling.getNumberOfPairs() > 0 && rightSibling.getKey(0) == key;
+        if (index == 0 && leftSibling != null && leftSibling.getNumberOfPairs() > 0
+                && leftSibling.getKey(leftSibling.getNumberOfPairs() - 1) == key) {
+            repeated = true;
+        }
+        if (!repeated) {
+            lookupCache.put(key, node.getValue(index));
         }
     }
 
@@ -1328,44 +3160,465 @@ public class bplustree {
      *
      * It accepts lowerBound and upperBound and writes value of those keys which fall in range of [lowerBound, upperBound]
      * else writes 'Null' if no  values are found to output file
+     * <p>
+     * The result goes to {@link #writer}. The default writer on standard output is flushed after every result,
+     * the file writer of {@link #initializeWriter()} only when it is flushed or closed.
      *
      * @param lowerBound lowerBound of the range of keys to be searched
      * @param upperBound upperBound of the range of keys to be searched
      */
     public void search(int lowerBound, int upperBound) {
-        ArrayList<Double> resultsList = new ArrayList();
+        TreeMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        RangeCursor cursor = rangeCursor(lowerBound, upperBound);
 
-        if (firstLeafNode != null) {
-            // Search for leaf node that contains the key
-            LeafNode node = root != null ? getLeafNode(root, lowerBound) : firstLeafNode;
-            while (node != null) {
-                ArrayList<Data> dataList = node.getListOfData();
-                for (Data data : dataList) {
-                    if (lowerBound <= data.getKey() && data.getKey() <= upperBound) {
-                        resultsList.add(data.getValue());
+        // Values not found write 'Null'
+        if (!cursor.next()) {
+            writer.write(NULL_VALUE).newLine();
+        }
+        // Values found write all values comma seperated eg., 1.0,2.0,3.0
+        else {
+            writer.writeDouble(cursor.getValue());
+            while (cursor.next()) {
+                writer.write(',').writeDouble(cursor.getValue());
+            }
+            writer.newLine();
+        }
+        // Range search latency includes formatting the values, which is interleaved with the scan
+        if (metrics != null) {
+            metrics.rangeSearchLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * This method returns a cursor over the key value pairs whose keys are in between
+     * lowerBound and upperBound included, in increasing order of keys.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @return cursor positioned before the first pair in the range
+     */
+    public RangeCursor rangeCursor(int lowerBound, int upperBound) {
+        return new RangeCursor(lowerBound, upperBound, 0, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * This method returns a cursor over the key value pairs whose keys are in between
+     * lowerBound and upperBound included, in increasing order of keys.
+     * The first offset pairs are skipped and at most limit pairs are returned.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param offset     number of pairs in the range to be skipped
+     * @param limit      maximum number of pairs to be returned
+     * @return cursor positioned before the first pair to be returned
+     */
+    public RangeCursor rangeCursor(int lowerBound, int upperBound, long offset, long limit) {
+        return new RangeCursor(lowerBound, upperBound, offset, limit, false);
+    }
+
+    /**
+     * This method returns a cursor over the key value pairs whose keys are in between
+     * lowerBound and upperBound included, in decreasing order of keys.
+     * The first offset pairs are skipped and at most limit pairs are returned.
+     *
+     * @param lowerBound lowerBound of the range of keys to be searched
+     * @param upperBound upperBound of the range of keys to be searched
+     * @param offset     number of pairs in the range to be skipped
+     * @param limit      maximum number of pairs to be returned
+     * @return cursor positioned before the first pair to be returned
+     */
+    public RangeCursor reverseRangeCursor(int lowerBound, int upperBound, long offset, long limit) {
+        return new RangeCursor(lowerBound, upperBound, offset, limit, true);
+    }
+
+    /**
+     * This method searches for many keys at once and returns their values without writing them to the output file.
+     *
+     * @param keys keys to be searched, in any order
+     * @return values of the keys in the order of the keys and the bitmap of keys found
+     */
+    public MultiGetResult multiGet(int[] keys) {
+        MultiGetResult result = new MultiGetResult(keys.length);
+        multiGet(keys, result.values, result.found);
+        return result;
+    }
+
+    /**
+     * This method searches for many keys at once. The keys are visited in sorted order, so the
+     * path from the root is kept between keys: for each key it climbs only as far as the Internal Node
+     * whose key range still holds the key and descends from there, and keys in the same Leaf Node
+     * share one descent.
+     *
+     * @param keys   keys to be searched, in any order
+     * @param values receives the value of keys[i] in values[i] if it is found, left unchanged otherwise
+     * @param found  receives the bitmap of keys found, bit i is bit (i % 64) of found[i / 64]
+     */
+    public void multiGet(int[] keys, double[] values, long[] found) {
+        int numberOfKeys = keys.length;
+        if (values.length < numberOfKeys || found.length < (numberOfKeys + 63) >>> 6) {
+            throw new IllegalArgumentException("Result arrays are too small for " + numberOfKeys + " keys");
+        }
+        Arrays.fill(found, 0, (numberOfKeys + 63) >>> 6, 0L);
+        if (firstLeafNode == null || numberOfKeys == 0) {
+            return;
+        }
+
+        // Sort key and index pairs packed in longs, the key in the high half keeps the signed order
+        long[] order = new long[numberOfKeys];
+        for (int i = 0; i < numberOfKeys; i++) {
+            order[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        // Path from the root to the current leaf and the exclusive upper bound of the keys under each node
+        int height = root == null ? 0 : root.getLevel();
+        InternalNode[] path = new InternalNode[height];
+        long[] upperBounds = new long[height];
+        int depth = 0;
+        LeafNode leaf = root == null ? firstLeafNode : null;
+        long leafUpperBound = Long.MAX_VALUE;
+
+        for (long entry : order) {
+            int key = (int) (entry >> 32);
+            int index = (int) entry;
+            if (leaf == null || key >= leafUpperBound) {
+                // Climb to the lowest node whose range holds the key, then descend from it
+                while (depth > 1 && key >= upperBounds[depth - 1]) {
+                    depth--;
+                }
+                if (depth == 0) {
+                    path[0] = root;
+                    upperBounds[0] = Long.MAX_VALUE;
+                    depth = 1;
+                }
+                InternalNode node = path[depth - 1];
+                long upperBound = upperBounds[depth - 1];
+                while (true) {
+                    int numberOfKeysInNode = node.getDegree() - 1;
+                    int childIndex = node.findChildIndexForKey(key, numberOfKeysInNode);
+                    if (childIndex < numberOfKeysInNode) {
+                        upperBound = node.getKey(childIndex);
+                    }
+                    if (node.getLevel() == 1) {
+                        leaf = (LeafNode) node.getChild(childIndex);
+                        leafUpperBound = upperBound;
+                        break;
                     }
+                    node = (InternalNode) node.getChild(childIndex);
+                    path[depth] = node;
+                    upperBounds[depth++] = upperBound;
                 }
-                node = node.getRightSibling();
+            }
+
+            int dataIndex = leaf.findIndexOfKeyInData(key);
+            if (dataIndex > -1) {
+                values[index] = leaf.getValue(dataIndex);
+                found[index >>> 6] |= 1L << index;
             }
         }
+    }
 
-        // Values not found write 'Null'
-        if (resultsList.isEmpty()) {
-            writer.info(NULL_VALUE);
+    /**
+     * This method aggregates the values of the keys in between lowerBound and upperBound included: their number,
+     * sum, minimum, maximum and average. It follows the Leaf Nodes holding the range and adds their values
+     * without collecting them.
+     *
+     * @param lowerBound lowerBound of the range of keys to be aggregated
+     * @param upperBound upperBound of the range of keys to be aggregated
+     * @return aggregate of the values in the range
+     */
+    public RangeAggregate aggregate(int lowerBound, int upperBound) {
+        RangeAggregate aggregate = new RangeAggregate();
+        if (firstLeafNode == null || lowerBound > upperBound) {
+            return aggregate;
+        }
+        double[] buffer = null;
+        for (LeafNode node = findLeafNode(lowerBound); node != null; node = node.getRightSibling()) {
+            buffer = addLeafNode(node, lowerBound, upperBound, aggregate, buffer);
+            if (node.getNumberOfPairs() > 0 && node.getKey(node.getNumberOfPairs() - 1) >= upperBound) {
+                break;
+            }
         }
-        // Values found write all values comma seperated eg., 1.0,2.0,3.0
-        else {
-            StringBuffer result = new StringBuffer();
-            for (int i = 0; i < resultsList.size(); i++) {
-                result.append(resultsList.get(i));
-                if (i != resultsList.size() - 1) {
-                    result.append(",");
-                }
+        return aggregate;
+    }
+
+    /**
+     * This method aggregates the values of the keys in between lowerBound and upperBound included on a
+     * fork join pool, see {@link AggregateTask}. Subtrees holding parts of the range are aggregated in parallel.
+     * The B+ Tree must not be changed until the method returns.
+     *
+     * @param lowerBound lowerBound of the range of keys to be aggregated
+     * @param upperBound upperBound of the range of keys to be aggregated
+     * @param pool       pool running the tasks
+     * @return aggregate of the values in the range
+     */
+    public RangeAggregate aggregate(int lowerBound, int upperBound, ForkJoinPool pool) {
+        if (root == null || lowerBound > upperBound) {
+            return aggregate(lowerBound, upperBound);
+        }
+        return pool.invoke(new AggregateTask(root, lowerBound, upperBound));
+    }
+
+    /**
+     * This method adds the values of a Leaf Node whose keys are in between lowerBound and upperBound included
+     * to an aggregate. The values of a compressed Leaf Node are decoded into a buffer, which is returned to be
+     * reused for the next compressed Leaf Node.
+     */
+    private double[] addLeafNode(LeafNode node, int lowerBound, int upperBound, RangeAggregate aggregate,
+                                 double[] buffer) {
+        int numberOfPairs = node.getNumberOfPairs();
+        if (numberOfPairs == 0) {
+            return buffer;
+        }
+        int from = node.getKey(0) >= lowerBound ? 0 : node.findLowerBoundIndex(lowerBound);
+        int to = node.getKey(numberOfPairs - 1) <= upperBound ? numberOfPairs : node.findUpperBoundIndex(upperBound);
+        if (from >= to) {
+            return buffer;
+        }
+        double[] values = node.values;
+        if (node.isCompressed()) {
+            if (buffer == null) {
+                buffer = new double[maximumDataInLeafNode + 1];
+            }
+            LeafCodec.decodeValues(node.packedPairs, numberOfPairs, to - 1, buffer);
+            values = buffer;
+        }
+        aggregate.add(values, from, to);
+        return buffer;
+    }
+
+    /**
+     * This method counts the key value pairs whose keys are in between lowerBound and upperBound included.
+     * The B+ Tree must be augmented, see {@link #setAugmented(boolean)}. Only the two paths from the root to the
+     * Leaf Nodes holding the bounds are visited, the subtrees in between are counted from their totals.
+     *
+     * @param lowerBound lowerBound of the range of keys to be counted
+     * @param upperBound upperBound of the range of keys to be counted
+     * @return number of key value pairs in the range
+     */
+    public long rangeCount(int lowerBound, int upperBound) {
+        checkAugmented();
+        if (firstLeafNode == null || lowerBound > upperBound) {
+            return 0;
+        }
+        return countRange(root != null ? root : firstLeafNode, lowerBound, upperBound + 1L, null);
+    }
+
+    /**
+     * This method adds up the values of the key value pairs whose keys are in between lowerBound and upperBound
+     * included. The B+ Tree must be augmented, see {@link #setAugmented(boolean)}. Only the two paths from the root
+     * to the Leaf Nodes holding the bounds are visited, the subtrees in between are added from their totals.
+     *
+     * @param lowerBound lowerBound of the range of keys to be added up
+     * @param upperBound upperBound of the range of keys to be added up
+     * @return sum of the values in the range, 0 if the range is empty
+     */
+    public double rangeSum(int lowerBound, int upperBound) {
+        checkAugmented();
+        if (firstLeafNode == null || lowerBound > upperBound) {
+            return 0;
+        }
+        double[] sum = new double[1];
+        countRange(root != null ? root : firstLeafNode, lowerBound, upperBound + 1L, sum);
+        return sum[0];
+    }
+
+    /**
+     * This method returns the rank of a key: the number of key value pairs whose keys are less than the key,
+     * which is the position of the first pair with the key in increasing order of keys if the key is present.
+     * The B+ Tree must be augmented, see {@link #setAugmented(boolean)}.
+     *
+     * @param key key to be ranked
+     * @return number of key value pairs with smaller keys
+     */
+    public long rank(int key) {
+        checkAugmented();
+        if (firstLeafNode == null) {
+            return 0;
+        }
+        return countRange(root != null ? root : firstLeafNode, Long.MIN_VALUE, key, null);
+    }
+
+    /**
+     * This method returns the key at a position in increasing order of keys, the k-th smallest key counting from 0.
+     * The B+ Tree must be augmented, see {@link #setAugmented(boolean)}. It descends from the root into the child
+     * whose subtree holds the position, skipping the pairs of the children before it.
+     *
+     * @param rank position of the key, from 0 to the number of key value pairs - 1
+     * @return key at the position
+     * @throws IndexOutOfBoundsException if rank is negative or not less than the number of key value pairs
+     */
+    public int select(long rank) {
+        checkAugmented();
+        if (firstLeafNode == null || rank < 0) {
+            throw new IndexOutOfBoundsException("rank must be between 0 and the number of pairs - 1: " + rank);
+        }
+        long remaining = rank;
+        Node node = root != null ? root : firstLeafNode;
+        while (node instanceof InternalNode) {
+            InternalNode internalNode = (InternalNode) node;
+            int childIndex = 0;
+            while (childIndex < internalNode.getDegree() - 1 && remaining >= internalNode.getChildCount(childIndex)) {
+                remaining -= internalNode.getChildCount(childIndex++);
+            }
+            node = internalNode.getChild(childIndex);
+        }
+        LeafNode leafNode = (LeafNode) node;
+        if (remaining >= leafNode.getNumberOfPairs()) {
+            throw new IndexOutOfBoundsException("rank must be between 0 and the number of pairs - 1: " + rank);
+        }
+        return leafNode.getKey((int) remaining);
+    }
+
+    /**
+     * This method counts the key value pairs below a node whose keys are at least lowerBound and less than
+     * upperBound, and adds their values to sum[0] if sum is not null. Long.MIN_VALUE and Long.MAX_VALUE leave a side
+     * of the range open.
+     * <p>
+     * Keys from lowerBound on are in the children from the one lowerBound is routed to, keys less than upperBound
+     * in the children up to the one upperBound - 1 is routed to. Children strictly in between are inside the range
+     * and counted from their totals, the two at the ends are descended into with one bound each.
+     */
+    private long countRange(Node node, long lowerBound, long upperBound, double[] sum) {
+        if (node instanceof LeafNode) {
+            LeafNode leafNode = (LeafNode) node;
+            int from = lowerBound <= Integer.MIN_VALUE ? 0 : lowerBound > Integer.MAX_VALUE
+                    ? leafNode.getNumberOfPairs() : leafNode.findLowerBoundIndex((int) lowerBound);
+            int to = upperBound > Integer.MAX_VALUE ? leafNode.getNumberOfPairs() : upperBound <= Integer.MIN_VALUE
+                    ? 0 : leafNode.findLowerBoundIndex((int) upperBound);
+            if (from >= to) {
+                return 0;
+            }
+            if (sum != null) {
+                sum[0] += leafNode.sumValues(from, to);
+            }
+            return to - from;
+        }
+        InternalNode internalNode = (InternalNode) node;
+        int first = separatorsBelow(internalNode, lowerBound);
+        int last = separatorsBelow(internalNode, upperBound);
+        if (first == last) {
+            return countRange(internalNode.getChild(first), lowerBound, upperBound, sum);
+        }
+        long count = countRange(internalNode.getChild(first), lowerBound, Long.MAX_VALUE, sum);
+        for (int i = first + 1; i < last; i++) {
+            count += internalNode.getChildCount(i);
+            if (sum != null) {
+                sum[0] += internalNode.getChildSum(i);
+            }
+        }
+        return count + countRange(internalNode.getChild(last), Long.MIN_VALUE, upperBound, sum);
+    }
+
+    /**
+     * This method returns the number of keys of an Internal Node which are less than a bound.
+     */
+    private int separatorsBelow(InternalNode node, long bound) {
+        int numberOfKeys = node.getDegree() - 1;
+        if (bound <= Integer.MIN_VALUE) {
+            return 0;
+        }
+        if (bound > Integer.MAX_VALUE) {
+            return numberOfKeys;
+        }
+        return node.findChildIndexForKey((int) (bound - 1), numberOfKeys);
+    }
+
+    /**
+     * This method checks that the B+ Tree is augmented before a query on subtree totals.
+     */
+    private void checkAugmented() {
+        if (!augmented) {
+            throw new IllegalStateException("Range counts and sums require an augmented tree");
+        }
+    }
+
+    /**
+     * This method computes the subtree totals of the ancestors of a Leaf Node again after its pairs changed:
+     * the totals of the Leaf Node from its pairs, and the totals of every Internal Node above it from those of
+     * its children.
+     *
+     * @param leafNode Leaf Node whose pairs changed
+     */
+    private void refreshAncestorTotals(LeafNode leafNode) {
+        InternalNode parent = leafNode.getParent();
+        if (parent != null) {
+            parent.refreshChildTotals(parent.findChildIndex(leafNode));
+            refreshAncestorTotals(parent);
+        }
+    }
+
+    /**
+     * This method computes the subtree totals of the ancestors of an Internal Node again from those of their
+     * children, after the totals of the Internal Node changed.
+     *
+     * @param node Internal Node whose subtree totals changed
+     */
+    private void refreshAncestorTotals(InternalNode node) {
+        for (InternalNode parent = node.getParentNode(); parent != null; node = parent, parent = node.getParentNode()) {
+            parent.refreshChildTotals(parent.findChildIndex(node));
+        }
+    }
+
+    /**
+     * This method computes the subtree totals of an Internal Node and all Internal Nodes below it from the
+     * key value pairs, or drops them if the B+ Tree is not augmented.
+     *
+     * @param node Internal Node whose subtree totals are computed
+     */
+    private void computeSubtreeTotals(InternalNode node) {
+        if (!augmented) {
+            node.childCounts = null;
+            node.childSums = null;
+        } else if (node.childCounts == null || node.childCounts.length != node.children.length) {
+            node.childCounts = new long[node.children.length];
+            node.childSums = new double[node.children.length];
+        }
+        for (int i = 0; i < node.getDegree(); i++) {
+            if (node.getLevel() > 1) {
+                computeSubtreeTotals((InternalNode) node.getChild(i));
+            }
+            node.refreshChildTotals(i);
+        }
+    }
+
+    /**
+     * This method compresses all Leaf Nodes of the B+ Tree with {@link LeafNode#compress()}.
+     * Meant for trees which are mostly read, as a Leaf Node is decompressed again when it is changed.
+     *
+     * @return number of Leaf Nodes compressed
+     */
+    public long compressLeafNodes() {
+        long compressed = 0;
+        for (LeafNode node = firstLeafNode; node != null; node = node.getRightSibling()) {
+            if (node.compress()) {
+                compressed++;
             }
-            writer.info(result.toString());
+        }
+        return compressed;
+    }
+
+    /**
+     * This method decompresses all compressed Leaf Nodes of the B+ Tree.
+     */
+    public void decompressLeafNodes() {
+        for (LeafNode node = firstLeafNode; node != null; node = node.getRightSibling()) {
+            node.decompress();
         }
     }
 
+    /**
+     * This method writes the key value pairs of the B+ Tree to an immutable snapshot file,
+     * which can be opened by read replicas with {@link MappedSnapshot#open(File)}.
+     *
+     * @param file snapshot file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void exportSnapshot(File file) throws IOException {
+        MappedSnapshot.write(this, file);
+    }
+
     /**
      * Main Method of the bplustree class. It creates B+ plus tree.
      * It reads input file to insert values to it and delete values from it.
@@ -1376,47 +3629,53 @@ public class bplustree {
     public static void main(String[] args) {
         if (args.length == 1) {
             File file = new File(args[0]);
-            BufferedReader bufferedReader = null;
-            String line = null;
             bplustree bplustree = null;
-            try {
-                bufferedReader = new BufferedReader(new FileReader(file));
+            try (CommandParser parser = new CommandParser(file)) {
                 initializeWriter();
                 // Perform an operation for each line in the input file
-                while ((line = bufferedReader.readLine()) != null) {
-                    String[] tokens = removeInBetweenWhiteSpaces(line).trim().split("\\(|,|\\)");
-                    String option = tokens[0];
-                    // Initializes an m-order B+ tree
-                    if (option.equalsIgnoreCase(INITIALIZE)) {
-                        bplustree = new bplustree(Integer.parseInt(tokens[1].trim()));
-                    }
-                    // Insert a key value pair into the B+ tree
-                    else if (option.equalsIgnoreCase(INSERT)) {
-                        bplustree.insert(Integer.parseInt(tokens[1].trim()), Double.parseDouble(tokens[2].trim()));
-                    }
-                    // Perform a search or range search operation on the B+ tree
-                    else if (option.equalsIgnoreCase(SEARCH)) {
-                        if (tokens.length == 2) {
-                            bplustree.search(Integer.parseInt(tokens[1].trim()));
-                        } else if (tokens.length == 3) {
-                            bplustree.search(Integer.parseInt(tokens[1].trim()), Integer.parseInt(tokens[2].trim()));
-                        } else {
-                            System.out.println("Invalid Search Option");
-                        }
+                while (parser.next()) {
+                    int command = parser.getCommand();
+                    if (bplustree == null && command != CommandParser.INITIALIZE) {
+                        throw new IllegalStateException("Tree is not initialized at line " + parser.getLineNumber());
                     }
-                    // Delete a key value pair from the B+ tree
-                    else if (option.equalsIgnoreCase(DELETE)) {
-                        bplustree.delete(Integer.parseInt(tokens[1].trim()));
+                    switch (command) {
+                        // Initializes an m-order B+ tree
+                        case CommandParser.INITIALIZE:
+                            bplustree = new bplustree(parser.getDegree());
+                            break;
+                        // Insert a key value pair into the B+ tree
+                        case CommandParser.INSERT:
+                            bplustree.insert(parser.getKey(), parser.getValue());
+                            break;
+                        // Perform a search or range search operation on the B+ tree
+                        case CommandParser.SEARCH:
+                            bplustree.search(parser.getKey());
+                            break;
+                        case CommandParser.RANGE_SEARCH:
+                            bplustree.search(parser.getLowerBound(), parser.getUpperBound());
+                            break;
+                        // Delete a key value pair from the B+ tree
+                        case CommandParser.DELETE:
+                            bplustree.delete(parser.getKey());
+                            break;
+                        default:
+                            break;
                     }
                 }
                 System.out.println("Output file - output_file.txt generated successfully.");
-                bufferedReader.close();
             } catch (IOException e) {
                 System.out.println("Error occured while reading input file or writing output file - " + e.getMessage());
                 e.printStackTrace();
             } catch (Exception e) {
                 System.out.println("Error occured while performing B-Plus Tree operations - " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                // Keep the results written before an error and close the output file
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.out.println("Error occured while writing output file - " + e.getMessage());
+                }
             }
         } else {
             System.out.println("usage: java bplustree <input file name>");
@@ -0,0 +1,34 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Search of the child index comparing as many keys at once as the preferred vector shape of the CPU holds.
+ * <p>
+ * Every key less than or equal to the key counts towards the index. Since the keys are sorted, the search stops
+ * at the first group of keys which does not count whole.
+ */
+public class VectorChildSearch implements ChildSearch {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int findChildIndex(int[] keys, int numberOfKeys, int key) {
+        int lanes = SPECIES.length();
+        int index = 0;
+        int i = 0;
+        for (; i <= numberOfKeys - lanes; i += lanes) {
+            int count = IntVector.fromArray(SPECIES, keys, i).compare(VectorOperators.LE, key).trueCount();
+            index += count;
+            if (count < lanes) {
+                return index;
+            }
+        }
+        if (i < numberOfKeys) {
+            // Lanes past the last key read as zero, the mask keeps them from counting
+            VectorMask<Integer> mask = SPECIES.indexInRange(i, numberOfKeys);
+            index += IntVector.fromArray(SPECIES, keys, i, mask).compare(VectorOperators.LE, key, mask).trueCount();
+        }
+        return index;
+    }
+}